@@ -0,0 +1,104 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 运行JMH基准并以JSON输出结果；指定bench.baseline时与基线逐项对比，退化超过bench.threshold(百分比)时以非0退出
+ * <p>
+ * 参数(-D)：bench.include 基准名正则；bench.result 结果文件；bench.baseline 基线结果文件；bench.threshold 允许退化百分比；bench.forks fork次数
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("bench.include", ".*");
+        String result = System.getProperty("bench.result", "target/jmh-result.json");
+        String baseline = System.getProperty("bench.baseline");
+        double threshold = Double.parseDouble(System.getProperty("bench.threshold", "10"));
+        int forks = Integer.parseInt(System.getProperty("bench.forks", "1"));
+
+        File resultFile = new File(result);
+        if(resultFile.getParentFile() != null) {
+            resultFile.getParentFile().mkdirs();
+        }
+        Options options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackage().getName() + ".*" + include)
+                .forks(forks)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getAbsolutePath())
+                .build();
+        new Runner(options).run();
+        System.out.println("benchmark result: " + resultFile.getAbsolutePath());
+
+        if(StringUtils.isNotBlank(baseline)) {
+            List<String> regressions = compare(read(new File(baseline)), read(resultFile), threshold);
+            if(!regressions.isEmpty()) {
+                System.err.println("benchmark regressions over " + threshold + "%:");
+                regressions.forEach(System.err::println);
+                System.exit(1);
+            }
+            System.out.println("no regression over " + threshold + "% against " + baseline);
+        }
+    }
+
+    /**
+     * 吞吐类模式(thrpt)分数越高越好，其余模式(avgt/sample/ss)越低越好；基线中不存在的基准不参与比较
+     */
+    static List<String> compare(Map<String, JsonNode> baseline, Map<String, JsonNode> current, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            if(base == null) {
+                continue;
+            }
+            double before = base.path("primaryMetric").path("score").asDouble();
+            double after = entry.getValue().path("primaryMetric").path("score").asDouble();
+            if(before <= 0) {
+                continue;
+            }
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+            double change = (after - before) / before * 100;
+            double regression = higherIsBetter ? -change : change;
+            String line = String.format("%-90s %12.3f -> %12.3f %s (%+.1f%%)", entry.getKey(), before, after,
+                    entry.getValue().path("primaryMetric").path("scoreUnit").asText(), change);
+            System.out.println(line);
+            if(regression > threshold) {
+                regressions.add(line);
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new HashMap<>();
+        for (JsonNode node : JacksonUtils.MAPPER.readTree(file)) {
+            results.put(key(node), node);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode node) {
+        StringBuilder key = new StringBuilder(node.path("benchmark").asText()).append(':').append(node.path("mode").asText());
+        Map<String, String> params = new TreeMap<>();
+        node.path("params").fields().forEachRemaining(e -> params.put(e.getKey(), e.getValue().asText()));
+        params.forEach((k, v) -> key.append(',').append(k).append('=').append(v));
+        return key.toString();
+    }
+}
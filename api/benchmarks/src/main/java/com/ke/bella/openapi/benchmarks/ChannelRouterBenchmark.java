@@ -0,0 +1,131 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.util.ReflectionUtils;
+
+import com.ke.bella.openapi.apikey.ApikeyInfo;
+import com.ke.bella.openapi.common.EntityConstants;
+import com.ke.bella.openapi.protocol.AdaptorManager;
+import com.ke.bella.openapi.protocol.ChannelRouter;
+import com.ke.bella.openapi.protocol.completion.OpenAIAdaptor;
+import com.ke.bella.openapi.protocol.metrics.MetricsManager;
+import com.ke.bella.openapi.protocol.route.ChannelLoadStats;
+import com.ke.bella.openapi.service.ChannelService;
+import com.ke.bella.openapi.service.ModelService;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * 渠道路由：协议、可见性、安全等级、可用性过滤及优先级选择；缓存与redis由内存桩替代，只测路由本身的CPU开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChannelRouterBenchmark {
+    private static final String ENDPOINT = "/v1/chat/completions";
+    private static final String MODEL = "gpt-4o";
+    private static final String[] DESTINATIONS = { EntityConstants.PROTECTED, EntityConstants.INNER, EntityConstants.MAINLAND,
+            EntityConstants.OVERSEAS };
+    private static final String[] PRIORITIES = { EntityConstants.HIGH, EntityConstants.NORMAL, EntityConstants.LOW };
+
+    @Param({ "4", "32" })
+    public int channels;
+
+    private ChannelRouter router;
+    private ChannelLoadStats channelLoadStats;
+    private ApikeyInfo apikey;
+
+    @Setup
+    public void setup() {
+        AdaptorManager.getInstance().register(ENDPOINT, new OpenAIAdaptor());
+
+        List<ChannelDB> actives = new ArrayList<>(channels);
+        Set<String> unavailable = new HashSet<>();
+        for (int i = 0; i < channels; i++) {
+            ChannelDB channel = new ChannelDB();
+            channel.setChannelCode("ch-bench-" + i);
+            channel.setEntityType(EntityConstants.MODEL);
+            channel.setEntityCode(MODEL);
+            channel.setProtocol(i % 8 == 7 ? "UnknownAdaptor" : "OpenAIAdaptor");
+            channel.setVisibility(i % 10 == 9 ? EntityConstants.PRIVATE : EntityConstants.PUBLIC);
+            channel.setOwnerType("org");
+            channel.setOwnerCode(i % 2 == 0 ? "1000" : "2000");
+            channel.setDataDestination(DESTINATIONS[i % DESTINATIONS.length]);
+            channel.setPriority(PRIORITIES[i % PRIORITIES.length]);
+            channel.setTrialEnabled((byte) 0);
+            channel.setUrl("https://api.example.com/v1/chat/completions");
+            actives.add(channel);
+            if(i % 5 == 4) {
+                unavailable.add(channel.getChannelCode());
+            }
+        }
+
+        router = new ChannelRouter();
+        inject(router, "channelService", new ChannelService() {
+            @Override
+            public List<ChannelDB> listActives(String entityType, String entityCode) {
+                return actives;
+            }
+        });
+        inject(router, "modelService", new ModelService() {
+            @Override
+            public String fetchTerminalModelName(String modelName) {
+                return modelName;
+            }
+        });
+        inject(router, "metricsManager", new MetricsManager() {
+            @Override
+            public Set<String> getAllUnavailableChannels(List<String> channelCodes) {
+                Set<String> result = new HashSet<>();
+                for (String code : channelCodes) {
+                    if(unavailable.contains(code)) {
+                        result.add(code);
+                    }
+                }
+                return result;
+            }
+        });
+        channelLoadStats = new ChannelLoadStats();
+        inject(router, "channelLoadStats", channelLoadStats);
+        router.initSelector();
+
+        apikey = new ApikeyInfo();
+        apikey.setOwnerType("org");
+        apikey.setOwnerCode("1000");
+        apikey.setSafetyLevel((byte) 40);
+    }
+
+    // 路由会占用渠道的在途计数，立即释放以免达到自适应限额
+    @Benchmark
+    public ChannelDB route() {
+        ChannelDB channel = router.route(ENDPOINT, MODEL, apikey, false);
+        channelLoadStats.complete(channel.getChannelCode(), 0, false);
+        return channel;
+    }
+
+    @Benchmark
+    public ChannelDB routeDirect() {
+        ChannelDB channel = router.route(ENDPOINT, MODEL, apikey, false, true);
+        channelLoadStats.complete(channel.getChannelCode(), 0, false);
+        return channel;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,157 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import com.ke.bella.openapi.protocol.route.ChannelLoadStats;
+import com.ke.bella.openapi.protocol.route.ChannelSelector;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * 渠道选择策略的离散事件仿真：若干异构渠道（首包延迟不同、并发容量不同，超出容量的请求排队），
+ * 泊松到达的请求分别按random与p2c策略分配，对比端到端首包延迟的分位数。不发起网络请求，使用虚拟时钟
+ * <p>
+ * 参数(-D)：sim.requests 请求数；sim.rps 到达速率；sim.seed 随机种子
+ */
+public class ChannelSelectionSimulation {
+
+    /**
+     * 名称、平均首包延迟(ms)、并发容量
+     */
+    private static final Object[][] CHANNELS = {
+            { "ch-a", 200, 32 },
+            { "ch-b", 200, 32 },
+            { "ch-slow", 600, 32 },
+            { "ch-small", 200, 8 },
+    };
+    private static final double SIGMA = 0.5;
+
+    public static void main(String[] args) {
+        int requests = Integer.parseInt(System.getProperty("sim.requests", "200000"));
+        double rps = Double.parseDouble(System.getProperty("sim.rps", "150"));
+        long seed = Long.parseLong(System.getProperty("sim.seed", "42"));
+
+        System.out.printf("channels=%s, rps=%.0f, requests=%d%n", Arrays.deepToString(CHANNELS), rps, requests);
+        System.out.printf("%-8s %10s %10s %10s %10s %10s   %s%n", "policy", "mean", "p50", "p90", "p99", "p99.9", "share");
+        for (String policy : new String[] { "random", "p2c" }) {
+            Result result = run(policy, requests, rps, seed);
+            System.out.printf("%-8s %10.1f %10d %10d %10d %10d   %s%n", policy, result.mean(), result.percentile(0.5),
+                    result.percentile(0.9), result.percentile(0.99), result.percentile(0.999), Arrays.toString(result.share()));
+        }
+    }
+
+    static Result run(String policy, int requests, double rps, long seed) {
+        Random random = new Random(seed);
+        ChannelLoadStats stats = new ChannelLoadStats();
+        ChannelSelector selector = ChannelSelector.of(policy, stats);
+        List<ChannelDB> candidates = new ArrayList<>();
+        SimChannel[] channels = new SimChannel[CHANNELS.length];
+        for (int i = 0; i < CHANNELS.length; i++) {
+            ChannelDB channel = new ChannelDB();
+            channel.setChannelCode((String) CHANNELS[i][0]);
+            channel.setChannelInfo("{}");
+            candidates.add(channel);
+            channels[i] = new SimChannel(i, (String) CHANNELS[i][0], (Integer) CHANNELS[i][1], (Integer) CHANNELS[i][2]);
+        }
+
+        PriorityQueue<double[]> completions = new PriorityQueue<>((x, y) -> Double.compare(x[0], y[0]));
+        long[] latencies = new long[requests];
+        int[] counts = new int[channels.length];
+        double now = 0;
+        double nextArrival = 0;
+        int arrived = 0;
+        int completed = 0;
+        while (completed < requests) {
+            if(arrived < requests && (completions.isEmpty() || nextArrival <= completions.peek()[0])) {
+                now = nextArrival;
+                ChannelDB chosen = selector.select(candidates);
+                stats.acquire(chosen.getChannelCode());
+                SimChannel channel = channels[candidates.indexOf(chosen)];
+                counts[channel.index]++;
+                channel.submit(now, random, completions);
+                arrived++;
+                nextArrival = now - Math.log(1 - random.nextDouble()) * 1000 / rps;
+            } else {
+                double[] event = completions.poll();
+                now = event[0];
+                SimChannel channel = channels[(int) event[1]];
+                long latency = Math.round(now - event[2]);
+                latencies[completed++] = latency;
+                stats.complete(channel.code, latency, false);
+                channel.finish(now, random, completions);
+            }
+        }
+        return new Result(latencies, counts);
+    }
+
+    private static class SimChannel {
+        final int index;
+        final String code;
+        final double meanMillis;
+        final int capacity;
+        final Deque<Double> waiting = new ArrayDeque<>();
+        int busy;
+
+        SimChannel(int index, String code, double meanMillis, int capacity) {
+            this.index = index;
+            this.code = code;
+            this.meanMillis = meanMillis;
+            this.capacity = capacity;
+        }
+
+        void submit(double now, Random random, PriorityQueue<double[]> completions) {
+            if(busy < capacity) {
+                busy++;
+                completions.add(new double[] { now + serviceMillis(random), index, now });
+            } else {
+                waiting.add(now);
+            }
+        }
+
+        void finish(double now, Random random, PriorityQueue<double[]> completions) {
+            Double arrival = waiting.poll();
+            if(arrival == null) {
+                busy--;
+            } else {
+                completions.add(new double[] { now + serviceMillis(random), index, arrival });
+            }
+        }
+
+        // 对数正态分布，均值为meanMillis
+        double serviceMillis(Random random) {
+            return meanMillis * Math.exp(SIGMA * random.nextGaussian() - SIGMA * SIGMA / 2);
+        }
+    }
+
+    static class Result {
+        private final long[] sorted;
+        private final int[] counts;
+
+        Result(long[] latencies, int[] counts) {
+            this.sorted = latencies.clone();
+            Arrays.sort(this.sorted);
+            this.counts = counts;
+        }
+
+        double mean() {
+            return Arrays.stream(sorted).average().orElse(0);
+        }
+
+        long percentile(double p) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+
+        String[] share() {
+            String[] share = new String[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                share[i] = CHANNELS[i][0] + "=" + String.format("%.1f%%", counts[i] * 100.0 / sorted.length);
+            }
+            return share;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+import com.ke.bella.openapi.protocol.cost.CostCalculator;
+import com.ke.bella.openapi.protocol.cost.CostDetails;
+import com.ke.bella.openapi.protocol.embedding.EmbeddingResponse;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 每条请求日志的计费：priceInfo解析、分段价格匹配与usage换算
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CostCalculatorBenchmark {
+    private static final String COMPLETION_PRICE = "{\"unit\":\"分/千token\",\"batchDiscount\":0.5,\"tiers\":["
+            + "{\"inputRangePrice\":{\"minToken\":0,\"maxToken\":32000,\"input\":0.8,\"output\":2.0,\"cachedRead\":0.2},"
+            + "\"outputRangePrices\":[{\"minToken\":0,\"maxToken\":4000,\"input\":0.8,\"output\":2.0},{\"minToken\":4000,\"maxToken\":2147483647,\"input\":0.8,\"output\":8.0}]},"
+            + "{\"inputRangePrice\":{\"minToken\":32000,\"maxToken\":2147483647,\"input\":1.2,\"output\":4.0,\"cachedRead\":0.3}}]}";
+    private static final String EMBEDDING_PRICE = "{\"input\":0.05,\"unit\":\"分/千token\"}";
+
+    private CompletionResponse.TokenUsage completionUsage;
+    private Object completionUsageMap;
+    private EmbeddingResponse.TokenUsage embeddingUsage;
+
+    @Setup
+    public void setup() {
+        String usage = "{\"prompt_tokens\":1532,\"completion_tokens\":187,\"total_tokens\":1719,\"prompt_tokens_details\":{\"cached_tokens\":1024}}";
+        completionUsage = JacksonUtils.deserialize(usage, CompletionResponse.TokenUsage.class);
+        completionUsageMap = JacksonUtils.toMap(usage);
+        embeddingUsage = new EmbeddingResponse.TokenUsage();
+        embeddingUsage.setPrompt_tokens(512);
+        embeddingUsage.setTotal_tokens(512);
+    }
+
+    @Benchmark
+    public CostDetails completion() {
+        return CostCalculator.calculate("/v1/chat/completions", COMPLETION_PRICE, completionUsage);
+    }
+
+    @Benchmark
+    public CostDetails completionFromLogMap() {
+        return CostCalculator.calculate("/v1/chat/completions", COMPLETION_PRICE, completionUsageMap);
+    }
+
+    @Benchmark
+    public CostDetails embedding() {
+        return CostCalculator.calculate("/v1/embeddings", EMBEDDING_PRICE, embeddingUsage);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+import com.ke.bella.openapi.utils.GroovyExecutor;
+
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+
+/**
+ * 自定义计费脚本执行（CostLogHandler在日志disruptor单线程上调用）：
+ * legacy为原实现（共享Script实例+setBinding），compiled为每次新建脚本实例，formula为算术快速路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CostScriptBenchmark {
+    private static final String FORMULA = "price.input * usage.prompt_tokens / 1000 + price.output * usage.completion_tokens / 1000";
+    private static final String SCRIPT = "def input = usage.prompt_tokens * price.input\n"
+            + "def output = usage.completion_tokens * price.output\n"
+            + "return (input + output) / 1000";
+
+    private Map<String, Object> params;
+    private Script legacyFormula;
+    private Script legacyScript;
+
+    @Setup
+    public void setup() {
+        CompletionResponse.TokenUsage usage = new CompletionResponse.TokenUsage();
+        usage.setPrompt_tokens(1532);
+        usage.setCompletion_tokens(187);
+        usage.setTotal_tokens(1719);
+        Map<String, Object> price = new HashMap<>();
+        price.put("input", 0.8);
+        price.put("output", 2.0);
+        params = new HashMap<>();
+        params.put("price", price);
+        params.put("usage", usage);
+        GroovyShell shell = new GroovyShell();
+        legacyFormula = shell.parse(FORMULA);
+        legacyScript = shell.parse(SCRIPT);
+    }
+
+    @Benchmark
+    public Object legacyFormula() {
+        return runLegacy(legacyFormula);
+    }
+
+    @Benchmark
+    public Object legacyScript() {
+        return runLegacy(legacyScript);
+    }
+
+    @Benchmark
+    public Object formula() {
+        return GroovyExecutor.executeScript(FORMULA, params);
+    }
+
+    @Benchmark
+    public Object compiledScript() {
+        return GroovyExecutor.executeScript(SCRIPT, params);
+    }
+
+    private Object runLegacy(Script script) {
+        Binding binding = new Binding();
+        params.forEach(binding::setVariable);
+        script.setBinding(binding);
+        return script.run();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import org.apache.commons.io.IOUtils;
+
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 基准输入样本，取自线上典型请求形态(多轮对话、工具调用、多模态)
+ */
+public class Fixtures {
+    public static final String COMPLETION_REQUEST = "fixtures/completion-request.json";
+    public static final String MESSAGE_REQUEST = "fixtures/message-request.json";
+    public static final String MESSAGE_RESPONSE = "fixtures/message-response.json";
+    public static final String STREAM_CHUNK = "fixtures/stream-chunk.json";
+
+    public static String text(String resource) {
+        try (InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if(in == null) {
+                throw new IllegalStateException("fixture not found: " + resource);
+            }
+            return IOUtils.toString(in, "UTF-8");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static <T> T load(String resource, Class<T> clazz) {
+        return JacksonUtils.deserialize(text(resource), clazz);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.ke.bella.openapi.db.IDGenerator;
+
+/**
+ * 64线程争用下的ID生成吞吐：legacy为原实现（每次新建SimpleDateFormat + String.format，回绕走synchronized）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+public class IdGeneratorBenchmark {
+    private static final String SPACE_CODE = "space-benchmark";
+
+    private IDGenerator generator;
+    private LegacyIDGenerator legacy;
+
+    @Setup
+    public void setup() {
+        IDGenerator.setInstanceId(1L);
+        generator = new IDGenerator("job-");
+        legacy = new LegacyIDGenerator("job-", "0001");
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacy.generateWithSpaceCodeHash(SPACE_CODE);
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generateWithSpaceCodeHash(SPACE_CODE);
+    }
+
+    private static class LegacyIDGenerator {
+        private static final int MAX_COUNT = (int) 1e7;
+        private final String prefix;
+        private final String instanceId;
+        private final String serialFormat = "%06d";
+        private final int serialMask = 1000000;
+        private final AtomicInteger serialCounter = new AtomicInteger(0);
+
+        LegacyIDGenerator(String prefix, String instanceId) {
+            this.prefix = prefix;
+            this.instanceId = instanceId;
+        }
+
+        String generateWithSpaceCodeHash(String spaceCode) {
+            String now = new SimpleDateFormat(IDGenerator.DATE_PATTERN).format(new Date());
+            String serial = nextTick();
+            String spaceCodeHash = String.valueOf(Math.abs(IDGenerator.hashCode(spaceCode)));
+            return String.format("%s%s%s%s-%s", prefix, now, instanceId, serial, spaceCodeHash);
+        }
+
+        private String nextTick() {
+            int val = serialCounter.incrementAndGet();
+            if(val >= MAX_COUNT) {
+                synchronized(serialCounter) {
+                    val = serialCounter.get();
+                    if(val >= MAX_COUNT) {
+                        serialCounter.set(0);
+                    }
+                }
+                val = serialCounter.incrementAndGet();
+            }
+            return String.format(this.serialFormat, val % this.serialMask);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ke.bella.openapi.protocol.completion.CompletionRequest;
+import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 请求解析与流式分包序列化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JacksonBenchmark {
+    private String requestJson;
+    private CompletionRequest request;
+    private String chunkJson;
+    private StreamCompletionResponse chunk;
+
+    @Setup
+    public void setup() {
+        requestJson = Fixtures.text(Fixtures.COMPLETION_REQUEST);
+        request = JacksonUtils.deserialize(requestJson, CompletionRequest.class);
+        chunkJson = Fixtures.text(Fixtures.STREAM_CHUNK);
+        chunk = JacksonUtils.deserialize(chunkJson, StreamCompletionResponse.class);
+    }
+
+    @Benchmark
+    public CompletionRequest deserializeCompletionRequest() {
+        return JacksonUtils.deserialize(requestJson, CompletionRequest.class);
+    }
+
+    @Benchmark
+    public byte[] serializeCompletionRequest() {
+        return JacksonUtils.toByte(request);
+    }
+
+    @Benchmark
+    public StreamCompletionResponse deserializeStreamChunk() {
+        return JacksonUtils.deserialize(chunkJson, StreamCompletionResponse.class);
+    }
+
+    @Benchmark
+    public String serializeStreamChunk() {
+        return JacksonUtils.serialize(chunk);
+    }
+}
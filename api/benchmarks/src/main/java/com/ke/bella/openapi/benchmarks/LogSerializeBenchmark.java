@@ -0,0 +1,95 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.beans.BeanUtils;
+
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.db.log.ConsoleLogRepo;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 日志落盘线程上ConsoleLogRepo的限长序列化：legacy为原实现（完整序列化+getBytes测长+去掉request/response后再序列化），
+ * bounded为单遍限长序列化；请求体为含base64图片的多模态对话，大小由requestBytes指定
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LogSerializeBenchmark {
+    private static final int MAX_LOG_SIZE_BYTES = 64 * 1024;
+
+    @Param({ "1048576", "10485760" })
+    private int requestBytes;
+
+    private EndpointProcessData log;
+    private ConsoleLogRepo repo;
+
+    @Setup
+    public void setup() throws Exception {
+        char[] image = new char[requestBytes];
+        Arrays.fill(image, 'A');
+        List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("role", i % 2 == 0 ? "user" : "assistant");
+            message.put("content", "第" + i + "轮对话内容，用于模拟多轮上下文。");
+            messages.add(message);
+        }
+        Map<String, Object> imageUrl = new HashMap<>();
+        imageUrl.put("url", "data:image/png;base64," + new String(image));
+        Map<String, Object> imagePart = new HashMap<>();
+        imagePart.put("type", "image_url");
+        imagePart.put("image_url", imageUrl);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("role", "user");
+        message.put("content", Arrays.asList(imagePart));
+        messages.add(message);
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("model", "gpt-4o");
+        request.put("messages", messages);
+
+        log = new EndpointProcessData();
+        log.setRequestId("req-benchmark");
+        log.setEndpoint("/v1/chat/completions");
+        log.setModel("gpt-4o");
+        log.setRequest(request);
+
+        repo = new ConsoleLogRepo();
+        Field field = ConsoleLogRepo.class.getDeclaredField("maxLogSizeBytes");
+        field.setAccessible(true);
+        field.set(repo, MAX_LOG_SIZE_BYTES);
+    }
+
+    @Benchmark
+    public String legacy() {
+        String serialized = JacksonUtils.serialize(log);
+        if(serialized.getBytes().length > MAX_LOG_SIZE_BYTES) {
+            EndpointProcessData reducedLog = new EndpointProcessData();
+            BeanUtils.copyProperties(log, reducedLog);
+            reducedLog.setRequest("[REMOVED: Log size exceeded " + MAX_LOG_SIZE_BYTES + " bytes]");
+            reducedLog.setResponse(null);
+            serialized = JacksonUtils.serialize(reducedLog);
+        }
+        return serialized;
+    }
+
+    @Benchmark
+    public String bounded() {
+        return repo.serializeBounded(log);
+    }
+}
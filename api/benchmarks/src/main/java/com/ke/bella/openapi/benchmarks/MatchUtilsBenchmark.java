@@ -0,0 +1,34 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.ke.bella.openapi.utils.MatchUtils;
+
+/**
+ * 每个请求在计费、指标、日志处理器选择时都会多次做endpoint通配匹配
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MatchUtilsBenchmark {
+    @Param({ "/v1/chat/completions", "/v1/audio/asr/flash", "/v1/ocr/general" })
+    public String url;
+
+    @Benchmark
+    public boolean matchHit() {
+        return MatchUtils.matchUrl("/v*/chat/completions", url);
+    }
+
+    @Benchmark
+    public boolean matchWildcardTail() {
+        return MatchUtils.matchUrl("/v*/ocr/*", url);
+    }
+}
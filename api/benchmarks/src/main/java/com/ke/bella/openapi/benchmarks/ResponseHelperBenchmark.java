@@ -0,0 +1,60 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ke.bella.openapi.protocol.completion.Message;
+import com.ke.bella.openapi.protocol.completion.ResponseHelper;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 流式响应逐delta拼接为完整消息(思考、正文、工具调用参数)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseHelperBenchmark {
+    @Param({ "100", "1000" })
+    public int deltas;
+
+    private List<Message> stream;
+
+    @Setup
+    public void setup() {
+        stream = new ArrayList<>(deltas);
+        int reasoning = deltas / 4;
+        int toolArguments = deltas / 4;
+        int content = deltas - reasoning - toolArguments - 1;
+        for (int i = 0; i < reasoning; i++) {
+            stream.add(JacksonUtils.deserialize("{\"role\":\"assistant\",\"reasoning_content\":\"用户想对比两个小区的学区\"}", Message.class));
+        }
+        for (int i = 0; i < content; i++) {
+            stream.add(JacksonUtils.deserialize("{\"role\":\"assistant\",\"content\":\"华清嘉园对口中关村一小，\"}", Message.class));
+        }
+        stream.add(JacksonUtils.deserialize("{\"role\":\"assistant\",\"tool_calls\":[{\"index\":0,\"id\":\"call_001\",\"type\":\"function\","
+                + "\"function\":{\"name\":\"community_profile\",\"arguments\":\"\"}}]}", Message.class));
+        for (int i = 0; i < toolArguments; i++) {
+            stream.add(JacksonUtils.deserialize("{\"role\":\"assistant\",\"tool_calls\":[{\"index\":0,"
+                    + "\"function\":{\"arguments\":\"{\\\"community\\\": \\\"华清\"}}]}", Message.class));
+        }
+    }
+
+    @Benchmark
+    public Message combineMessage() {
+        Message target = null;
+        for (Message delta : stream) {
+            target = ResponseHelper.combineMessage(target, delta);
+        }
+        return target;
+    }
+}
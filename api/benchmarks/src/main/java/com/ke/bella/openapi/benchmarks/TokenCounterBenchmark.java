@@ -0,0 +1,45 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.ke.bella.openapi.utils.TokenCounter;
+
+/**
+ * 上游未返回usage时按文本估算token
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenCounterBenchmark {
+    @Param({ "1", "50" })
+    public int repeat;
+
+    @Param({ "CL100K_BASE", "O200K_BASE" })
+    public EncodingType encodingType;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < repeat; i++) {
+            sb.append(Fixtures.text(Fixtures.COMPLETION_REQUEST));
+        }
+        text = sb.toString();
+    }
+
+    @Benchmark
+    public int tokenCount() {
+        return TokenCounter.tokenCount(text, encodingType);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
+import com.ke.bella.openapi.simulation.FunctionCallContentBuffer;
+import com.ke.bella.openapi.simulation.FunctionCallListener;
+import com.ke.bella.openapi.simulation.PythonFuncCallListener;
+import com.ke.bella.openapi.simulation.PythonFuncCallParser;
+import com.ke.bella.openapi.simulation.SimulationHepler;
+
+/**
+ * 长tool call流的function call模拟解析（ToolCallSimulatorCallback对每个流式请求调用）：
+ * legacy为原实现（FunctionCallContentBuffer + 单独的解析线程阻塞读取 + 递归下降解析器），incremental为在回调线程上逐段feed增量解析
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@SuppressWarnings("deprecation")
+public class ToolCallParseBenchmark {
+    private static final int CALLS = 2000;
+    private static final int DELTA_CHARS = 4;
+
+    private List<StreamCompletionResponse> deltas;
+    private ExecutorService parserThread;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("```python\n");
+        for (int i = 0; i < CALLS; i++) {
+            sb.append("tool_").append(i).append("(query=\"question number ").append(i)
+                    .append("\", filters={\"tags\": ['a', 'b', 'c'], \"page\": ").append(i)
+                    .append("}, strict=False)\n");
+        }
+        String text = sb.append("```").toString();
+        deltas = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += DELTA_CHARS) {
+            deltas.add(StreamCompletionResponse.builder()
+                    .id("chatcmpl-bench")
+                    .model("bench-model")
+                    .choices(StreamCompletionResponse.assistantMessageChoice(text.substring(i, Math.min(text.length(), i + DELTA_CHARS))))
+                    .build());
+        }
+        parserThread = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        parserThread.shutdownNow();
+    }
+
+    @Benchmark
+    public int legacy() throws Exception {
+        FunctionCallContentBuffer buffer = new FunctionCallContentBuffer();
+        EventCounter counter = new EventCounter();
+        Future<?> parsing = parserThread.submit(() -> new LegacyPythonFuncCallParser(buffer, new PythonFuncCallListener(counter)).parse());
+        for (StreamCompletionResponse delta : deltas) {
+            buffer.append(delta);
+        }
+        buffer.finish();
+        parsing.get();
+        return counter.events;
+    }
+
+    @Benchmark
+    public int incremental() {
+        EventCounter counter = new EventCounter();
+        PythonFuncCallParser parser = SimulationHepler.streamParser(counter);
+        for (StreamCompletionResponse delta : deltas) {
+            parser.feed(delta.content());
+        }
+        parser.finish();
+        return counter.events;
+    }
+
+    private static class EventCounter implements FunctionCallListener {
+        int events;
+
+        @Override
+        public void onMessage(StreamCompletionResponse msg) {
+            events++;
+        }
+    }
+}
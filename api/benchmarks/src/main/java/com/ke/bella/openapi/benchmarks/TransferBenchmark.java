@@ -0,0 +1,78 @@
+package com.ke.bella.openapi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ke.bella.openapi.protocol.completion.CompletionRequest;
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
+import com.ke.bella.openapi.protocol.message.MessageRequest;
+import com.ke.bella.openapi.protocol.message.MessageResponse;
+import com.ke.bella.openapi.protocol.message.StreamMessageResponse;
+import com.ke.bella.openapi.protocol.message.TransferFromCompletionsUtils;
+import com.ke.bella.openapi.protocol.message.TransferToCompletionsUtils;
+
+/**
+ * /v1/messages与/v1/chat/completions之间的请求、响应及流式分包转换
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransferBenchmark {
+    private MessageRequest messageRequest;
+    private MessageResponse messageResponse;
+    private CompletionRequest completionRequest;
+    private CompletionResponse completionResponse;
+    private StreamCompletionResponse streamChunk;
+    private StreamMessageResponse streamMessage;
+
+    @Setup
+    public void setup() {
+        messageRequest = Fixtures.load(Fixtures.MESSAGE_REQUEST, MessageRequest.class);
+        messageResponse = Fixtures.load(Fixtures.MESSAGE_RESPONSE, MessageResponse.class);
+        completionRequest = Fixtures.load(Fixtures.COMPLETION_REQUEST, CompletionRequest.class);
+        completionResponse = TransferToCompletionsUtils.convertResponse(messageResponse);
+        streamChunk = Fixtures.load(Fixtures.STREAM_CHUNK, StreamCompletionResponse.class);
+        List<StreamMessageResponse> converted = TransferFromCompletionsUtils.convertStreamResponse(streamChunk, false, 0);
+        streamMessage = converted.get(converted.size() - 1);
+    }
+
+    @Benchmark
+    public CompletionRequest messageRequestToCompletion() {
+        return TransferFromCompletionsUtils.convertRequest(messageRequest, false);
+    }
+
+    @Benchmark
+    public MessageResponse completionResponseToMessage() {
+        return TransferFromCompletionsUtils.convertResponse(completionResponse, "claude-sonnet-4");
+    }
+
+    @Benchmark
+    public List<StreamMessageResponse> streamChunkToMessage() {
+        return TransferFromCompletionsUtils.convertStreamResponse(streamChunk, false, 0);
+    }
+
+    @Benchmark
+    public MessageRequest completionRequestToMessage() {
+        return TransferToCompletionsUtils.convertRequest(completionRequest);
+    }
+
+    @Benchmark
+    public CompletionResponse messageResponseToCompletion() {
+        return TransferToCompletionsUtils.convertResponse(messageResponse);
+    }
+
+    @Benchmark
+    public StreamCompletionResponse streamMessageToCompletion() {
+        return TransferToCompletionsUtils.convertStreamResponse(streamMessage, "gpt-4o", "chatcmpl-bench-001", new AtomicInteger(), null);
+    }
+}
@@ -0,0 +1,216 @@
+package com.ke.bella.openapi.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ke.bella.openapi.utils.DateTimeUtils;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * 网关压测入口：固定并发闭环压测mock渠道，输出各能力点吞吐、时延分位(含流式首包)与网关分配速率，
+ * 报告按版本写入 ${loadtest.reportDir}/loadtest-${version}.json，便于逐版本对比
+ */
+@Slf4j
+public class GatewayLoadTest {
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final String ALLOCATED_METRIC = "/actuator/metrics/jvm.gc.memory.allocated";
+
+    private final LoadTestConfig config;
+    private final OkHttpClient client;
+    private final AtomicInteger seq = new AtomicInteger();
+
+    public GatewayLoadTest(LoadTestConfig config) {
+        this.config = config;
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getConcurrency());
+        dispatcher.setMaxRequestsPerHost(config.getConcurrency());
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(config.getConcurrency(), 5, TimeUnit.MINUTES))
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(5, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        GatewayLoadTest loadTest = new GatewayLoadTest(config);
+        try {
+            Map<String, Object> report = loadTest.run();
+            File dir = new File(config.getReportDir());
+            if(!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("无法创建报告目录: " + dir);
+            }
+            File file = new File(dir, "loadtest-" + config.getVersion() + ".json");
+            JacksonUtils.MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, report);
+            log.info("压测报告已写入: {}\n{}", file.getAbsolutePath(), JacksonUtils.serialize(report));
+        } finally {
+            loadTest.client.dispatcher().executorService().shutdown();
+            loadTest.client.connectionPool().evictAll();
+        }
+    }
+
+    public Map<String, Object> run() throws InterruptedException {
+        log.info("预热{}s, 并发: {}, 场景: {}", config.getWarmupSeconds(), config.getConcurrency(), config.getMix());
+        runPhase(config.getWarmupSeconds(), new Random(config.getSeed() - 1), newRecorders());
+
+        Map<Scenario, LatencyRecorder> recorders = newRecorders();
+        long allocatedBefore = gatewayAllocatedBytes();
+        long start = System.nanoTime();
+        runPhase(config.getDurationSeconds(), new Random(config.getSeed()), recorders);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocatedAfter = gatewayAllocatedBytes();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("version", config.getVersion());
+        report.put("timestamp", DateTimeUtils.getCurrentMills());
+        report.put("baseUrl", config.getBaseUrl());
+        report.put("concurrency", config.getConcurrency());
+        report.put("durationSeconds", seconds);
+        report.put("seed", config.getSeed());
+        report.put("mix", config.getMix());
+        report.put("mockHeaders", config.getMockHeaders());
+        int total = 0;
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        for (Map.Entry<Scenario, LatencyRecorder> entry : recorders.entrySet()) {
+            Map<String, Object> summary = entry.getValue().summary(seconds);
+            total += (Integer) summary.get("requests");
+            scenarios.put(entry.getKey().name(), summary);
+        }
+        report.put("throughput", total / seconds);
+        report.put("scenarios", scenarios);
+        if(allocatedBefore >= 0 && allocatedAfter >= 0) {
+            long allocated = allocatedAfter - allocatedBefore;
+            report.put("gatewayAllocatedBytes", allocated);
+            report.put("gatewayAllocationRateMBps", allocated / seconds / 1024 / 1024);
+            report.put("gatewayAllocatedBytesPerRequest", total > 0 ? allocated / total : 0);
+        }
+        return report;
+    }
+
+    private Map<Scenario, LatencyRecorder> newRecorders() {
+        Map<Scenario, LatencyRecorder> recorders = new EnumMap<>(Scenario.class);
+        config.getMix().keySet().forEach(scenario -> recorders.put(scenario, new LatencyRecorder()));
+        return recorders;
+    }
+
+    /**
+     * 闭环压测：始终保持concurrency个在途请求，到期后等待在途请求结束
+     */
+    private void runPhase(int seconds, Random random, Map<Scenario, LatencyRecorder> recorders) throws InterruptedException {
+        if(seconds <= 0) {
+            return;
+        }
+        List<Scenario> wheel = new ArrayList<>();
+        config.getMix().forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(scenario);
+            }
+        });
+        Semaphore permits = new Semaphore(config.getConcurrency());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < deadline) {
+            if(!permits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+            Scenario scenario = wheel.get(random.nextInt(wheel.size()));
+            send(scenario, recorders.get(scenario), permits);
+        }
+        if(!permits.tryAcquire(config.getConcurrency(), 5, TimeUnit.MINUTES)) {
+            log.warn("等待在途请求结束超时");
+        }
+    }
+
+    private void send(Scenario scenario, LatencyRecorder recorder, Semaphore permits) {
+        Request.Builder builder = new Request.Builder()
+                .url(config.getBaseUrl() + scenario.getPath())
+                .header("Authorization", "Bearer " + config.getApikey())
+                .header("X-BELLA-MOCK-REQUEST", "true")
+                .post(RequestBody.create(JSON, JacksonUtils.toByte(scenario.body(config, seq.incrementAndGet()))));
+        config.getMockHeaders().forEach(builder::header);
+        long start = System.nanoTime();
+        client.newCall(builder.build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                recorder.error();
+                permits.release();
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if(!response.isSuccessful() || body == null) {
+                        recorder.error();
+                        return;
+                    }
+                    long ttft = -1;
+                    boolean failed;
+                    if(scenario.isStream()) {
+                        failed = false;
+                        BufferedSource source = body.source();
+                        String line;
+                        while ((line = source.readUtf8Line()) != null) {
+                            if(ttft < 0 && line.startsWith("data:")) {
+                                ttft = (System.nanoTime() - start) / 1000;
+                            }
+                            if(line.startsWith("data:") && line.contains("\"error\"")) {
+                                failed = true;
+                            }
+                        }
+                    } else {
+                        failed = body.bytes().length == 0;
+                    }
+                    if(failed) {
+                        recorder.error();
+                    } else {
+                        recorder.record((System.nanoTime() - start) / 1000, ttft);
+                    }
+                } catch (Exception e) {
+                    recorder.error();
+                } finally {
+                    permits.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * 网关进程累计分配字节数(micrometer jvm.gc.memory.allocated)，不可用时返回-1
+     */
+    private long gatewayAllocatedBytes() {
+        Request request = new Request.Builder().url(config.getBaseUrl() + ALLOCATED_METRIC).get().build();
+        try (Response response = client.newCall(request).execute()) {
+            if(!response.isSuccessful() || response.body() == null) {
+                return -1;
+            }
+            JsonNode node = JacksonUtils.deserialize(response.body().string());
+            return node.path("measurements").path(0).path("value").asLong(-1);
+        } catch (IOException e) {
+            log.warn("获取网关分配指标失败: {}", e.getMessage());
+            return -1;
+        }
+    }
+}
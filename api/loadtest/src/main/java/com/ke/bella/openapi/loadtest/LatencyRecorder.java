@@ -0,0 +1,65 @@
+package com.ke.bella.openapi.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单场景的时延记录(微秒)，结束后排序计算分位数
+ */
+public class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private long[] ttfts = new long[1024];
+    private int count;
+    private int ttftCount;
+    private int errors;
+
+    public synchronized void record(long latencyMicros, long ttftMicros) {
+        if(count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyMicros;
+        if(ttftMicros >= 0) {
+            if(ttftCount == ttfts.length) {
+                ttfts = Arrays.copyOf(ttfts, ttftCount * 2);
+            }
+            ttfts[ttftCount++] = ttftMicros;
+        }
+    }
+
+    public synchronized void error() {
+        errors++;
+    }
+
+    public synchronized Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("errors", errors);
+        summary.put("throughput", seconds > 0 ? count / seconds : 0);
+        summary.put("latencyMs", percentiles(latencies, count));
+        if(ttftCount > 0) {
+            summary.put("ttftMs", percentiles(ttfts, ttftCount));
+        }
+        return summary;
+    }
+
+    private static Map<String, Double> percentiles(long[] values, int size) {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        Map<String, Double> result = new LinkedHashMap<>();
+        result.put("p50", percentile(sorted, 0.50));
+        result.put("p90", percentile(sorted, 0.90));
+        result.put("p99", percentile(sorted, 0.99));
+        result.put("p999", percentile(sorted, 0.999));
+        result.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0);
+        return result;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if(sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000.0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ke.bella.openapi.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import lombok.Data;
+
+/**
+ * 压测参数，均通过-Dloadtest.xxx传入，相同参数与seed下请求序列可复现
+ */
+@Data
+public class LoadTestConfig {
+    private String baseUrl;
+    private String apikey;
+    private String model;
+    private String embeddingModel;
+    private int concurrency;
+    private int warmupSeconds;
+    private int durationSeconds;
+    private long seed;
+    /**
+     * 场景权重，如 chat:4,chat_stream:3,embedding:1,message:1,message_stream:1
+     */
+    private Map<Scenario, Integer> mix;
+    /**
+     * 透传给mock渠道的X-BELLA-MOCK-*请求头
+     */
+    private Map<String, String> mockHeaders;
+    private String version;
+    private String reportDir;
+
+    public static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig();
+        config.baseUrl = StringUtils.removeEnd(prop("baseUrl", "http://localhost:8080"), "/");
+        config.apikey = prop("apikey", "");
+        config.model = prop("model", "gpt-4o");
+        config.embeddingModel = prop("embeddingModel", "text-embedding-3-small");
+        config.concurrency = Integer.parseInt(prop("concurrency", "200"));
+        config.warmupSeconds = Integer.parseInt(prop("warmup", "10"));
+        config.durationSeconds = Integer.parseInt(prop("duration", "60"));
+        config.seed = Long.parseLong(prop("seed", "20240101"));
+        config.mix = parseMix(prop("mix", "chat:4,chat_stream:3,embedding:1,message:1,message_stream:1"));
+        config.version = prop("version", "dev");
+        config.reportDir = prop("reportDir", "target/loadtest");
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("X-BELLA-MOCK-TTFT", prop("ttft", "200"));
+        headers.put("X-BELLA-MOCK-TTLT", prop("ttlt", "2000"));
+        headers.put("X-BELLA-MOCK-INTERVAL", prop("interval", "50"));
+        headers.put("X-BELLA-MOCK-DISTRIBUTION", prop("distribution", "fixed"));
+        headers.put("X-BELLA-MOCK-JITTER", prop("jitter", "20"));
+        headers.put("X-BELLA-MOCK-ERROR-RATE", prop("errorRate", "0"));
+        config.mockHeaders = headers;
+        return config;
+    }
+
+    private static Map<Scenario, Integer> parseMix(String mix) {
+        Map<Scenario, Integer> weights = new LinkedHashMap<>();
+        for (String item : StringUtils.split(mix, ',')) {
+            String[] kv = StringUtils.split(item.trim(), ':');
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if(weight > 0) {
+                weights.put(Scenario.valueOf(kv[0].trim()), weight);
+            }
+        }
+        if(weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix不能为空");
+        }
+        return weights;
+    }
+
+    private static String prop(String key, String defaultValue) {
+        return System.getProperty("loadtest." + key, defaultValue);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ke.bella.openapi.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 压测场景：每个场景对应一个能力点的请求形态
+ */
+@Getter
+@AllArgsConstructor
+public enum Scenario {
+    chat("/v1/chat/completions", false),
+    chat_stream("/v1/chat/completions", true),
+    embedding("/v1/embeddings", false),
+    message("/v1/messages", false),
+    message_stream("/v1/messages", true),
+    ;
+
+    private final String path;
+    private final boolean stream;
+
+    public Map<String, Object> body(LoadTestConfig config, int seq) {
+        Map<String, Object> body = new HashMap<>();
+        String prompt = "load test request " + seq + ", please answer briefly.";
+        switch (this) {
+        case embedding:
+            body.put("model", config.getEmbeddingModel());
+            body.put("input", Lists.newArrayList(prompt, prompt + " (batch)"));
+            return body;
+        case message:
+        case message_stream:
+            body.put("max_tokens", 1024);
+            break;
+        default:
+            break;
+        }
+        body.put("model", config.getModel());
+        body.put("stream", stream);
+        body.put("messages", Lists.newArrayList(ImmutableMap.of("role", "user", "content", prompt)));
+        return body;
+    }
+}
@@ -20,7 +20,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Slf4j
@@ -89,6 +89,36 @@ public class EndpointProcessData {
     private CostDetails costDetails;
     private boolean overrideInnerLog;
     private String clientIp;
+    /**
+     * 响应由网关响应缓存返回，未请求上游
+     */
+    private boolean cacheHit;
+    /**
+     * 响应缓存键，非空表示本次请求的成功响应需要写入缓存
+     */
+    @JsonIgnore
+    private String responseCacheKey;
+    /**
+     * 本实例路由时占用了在途数的渠道（租约），请求日志处理时据此释放；sdk上报的日志不携带
+     */
+    @JsonIgnore
+    private String inflightChannelCode;
+    /**
+     * 对冲落选后被取消的请求：上游报错由取消引起，日志处理时只释放在途数，不计入渠道指标
+     */
+    @JsonIgnore
+    private boolean cancelled;
+
+    /**
+     * 同一请求多次转发（如对冲请求）时，为每次转发复制一份独立的处理数据，避免互相覆盖渠道、响应和指标
+     */
+    public EndpointProcessData copy() {
+        return this.toBuilder()
+                .metrics(new HashMap<>())
+                .response(null)
+                .usage(null)
+                .build();
+    }
 
     public void setApikeyInfo(ApikeyInfo ak) {
         this.setApikey(ak.getApikey());
@@ -36,6 +36,11 @@ public class RequestMetrics {
     private Integer embeddingTokens;
 
     // ========== 通用信息 ==========
+    /**
+     * RequestSizeChecker估计的请求大小（字节），超过阈值时为下界
+     */
+    private Integer requestSize;
+
     /**
      * 编码类型
      */
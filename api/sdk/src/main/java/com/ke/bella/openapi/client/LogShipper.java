@@ -0,0 +1,267 @@
+package com.ke.bella.openapi.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步批量日志上报：内存有界队列 + 按条数/时间攒批 + gzip + 失败重试，重试耗尽后落盘，待后续上报成功时补发。
+ * 每个批次带批次id，重试和补发时不变，服务端据此去重，请求已写入但响应丢失时不会重复记录
+ */
+@Slf4j
+public class LogShipper implements Closeable {
+    public static final String BATCH_ID_HEADER = "X-BELLA-LOG-BATCH-ID";
+    private static final String SPILL_PREFIX = "bella-log-";
+    private static final String SPILL_SUFFIX = ".json.gz";
+    // 落盘文件名中批次id前的分隔符
+    private static final char BATCH_ID_SEPARATOR = '_';
+
+    private final OpenapiClient client;
+    private final Config config;
+    private final BlockingQueue<EndpointProcessData> queue;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicLong spillSeq = new AtomicLong();
+    private final AtomicLong shipped = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private volatile boolean closed;
+
+    public LogShipper(OpenapiClient client, Config config) {
+        this.client = client;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("bella-log-shipper-%d").setDaemon(true).build());
+        this.executor.scheduleWithFixedDelay(this::flushQuietly, config.getFlushIntervalMillis(), config.getFlushIntervalMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 入队，不阻塞调用方；队列已满时丢弃并计数
+     */
+    public boolean offer(EndpointProcessData processData) {
+        if(closed || !queue.offer(processData)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if(queue.size() >= config.getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+        return true;
+    }
+
+    public long getShipped() {
+        return shipped.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        executor.shutdown();
+        try {
+            if(!executor.awaitTermination(config.getCloseTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        // 关闭前把剩余日志尽量发完，发不出去的落盘
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            log.warn("log shipper flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private synchronized void flush() {
+        boolean shippedAny = false;
+        List<EndpointProcessData> batch = new ArrayList<>(config.getBatchSize());
+        while (queue.drainTo(batch, config.getBatchSize()) > 0) {
+            byte[] body = gzip(batch);
+            String batchId = UUID.randomUUID().toString();
+            if(sendWithRetry(body, batchId)) {
+                shipped.addAndGet(batch.size());
+                shippedAny = true;
+            } else {
+                spill(body, batchId, batch.size());
+            }
+            batch.clear();
+        }
+        if(shippedAny) {
+            resendSpilled();
+        }
+    }
+
+    private boolean sendWithRetry(byte[] body, String batchId) {
+        long backoff = config.getRetryBackoffMillis();
+        for (int attempt = 0; attempt <= config.getMaxRetries(); attempt++) {
+            try {
+                client.postLogBatch(body, batchId);
+                return true;
+            } catch (Exception e) {
+                log.warn("log shipper send failed, attempt: {}, error: {}", attempt + 1, e.getMessage());
+            }
+            if(attempt < config.getMaxRetries() && !closed) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, config.getMaxRetryBackoffMillis());
+            }
+        }
+        return false;
+    }
+
+    private void spill(byte[] body, String batchId, int count) {
+        File dir = config.getSpillDir();
+        if(dir == null) {
+            dropped.addAndGet(count);
+            log.warn("log shipper dropped {} logs, spill dir not configured", count);
+            return;
+        }
+        try {
+            if(!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("can not create spill dir: " + dir);
+            }
+            if(spillSize(dir) + body.length > config.getMaxSpillBytes()) {
+                dropped.addAndGet(count);
+                log.warn("log shipper dropped {} logs, spill dir is full", count);
+                return;
+            }
+            File file = new File(dir, SPILL_PREFIX + System.currentTimeMillis() + "-" + spillSeq.incrementAndGet() + BATCH_ID_SEPARATOR + batchId
+                    + SPILL_SUFFIX);
+            Files.write(file.toPath(), body);
+            spilled.addAndGet(count);
+        } catch (IOException e) {
+            dropped.addAndGet(count);
+            log.warn("log shipper spill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void resendSpilled() {
+        File[] files = listSpilled(config.getSpillDir());
+        if(files.length == 0) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            try {
+                client.postLogBatch(Files.readAllBytes(file.toPath()), batchId(file.getName()));
+            } catch (Exception e) {
+                log.warn("log shipper resend {} failed: {}", file.getName(), e.getMessage());
+                return;
+            }
+            if(!file.delete()) {
+                log.warn("log shipper can not delete spilled file: {}", file.getName());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 落盘文件名中的批次id，旧版本落盘的文件没有批次id，补发时不去重
+     */
+    static String batchId(String fileName) {
+        int start = fileName.indexOf(BATCH_ID_SEPARATOR);
+        return start < 0 ? null : fileName.substring(start + 1, fileName.length() - SPILL_SUFFIX.length());
+    }
+
+    private static long spillSize(File dir) {
+        long size = 0;
+        for (File file : listSpilled(dir)) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private static File[] listSpilled(File dir) {
+        if(dir == null) {
+            return new File[0];
+        }
+        File[] files = dir.listFiles((d, name) -> name.startsWith(SPILL_PREFIX) && name.endsWith(SPILL_SUFFIX));
+        return files == null ? new File[0] : files;
+    }
+
+    static byte[] gzip(List<EndpointProcessData> batch) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            JacksonUtils.MAPPER.writeValue(gzip, batch);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    @Data
+    @Builder
+    public static class Config {
+        @Builder.Default
+        private int queueCapacity = 10000;
+        @Builder.Default
+        private int batchSize = 200;
+        @Builder.Default
+        private long flushIntervalMillis = 1000;
+        @Builder.Default
+        private int maxRetries = 3;
+        @Builder.Default
+        private long retryBackoffMillis = 200;
+        @Builder.Default
+        private long maxRetryBackoffMillis = 5000;
+        @Builder.Default
+        private long closeTimeoutMillis = 5000;
+        /**
+         * 重试耗尽后的落盘目录，为空时直接丢弃
+         */
+        private File spillDir;
+        @Builder.Default
+        private long maxSpillBytes = 256L * 1024 * 1024;
+    }
+}
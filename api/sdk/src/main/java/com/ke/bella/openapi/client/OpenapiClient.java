@@ -1,5 +1,7 @@
 package com.ke.bella.openapi.client;
 
+import java.io.Closeable;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -25,9 +27,11 @@ import okhttp3.MediaType;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 
-public class OpenapiClient {
+public class OpenapiClient implements Closeable {
     private final String openapiHost;
     private final String serviceAk;
+    private volatile LogShipper logShipper;
+    private volatile RouteCache routeCache;
 
     private Cache<String, ApikeyInfo> cache = CacheBuilder.newBuilder()
             .expireAfterAccess(10, TimeUnit.MINUTES)
@@ -112,6 +116,28 @@ public class OpenapiClient {
 
     public RouteResult route(String endpoint, String model, Integer queueMode, String userApikey) {
         Assert.hasText(serviceAk, "serviceAk is null");
+        RouteCache cache = routeCache;
+        if(cache != null) {
+            return cache.route(endpoint, model, queueMode, userApikey);
+        }
+        return requestRoute(endpoint, model, queueMode, userApikey);
+    }
+
+    /**
+     * 开启路由缓存，之后route和getChannelByQueue优先使用本地缓存结果
+     */
+    public synchronized void enableRouteCache(RouteCache.Config config) {
+        if(routeCache != null) {
+            routeCache.close();
+        }
+        routeCache = new RouteCache(this, config);
+    }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    RouteResult requestRoute(String endpoint, String model, Integer queueMode, String userApikey) {
         String url = openapiHost + "/v1/route";
         RouteRequest routeRequest = RouteRequest.builder().apikey(userApikey)
                 .endpoint(endpoint).model(model).queueMode(queueMode).build();
@@ -148,6 +174,97 @@ public class OpenapiClient {
         return bellaResp.getData();
     }
 
+    /**
+     * 批量同步上报日志
+     */
+    public Integer log(List<EndpointProcessData> processDatas) {
+        processDatas.forEach(this::checkLog);
+        return postLogBatch(LogShipper.gzip(processDatas), null);
+    }
+
+    /**
+     * 异步上报日志，由LogShipper攒批后调用/v1/log/batch，不阻塞调用方
+     *
+     * @return 队列已满被丢弃时返回false
+     */
+    public boolean logAsync(EndpointProcessData processData) {
+        checkLog(processData);
+        return getLogShipper().offer(processData);
+    }
+
+    public synchronized void configureLogShipper(LogShipper.Config config) {
+        if(logShipper != null) {
+            logShipper.close();
+        }
+        logShipper = new LogShipper(this, config);
+    }
+
+    public LogShipper getLogShipper() {
+        if(logShipper == null) {
+            synchronized (this) {
+                if(logShipper == null) {
+                    logShipper = new LogShipper(this, LogShipper.Config.builder().build());
+                }
+            }
+        }
+        return logShipper;
+    }
+
+    Long requestRouteVersion() {
+        String url = openapiHost + "/v1/route/version";
+        Request request = new Request.Builder()
+                .url(url)
+                .addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + serviceAk)
+                .get()
+                .build();
+        BellaResponse<Long> bellaResp = HttpUtils.httpRequest(request, new TypeReference<BellaResponse<Long>>() {
+        });
+        if(bellaResp.getCode() != 200) {
+            throw BellaException.fromResponse(bellaResp.getCode(), bellaResp.getMessage());
+        }
+        return bellaResp.getData();
+    }
+
+    /**
+     * @param batchId 批次id，重试时不变，服务端据此去重；为空时不去重
+     */
+    Integer postLogBatch(byte[] gzipBody, String batchId) {
+        String url = openapiHost + "/v1/log/batch";
+        Request.Builder builder = new Request.Builder()
+                .url(url)
+                .addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + serviceAk)
+                .addHeader(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .post(RequestBody.create(gzipBody, MediaType.parse("application/json")));
+        if(batchId != null) {
+            builder.addHeader(LogShipper.BATCH_ID_HEADER, batchId);
+        }
+        Request request = builder.build();
+        BellaResponse<Integer> bellaResp = HttpUtils.httpRequest(request, new TypeReference<BellaResponse<Integer>>() {
+        });
+        if(bellaResp.getCode() != 200) {
+            throw BellaException.fromResponse(bellaResp.getCode(), bellaResp.getMessage());
+        }
+        return bellaResp.getData();
+    }
+
+    private void checkLog(EndpointProcessData processData) {
+        Assert.hasText(serviceAk, "serviceAk is null");
+        Assert.hasText(processData.getEndpoint(), "endpoint can not be null");
+        Assert.hasText(processData.getAkSha(), "akSha can not be null");
+        Assert.hasText(processData.getBellaTraceId(), "bella trace id can not be null");
+        processData.setInnerLog(false);
+    }
+
+    @Override
+    public void close() {
+        if(logShipper != null) {
+            logShipper.close();
+        }
+        if(routeCache != null) {
+            routeCache.close();
+        }
+    }
+
     @Deprecated
     public RouteResult route(String endpoint, String model, Integer queueMode, String userApikey, String consoleApikey) {
         String url = openapiHost + "/v1/route";
@@ -169,6 +286,14 @@ public class OpenapiClient {
     public Channel getChannelByQueue(String queueName) {
         Assert.hasText(serviceAk, "serviceAk is null");
         Assert.hasText(queueName, "queueName can not be null");
+        RouteCache cache = routeCache;
+        if(cache != null) {
+            return cache.getChannelByQueue(queueName);
+        }
+        return requestChannelByQueue(queueName);
+    }
+
+    Channel requestChannelByQueue(String queueName) {
         String url = openapiHost + "/console/channels/" + queueName;
         Request request = new Request.Builder()
                 .url(url)
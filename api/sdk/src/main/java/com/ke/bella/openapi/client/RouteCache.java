@@ -0,0 +1,129 @@
+package com.ke.bella.openapi.client;
+
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.metadata.Channel;
+import com.ke.bella.openapi.protocol.route.RouteResult;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * sdk侧路由缓存：写入refreshInterval后访问触发后台刷新（期间返回旧值），刷新失败时旧值最多保留至expire，
+ * 同时轮询服务端路由版本号，渠道变更或渠道被标记为不可用时整体失效。
+ * 渠道恢复、并发饱和等服务端路由检查的变化不体现在版本号中，依赖较短的refreshInterval跟进
+ */
+@Slf4j
+public class RouteCache implements Closeable {
+    private final OpenapiClient client;
+    private final ScheduledExecutorService executor;
+    private final LoadingCache<RouteKey, Optional<RouteResult>> routes;
+    private final LoadingCache<String, Optional<Channel>> queueChannels;
+    private volatile Long version;
+
+    public RouteCache(OpenapiClient client, Config config) {
+        this.client = client;
+        this.executor = Executors.newScheduledThreadPool(config.getRefreshThreads(),
+                new ThreadFactoryBuilder().setNameFormat("bella-route-cache-%d").setDaemon(true).build());
+        this.routes = CacheBuilder.newBuilder()
+                .refreshAfterWrite(config.getRefreshIntervalMillis(), TimeUnit.MILLISECONDS)
+                .expireAfterWrite(config.getExpireMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(config.getMaximumSize())
+                .build(CacheLoader.asyncReloading(CacheLoader.from(
+                        (RouteKey key) -> Optional.ofNullable(
+                                client.requestRoute(key.getEndpoint(), key.getModel(), key.getQueueMode(), key.getApikey()))),
+                        executor));
+        this.queueChannels = CacheBuilder.newBuilder()
+                .refreshAfterWrite(config.getRefreshIntervalMillis(), TimeUnit.MILLISECONDS)
+                .expireAfterWrite(config.getExpireMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(config.getMaximumSize())
+                .build(CacheLoader.asyncReloading(CacheLoader.from(
+                        (String queueName) -> Optional.ofNullable(client.requestChannelByQueue(queueName))), executor));
+        if(config.getVersionCheckIntervalMillis() > 0) {
+            executor.scheduleWithFixedDelay(this::checkVersion, config.getVersionCheckIntervalMillis(),
+                    config.getVersionCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public RouteResult route(String endpoint, String model, Integer queueMode, String apikey) {
+        try {
+            return routes.get(new RouteKey(endpoint, model, queueMode, apikey)).orElse(null);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw BellaException.fromException(e);
+        }
+    }
+
+    public Channel getChannelByQueue(String queueName) {
+        try {
+            return queueChannels.get(queueName).orElse(null);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw BellaException.fromException(e);
+        }
+    }
+
+    public void invalidateAll() {
+        routes.invalidateAll();
+        queueChannels.invalidateAll();
+    }
+
+    private void checkVersion() {
+        try {
+            Long latest = client.requestRouteVersion();
+            if(latest != null && version != null && !Objects.equals(latest, version)) {
+                log.info("route version changed: {} -> {}, invalidate route cache", version, latest);
+                invalidateAll();
+            }
+            version = latest;
+        } catch (Exception e) {
+            log.warn("route version check failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Value
+    private static class RouteKey {
+        String endpoint;
+        String model;
+        Integer queueMode;
+        String apikey;
+    }
+
+    @Data
+    @Builder
+    public static class Config {
+        /**
+         * 软过期时间，服务端路由检查（渠道恢复、并发饱和）的变化最迟在此之后生效，不宜过长
+         */
+        @Builder.Default
+        private long refreshIntervalMillis = 1000;
+        /**
+         * 网关不可用时旧路由结果的最长保留时间
+         */
+        @Builder.Default
+        private long expireMillis = 60000;
+        @Builder.Default
+        private long versionCheckIntervalMillis = 2000;
+        @Builder.Default
+        private long maximumSize = 10000;
+        @Builder.Default
+        private int refreshThreads = 2;
+    }
+}
@@ -11,4 +11,12 @@ import java.util.List;
 @AllArgsConstructor
 public class ApiKeyChangeEvent {
     private List<String> akCodes;
+    /**
+     * 变更前的sha：重置ak会改变sha，提交后重新查询只能得到新sha，旧sha的缓存需按写入前的值清理
+     */
+    private List<String> akShas;
+
+    public ApiKeyChangeEvent(List<String> akCodes) {
+        this.akCodes = akCodes;
+    }
 }
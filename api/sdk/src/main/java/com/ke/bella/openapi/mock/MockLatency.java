@@ -0,0 +1,94 @@
+package com.ke.bella.openapi.mock;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import com.ke.bella.openapi.common.exception.BizParamCheckException;
+
+import lombok.Getter;
+
+/**
+ * mock上游的时延与错误分布，由X-BELLA-MOCK-*请求头驱动：
+ * X-BELLA-MOCK-TTFT/TTLT/INTERVAL 为基准时延(ms)；
+ * X-BELLA-MOCK-DISTRIBUTION 为 fixed(默认)/uniform/exponential，uniform按X-BELLA-MOCK-JITTER(百分比，默认20)上下浮动，exponential以基准时延为均值；
+ * X-BELLA-MOCK-ERROR-RATE 为请求失败的百分比
+ */
+@Getter
+public class MockLatency {
+    public static final String DISTRIBUTION_HEADER = "X-BELLA-MOCK-DISTRIBUTION";
+    public static final String JITTER_HEADER = "X-BELLA-MOCK-JITTER";
+    public static final String ERROR_RATE_HEADER = "X-BELLA-MOCK-ERROR-RATE";
+
+    public enum Distribution {
+        fixed, uniform, exponential
+    }
+
+    private final int ttft;
+    private final int ttlt;
+    private final int interval;
+    private final Distribution distribution;
+    private final double jitter;
+    private final double errorRate;
+
+    public MockLatency(int ttft, int ttlt, int interval, Distribution distribution, double jitter, double errorRate) {
+        this.ttft = ttft;
+        this.ttlt = ttlt;
+        this.interval = interval;
+        this.distribution = distribution;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+    }
+
+    public static MockLatency fixed(int ttft, int ttlt, int interval) {
+        return new MockLatency(ttft, ttlt, interval, Distribution.fixed, 0, 0);
+    }
+
+    public static MockLatency from(Map<String, String> headers, int ttft, int ttlt, int interval) {
+        Distribution distribution = Distribution.fixed;
+        String name = headers.get(DISTRIBUTION_HEADER);
+        if(StringUtils.isNotBlank(name)) {
+            try {
+                distribution = Distribution.valueOf(name.trim().toLowerCase());
+            } catch (IllegalArgumentException e) {
+                throw new BizParamCheckException("不支持的mock时延分布: " + name);
+            }
+        }
+        double jitter = NumberUtils.toDouble(headers.get(JITTER_HEADER), 20) / 100;
+        double errorRate = NumberUtils.toDouble(headers.get(ERROR_RATE_HEADER), 0) / 100;
+        return new MockLatency(ttft, ttlt, interval, distribution, Math.max(0, Math.min(1, jitter)), Math.max(0, Math.min(1, errorRate)));
+    }
+
+    public long nextTtft() {
+        return sample(ttft);
+    }
+
+    public long nextTtlt() {
+        return sample(ttlt);
+    }
+
+    public long nextInterval() {
+        return sample(interval);
+    }
+
+    public boolean nextFailure() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    private long sample(int base) {
+        if(base <= 0) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (distribution) {
+        case uniform:
+            return Math.max(0, Math.round(base * (1 + jitter * (2 * random.nextDouble() - 1))));
+        case exponential:
+            return Math.round(-base * Math.log(1 - random.nextDouble()));
+        default:
+            return base;
+        }
+    }
+}
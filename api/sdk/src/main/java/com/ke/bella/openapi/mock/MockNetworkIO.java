@@ -1,49 +1,101 @@
 package com.ke.bella.openapi.mock;
 
-import lombok.AllArgsConstructor;
-
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ke.bella.openapi.common.exception.BellaException;
 
-@AllArgsConstructor
+/**
+ * mock网络IO：所有mock流共用一个定时调度器，按时延分布定时推送分包，不为每个流占用线程
+ */
 public class MockNetworkIO {
+    private static final ScheduledExecutorService SHARED_SCHEDULER = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            new ThreadFactoryBuilder().setNameFormat("bella-mock-io-%d").setDaemon(true).build());
+
+    private final ScheduledExecutorService scheduler;
+
+    public MockNetworkIO() {
+        this(SHARED_SCHEDULER);
+    }
 
-    private ExecutorService executorService;
+    public MockNetworkIO(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
 
-    public <T> T httpRequest(T response, int ttlt) {
+    /**
+     * 非流式请求在调用线程上等待ttlt后返回
+     */
+    public <T> T httpRequest(T response, MockLatency latency) {
         try {
-            Thread.sleep(ttlt);
+            Thread.sleep(latency.nextTtlt());
         } catch (InterruptedException ignore) {
             Thread.currentThread().interrupt();
         }
+        if(latency.nextFailure()) {
+            throw mockError();
+        }
         return response;
     }
 
-    public void sseRequest(MockSseWriter writer, List<?> chunks, int ttft, int interval) {
-        Runnable runnable = () -> {
+    public void sseRequest(MockSseWriter writer, List<?> chunks, MockLatency latency) {
+        // 失败位置：-1表示建连失败，否则在对应分包处中断
+        int failAt = latency.nextFailure() ? ThreadLocalRandom.current().nextInt(-1, chunks.size()) : Integer.MAX_VALUE;
+        scheduler.execute(new SseTask(writer, chunks, latency, failAt));
+    }
+
+    private static BellaException mockError() {
+        return new BellaException.ChannelException(503, "Service Unavailable", "mock upstream error");
+    }
+
+    private class SseTask implements Runnable {
+        private final MockSseWriter writer;
+        private final List<?> chunks;
+        private final MockLatency latency;
+        private final int failAt;
+        private int index = -1;
+
+        SseTask(MockSseWriter writer, List<?> chunks, MockLatency latency, int failAt) {
+            this.writer = writer;
+            this.chunks = chunks;
+            this.latency = latency;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void run() {
             try {
-                writer.onOpen();
-                try {
-                    Thread.sleep(ttft);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                if(index == failAt) {
+                    writer.onError(mockError());
+                    return;
+                }
+                if(index < 0) {
+                    writer.onOpen();
+                    index = 0;
+                    schedule(latency.nextTtft());
+                    return;
                 }
-                for (int i = 0; i < chunks.size(); i++) {
-                    writer.onWrite(chunks.get(i));
-                    if(i != chunks.size() - 1) {
-                        try {
-                            Thread.sleep(interval);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    }
+                writer.onWrite(chunks.get(index++));
+                if(index < chunks.size()) {
+                    schedule(latency.nextInterval());
+                } else {
+                    writer.onCompletion();
                 }
             } catch (Exception e) {
                 writer.onError(e);
-            } finally {
+            }
+        }
+
+        private void schedule(long delayMillis) {
+            if(index >= chunks.size()) {
                 writer.onCompletion();
+                return;
             }
-        };
-        executorService.submit(runnable);
+            scheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+        }
     }
 }
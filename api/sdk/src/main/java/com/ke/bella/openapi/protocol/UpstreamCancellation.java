@@ -0,0 +1,77 @@
+package com.ke.bella.openapi.protocol;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 上游请求取消句柄：绑定到当前线程后，HttpUtils在该线程发起的请求（EventSource/Call）会注册到句柄上，
+ * 调用cancel即可中断上游连接；在注册前已取消的，注册时立即取消
+ */
+@Slf4j
+public class UpstreamCancellation {
+    private static final ThreadLocal<UpstreamCancellation> current = new ThreadLocal<>();
+
+    private final List<Runnable> cancellers = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    public static UpstreamCancellation bind() {
+        return bind(new UpstreamCancellation());
+    }
+
+    public static UpstreamCancellation bind(UpstreamCancellation cancellation) {
+        current.set(cancellation);
+        return cancellation;
+    }
+
+    public static void unbind() {
+        current.remove();
+    }
+
+    /**
+     * 当前线程已绑定的句柄，没有则返回null
+     */
+    public static UpstreamCancellation current() {
+        return current.get();
+    }
+
+    /**
+     * 当前线程已绑定的句柄，没有则绑定一个新的
+     */
+    public static UpstreamCancellation currentOrBind() {
+        UpstreamCancellation cancellation = current.get();
+        return cancellation != null ? cancellation : bind();
+    }
+
+    public static void register(Runnable canceller) {
+        UpstreamCancellation cancellation = current.get();
+        if(cancellation != null) {
+            cancellation.add(canceller);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        cancellers.forEach(UpstreamCancellation::runQuietly);
+    }
+
+    private void add(Runnable canceller) {
+        cancellers.add(canceller);
+        if(cancelled) {
+            runQuietly(canceller);
+        }
+    }
+
+    private static void runQuietly(Runnable canceller) {
+        try {
+            canceller.run();
+        } catch (Exception e) {
+            log.warn("cancel upstream request failed: {}", e.getMessage());
+        }
+    }
+}
@@ -23,6 +23,8 @@ public class CompletionProperty implements IProtocolProperty {
     Integer defaultMaxToken;
     String deployName;
     AuthorizationProperty auth;
+    Double routeWeight;
+    Integer routeMaxConcurrency;
 
     @Override
     public Map<String, String> description() {
@@ -38,6 +40,8 @@ public class CompletionProperty implements IProtocolProperty {
         map.put("defaultMaxToken", "默认最大输出token");
         map.put("deployName", "部署名称/模型名称");
         map.put("auth", "鉴权配置");
+        map.put("routeWeight", "负载选择权重（默认1，越大同等负载下越优先）");
+        map.put("routeMaxConcurrency", "单实例在途请求上限（负载选择时使用，不配置则不限）");
         return map;
     }
 }
@@ -10,6 +10,8 @@ public class LarkProperty extends DocParseProperty {
     private String clientSecret;
     private String uploadDirToken;
     private String cloudDirToken;
+    private long maxImageBytes = 10 * 1024 * 1024;
+    private int imageTimeoutSeconds = 120;
 
     @Override
     public Map<String, String> description() {
@@ -18,6 +20,8 @@ public class LarkProperty extends DocParseProperty {
         map.put("clientSecret", "clientSecret");
         map.put("uploadDirToken", "上传文档目录token");
         map.put("cloudDirToken", "云文档目录token");
+        map.put("maxImageBytes", "单张图片大小上限（字节），超过则不返回图片内容");
+        map.put("imageTimeoutSeconds", "图片下载总超时（秒）");
         return map;
     }
 }
@@ -11,6 +11,10 @@ import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
 
 import lombok.Getter;
 
+/**
+ * @deprecated 需要单独的解析线程阻塞读取，请改用{@link SimulationHepler#streamParser(FunctionCallListener)}逐段推送
+ */
+@Deprecated
 public class FunctionCallContentBuffer extends Reader {
     private StringBuilder sb = new StringBuilder();
     private int position = 0;
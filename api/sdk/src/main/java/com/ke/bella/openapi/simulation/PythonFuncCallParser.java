@@ -2,452 +2,549 @@ package com.ke.bella.openapi.simulation;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.CharBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.LockSupport;
 
+/**
+ * 增量解析模型输出的python函数调用代码块，由调用方推送内容（feed），每个字符只处理一次，解析状态在两次推送之间保留，
+ * 不需要额外的解析线程；函数名、参数、directly_response内容在完整后立即回调listener
+ */
 public class PythonFuncCallParser {
-    private final Reader reader;
-    private int currentChar;
-    private final StringBuilder buffer = new StringBuilder();
+    private static final String DIRECTLY_RESPONSE = "directly_response";
 
     // 当前解析状态
     private enum ParseState {
-        INIT, IN_BLOCK, IN_FUNC_CALL, IN_ARGUMENTS, IN_DICT
+        INIT, BLOCK_START, IN_BLOCK, BLOCK_END, FUNC_NAME, CALL_OPEN, ARGS_START, ARGS_NEXT, ARG_NAME, ARG_EQ, ARG_VALUE, ARG_AFTER,
+        RESP_OPEN, RESP_TYPE_NAME, RESP_TYPE_EQ, RESP_TYPE_VALUE, RESP_TYPE_AFTER, RESP_CONTENT_NAME, RESP_CONTENT_EQ,
+        RESP_CONTENT_OPEN, RESP_CONTENT, RESP_CLOSE, DONE, FAILED
+    }
+
+    // 值内部的标量状态
+    private enum ScalarState {
+        NONE, STRING, NUMBER, WORD
+    }
+
+    // 容器（list/dict）内部期望的下一个token
+    private enum Expect {
+        VALUE_OR_CLOSE, KEY_OR_CLOSE, COLON, VALUE, SEPARATOR_OR_CLOSE
     }
 
-    private final Deque<ParseState> stateStack = new ArrayDeque<>();
+    private static class Container {
+        final List<Object> list;
+        final Map<String, Object> dict;
+        String key;
+        Expect expect;
 
-    // 存储解析结果
-    private final List<Map<String, Object>> funcCalls = new ArrayList<>();
+        Container(List<Object> list, Map<String, Object> dict, Expect expect) {
+            this.list = list;
+            this.dict = dict;
+            this.expect = expect;
+        }
+    }
+
+    private final PythonFuncCallListener listener;
+    private final StringBuilder buffer = new StringBuilder();
+    private final Deque<Container> containers = new ArrayDeque<>();
+    private ParseState state = ParseState.INIT;
+    private ScalarState scalar = ScalarState.NONE;
+    private int quote;
+    private boolean escaping;
+    private int backticks;
+    private int callIndex;
+    // 兼容旧的阻塞式用法：只有通过reader构造时才读取reader并收集解析结果
+    private final Reader reader;
+    private final List<Map<String, Object>> funcCalls;
     private Map<String, Object> currentCall;
-    private Map<String, Object> currentDict;
-    private PythonFuncCallListener listner;
+    private String argName;
+
+    public PythonFuncCallParser(PythonFuncCallListener listener) {
+        this.listener = listener;
+        this.reader = null;
+        this.funcCalls = null;
+    }
 
-    public PythonFuncCallParser(Reader reader, PythonFuncCallListener listner) {
+    /**
+     * @deprecated 阻塞读取reader需要单独的解析线程，请改用{@link #PythonFuncCallParser(PythonFuncCallListener)}并逐段feed
+     */
+    @Deprecated
+    public PythonFuncCallParser(Reader reader, PythonFuncCallListener listener) {
+        this.listener = listener;
         this.reader = reader;
-        this.listner = listner;
-        stateStack.push(ParseState.INIT);
-        try {
-            currentChar = reader.read();
-        } catch (IOException e) {
-            currentChar = -1;
-        }
+        this.funcCalls = new ArrayList<>();
     }
 
+    /**
+     * 读取reader直到结束，逐段推送给增量解析，返回解析出的函数调用（不含directly_response）
+     *
+     * @deprecated 请改用feed/finish增量推送
+     */
+    @Deprecated
     public List<Map<String, Object>> parse() throws IOException {
-        while (currentChar != -1) {
-            switch (stateStack.peek()) {
-            case INIT:
-                parseInit();
-                break;
-            case IN_BLOCK:
-                parseCodeBlock();
-                break;
-            case IN_FUNC_CALL:
-                parseFuncCall();
-                break;
-            case IN_ARGUMENTS:
-                parseArguments();
-                break;
-            case IN_DICT:
-                parseDict();
-                break;
-            }
+        if(reader == null) {
+            throw new IllegalStateException("parser is not created with a reader");
         }
-        listner.onFinish();
-        return funcCalls;
-    }
-
-    private void parseInit() throws IOException {
-        skipWhitespace();
-        if(tryParseBlockStart()) {
-            stateStack.pop();
-            stateStack.push(ParseState.IN_BLOCK);
-        } else {
-            throw new RuntimeException("Expected code block start");
+        char[] chunk = new char[1024];
+        int read;
+        while (!isFinished() && (read = reader.read(chunk)) != -1) {
+            feed(CharBuffer.wrap(chunk, 0, read));
         }
+        finish();
+        return funcCalls;
     }
 
-    private void parseCodeBlock() throws IOException {
-        skipWhitespace();
-        if(tryParseBlockEnd()) {
-            stateStack.pop();
+    /**
+     * 推送一段增量内容；解析失败时抛出异常，之后的推送将被忽略
+     */
+    public void feed(CharSequence chunk) {
+        if(chunk == null || state == ParseState.DONE || state == ParseState.FAILED) {
             return;
         }
-
-        if(tryParseFuncCallStart()) {
-            stateStack.push(ParseState.IN_FUNC_CALL);
-            currentCall = new LinkedHashMap<>();
-            return;
+        try {
+            for (int i = 0; i < chunk.length(); i++) {
+                accept(chunk.charAt(i));
+                if(state == ParseState.DONE) {
+                    break;
+                }
+            }
+            // 每段推送结束时把已解析的directly_response内容发出去
+            if(state == ParseState.RESP_CONTENT && buffer.length() > 0) {
+                listener.onDirectlyResponseContent(buffer.toString());
+                buffer.setLength(0);
+            }
+        } catch (RuntimeException e) {
+            state = ParseState.FAILED;
+            throw e;
         }
-
-        advance();
     }
 
-    private void parseFuncCall() throws IOException {
-        if(tryParseDirectlyResponse()) {
-            parseDirectlyResponseArgs();
-            stateStack.pop();
+    /**
+     * 输入结束；代码块未闭合时视为正常结束，函数调用或参数未闭合时抛出异常
+     */
+    public void finish() {
+        if(state == ParseState.FAILED) {
             return;
         }
-
-        listner.onFunctionName(buffer.toString(), funcCalls.size());
-        parseNormalCall();
-        funcCalls.add(currentCall);
-        stateStack.pop();
-    }
-
-    private void parseDirectlyResponseArgs() throws IOException {
-        expect('(');
-        parseRespTypeArg();
-        expect(',');
-        parseContentArg();
-        skipWhitespace();
-        expect(')');
-    }
-
-    private void parseNormalCall() throws IOException {
-        parseIdentifier();
-
-        expect('(');
-        listner.onFunctionCallEnter();
-        if(currentChar != ')') {
-            stateStack.push(ParseState.IN_ARGUMENTS);
-            parseArguments();
+        switch (state) {
+        case INIT:
+        case IN_BLOCK:
+        case BLOCK_END:
+        case DONE:
+            state = ParseState.DONE;
+            listener.onFinish();
+            return;
+        default:
+            ParseState current = state;
+            state = ParseState.FAILED;
+            throw new RuntimeException("Unexpected end of input in " + current);
         }
-        skipWhitespace();
-        expect(')');
-        listner.onFunctionCallExit();
     }
 
-    private void parseArguments() throws IOException {
-        boolean isFirst = true;
-        do {
-            if(!isFirst) {
-                listner.onNextArgumentEnter();
-            }
-            parseNamedArgument();
-            isFirst = false;
-        } while (tryConsume(','));
-
-        stateStack.pop();
-    }
-
-    private void parseNamedArgument() throws IOException {
-        String name = parseIdentifier();
-        listner.onArgumentName(name);
-        expect('=');
-        Object value = parseValue();
-        listner.onArgumentValue(value);
-        currentCall.put(name, value);
+    public boolean isFinished() {
+        return state == ParseState.DONE || state == ParseState.FAILED;
     }
 
-    private Object parseValue() throws IOException {
-        skipWhitespace();
-
-        if(currentChar == '\'' || currentChar == '"') {
-            return parseString();
-        }
-        if(Character.isDigit(currentChar) || currentChar == '-') {
-            return parseNumber();
-        }
-        if(currentChar == '[') {
-            advance();
-            return parseArray();
-        }
-        if(currentChar == '{') {
-            advance();
-            stateStack.push(ParseState.IN_DICT);
-            Map<String, Object> newDict = new LinkedHashMap<>();
-            currentDict = newDict;
-            parseDict();
-            return newDict;
-        }
-        if(Character.isLetter(currentChar)) {
-            String word = parseIdentifier();
-            switch (word) {
-            case "True":
-                return true;
-            case "False":
-                return false;
-            case "None":
-                return null;
-            default:
-                throw new RuntimeException("Unexpected value: " + word);
+    private void accept(char c) {
+        switch (state) {
+        case INIT:
+            if(c == '`') {
+                buffer.setLength(0);
+                buffer.append(c);
+                state = ParseState.BLOCK_START;
+            } else if(!Character.isWhitespace(c)) {
+                throw new RuntimeException("Expected code block start");
             }
-        }
-        throw new RuntimeException("Unexpected value character: " + (char) currentChar);
-    }
-
-    private void parseDict() throws IOException {
-        do {
-            Map<String, Object> ref = currentDict;
-            skipWhitespace();
-            if(currentChar == '}') {
-                break;
+            break;
+        case BLOCK_START:
+            acceptBlockStart(c);
+            break;
+        case IN_BLOCK:
+            acceptInBlock(c);
+            break;
+        case BLOCK_END:
+            if(c != '`') {
+                // 不是完整的结束标记，按代码块内容重新处理
+                state = ParseState.IN_BLOCK;
+                acceptInBlock(c);
+            } else if(++backticks == 3) {
+                state = ParseState.DONE;
+            }
+            break;
+        case FUNC_NAME:
+            if(Character.isLetterOrDigit(c) || c == '_' || c == '-') {
+                buffer.append(c);
+            } else if(DIRECTLY_RESPONSE.contentEquals(buffer)) {
+                state = ParseState.RESP_OPEN;
+                accept(c);
             } else {
-                String key = parseString();
-                expect(':');
-                Object value = parseValue();
-                ref.put(key, value);
+                listener.onFunctionName(buffer.toString(), callIndex);
+                if(funcCalls != null) {
+                    currentCall = new LinkedHashMap<>();
+                    currentCall.put("function", buffer.toString());
+                }
+                state = ParseState.CALL_OPEN;
+                accept(c);
             }
-        } while (tryConsume(','));
-
-        expect('}');
-        stateStack.pop();
-    }
-
-    // 辅助方法
-    private void advance() throws IOException {
-        currentChar = reader.read();
-    }
-
-    private void advanceUnBlock() throws IOException {
-        if(!reader.ready()) {
-            currentChar = 0;
-        } else {
-            advance();
+            break;
+        case CALL_OPEN:
+            if(!Character.isWhitespace(c)) {
+                expect('(', c);
+                listener.onFunctionCallEnter();
+                state = ParseState.ARGS_START;
+            }
+            break;
+        case ARGS_START:
+            if(c == ')') {
+                exitFunctionCall();
+            } else if(!Character.isWhitespace(c)) {
+                startIdentifier(ParseState.ARG_NAME, c);
+            }
+            break;
+        case ARGS_NEXT:
+            if(!Character.isWhitespace(c)) {
+                listener.onNextArgumentEnter();
+                startIdentifier(ParseState.ARG_NAME, c);
+            }
+            break;
+        case ARG_NAME:
+            if(isIdentifierPart(c)) {
+                buffer.append(c);
+            } else {
+                listener.onArgumentName(buffer.toString());
+                argName = buffer.toString();
+                state = ParseState.ARG_EQ;
+                accept(c);
+            }
+            break;
+        case ARG_EQ:
+            if(!Character.isWhitespace(c)) {
+                expect('=', c);
+                state = ParseState.ARG_VALUE;
+            }
+            break;
+        case ARG_VALUE:
+        case RESP_TYPE_VALUE:
+            acceptValue(c);
+            break;
+        case ARG_AFTER:
+            if(c == ',') {
+                state = ParseState.ARGS_NEXT;
+            } else if(c == ')') {
+                exitFunctionCall();
+            } else if(!Character.isWhitespace(c)) {
+                expect(')', c);
+            }
+            break;
+        case RESP_OPEN:
+            expect('(', c);
+            state = ParseState.RESP_TYPE_NAME;
+            buffer.setLength(0);
+            break;
+        case RESP_TYPE_NAME:
+            acceptKeyword("type", ParseState.RESP_TYPE_EQ, c);
+            break;
+        case RESP_TYPE_EQ:
+            expect('=', c);
+            state = ParseState.RESP_TYPE_VALUE;
+            break;
+        case RESP_TYPE_AFTER:
+            if(!Character.isWhitespace(c)) {
+                expect(',', c);
+                state = ParseState.RESP_CONTENT_NAME;
+                buffer.setLength(0);
+            }
+            break;
+        case RESP_CONTENT_NAME:
+            acceptKeyword("content", ParseState.RESP_CONTENT_EQ, c);
+            break;
+        case RESP_CONTENT_EQ:
+            expect('=', c);
+            state = ParseState.RESP_CONTENT_OPEN;
+            break;
+        case RESP_CONTENT_OPEN:
+            if(c != '\'' && c != '"') {
+                throw new RuntimeException("Expected string but found '" + c + "'");
+            }
+            quote = c;
+            escaping = false;
+            buffer.setLength(0);
+            state = ParseState.RESP_CONTENT;
+            break;
+        case RESP_CONTENT:
+            if(escaping) {
+                buffer.append(unescape(c));
+                escaping = false;
+            } else if(c == '\\') {
+                escaping = true;
+            } else if(c == quote) {
+                if(buffer.length() > 0) {
+                    listener.onDirectlyResponseContent(buffer.toString());
+                    buffer.setLength(0);
+                }
+                state = ParseState.RESP_CLOSE;
+            } else {
+                buffer.append(c);
+            }
+            break;
+        case RESP_CLOSE:
+            if(!Character.isWhitespace(c)) {
+                expect(')', c);
+                state = ParseState.IN_BLOCK;
+            }
+            break;
+        default:
+            break;
         }
     }
 
-    private void skipWhitespace() throws IOException {
-        while (Character.isWhitespace(currentChar)) {
-            advance();
+    private void acceptBlockStart(char c) {
+        if(c != '\n') {
+            buffer.append(c);
+            return;
         }
-    }
-
-    private boolean tryConsume(int expected) throws IOException {
-        if(currentChar == expected) {
-            advance();
-            return true;
+        // ``` 与 python 之间允许空白
+        String fence = buffer.toString();
+        if(!fence.startsWith("```") || !"python".equals(fence.substring(3).trim())) {
+            throw new RuntimeException("Expected code block start");
         }
-        return false;
+        buffer.setLength(0);
+        state = ParseState.IN_BLOCK;
     }
 
-    private void expect(int expected) throws IOException {
-        if(currentChar != expected) {
-            throw new RuntimeException("Expected '" + (char) expected + "' but found '" + (char) currentChar + "'");
+    private void acceptInBlock(char c) {
+        if(c == '`') {
+            backticks = 1;
+            state = ParseState.BLOCK_END;
+        } else if(Character.isLetter(c) || c == '_') {
+            buffer.setLength(0);
+            buffer.append(c);
+            state = ParseState.FUNC_NAME;
         }
-        advance();
     }
 
-    private String parseIdentifier() throws IOException {
-        skipWhitespace();
-        buffer.setLength(0);
-        while (Character.isLetterOrDigit(currentChar) || currentChar == '_') {
-            buffer.append((char) currentChar);
-            advance();
+    private void acceptKeyword(String expected, ParseState next, char c) {
+        if(isIdentifierPart(c)) {
+            buffer.append(c);
+        } else if(buffer.length() > 0 || !Character.isWhitespace(c)) {
+            if(!expected.contentEquals(buffer)) {
+                throw new RuntimeException("Expected " + expected + " but found " + buffer);
+            }
+            state = next;
+            accept(c);
         }
-        return buffer.toString();
     }
 
-    private String parseString() throws IOException {
-        int quote = currentChar;
-        advance(); // 跳过起始引号
-
-        buffer.setLength(0);
-        while (currentChar != quote) {
-            if(currentChar == '\\') {
-                advance(); // 跳过反斜杠
-                switch (currentChar) {
-                case 'n':
-                    buffer.append('\n');
-                    break;
-                case 't':
-                    buffer.append('\t');
-                    break;
-                case 'r':
-                    buffer.append('\r');
-                    break;
-                case 'b':
-                    buffer.append('\b');
-                    break;
-                case 'f':
-                    buffer.append('\f');
-                    break;
-                case '\'':
-                case '"':
-                case '\\':
-                    buffer.append((char) currentChar);
-                    break;
-                default:
-                    buffer.append((char) currentChar);
-                }
-                advance();
+    private void acceptValue(char c) {
+        switch (scalar) {
+        case STRING:
+            if(escaping) {
+                buffer.append(unescape(c));
+                escaping = false;
+            } else if(c == '\\') {
+                escaping = true;
+            } else if(c == quote) {
+                scalar = ScalarState.NONE;
+                completeValue(buffer.toString());
             } else {
-                if(currentChar == -1) {
-                    throw new RuntimeException("Unclosed string");
-                }
-                buffer.append((char) currentChar);
-                advance();
+                buffer.append(c);
             }
+            return;
+        case NUMBER:
+            if(Character.isDigit(c) || (c == '.' && buffer.indexOf(".") < 0)) {
+                buffer.append(c);
+                return;
+            }
+            scalar = ScalarState.NONE;
+            completeValue(toNumber(buffer.toString()));
+            accept(c);
+            return;
+        case WORD:
+            if(isIdentifierPart(c)) {
+                buffer.append(c);
+                return;
+            }
+            scalar = ScalarState.NONE;
+            completeValue(toConstant(buffer.toString()));
+            accept(c);
+            return;
+        default:
+            break;
         }
-        advance(); // 跳过结束引号
-        return buffer.toString();
-    }
 
-    private String parseContentString() throws IOException {
-        buffer.setLength(0);
-        int quote = currentChar;
-        advance(); // 跳过起始引号
-
-        while (currentChar != quote) {
-            if(currentChar == 0) {
-                if(buffer.length() > 0) {
-                    listner.onDirectlyResponseContent(buffer.toString());
-                    buffer.setLength(0);
-                }
-                LockSupport.parkNanos(1L);
-                advance();
-            } else if(currentChar == '\\') {
-                advance(); // 跳过反斜杠
-                switch (currentChar) {
-                case 'n':
-                    buffer.append('\n');
-                    break;
-                case 't':
-                    buffer.append('\t');
-                    break;
-                case 'r':
-                    buffer.append('\r');
-                    break;
-                case 'b':
-                    buffer.append('\b');
-                    break;
-                case 'f':
-                    buffer.append('\f');
-                    break;
-                case '\'':
-                case '"':
-                case '\\':
-                    buffer.append((char) currentChar);
-                    break;
-                default:
-                    buffer.append((char) currentChar);
-                }
-                advanceUnBlock();
+        if(Character.isWhitespace(c)) {
+            return;
+        }
+        Container top = containers.peek();
+        if(top == null || top.expect == Expect.VALUE) {
+            startValue(c);
+            return;
+        }
+        switch (top.expect) {
+        case VALUE_OR_CLOSE:
+            if(c == ']') {
+                closeContainer();
             } else {
-                if(currentChar == -1) {
-                    throw new RuntimeException("Unclosed string");
-                }
-                buffer.append((char) currentChar);
-                advanceUnBlock();
+                startValue(c);
+            }
+            break;
+        case KEY_OR_CLOSE:
+            if(c == '}') {
+                closeContainer();
+            } else if(c == '\'' || c == '"') {
+                startString(c);
+            } else {
+                throw new RuntimeException("Expected dict key but found '" + c + "'");
+            }
+            break;
+        case COLON:
+            expect(':', c);
+            top.expect = Expect.VALUE;
+            break;
+        case SEPARATOR_OR_CLOSE:
+            if(c == ',') {
+                top.expect = top.list != null ? Expect.VALUE_OR_CLOSE : Expect.KEY_OR_CLOSE;
+            } else if(c == (top.list != null ? ']' : '}')) {
+                closeContainer();
+            } else {
+                expect(top.list != null ? ']' : '}', c);
             }
+            break;
+        default:
+            break;
         }
-        advance(); // 跳过结束引号
-        if(buffer.length() > 1) {
-            listner.onDirectlyResponseContent(buffer.toString());
+    }
+
+    private void startValue(char c) {
+        if(c == '\'' || c == '"') {
+            startString(c);
+        } else if(Character.isDigit(c) || c == '-') {
+            buffer.setLength(0);
+            buffer.append(c);
+            scalar = ScalarState.NUMBER;
+        } else if(c == '[') {
+            containers.push(new Container(new ArrayList<>(), null, Expect.VALUE_OR_CLOSE));
+        } else if(c == '{') {
+            containers.push(new Container(null, new LinkedHashMap<>(), Expect.KEY_OR_CLOSE));
+        } else if(Character.isLetter(c)) {
+            buffer.setLength(0);
+            buffer.append(c);
+            scalar = ScalarState.WORD;
+        } else {
+            throw new RuntimeException("Unexpected value character: " + c);
         }
-        return buffer.toString();
     }
 
-    private Number parseNumber() throws IOException {
+    private void startString(char c) {
+        quote = c;
+        escaping = false;
         buffer.setLength(0);
-        if(currentChar == '-') {
-            buffer.append('-');
-            advance();
-        }
+        scalar = ScalarState.STRING;
+    }
 
-        while (Character.isDigit(currentChar)) {
-            buffer.append((char) currentChar);
-            advance();
-        }
+    private void closeContainer() {
+        Container container = containers.pop();
+        completeValue(container.list != null ? container.list : container.dict);
+    }
 
-        if(currentChar == '.') {
-            buffer.append('.');
-            advance();
-            while (Character.isDigit(currentChar)) {
-                buffer.append((char) currentChar);
-                advance();
-            }
-            return Double.parseDouble(buffer.toString());
+    private void completeValue(Object value) {
+        Container top = containers.peek();
+        if(top == null) {
+            completeRootValue(value);
+        } else if(top.list != null) {
+            top.list.add(value);
+            top.expect = Expect.SEPARATOR_OR_CLOSE;
+        } else if(top.expect == Expect.KEY_OR_CLOSE) {
+            top.key = (String) value;
+            top.expect = Expect.COLON;
+        } else {
+            top.dict.put(top.key, value);
+            top.expect = Expect.SEPARATOR_OR_CLOSE;
         }
-
-        return Integer.parseInt(buffer.toString());
     }
 
-    private ArrayList<Object> parseArray() throws IOException {
-        ArrayList<Object> list = new ArrayList<>();
-        do {
-            skipWhitespace();
-            if(currentChar != ']') {
-                list.add(parseValue());
-            } else {
-                break;
+    private void completeRootValue(Object value) {
+        if(state == ParseState.RESP_TYPE_VALUE) {
+            if(!(value instanceof String)) {
+                throw new RuntimeException("Expected string type but found " + value);
             }
-        } while (tryConsume(','));
-        expect(']');
-        return list;
-    }
-
-    private boolean tryParseBlockStart() throws IOException {
-        if(currentChar == '`') {
-            buffer.setLength(0);
-            for (int i = 0; i < 3; i++) {
-                if(currentChar != '`')
-                    return false;
-                buffer.append((char) currentChar);
-                advance();
+            listener.onDirectlyResponseType((String) value);
+            state = ParseState.RESP_TYPE_AFTER;
+        } else {
+            listener.onArgumentValue(value);
+            if(funcCalls != null) {
+                currentCall.put(argName, value);
             }
-            if(!"python".equals(parseIdentifier()))
-                return false;
-            return currentChar == '\n';
+            state = ParseState.ARG_AFTER;
         }
-        return false;
     }
 
-    private boolean tryParseBlockEnd() throws IOException {
-        if(currentChar == '`') {
-            for (int i = 0; i < 3; i++) {
-                if(currentChar != '`')
-                    return false;
-                advance();
-            }
-            return true;
+    private void startIdentifier(ParseState next, char c) {
+        if(!isIdentifierPart(c)) {
+            throw new RuntimeException("Unexpected identifier character: " + c);
         }
-        return false;
+        buffer.setLength(0);
+        buffer.append(c);
+        state = next;
     }
 
-    private boolean tryParseFuncCallStart() throws IOException {
-        return Character.isLetter(currentChar) || currentChar == '_';
+    private void exitFunctionCall() {
+        listener.onFunctionCallExit();
+        if(funcCalls != null) {
+            funcCalls.add(currentCall);
+        }
+        callIndex++;
+        state = ParseState.IN_BLOCK;
     }
 
-    private boolean tryParseDirectlyResponse() throws IOException {
-        buffer.setLength(0);
-        while (Character.isLetterOrDigit(currentChar) || currentChar == '_' || currentChar == '-') {
-            buffer.append((char) currentChar);
-            advance();
+    private static void expect(char expected, char actual) {
+        if(actual != expected) {
+            throw new RuntimeException("Expected '" + expected + "' but found '" + actual + "'");
         }
-        if(buffer.toString().equals("directly_response")) {
-            currentCall.put("type", "directly_response");
-            return true;
-        }
-        // 回退处理普通调用
-        currentCall.put("function", buffer.toString());
-        return false;
     }
 
-    private void parseRespTypeArg() throws IOException {
-        expectStringIdentifier("type");
-        expect('=');
-        listner.onDirectlyResponseType(parseString());
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
     }
 
-    private void parseContentArg() throws IOException {
-        expectStringIdentifier("content");
-        expect('=');
-        currentCall.put("content", parseContentString());
+    private static char unescape(char c) {
+        switch (c) {
+        case 'n':
+            return '\n';
+        case 't':
+            return '\t';
+        case 'r':
+            return '\r';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        default:
+            return c;
+        }
     }
 
-    private void expectStringIdentifier(String expected) throws IOException {
-        String actual = parseIdentifier();
-        if(!expected.equals(actual)) {
-            throw new RuntimeException("Expected " + expected + " but found " + actual);
+    private static Number toNumber(String text) {
+        if(text.indexOf('.') >= 0) {
+            return Double.parseDouble(text);
+        }
+        long value = Long.parseLong(text);
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (Number) (int) value : (Number) value;
+    }
+
+    private static Object toConstant(String word) {
+        switch (word) {
+        case "True":
+            return true;
+        case "False":
+            return false;
+        case "None":
+            return null;
+        default:
+            throw new RuntimeException("Unexpected value: " + word);
         }
     }
 }
@@ -2,7 +2,6 @@ package com.ke.bella.openapi.simulation;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -26,13 +25,25 @@ public class SimulationHepler {
 
     public static CompletionResponse.Choice parse(String reasoning, String content) throws IOException {
         PythonFuncCallListener sfc = new PythonFuncCallListener(null);
-        PythonFuncCallParser parser = new PythonFuncCallParser(new StringReader(content), sfc);
-        parser.parse();
+        PythonFuncCallParser parser = new PythonFuncCallParser(sfc);
+        parser.feed(content);
+        parser.finish();
 
         return sfc.getToolcalls().isEmpty() ? CompletionResponse.assistantMessageChoice(reasoning, sfc.getBuffer().toString())
                 : CompletionResponse.toolcallChoice(reasoning, sfc.getToolcalls());
     }
 
+    /**
+     * 流式解析：调用方逐段feed增量内容，结束时调用finish
+     */
+    public static PythonFuncCallParser streamParser(FunctionCallListener callback) {
+        return new PythonFuncCallParser(new PythonFuncCallListener(callback));
+    }
+
+    /**
+     * @deprecated 阻塞读取reader需要单独的解析线程，请改用{@link #streamParser(FunctionCallListener)}
+     */
+    @Deprecated
     public static void parse(Reader cs, FunctionCallListener callback) throws IOException {
         PythonFuncCallListener sfc = new PythonFuncCallListener(callback);
         PythonFuncCallParser parser = new PythonFuncCallParser(cs, sfc);
@@ -1,6 +1,7 @@
 package com.ke.bella.openapi.utils;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.PooledByteBufAllocator;
@@ -62,15 +63,28 @@ public class ByteBufferRequestBody extends RequestBody {
      * @return ByteBufferRequestBody
      */
     public static ByteBufferRequestBody fromObject(MediaType mediaType, Object obj) {
+        return fromObject(mediaType, obj, JacksonUtils.MAPPER);
+    }
+
+    /**
+     * 使用指定的 ObjectMapper 序列化对象到池化 DirectBuffer
+     *
+     * @param mediaType 媒体类型
+     * @param obj       要序列化的对象
+     * @param mapper    序列化使用的 ObjectMapper
+     * 
+     * @return ByteBufferRequestBody
+     */
+    public static ByteBufferRequestBody fromObject(MediaType mediaType, Object obj, ObjectMapper mapper) {
         // 使用 Netty 池化 DirectBuffer，初始大小 256 字节，自动扩展
         ByteBuf pooledBuf = PooledByteBufAllocator.DEFAULT.directBuffer(256);
 
         try {
             // 直接序列化到池化 DirectBuffer，避免 byte[] 中间产物
             ByteBufOutputStream outputStream = new ByteBufOutputStream(pooledBuf);
-            JsonGenerator generator = JacksonUtils.MAPPER.getFactory()
+            JsonGenerator generator = mapper.getFactory()
                     .createGenerator((OutputStream) outputStream);
-            JacksonUtils.MAPPER.writeValue(generator, obj);
+            mapper.writeValue(generator, obj);
             generator.close();
 
             // 获取 NIO ByteBuffer 视图（零拷贝）
@@ -0,0 +1,243 @@
+package com.ke.bella.openapi.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.runtime.typehandling.NumberMath;
+
+/**
+ * 计费脚本的算术快速路径：只包含数字、属性路径（如price.input、usage.prompt_tokens）、+ - * / 和括号的脚本
+ * 不经过Groovy脚本执行，结果与Groovy逐位一致：字面量按Groovy规则取类型（小数为BigDecimal，整数为Integer/Long/BigInteger），
+ * 运算直接调用Groovy的NumberMath（整数相除得到BigDecimal，BigDecimal除不尽时按Groovy的精度和舍入规则）。属性按Groovy语义读取（Map取key，对象取getter）。
+ * <p>
+ * 任一属性缺失或不是数字、运算抛出异常（如除以0）、结果不是有限值时返回null，由调用方回退到Groovy执行，保证异常行为与脚本一致。
+ */
+final class CostFormula {
+
+    private final Node root;
+
+    private CostFormula(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 解析脚本，不属于上述算术子集时返回null
+     */
+    static CostFormula parse(String script) {
+        if(script == null) {
+            return null;
+        }
+        String text = script.trim();
+        if(text.startsWith("return ")) {
+            text = text.substring("return ".length()).trim();
+        }
+        while (text.endsWith(";")) {
+            text = text.substring(0, text.length() - 1).trim();
+        }
+        if(text.isEmpty()) {
+            return null;
+        }
+        Parser parser = new Parser(text);
+        Node root = parser.expression();
+        if(root == null || !parser.atEnd()) {
+            return null;
+        }
+        return new CostFormula(root);
+    }
+
+    Number evaluate(Map<String, Object> params) {
+        Number value;
+        try {
+            value = root.eval(params);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if(value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            return Double.isNaN(d) || Double.isInfinite(d) ? null : value;
+        }
+        return value;
+    }
+
+    private interface Node {
+        /**
+         * 无法求值时返回null
+         */
+        Number eval(Map<String, Object> params);
+    }
+
+    private interface Operator {
+        Number apply(Number left, Number right);
+    }
+
+    private static Node binary(Node left, Node right, Operator operator) {
+        return p -> {
+            Number l = left.eval(p);
+            if(l == null) {
+                return null;
+            }
+            Number r = right.eval(p);
+            return r == null ? null : operator.apply(l, r);
+        };
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            skipSpaces();
+            return pos == text.length();
+        }
+
+        Node expression() {
+            Node left = term();
+            while (left != null) {
+                skipSpaces();
+                if(pos >= text.length()) {
+                    return left;
+                }
+                char op = text.charAt(pos);
+                if(op != '+' && op != '-') {
+                    return left;
+                }
+                pos++;
+                Node right = term();
+                if(right == null) {
+                    return null;
+                }
+                left = binary(left, right, op == '+' ? NumberMath::add : NumberMath::subtract);
+            }
+            return null;
+        }
+
+        Node term() {
+            Node left = factor();
+            while (left != null) {
+                skipSpaces();
+                if(pos >= text.length()) {
+                    return left;
+                }
+                char op = text.charAt(pos);
+                if(op != '*' && op != '/') {
+                    return left;
+                }
+                pos++;
+                Node right = factor();
+                if(right == null) {
+                    return null;
+                }
+                left = binary(left, right, op == '*' ? NumberMath::multiply : NumberMath::divide);
+            }
+            return null;
+        }
+
+        Node factor() {
+            skipSpaces();
+            if(pos >= text.length()) {
+                return null;
+            }
+            char c = text.charAt(pos);
+            if(c == '(') {
+                pos++;
+                Node inner = expression();
+                skipSpaces();
+                if(inner == null || pos >= text.length() || text.charAt(pos) != ')') {
+                    return null;
+                }
+                pos++;
+                return inner;
+            }
+            if(Character.isDigit(c)) {
+                return number();
+            }
+            if(Character.isJavaIdentifierStart(c)) {
+                return path();
+            }
+            return null;
+        }
+
+        private Node number() {
+            int start = pos;
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            if(pos < text.length() && Character.isJavaIdentifierPart(text.charAt(pos))) {
+                // 1e3、10G等Groovy字面量后缀不处理
+                return null;
+            }
+            if(text.charAt(pos - 1) == '.' || (text.charAt(start) == '0' && pos - start > 1 && text.charAt(start + 1) != '.')) {
+                // 1.（属性访问）、010（八进制）等交给Groovy
+                return null;
+            }
+            try {
+                Number value = literal(text.substring(start, pos));
+                return p -> value;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private Node path() {
+            int start = pos;
+            while (pos < text.length() && (Character.isJavaIdentifierPart(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            String path = text.substring(start, pos);
+            String[] names = path.split("\\.", -1);
+            for (String name : names) {
+                if(name.isEmpty()) {
+                    return null;
+                }
+            }
+            skipSpaces();
+            if(pos < text.length() && (text.charAt(pos) == '(' || text.charAt(pos) == '?' || text.charAt(pos) == '[')) {
+                // 方法调用、三元/安全导航、下标访问交给Groovy
+                return null;
+            }
+            return p -> resolve(p, names);
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Groovy数字字面量的类型：带小数点为BigDecimal，整数按范围依次为Integer、Long、BigInteger
+     */
+    private static Number literal(String text) {
+        if(text.indexOf('.') >= 0) {
+            return new BigDecimal(text);
+        }
+        BigInteger value = new BigInteger(text);
+        if(value.bitLength() < 32) {
+            return value.intValue();
+        }
+        return value.bitLength() < 64 ? (Number) value.longValue() : value;
+    }
+
+    private static Number resolve(Map<String, Object> params, String[] names) {
+        Object value = params.get(names[0]);
+        for (int i = 1; i < names.length && value != null; i++) {
+            if(value instanceof Map) {
+                value = ((Map<?, ?>) value).get(names[i]);
+            } else {
+                try {
+                    value = InvokerHelper.getProperty(value, names[i]);
+                } catch (RuntimeException e) {
+                    return null;
+                }
+            }
+        }
+        return value instanceof Number ? (Number) value : null;
+    }
+}
@@ -17,11 +17,12 @@ import groovy.lang.Binding;
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyShell;
 import groovy.lang.Script;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
 public class GroovyExecutor {
 
-    // 缓存编译后的脚本
-    private static final Cache<String, Script> scriptCache = Caffeine.newBuilder()
+    // 缓存编译后的脚本类，Script实例持有binding不能共享，每次执行创建新实例
+    private static final Cache<String, CompiledScript> scriptCache = Caffeine.newBuilder()
             .maximumSize(100)
             .expireAfterAccess(30, TimeUnit.MINUTES)
             .build();
@@ -41,15 +42,14 @@ public class GroovyExecutor {
      * @return 脚本执行结果
      */
     public static Object executeScript(String scriptText, Map<String, Object> params) {
-        // 获取编译后的脚本
-        Script script = getCompiledScript(scriptText);
-
-        // 创建绑定并设置参数
-        Binding binding = createBinding(params);
-
-        // 设置绑定并执行脚本
-        script.setBinding(binding);
-        return script.run();
+        CompiledScript compiled = getCompiledScript(scriptText);
+        if(compiled.formula != null && params != null) {
+            Number result = compiled.formula.evaluate(params);
+            if(result != null) {
+                return result;
+            }
+        }
+        return compiled.newInstance(params).run();
     }
 
     /**
@@ -65,12 +65,8 @@ public class GroovyExecutor {
      * @throws Exception 执行过程中的异常
      */
     public static Object testScript(String scriptText, Map<String, Object> params, long timeoutMs, long memoryLimitBytes) {
-        // 获取编译后的脚本
-        Script script = getCompiledScript(scriptText);
-
-        // 创建绑定并设置参数
-        Binding binding = createBinding(params);
-        script.setBinding(binding);
+        // 校验脚本始终走Groovy执行
+        Script script = getCompiledScript(scriptText).newInstance(params);
 
         // 创建一个可以在单独线程中执行的任务
         Callable<Object> task = () -> {
@@ -110,13 +106,30 @@ public class GroovyExecutor {
     /**
      * 获取编译后的脚本
      */
-    private static Script getCompiledScript(String scriptText) {
+    private static CompiledScript getCompiledScript(String scriptText) {
         return scriptCache.get(scriptText, key -> {
             GroovyShell shell = new GroovyShell(classLoader);
-            return shell.parse(key);
+            return new CompiledScript(shell.parse(key).getClass(), CostFormula.parse(key));
         });
     }
 
+    /**
+     * 编译结果：脚本类及可选的算术快速路径
+     */
+    private static class CompiledScript {
+        private final Class<? extends Script> scriptClass;
+        private final CostFormula formula;
+
+        CompiledScript(Class<? extends Script> scriptClass, CostFormula formula) {
+            this.scriptClass = scriptClass;
+            this.formula = formula;
+        }
+
+        Script newInstance(Map<String, Object> params) {
+            return InvokerHelper.createScript(scriptClass, createBinding(params));
+        }
+    }
+
     /**
      * 创建绑定并设置参数
      */
@@ -20,11 +20,13 @@ import com.ke.bella.openapi.protocol.BellaEventSourceListener;
 import com.ke.bella.openapi.protocol.BellaStreamCallback;
 import com.ke.bella.openapi.protocol.BellaWebSocketListener;
 import com.ke.bella.openapi.protocol.Callbacks;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
 import com.ke.bella.openapi.request.BellaInterceptor;
 
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
 import okhttp3.ConnectionPool;
 import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
@@ -34,6 +36,7 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okhttp3.WebSocket;
 import okhttp3.internal.Util;
+import okhttp3.sse.EventSource;
 import okhttp3.sse.EventSources;
 
 /**
@@ -98,7 +101,9 @@ public class HttpUtils {
             builder.addInterceptor(interceptor);
         }
 
-        return builder.build().newCall(request).execute();
+        Call call = builder.build().newCall(request);
+        UpstreamCancellation.register(call::cancel);
+        return call.execute();
     }
 
     public static Response httpRequest(Request request) throws IOException {
@@ -143,7 +148,9 @@ public class HttpUtils {
             builder.addInterceptor(interceptor);
         }
 
-        builder.build().newCall(request).enqueue(callback);
+        Call call = builder.build().newCall(request);
+        UpstreamCancellation.register(call::cancel);
+        call.enqueue(callback);
         try {
             future.get();
         } catch (InterruptedException interruptedException) {
@@ -170,7 +177,8 @@ public class HttpUtils {
             builder.addInterceptor(interceptor);
         }
 
-        EventSources.createFactory(builder.build()).newEventSource(request, listener);
+        EventSource eventSource = EventSources.createFactory(builder.build()).newEventSource(request, listener);
+        UpstreamCancellation.register(eventSource::cancel);
         try {
             future.get();
         } catch (InterruptedException interruptedException) {
@@ -2,6 +2,7 @@ package com.ke.bella.openapi;
 
 import com.ke.bella.openapi.apikey.ApikeyInfo;
 import com.ke.bella.openapi.common.EntityConstants;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
 import com.ke.bella.openapi.tables.pojos.ChannelDB;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
@@ -19,6 +20,10 @@ public class EndpointContext {
 
     private static final ThreadLocal<Integer> requestSize = new ThreadLocal<>();
 
+    private static final ThreadLocal<Object> sizeCheckedRequest = new ThreadLocal<>();
+
+    private static final ThreadLocal<Long> routeAffinityKey = new ThreadLocal<>();
+
     public static EndpointProcessData getProcessData() {
         if(endpointRequestInfo.get() == null) {
             EndpointProcessData endpointProcessData = new EndpointProcessData();
@@ -31,6 +36,10 @@ public class EndpointContext {
         return endpointRequestInfo.get();
     }
 
+    public static void setProcessData(EndpointProcessData processData) {
+        endpointRequestInfo.set(processData);
+    }
+
     public static HttpServletRequest getRequest() {
         Assert.notNull(requestCache.get(), "requestCache is empty");
         return requestCache.get();
@@ -128,11 +137,37 @@ public class EndpointContext {
         return requestSize.get();
     }
 
+    /**
+     * 记录请求大小的检查结果，同一请求对象后续不再重复计算
+     */
+    public static void markRequestSizeChecked(Object request, int size) {
+        sizeCheckedRequest.set(request);
+        requestSize.set(size);
+    }
+
+    public static boolean isRequestSizeChecked(Object request) {
+        return request != null && sizeCheckedRequest.get() == request;
+    }
+
+    /**
+     * 亲和路由的键，为null时按负载选择渠道
+     */
+    public static void setRouteAffinityKey(Long key) {
+        routeAffinityKey.set(key);
+    }
+
+    public static Long getRouteAffinityKey() {
+        return routeAffinityKey.get();
+    }
+
     public static void clearAll() {
         endpointRequestInfo.remove();
         requestCache.remove();
         isLastRequest.remove();
         requestSize.remove();
+        sizeCheckedRequest.remove();
+        routeAffinityKey.remove();
+        UpstreamCancellation.unbind();
         BellaContext.clearAll();
     }
 
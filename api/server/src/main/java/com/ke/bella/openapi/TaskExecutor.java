@@ -2,15 +2,17 @@ package com.ke.bella.openapi;
 
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import lombok.Getter;
+
 public class TaskExecutor {
     static ThreadFactory tf = new NamedThreadFactory("bella-worker-", true);
-    static ScheduledExecutorService executor = Executors.newScheduledThreadPool(1000, tf);
+    @Getter
+    static ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1000, tf);
 
     public static CompletableFuture<Void> submit(Runnable r) {
         return CompletableFuture.runAsync(r, executor);
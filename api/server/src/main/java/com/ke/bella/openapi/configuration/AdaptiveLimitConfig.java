@@ -0,0 +1,43 @@
+package com.ke.bella.openapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 渠道自适应并发限额配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bella.openapi.route.adaptive-limit")
+public class AdaptiveLimitConfig {
+
+    /**
+     * 是否启用自适应并发限额；默认关闭，只统计不据此跳过渠道，观察限额合理后再开启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 初始限额；流式请求在途时间长，初始值不宜过小，否则启动后的突发流量会被误判为饱和
+     */
+    private int initialLimit = 100;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 1000;
+
+    /**
+     * 429、5xx或延迟膨胀时限额乘以该系数
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 延迟超过基线的倍数，超过即视为过载
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * 候选渠道全部达到限额时，等待空闲的最长时间（单位：毫秒），超时返回限流错误
+     */
+    private long queueMillis = 100;
+}
@@ -0,0 +1,67 @@
+package com.ke.bella.openapi.configuration;
+
+import com.ke.bella.openapi.protocol.completion.AwsClientManager;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Bedrock异步客户端配置，同一region的所有账号共享一个连接池，所有region共享一个netty事件循环组
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bella.aws.bedrock")
+public class AwsClientConfig {
+
+    /**
+     * 共享事件循环线程数，0表示使用SDK默认值（2 * CPU核数）
+     */
+    private int eventLoopThreads = 0;
+
+    /**
+     * 每个region的最大并发连接（HTTP/2下为最大并发流）
+     */
+    private int maxConcurrency = 500;
+
+    /**
+     * 等待获取连接的最大排队数
+     */
+    private int maxPendingConnectionAcquires = 10000;
+
+    /**
+     * 获取连接超时（单位：秒）
+     */
+    private int connectionAcquisitionTimeoutSeconds = 10;
+
+    /**
+     * 读超时（单位：秒）
+     */
+    private int readTimeoutSeconds = 120;
+
+    /**
+     * 是否使用HTTP/2，上游需支持h2
+     */
+    private boolean http2 = false;
+
+    /**
+     * HTTP/2单连接最大并发流
+     */
+    private long http2MaxStreams = 100;
+
+    /**
+     * HTTP/2初始窗口大小（单位：字节）
+     */
+    private int http2InitialWindowSize = 1024 * 1024;
+
+    /**
+     * 流式事件预取窗口，下游未消费完时不再向上游请求事件
+     */
+    private int streamWindow = 16;
+
+    @PostConstruct
+    public void init() {
+        AwsClientManager.configure(this);
+    }
+}
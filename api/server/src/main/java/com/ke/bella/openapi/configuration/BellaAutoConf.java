@@ -15,8 +15,10 @@ import com.ke.bella.openapi.TaskExecutor;
 import com.ke.bella.openapi.db.IDGenerator;
 import com.ke.bella.openapi.db.log.LogRepo;
 import com.ke.bella.openapi.db.repo.InstanceRepo;
+import com.ke.bella.openapi.metrics.GatewayMetrics.Stage;
 import com.ke.bella.openapi.protocol.AdaptorManager;
 import com.ke.bella.openapi.protocol.IProtocolAdaptor;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
 import com.ke.bella.openapi.protocol.cost.CostCounter;
 import com.ke.bella.openapi.protocol.limiter.LimiterManager;
 import com.ke.bella.openapi.protocol.log.CostLogHandler;
@@ -25,7 +27,10 @@ import com.ke.bella.openapi.protocol.log.LogEvent;
 import com.ke.bella.openapi.protocol.log.LogExceptionHandler;
 import com.ke.bella.openapi.protocol.log.LogRecordHandler;
 import com.ke.bella.openapi.protocol.log.MetricsLogHandler;
+import com.ke.bella.openapi.protocol.log.ResponseCacheLogHandler;
+import com.ke.bella.openapi.protocol.log.TimedLogHandler;
 import com.ke.bella.openapi.protocol.metrics.MetricsManager;
+import com.ke.bella.openapi.protocol.route.ChannelLoadStats;
 import com.ke.bella.openapi.server.BellaServerContextHolder;
 import com.ke.bella.openapi.server.OpenapiProperties;
 import com.ke.bella.openapi.service.ApikeyService;
@@ -48,6 +53,12 @@ public class BellaAutoConf {
     private MetricsManager metricsManager;
     @Autowired
     private LimiterManager limiterManager;
+    @Autowired
+    private ChannelLoadStats channelLoadStats;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private ResponseCacheConfig responseCacheConfig;
 
     @PostConstruct
     public void registerInstance() {
@@ -82,8 +93,11 @@ public class BellaAutoConf {
     public RingBuffer<LogEvent> logRingBuffer(List<LogRepo> logRepos, CostCounter costCounter, CostLogHandler.CostScripFetcher costScripFetcher) {
         Disruptor<LogEvent> disruptor = new Disruptor<>(LogEvent::new, 1024,
                 DaemonThreadFactory.INSTANCE, ProducerType.MULTI, sleepingWaitStrategy);
-        disruptor.handleEventsWith(new CostLogHandler(costCounter, costScripFetcher)).then(new LogRecordHandler(logRepos));
-        disruptor.handleEventsWith(new MetricsLogHandler(metricsManager), new LimiterLogHandler(limiterManager));
+        disruptor.handleEventsWith(new TimedLogHandler(new CostLogHandler(costCounter, costScripFetcher, responseCacheConfig::getHitCostRatio), Stage.log_cost, true))
+                .then(new TimedLogHandler(new LogRecordHandler(logRepos), Stage.log_record, false));
+        disruptor.handleEventsWith(new TimedLogHandler(new MetricsLogHandler(metricsManager, channelLoadStats), Stage.log_metrics, false),
+                new TimedLogHandler(new LimiterLogHandler(limiterManager), Stage.log_limiter, false),
+                new TimedLogHandler(new ResponseCacheLogHandler(responseCache), Stage.log_cache, false));
         disruptor.setDefaultExceptionHandler(new LogExceptionHandler());
         disruptor.start();
         logDisruptor = disruptor;
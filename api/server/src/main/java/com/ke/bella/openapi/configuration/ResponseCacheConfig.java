@@ -0,0 +1,61 @@
+package com.ke.bella.openapi.configuration;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 网关响应缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bella.openapi.response-cache")
+public class ResponseCacheConfig {
+
+    /**
+     * 总开关，关闭时请求头与apikey配置均不生效
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认启用缓存的apikey（akCode，子ak按父ak匹配），其他apikey需通过请求头X-BELLA-CACHE: on启用
+     */
+    private Set<String> apikeys = new HashSet<>();
+
+    /**
+     * 各能力点的缓存时间（单位：秒），未配置的能力点不缓存；
+     * 能力点路径含“/”，配置时需写成 ttl-seconds.[/v1/embeddings]=86400
+     */
+    private Map<String, Long> ttlSeconds = new HashMap<>();
+
+    /**
+     * 本地缓存容量（单位：字节）
+     */
+    private long localMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 单条响应超过该大小不缓存（单位：字节）
+     */
+    private int maxEntryBytes = 1024 * 1024;
+
+    /**
+     * 是否启用redis二级缓存，多实例间共享
+     */
+    private boolean redisEnabled = false;
+
+    /**
+     * 命中缓存时按原价的比例计费：1为全价，0为免费
+     */
+    private double hitCostRatio = 1.0;
+
+    /**
+     * 是否允许不同账户共享缓存，默认按账户隔离
+     */
+    private boolean shareAcrossAccounts = false;
+}
@@ -0,0 +1,37 @@
+package com.ke.bella.openapi.configuration;
+
+import com.ke.bella.openapi.utils.SseHelper;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 流式响应写出配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bella.openapi.sse")
+public class SseWriterConfig {
+
+    /**
+     * 是否直接向servlet输出流写SSE帧，关闭时回退到SseEmitter消息转换链路
+     */
+    private boolean directWrite = true;
+
+    /**
+     * 合并刷写间隔（单位：毫秒），0表示每个事件立即刷写；首个事件始终立即刷写
+     */
+    private long flushIntervalMs = 0;
+
+    /**
+     * 缓冲超过该大小时立即刷写（单位：字节）
+     */
+    private int flushBytes = 8192;
+
+    @PostConstruct
+    public void init() {
+        SseHelper.configure(this);
+    }
+}
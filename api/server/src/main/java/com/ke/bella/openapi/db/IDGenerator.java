@@ -1,17 +1,27 @@
 package com.ke.bella.openapi.db;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * ID格式：prefix + yyMMddHHmmss + 实例号(4位) + 序号(serialLength位) + "-" + |hash(spaceCode)|
+ * <p>
+ * 秒级时间戳按秒缓存为字符，序号与hash直接写入线程本地的char缓冲区，每个ID只分配结果String；
+ * 序号自增为单次原子加，不加锁。
+ */
 public class IDGenerator {
     private static String instanceId;
     public static final String DATE_PATTERN = "yyMMddHHmmss";
     private static final int MAX_COUNT = (int) 1e7;
+    // 计数器取值1..MAX_COUNT-1循环；原始计数到达该值（周期的整数倍）时回拨，避免int溢出
+    private static final int WRAP = (MAX_COUNT - 1) * 200;
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+    private static volatile Tick tick = new Tick(Long.MIN_VALUE, null);
 
     private final String prefix;
     private final int serialLength;
-    private final String serialFormat;
     private final int serialMask;
     private final AtomicInteger serialCounter = new AtomicInteger(0);
 
@@ -22,29 +32,81 @@ public class IDGenerator {
     public IDGenerator(String prefix, int serialLength) {
         this.prefix = prefix;
         this.serialLength = serialLength;
-        this.serialFormat = "%0" + this.serialLength + "d";
-        this.serialMask = Integer.parseInt("1" + String.format(serialFormat, 0));
+        this.serialMask = Integer.parseInt("1" + String.format("%0" + this.serialLength + "d", 0));
     }
 
     public String generateWithSpaceCodeHash(String spaceCode) {
-        String now = new SimpleDateFormat(DATE_PATTERN).format(new Date());
-        String serial = nextTick();
-        String spaceCodeHash = String.valueOf(Math.abs(hashCode(spaceCode)));
-        return String.format("%s%s%s%s-%s", prefix, now, instanceId, serial, spaceCodeHash);
+        char[] date = now();
+        String instance = String.valueOf(instanceId);
+        int length = prefix.length() + date.length + instance.length() + serialLength + 12;
+        char[] buf = BUFFER.get();
+        if(buf.length < length) {
+            buf = new char[length];
+            BUFFER.set(buf);
+        }
+        int pos = 0;
+        prefix.getChars(0, prefix.length(), buf, pos);
+        pos += prefix.length();
+        System.arraycopy(date, 0, buf, pos, date.length);
+        pos += date.length;
+        instance.getChars(0, instance.length(), buf, pos);
+        pos += instance.length();
+        pos = writeDigits(buf, pos, nextTick() % serialMask, serialLength);
+        buf[pos++] = '-';
+        // 与Math.abs一致：Integer.MIN_VALUE保持负数
+        long hash = Math.abs(hashCode(spaceCode));
+        if(hash < 0) {
+            buf[pos++] = '-';
+            hash = -hash;
+        }
+        pos = writeDigits(buf, pos, hash, 1);
+        return new String(buf, 0, pos);
     }
 
-    private String nextTick() {
+    private int nextTick() {
         int val = serialCounter.incrementAndGet();
-        if(val >= MAX_COUNT) {
-            synchronized(serialCounter) {
-                val = serialCounter.get();
-                if(val >= MAX_COUNT) {
-                    serialCounter.set(0);
-                }
-            }
-            val = serialCounter.incrementAndGet();
+        if(val == WRAP) {
+            serialCounter.addAndGet(-WRAP);
         }
-        return String.format(this.serialFormat, val % this.serialMask);
+        return 1 + (val - 1) % (MAX_COUNT - 1);
+    }
+
+    /**
+     * 当前秒的yyMMddHHmmss字符；同一秒内复用，跨秒时重新计算（按默认时区，与SimpleDateFormat一致）
+     */
+    private static char[] now() {
+        long second = Math.floorDiv(System.currentTimeMillis(), 1000);
+        Tick current = tick;
+        if(current.second != second) {
+            ZonedDateTime time = Instant.ofEpochSecond(second).atZone(TimeZone.getDefault().toZoneId());
+            char[] date = new char[DATE_PATTERN.length()];
+            writeDigits(date, 0, time.getYear() % 100, 2);
+            writeDigits(date, 2, time.getMonthValue(), 2);
+            writeDigits(date, 4, time.getDayOfMonth(), 2);
+            writeDigits(date, 6, time.getHour(), 2);
+            writeDigits(date, 8, time.getMinute(), 2);
+            writeDigits(date, 10, time.getSecond(), 2);
+            current = new Tick(second, date);
+            tick = current;
+        }
+        return current.date;
+    }
+
+    /**
+     * 写入非负整数的十进制字符，不足minLength位时左补0，返回写入后的位置
+     */
+    private static int writeDigits(char[] buf, int pos, long value, int minLength) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int length = Math.max(digits, minLength);
+        int end = pos + length;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
     }
 
     public static void setInstanceId(Long id) {
@@ -65,4 +127,14 @@ public class IDGenerator {
         }
         return h;
     }
+
+    private static class Tick {
+        private final long second;
+        private final char[] date;
+
+        private Tick(long second, char[] date) {
+            this.second = second;
+            this.date = date;
+        }
+    }
 }
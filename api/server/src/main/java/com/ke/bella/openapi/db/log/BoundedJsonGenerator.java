@@ -0,0 +1,500 @@
+package com.ke.bella.openapi.db.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 限长的单遍JSON序列化：序列化过程中直接裁剪，不生成完整文档再截断。
+ * 写入后仍在maxChars以内的值原样输出，整体未超限的日志与完整序列化逐字节一致；只有会超出预算的长值才被裁剪：
+ * <ul>
+ * <li>base64 data URI和二进制字段替换为长度说明</li>
+ * <li>超过maxFieldChars的字符串只保留前maxFieldChars个字符</li>
+ * <li>输出超过maxChars后，数组的后续元素不再输出，长字符串替换为长度说明；对象字段和短值照常输出，保证usage、cost等字段不丢</li>
+ * </ul>
+ * 被裁剪的字段路径写在根对象的truncatedFields中。长度按字符计，与UTF-8字节数近似。
+ */
+class BoundedJsonGenerator extends JsonGeneratorDelegate {
+    static final String TRUNCATED_FIELDS = "truncatedFields";
+    private static final int SHORT_VALUE_CHARS = 128;
+    private static final int MAX_REPORTED = 50;
+
+    private final StringWriter out;
+    private final int maxChars;
+    private final int maxFieldChars;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final List<String> truncated = new ArrayList<>();
+    private int truncatedCount;
+    // >0 时正在跳过一个被省略的数组元素
+    private int skipDepth;
+
+    private BoundedJsonGenerator(JsonGenerator delegate, StringWriter out, int maxChars, int maxFieldChars) {
+        super(delegate, false);
+        this.out = out;
+        this.maxChars = maxChars;
+        this.maxFieldChars = maxFieldChars;
+    }
+
+    static String serialize(ObjectMapper mapper, Object value, int maxChars, int maxFieldChars) throws IOException {
+        StringWriter out = new StringWriter(Math.min(maxChars, 64 * 1024) + 256);
+        try (BoundedJsonGenerator generator = new BoundedJsonGenerator(mapper.getFactory().createGenerator(out), out, maxChars, maxFieldChars)) {
+            mapper.writeValue(generator, value);
+        }
+        return out.toString();
+    }
+
+    private boolean overBudget() {
+        return exceeds(0);
+    }
+
+    /**
+     * 再写入length个字符后超出预算
+     */
+    private boolean exceeds(int length) {
+        return out.getBuffer().length() + delegate.getOutputBuffered() + length > maxChars;
+    }
+
+    private void report(String detail) {
+        if(truncatedCount++ < MAX_REPORTED) {
+            truncated.add(path() + ": " + detail);
+        }
+    }
+
+    private String path() {
+        StringBuilder path = new StringBuilder();
+        for (Iterator<Frame> it = frames.descendingIterator(); it.hasNext();) {
+            Frame frame = it.next();
+            if(frame.array) {
+                path.append('[').append(frame.index).append(']');
+            } else if(frame.name != null) {
+                if(path.length() > 0) {
+                    path.append('.');
+                }
+                path.append(frame.name);
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * 开始一个值；返回false表示该值被省略（正在跳过，或超出预算的数组元素）
+     */
+    private boolean value() {
+        if(skipDepth > 0) {
+            return false;
+        }
+        Frame frame = frames.peek();
+        if(frame != null && frame.array) {
+            frame.index++;
+            if(frame.elided > 0 || overBudget()) {
+                frame.elided++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startContainer(boolean array) {
+        if(skipDepth > 0) {
+            skipDepth++;
+            return false;
+        }
+        if(!value()) {
+            skipDepth = 1;
+            return false;
+        }
+        frames.push(new Frame(array));
+        return true;
+    }
+
+    private boolean endContainer() throws IOException {
+        if(skipDepth > 0) {
+            skipDepth--;
+            return false;
+        }
+        Frame frame = frames.pop();
+        if(frame.elided > 0) {
+            report(frame.elided + " items removed");
+            delegate.writeString("[REMOVED: " + frame.elided + " items]");
+        }
+        if(frames.isEmpty() && !frame.array && truncatedCount > 0) {
+            delegate.writeFieldName(TRUNCATED_FIELDS);
+            delegate.writeStartArray();
+            for (String field : truncated) {
+                delegate.writeString(field);
+            }
+            if(truncatedCount > truncated.size()) {
+                delegate.writeString("... " + (truncatedCount - truncated.size()) + " more");
+            }
+            delegate.writeEndArray();
+        }
+        return true;
+    }
+
+    /**
+     * 字符串值的替换文本；返回null表示原样输出
+     */
+    private String replacement(int length, CharSequence head) {
+        if(length <= SHORT_VALUE_CHARS || !exceeds(length)) {
+            return null;
+        }
+        if(isBase64DataUri(head)) {
+            String marker = "[ELIDED: " + head.subSequence(5, indexOf(head, ';')) + " base64, " + length + " chars]";
+            report("base64 " + length + " chars");
+            return marker;
+        }
+        if(overBudget()) {
+            report(length + " chars removed");
+            return "[REMOVED: " + length + " chars]";
+        }
+        if(length > maxFieldChars) {
+            report(length + " chars truncated");
+            return head.subSequence(0, maxFieldChars) + "...[TRUNCATED: " + length + " chars]";
+        }
+        return null;
+    }
+
+    private static boolean isBase64DataUri(CharSequence s) {
+        if(s.length() < 5 || !"data:".contentEquals(s.subSequence(0, 5))) {
+            return false;
+        }
+        int semicolon = indexOf(s, ';');
+        return semicolon > 0 && s.length() >= semicolon + 8 && ";base64,".contentEquals(s.subSequence(semicolon, semicolon + 8));
+    }
+
+    private static int indexOf(CharSequence s, char c) {
+        int end = Math.min(s.length(), 256);
+        for (int i = 0; i < end; i++) {
+            if(s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean binary(int length) throws IOException {
+        if(!value()) {
+            return false;
+        }
+        int encoded = (length + 2) / 3 * 4;
+        if(encoded > SHORT_VALUE_CHARS && exceeds(encoded)) {
+            report("binary " + length + " bytes");
+            delegate.writeString("[ELIDED: binary " + length + " bytes]");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        if(startContainer(true)) {
+            delegate.writeStartArray();
+        }
+    }
+
+    @Override
+    public void writeStartArray(int size) throws IOException {
+        if(startContainer(true)) {
+            delegate.writeStartArray(size);
+        }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        if(startContainer(true)) {
+            delegate.writeStartArray(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        if(startContainer(true)) {
+            delegate.writeStartArray(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if(endContainer()) {
+            delegate.writeEndArray();
+        }
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        if(startContainer(false)) {
+            delegate.writeStartObject();
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        if(startContainer(false)) {
+            delegate.writeStartObject(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        if(startContainer(false)) {
+            delegate.writeStartObject(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if(endContainer()) {
+            delegate.writeEndObject();
+        }
+    }
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeString(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if(skipDepth == 0) {
+            frames.peek().name = name;
+            delegate.writeFieldName(name);
+        }
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        if(skipDepth == 0) {
+            frames.peek().name = name.getValue();
+            delegate.writeFieldName(name);
+        }
+    }
+
+    @Override
+    public void writeFieldId(long id) throws IOException {
+        writeFieldName(Long.toString(id));
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if(!value()) {
+            return;
+        }
+        String replacement = text == null ? null : replacement(text.length(), text);
+        delegate.writeString(replacement != null ? replacement : text);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        if(!value()) {
+            return;
+        }
+        String replacement = replacement(len, CharBuffer.wrap(text, offset, len));
+        if(replacement != null) {
+            delegate.writeString(replacement);
+        } else {
+            delegate.writeString(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        writeString(text.getValue());
+    }
+
+    @Override
+    public void writeString(Reader reader, int len) throws IOException {
+        StringBuilder text = new StringBuilder(Math.max(len, 16));
+        char[] buf = new char[4096];
+        int n;
+        while ((len < 0 || text.length() < len) && (n = reader.read(buf, 0, len < 0 ? buf.length : Math.min(buf.length, len - text.length()))) >= 0) {
+            text.append(buf, 0, n);
+        }
+        writeString(text.toString());
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeBinary(Base64Variant b64variant, byte[] data, int offset, int len) throws IOException {
+        if(binary(len)) {
+            delegate.writeBinary(b64variant, data, offset, len);
+        }
+    }
+
+    @Override
+    public int writeBinary(Base64Variant b64variant, InputStream data, int dataLength) throws IOException {
+        if(dataLength >= 0 && !binary(dataLength)) {
+            return dataLength;
+        }
+        if(dataLength < 0 && !value()) {
+            return dataLength;
+        }
+        return delegate.writeBinary(b64variant, data, dataLength);
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        if(!value()) {
+            return;
+        }
+        if(text.length() > SHORT_VALUE_CHARS && exceeds(text.length())) {
+            report("raw " + text.length() + " chars");
+            delegate.writeString("[ELIDED: raw json " + text.length() + " chars]");
+            return;
+        }
+        delegate.writeRawValue(text);
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int len) throws IOException {
+        writeRawValue(text.substring(offset, offset + len));
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int len) throws IOException {
+        writeRawValue(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeNumber(short v) throws IOException {
+        if(value()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        if(value()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        if(value()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        if(value()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        if(value()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+        if(value()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        if(value()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if(value()) {
+            delegate.writeNumber(encodedValue);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        if(value()) {
+            delegate.writeBoolean(state);
+        }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        if(value()) {
+            delegate.writeNull();
+        }
+    }
+
+    @Override
+    public void writeEmbeddedObject(Object object) throws IOException {
+        if(value()) {
+            delegate.writeEmbeddedObject(object);
+        }
+    }
+
+    private static class Frame {
+        private final boolean array;
+        private String name;
+        private int index = -1;
+        private int elided;
+
+        private Frame(boolean array) {
+            this.array = array;
+        }
+    }
+}
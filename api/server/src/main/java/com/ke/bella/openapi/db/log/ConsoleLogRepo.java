@@ -1,14 +1,14 @@
 package com.ke.bella.openapi.db.log;
 
 import com.ke.bella.openapi.EndpointProcessData;
-import com.ke.bella.openapi.protocol.log.CostLogHandler;
 import com.ke.bella.openapi.utils.JacksonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+
 @Component
 public class ConsoleLogRepo implements LogRepo {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleLogRepo.class);
@@ -18,23 +18,40 @@ public class ConsoleLogRepo implements LogRepo {
     @Value("${bella.log.max-size-bytes:#{null}}")
     private Integer maxLogSizeBytes;
 
+    /**
+     * 配置了max-size-bytes且日志超长时，单个字符串字段保留的最大字符数；未超长的日志原样输出
+     */
+    @Value("${bella.log.max-field-chars:16384}")
+    private int maxFieldChars = 16384;
+
     @Override
     public void record(EndpointProcessData log) {
-        String serialized = JacksonUtils.serialize(log);
-
-        FULL_LOGGER.info(serialized);
-
-        // Check if log size limit is configured and serialized size exceeds it
-        if(maxLogSizeBytes != null && serialized.getBytes().length > maxLogSizeBytes) {
-            // Create a copy with request and response removed to reduce size
-            EndpointProcessData reducedLog = new EndpointProcessData();
-            BeanUtils.copyProperties(log, reducedLog);
-            reducedLog.setRequest("[REMOVED: Log size exceeded " + maxLogSizeBytes + " bytes]");
-            reducedLog.setResponse(null);
-
-            serialized = JacksonUtils.serialize(reducedLog);
+        // 完整日志仅在ConsoleFullLogger开启时序列化
+        String serialized = null;
+        if(FULL_LOGGER.isInfoEnabled()) {
+            serialized = JacksonUtils.serialize(log);
+            FULL_LOGGER.info(serialized);
         }
+        if(!LOGGER.isInfoEnabled()) {
+            return;
+        }
+        if(maxLogSizeBytes == null) {
+            LOGGER.info(serialized != null ? serialized : JacksonUtils.serialize(log));
+            return;
+        }
+        // 限长日志单遍序列化，超长字段（base64图片、长消息、音频等）在写出时直接裁剪
+        LOGGER.info(serializeBounded(log));
+    }
 
-        LOGGER.info(serialized);
+    /**
+     * 按max-size-bytes限长序列化
+     */
+    public String serializeBounded(EndpointProcessData log) {
+        try {
+            return BoundedJsonGenerator.serialize(JacksonUtils.MAPPER, log, maxLogSizeBytes, maxFieldChars);
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage(), e);
+            return "";
+        }
     }
 }
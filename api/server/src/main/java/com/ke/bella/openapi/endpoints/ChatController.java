@@ -1,7 +1,12 @@
 package com.ke.bella.openapi.endpoints;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -19,11 +24,15 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.ke.bella.openapi.BellaContext;
 import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.TaskExecutor;
 import com.ke.bella.openapi.annotations.EndpointAPI;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
 import com.ke.bella.openapi.common.exception.BellaException;
 import com.ke.bella.openapi.protocol.AdaptorManager;
 import com.ke.bella.openapi.protocol.ChannelRouter;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
 import com.ke.bella.openapi.protocol.completion.CompletionAdaptor;
 import com.ke.bella.openapi.protocol.completion.CompletionAdaptorDelegator;
 import com.ke.bella.openapi.protocol.completion.CompletionProperty;
@@ -31,16 +40,20 @@ import com.ke.bella.openapi.protocol.completion.CompletionRequest;
 import com.ke.bella.openapi.protocol.completion.CompletionResponse;
 import com.ke.bella.openapi.protocol.completion.DirectPassthroughAdaptor;
 import com.ke.bella.openapi.protocol.completion.QueueAdaptor;
+import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
 import com.ke.bella.openapi.protocol.completion.ToolCallSimulator;
 import com.ke.bella.openapi.protocol.completion.callback.StreamCallbackProvider;
 import com.ke.bella.openapi.protocol.limiter.LimiterManager;
 import com.ke.bella.openapi.protocol.log.EndpointLogger;
+import com.ke.bella.openapi.protocol.route.RouteAffinity;
 import com.ke.bella.openapi.safety.ISafetyCheckService;
 import com.ke.bella.openapi.safety.SafetyCheckHelper;
 import com.ke.bella.openapi.safety.SafetyCheckRequest;
-import com.ke.bella.openapi.db.repo.ChannelRepo;
+import com.ke.bella.openapi.service.ChannelService;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.service.EndpointDataService;
 import com.ke.bella.openapi.tables.pojos.ChannelDB;
+import com.ke.bella.openapi.utils.DateTimeUtils;
 import com.ke.bella.openapi.utils.JacksonUtils;
 import com.ke.bella.openapi.utils.SseHelper;
 
@@ -67,10 +80,18 @@ public class ChatController {
     private EndpointDataService endpointDataService;
     @Value("${bella.openapi.max-models-per-request:3}")
     private Integer maxModelsPerRequest;
+    @Value("${bella.openapi.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+    @Value("${bella.openapi.hedge.delay-ms:2000}")
+    private long hedgeDelayMillis;
     @Autowired
     private QueueClient queueClient;
     @Autowired
-    private ChannelRepo channelRepo;
+    private ChannelService channelService;
+    @Autowired
+    private RouteAffinity routeAffinity;
+    @Autowired
+    private ResponseCache responseCache;
 
     @PostMapping("/completions")
     public Object completion(HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
@@ -103,6 +124,9 @@ public class ChatController {
                 log.warn("请求模型数量超过最大限制: " + maxModelsPerRequest);
                 maxNum = maxModelsPerRequest;
             }
+            if(hedgeEnabled && maxNum > 1) {
+                return hedgeCompletion(endpoint, models, maxNum, request);
+            }
             Exception lastException = null;
 
             for (int i = 0; i < maxNum; i++) {
@@ -133,9 +157,168 @@ public class ChatController {
         return processCompletionRequest(endpoint, model, request);
     }
 
+    /**
+     * 对冲模式：当前请求在hedgeDelayMillis内未建立连接（流式）或未返回（非流式）时，提前启动下一个模型的请求，
+     * 请求失败时立即启动下一个；最先成功的请求胜出，其余请求通过UpstreamCancellation取消上游连接。
+     * 每个请求使用独立的processData，并发计数和费用都按实际发出的请求分别记录
+     */
+    private Object hedgeCompletion(String endpoint, String[] models, int maxNum, CompletionRequest request) {
+        Map<String, Object> context = BellaContext.snapshot();
+        EndpointProcessData origin = EndpointContext.getProcessData();
+        BlockingQueue<HedgeAttempt> settled = new LinkedBlockingQueue<>();
+        List<HedgeAttempt> attempts = new ArrayList<>(maxNum);
+        HedgeAttempt winner = null;
+        HedgeAttempt lastFailed = null;
+        int finished = 0;
+        try {
+            while (winner == null && finished < maxNum) {
+                if(attempts.size() == finished) {
+                    attempts.add(launchAttempt(endpoint, models[attempts.size()].trim(), request, origin, context, settled));
+                }
+                HedgeAttempt done = attempts.size() < maxNum ? settled.poll(hedgeDelayMillis, TimeUnit.MILLISECONDS) : settled.take();
+                if(done == null) {
+                    log.info("请求{}在{}ms内未响应，启动对冲请求: {}", origin.getRequestId(), hedgeDelayMillis, models[attempts.size()].trim());
+                    attempts.add(launchAttempt(endpoint, models[attempts.size()].trim(), request, origin, context, settled));
+                    continue;
+                }
+                finished++;
+                if(done.error == null) {
+                    winner = done;
+                } else {
+                    if(lastFailed != null) {
+                        lastFailed.logFailure(logger);
+                    }
+                    lastFailed = done;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (HedgeAttempt attempt : attempts) {
+                if(attempt != winner && attempt != lastFailed) {
+                    attempt.discard(logger);
+                }
+            }
+        }
+
+        if(winner != null) {
+            if(lastFailed != null) {
+                lastFailed.logFailure(logger);
+            }
+            if(!winner.stream) {
+                // 非流式请求由EndpointResponseAdvice记录日志
+                EndpointContext.setProcessData(winner.processData);
+            }
+            return winner.result;
+        }
+        if(lastFailed == null) {
+            throw new BizParamCheckException("所有指定的模型都无法处理请求");
+        }
+        EndpointContext.setProcessData(lastFailed.processData);
+        throw BellaException.fromException(lastFailed.error);
+    }
+
+    private HedgeAttempt launchAttempt(String endpoint, String model, CompletionRequest request, EndpointProcessData origin,
+            Map<String, Object> context, BlockingQueue<HedgeAttempt> settled) {
+        CompletionRequest processedRequest = request.copyRequest();
+        processedRequest.setModel(model);
+        EndpointProcessData processData = origin.copy();
+        processData.setModel(model);
+        processData.setRequest(processedRequest);
+        HedgeAttempt attempt = new HedgeAttempt(processData, request.isStream(), settled);
+        TaskExecutor.submit(() -> {
+            BellaContext.replace(context);
+            EndpointContext.setProcessData(processData);
+            UpstreamCancellation.bind(attempt.cancellation);
+            try {
+                attempt.settle(processCompletionRequest(endpoint, model, processedRequest), null, logger);
+            } catch (Throwable e) {
+                attempt.settle(null, e, logger);
+            } finally {
+                UpstreamCancellation.unbind();
+                EndpointContext.clearAll();
+            }
+        });
+        return attempt;
+    }
+
+    private static class HedgeAttempt {
+        final EndpointProcessData processData;
+        final boolean stream;
+        final BlockingQueue<HedgeAttempt> settled;
+        final UpstreamCancellation cancellation = new UpstreamCancellation();
+        Object result;
+        Throwable error;
+        boolean finished;
+        boolean discarded;
+
+        HedgeAttempt(EndpointProcessData processData, boolean stream, BlockingQueue<HedgeAttempt> settled) {
+            this.processData = processData;
+            this.stream = stream;
+            this.settled = settled;
+        }
+
+        void settle(Object result, Throwable error, EndpointLogger logger) {
+            boolean wasDiscarded;
+            synchronized (this) {
+                this.result = result;
+                this.error = error;
+                this.finished = true;
+                wasDiscarded = discarded;
+            }
+            if(wasDiscarded) {
+                // 落选后才结束，失败由取消上游引起
+                release(logger, true);
+            } else {
+                settled.offer(this);
+            }
+        }
+
+        void discard(EndpointLogger logger) {
+            boolean wasFinished;
+            synchronized (this) {
+                discarded = true;
+                wasFinished = finished;
+            }
+            cancellation.cancel();
+            if(wasFinished) {
+                release(logger, false);
+            }
+        }
+
+        // 落选请求的日志；已建立连接的流式请求被取消后由其回调记录
+        private void release(EndpointLogger logger, boolean cancelled) {
+            if(error != null && cancelled) {
+                logCancelled(logger);
+            } else if(error != null) {
+                logFailure(logger);
+            } else if(!stream && result instanceof OpenapiResponse) {
+                processData.setResponse((OpenapiResponse) result);
+                logger.log(processData);
+            }
+        }
+
+        void logFailure(EndpointLogger logger) {
+            processData.setResponse(OpenapiResponse.errorResponse(BellaException.fromException(error).convertToOpenapiError()));
+            logger.log(processData);
+        }
+
+        // 不记为渠道错误，日志处理时只释放在途数
+        void logCancelled(EndpointLogger logger) {
+            processData.setCancelled(true);
+            processData.setResponse(OpenapiResponse.errorResponse(new OpenapiResponse.OpenapiError("cancelled", "对冲请求落选，已取消", 499)));
+            logger.log(processData);
+        }
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     private Object processCompletionRequest(String endpoint, String model, CompletionRequest request) {
         boolean isMock = EndpointContext.getProcessData().isMock();
+        OpenapiResponse cached = responseCache.lookup(endpoint, model, request);
+        if(cached instanceof CompletionResponse) {
+            return replayCached(request, (CompletionResponse) cached, isMock);
+        }
+        routeAffinity.bind(request);
 
         // Initialize channel using common method
         ChannelContext ctx = initializeChannel(endpoint, model, false);
@@ -172,6 +355,40 @@ public class ChatController {
         return response;
     }
 
+    /**
+     * 命中缓存时不请求上游，但输入仍需安全检查，检查方式取缓存记录的渠道配置
+     */
+    private Object replayCached(CompletionRequest request, CompletionResponse response, boolean isMock) {
+        EndpointProcessData processData = EndpointContext.getProcessData();
+        ChannelDB channel = channelService.getOne(processData.getChannelCode());
+        CompletionProperty property = channel == null ? null : JacksonUtils.deserialize(channel.getChannelInfo(), CompletionProperty.class);
+        ISafetyCheckService<SafetyCheckRequest.Chat> chatSafetyCheckService = SafetyCheckHelper.createDelegator(safetyCheckService,
+                property == null ? null : property.getSafetyCheckMode());
+        chatSafetyCheckService.safetyCheck(SafetyCheckRequest.Chat.convertFrom(request, processData, EndpointContext.getApikey()), isMock);
+        response.setRequestRiskData(SafetyCheckHelper.getRequestRiskData(chatSafetyCheckService));
+        return request.isStream() ? replayStream(response) : response;
+    }
+
+    /**
+     * 以SSE回放缓存的响应，流式请求不经过EndpointResponseAdvice，日志在此记录
+     */
+    private SseEmitter replayStream(CompletionResponse response) {
+        EndpointProcessData processData = EndpointContext.getProcessData();
+        SseEmitter sse = SseHelper.createSse(1000L * 60 * 30, processData.getRequestId());
+        List<StreamCompletionResponse> chunks = ResponseCache.toStreamChunks(response);
+        // 与上游流式响应一致，请求风险数据随第一个分片返回
+        if(response.getRequestRiskData() != null && !chunks.isEmpty()) {
+            chunks.get(0).setRequestRiskData(response.getRequestRiskData());
+        }
+        chunks.forEach(chunk -> SseHelper.sendEvent(sse, chunk));
+        SseHelper.sendEvent(sse, "[DONE]");
+        sse.complete();
+        processData.setFirstPackageTime(DateTimeUtils.getCurrentMills());
+        processData.setResponse(response);
+        logger.log(processData);
+        return sse;
+    }
+
     private void fillMockProperty(CompletionProperty property) {
         Map<String, String> requestInfo = BellaContext.getHeaders();
         String functionCallSimulate = requestInfo.get("X-BELLA-FUNCTION-SIMULATE");
@@ -185,7 +402,7 @@ public class ChatController {
     private CompletionAdaptor<?> decorateAdaptor(CompletionAdaptor<?> adaptor, CompletionProperty property, EndpointProcessData processData) {
         if(StringUtils.isNotBlank(property.getQueueName())) {
             if(adaptor instanceof CompletionAdaptorDelegator) {
-                adaptor = new QueueAdaptor<>((CompletionAdaptorDelegator<?>) adaptor, queueClient, processData, channelRepo::queryByUniqueKey);
+                adaptor = new QueueAdaptor<>((CompletionAdaptorDelegator<?>) adaptor, queueClient, processData, channelService::getFromIndex);
             } else {
                 throw new IllegalStateException(adaptor.getClass().getSimpleName() + "不支持请求代理");
             }
@@ -218,7 +435,9 @@ public class ChatController {
 
         // Get adaptor and property
         CompletionAdaptor<?> adaptor = adaptorManager.getProtocolAdaptor(endpoint, protocol, CompletionAdaptor.class);
+        long parseStart = System.nanoTime();
         CompletionProperty property = (CompletionProperty) JacksonUtils.deserialize(channelInfo, adaptor.getPropertyClass());
+        GatewayMetrics.recordSince(GatewayMetrics.Stage.property, EndpointContext.getProcessData(), parseStart);
 
         EndpointContext.setEncodingType(property.getEncodingType());
 
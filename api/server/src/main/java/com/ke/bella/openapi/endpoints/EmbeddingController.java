@@ -3,8 +3,11 @@ package com.ke.bella.openapi.endpoints;
 import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.EndpointProcessData;
 import com.ke.bella.openapi.annotations.EndpointAPI;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.protocol.AdaptorManager;
 import com.ke.bella.openapi.protocol.ChannelRouter;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
 import com.ke.bella.openapi.protocol.embedding.EmbeddingAdaptor;
 import com.ke.bella.openapi.protocol.embedding.EmbeddingProperty;
 import com.ke.bella.openapi.protocol.embedding.EmbeddingRequest;
@@ -32,6 +35,8 @@ public class EmbeddingController {
     private LimiterManager limiterManager;
     @Autowired
     private EndpointDataService endpointDataService;
+    @Autowired
+    private ResponseCache responseCache;
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping
@@ -39,6 +44,10 @@ public class EmbeddingController {
         String endpoint = EndpointContext.getRequest().getRequestURI();
         String model = request.getModel();
         endpointDataService.setEndpointData(endpoint, model, request);
+        OpenapiResponse cached = responseCache.lookup(endpoint, model, request);
+        if(cached != null) {
+            return cached;
+        }
         EndpointProcessData processData = EndpointContext.getProcessData();
         ChannelDB channel = router.route(endpoint, model, EndpointContext.getApikey(), processData.isMock());
         endpointDataService.setChannel(channel);
@@ -49,7 +58,9 @@ public class EmbeddingController {
         String url = processData.getForwardUrl();
         String channelInfo = channel.getChannelInfo();
         EmbeddingAdaptor adaptor = adaptorManager.getProtocolAdaptor(endpoint, protocol, EmbeddingAdaptor.class);
+        long parseStart = System.nanoTime();
         EmbeddingProperty property = (EmbeddingProperty) JacksonUtils.deserialize(channelInfo, adaptor.getPropertyClass());
+        GatewayMetrics.recordSince(GatewayMetrics.Stage.property, EndpointContext.getProcessData(), parseStart);
         EndpointContext.setEncodingType(property.getEncodingType());
         return adaptor.embedding(request, url, property);
     }
@@ -1,31 +1,66 @@
 package com.ke.bella.openapi.endpoints;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.ke.bella.openapi.EndpointProcessData;
 import com.ke.bella.openapi.annotations.BellaAPI;
 import com.ke.bella.openapi.apikey.ApikeyInfo;
+import com.ke.bella.openapi.client.LogShipper;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
 import com.ke.bella.openapi.protocol.log.EndpointLogger;
 import com.ke.bella.openapi.service.ApikeyService;
 import com.ke.bella.openapi.utils.EncryptUtils;
+import com.ke.bella.openapi.utils.JacksonUtils;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @BellaAPI
 @RestController
 @RequestMapping("/v1/log")
 @Tag(name = "日志")
 public class LogController {
+    private static final String BATCH_KEY_FORMAT = "bella-openapi-log-batch:%s";
+
     @Autowired
     private EndpointLogger logger;
     @Autowired
     private ApikeyService apikeyService;
+    @Autowired
+    private RedissonClient redisson;
+    @Value("${bella.openapi.log.batch-max-bytes:67108864}")
+    private long batchMaxBytes = 64L * 1024 * 1024;
+    /**
+     * 批次id的去重时长，需覆盖sdk落盘后补发的间隔
+     */
+    @Value("${bella.openapi.log.batch-dedupe-seconds:86400}")
+    private long batchDedupeSeconds = 86400;
 
     @PostMapping
     public Boolean record(@RequestBody EndpointProcessData processData) {
@@ -41,4 +76,103 @@ public class LogController {
         logger.log(processData);
         return true;
     }
+
+    /**
+     * 批量写入日志，支持Content-Encoding: gzip；字段缺失或ak无效的条目跳过，返回实际写入条数。
+     * 带批次id的请求按批次去重，已写入过的批次不再写入
+     */
+    @PostMapping("/batch")
+    public Integer batchRecord(HttpServletRequest request) throws IOException {
+        List<EndpointProcessData> batch = readBatch(request);
+        Map<String, Optional<ApikeyInfo>> apikeys = new HashMap<>();
+        List<EndpointProcessData> accepted = new ArrayList<>(batch.size());
+        for (EndpointProcessData processData : batch) {
+            if(StringUtils.isAnyEmpty(processData.getEndpoint(), processData.getAkSha(), processData.getBellaTraceId())) {
+                log.warn("skip invalid log, endpoint: {}, bellaTraceId: {}", processData.getEndpoint(), processData.getBellaTraceId());
+                continue;
+            }
+            ApikeyInfo apikeyInfo = apikeys.computeIfAbsent(processData.getAkSha(),
+                    sha -> Optional.ofNullable(apikeyService.queryBySha(sha, true))).orElse(null);
+            if(apikeyInfo == null) {
+                log.warn("skip log with unknown apikey, bellaTraceId: {}", processData.getBellaTraceId());
+                continue;
+            }
+            processData.setApikeyInfo(apikeyInfo);
+            processData.setInnerLog(false);
+            accepted.add(processData);
+        }
+        String batchId = request.getHeader(LogShipper.BATCH_ID_HEADER);
+        if(StringUtils.isNotEmpty(batchId) && !claimBatch(batchId, accepted.size())) {
+            log.info("skip duplicated log batch: {}", batchId);
+            return accepted.size();
+        }
+        logger.log(accepted);
+        return accepted.size();
+    }
+
+    /**
+     * sdk重试和补发时批次id不变：上一次请求已写入但响应丢失时，重试的批次不再写入，避免重复记录日志和计费
+     */
+    private boolean claimBatch(String batchId, int count) {
+        RBucket<String> bucket = redisson.getBucket(String.format(BATCH_KEY_FORMAT, batchId), StringCodec.INSTANCE);
+        return bucket.trySet(String.valueOf(count), batchDedupeSeconds, TimeUnit.SECONDS);
+    }
+
+    private List<EndpointProcessData> readBatch(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        if("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            in = new GZIPInputStream(in);
+        }
+        // 限制解压后的大小，防止高压缩比的小请求耗尽内存
+        try (InputStream body = new BoundedInputStream(in, batchMaxBytes)) {
+            List<EndpointProcessData> batch = JacksonUtils.MAPPER.readValue(body, new TypeReference<List<EndpointProcessData>>() {
+            });
+            if(batch == null) {
+                throw new BizParamCheckException("日志列表不能为空");
+            }
+            return batch;
+        }
+    }
+
+    private static class BoundedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long count;
+
+        BoundedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if(n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) {
+            count += n;
+            if(count > maxBytes) {
+                throw new BizParamCheckException("日志批量请求超过大小限制: " + maxBytes + " bytes");
+            }
+        }
+    }
 }
@@ -4,6 +4,7 @@ import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.EndpointProcessData;
 import com.ke.bella.openapi.annotations.EndpointAPI;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.protocol.AdaptorManager;
 import com.ke.bella.openapi.protocol.ChannelRouter;
 import com.ke.bella.openapi.protocol.completion.CompletionProperty;
@@ -12,6 +13,7 @@ import com.ke.bella.openapi.protocol.limiter.LimiterManager;
 import com.ke.bella.openapi.protocol.log.EndpointLogger;
 import com.ke.bella.openapi.protocol.message.MessageAdaptor;
 import com.ke.bella.openapi.protocol.message.MessageRequest;
+import com.ke.bella.openapi.protocol.route.RouteAffinity;
 import com.ke.bella.openapi.safety.ISafetyCheckService;
 import com.ke.bella.openapi.service.EndpointDataService;
 import com.ke.bella.openapi.tables.pojos.ChannelDB;
@@ -42,6 +44,8 @@ public class MessageController {
     private EndpointLogger logger;
     @Autowired
     private ISafetyCheckService.IChatSafetyCheckService safetyCheckService;
+    @Autowired
+    private RouteAffinity routeAffinity;
 
     @PostMapping
     @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -50,6 +54,7 @@ public class MessageController {
         String model = request.getModel();
         endpointDataService.setEndpointData(endpoint, model, request);
         boolean isMock = EndpointContext.getProcessData().isMock();
+        routeAffinity.bind(request);
         ChannelDB channel = router.route(endpoint, model, EndpointContext.getApikey(), isMock);
         endpointDataService.setChannel(channel);
         if(!EndpointContext.getProcessData().isPrivate()) {
@@ -63,7 +68,9 @@ public class MessageController {
         if(adaptor == null) {
             throw new BizParamCheckException("Unsupported protocol.");
         }
+        long parseStart = System.nanoTime();
         CompletionProperty property = (CompletionProperty) JacksonUtils.deserialize(channelInfo, adaptor.getPropertyClass());
+        GatewayMetrics.recordSince(GatewayMetrics.Stage.property, EndpointContext.getProcessData(), parseStart);
         EndpointContext.setEncodingType(property.getEncodingType());
         if(Boolean.TRUE.equals(request.getStream())) {
             SseEmitter sse = SseHelper.createSse(1000L * 60 * 30, EndpointContext.getProcessData().getRequestId());
@@ -12,6 +12,7 @@ import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.annotations.EndpointAPI;
 import com.ke.bella.openapi.protocol.AdaptorManager;
 import com.ke.bella.openapi.protocol.ChannelRouter;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
 import com.ke.bella.openapi.protocol.limiter.LimiterManager;
 import com.ke.bella.openapi.protocol.ocr.OcrContext;
 import com.ke.bella.openapi.protocol.ocr.OcrProperty;
@@ -42,11 +43,16 @@ public class OcrController {
     private LimiterManager limiterManager;
     @Autowired
     private EndpointDataService endpointDataService;
+    @Autowired
+    private ResponseCache responseCache;
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/idcard")
     public Object idcard(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         IdcardAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), IdcardAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -58,7 +64,10 @@ public class OcrController {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/bankcard")
     public Object bankcard(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         BankcardAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), BankcardAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -70,7 +79,10 @@ public class OcrController {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/hmt-residence-permit")
     public Object hmtResidencePermit(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         ResidencePermitAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), ResidencePermitAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -82,7 +94,10 @@ public class OcrController {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/tmp-idcard")
     public Object tmpIdcard(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         TmpIdcardAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), TmpIdcardAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -94,7 +109,10 @@ public class OcrController {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/hmt-travel-permit")
     public Object hmtTravelPermit(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         HmtTravelPermitAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), HmtTravelPermitAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -106,7 +124,10 @@ public class OcrController {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/overseas-passport")
     public Object overseasPassport(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         OverseasPassportAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), OverseasPassportAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -118,7 +139,10 @@ public class OcrController {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/general")
     public Object general(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         GeneralAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), GeneralAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -130,7 +154,10 @@ public class OcrController {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @PostMapping("/business-license")
     public Object businessLicense(@RequestBody @Valid OcrRequest request) {
-        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager);
+        OcrContext ctx = OcrContext.initialize(request, endpointDataService, router, limiterManager, responseCache);
+        if(ctx.getCached() != null) {
+            return ctx.getCached();
+        }
 
         BusinessLicenseAdaptor adaptor = adaptorManager.getProtocolAdaptor(ctx.getEndpoint(), ctx.getProtocol(), BusinessLicenseAdaptor.class);
         OcrProperty property = (OcrProperty) JacksonUtils.deserialize(ctx.getChannelInfo(), adaptor.getPropertyClass());
@@ -31,6 +31,8 @@ public class RouteController {
     private ChannelRouter channelRouter;
     @Autowired
     private ApikeyService apikeyService;
+    @Autowired
+    private ChannelService channelService;
 
     @PostMapping
     public RouteResult route(@RequestBody RouteRequest request) {
@@ -55,4 +57,9 @@ public class RouteController {
                 .build();
     }
 
+    @GetMapping("/version")
+    public Long version() {
+        return channelService.getRouteVersion();
+    }
+
 }
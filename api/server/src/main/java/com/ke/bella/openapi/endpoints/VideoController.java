@@ -1,6 +1,7 @@
 package com.ke.bella.openapi.endpoints;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -78,6 +79,7 @@ public class VideoController {
     public void init() {
         videoFileService = openAiServiceFactory.create(
                 openapiProperties.getServiceAk(),
+                Collections.emptyMap(),
                 VIDEO_FILE_CONNECT_TIMEOUT,
                 VIDEO_FILE_READ_TIMEOUT);
         log.info("[VideoJob] Created video file service for controller with timeout: connect={}s, read={}s",
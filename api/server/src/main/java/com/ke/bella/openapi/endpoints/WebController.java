@@ -5,6 +5,8 @@ import com.ke.bella.openapi.EndpointProcessData;
 import com.ke.bella.openapi.annotations.EndpointAPI;
 import com.ke.bella.openapi.protocol.AdaptorManager;
 import com.ke.bella.openapi.protocol.ChannelRouter;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
 import com.ke.bella.openapi.protocol.limiter.LimiterManager;
 import com.ke.bella.openapi.protocol.web.WebCrawlAdaptor;
 import com.ke.bella.openapi.protocol.web.WebCrawlProperty;
@@ -49,6 +51,8 @@ public class WebController {
     private LimiterManager limiterManager;
     @Autowired
     private EndpointDataService endpointDataService;
+    @Autowired
+    private ResponseCache responseCache;
 
     /**
      * Web Search endpoint Performs web search using Tavily Search API
@@ -60,6 +64,10 @@ public class WebController {
         String endpoint = EndpointContext.getRequest().getRequestURI();
         String model = request.getModel();
         endpointDataService.setEndpointData(endpoint, model, request);
+        OpenapiResponse cached = responseCache.lookup(endpoint, model, request);
+        if(cached instanceof WebSearchResponse) {
+            return (WebSearchResponse) cached;
+        }
         EndpointProcessData processData = EndpointContext.getProcessData();
         ChannelDB channel = router.route(endpoint, model, EndpointContext.getApikey(), processData.isMock());
         endpointDataService.setChannel(channel);
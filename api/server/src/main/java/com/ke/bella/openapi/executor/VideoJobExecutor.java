@@ -1,6 +1,7 @@
 package com.ke.bella.openapi.executor;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -109,6 +110,7 @@ public class VideoJobExecutor {
 
         videoFileService = openAiServiceFactory.create(
                 openapiProperties.getServiceAk(),
+                Collections.emptyMap(),
                 VIDEO_FILE_CONNECT_TIMEOUT,
                 VIDEO_FILE_READ_TIMEOUT);
         log.info("[VideoJob] Created video file service with timeout: connect={}s, read={}s",
@@ -16,6 +16,7 @@ import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.Operator;
 import com.ke.bella.openapi.apikey.ApikeyInfo;
 import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.service.ApikeyService;
 
 @Component
@@ -31,6 +32,15 @@ public class AuthorizationInterceptor extends com.ke.bella.openapi.server.interc
         if(Boolean.TRUE.equals(request.getAttribute(ASYNC_REQUEST_MARKER))) {
             return true;
         }
+        long start = System.nanoTime();
+        try {
+            return authorize(request);
+        } finally {
+            GatewayMetrics.record(GatewayMetrics.Stage.auth, request, System.nanoTime() - start);
+        }
+    }
+
+    private boolean authorize(HttpServletRequest request) {
         boolean hasPermission;
         String url = request.getRequestURI();
         Operator op = BellaContext.getOperatorIgnoreNull();
@@ -67,8 +77,8 @@ public class AuthorizationInterceptor extends com.ke.bella.openapi.server.interc
                 String userAkCode = request.getHeader(BellaContext.BELLA_USER_AK_HEADER);
                 if(StringUtils.isNotEmpty(userAkCode)) {
                     ApikeyInfo userAkInfo = apikeyService.queryByCode(userAkCode, true);
-                    userAkInfo.setApikey(auth);
-                    apikeyInfo = userAkInfo;
+                    // 缓存中的对象为共享实例，复制后再设置调用方的apikey
+                    apikeyInfo = userAkInfo.toBuilder().apikey(auth).build();
                 }
             }
             EndpointContext.setApikey(apikeyInfo);
@@ -3,6 +3,7 @@ package com.ke.bella.openapi.intercept;
 import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.apikey.ApikeyInfo;
 import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.service.ApikeyService;
 import com.ke.bella.openapi.utils.DateTimeUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,7 +26,16 @@ public class MonthQuotaInterceptor extends HandlerInterceptorAdapter {
         if(Boolean.TRUE.equals(request.getAttribute(ASYNC_REQUEST_MARKER))) {
             return true;
         }
-        ApikeyInfo apikey = EndpointContext.getApikey();
+        long start = System.nanoTime();
+        try {
+            checkQuota(EndpointContext.getApikey());
+        } finally {
+            GatewayMetrics.record(GatewayMetrics.Stage.quota, request, System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    private void checkQuota(ApikeyInfo apikey) {
         // 非子ak 或 已指定额度的子ak
         if(apikey.getParentInfo() == null || apikey.getMonthQuota().doubleValue() > 0) {
             BigDecimal cost = apikeyService.loadCost(apikey.getCode(), DateTimeUtils.getCurrentMonth());
@@ -45,6 +55,5 @@ public class MonthQuotaInterceptor extends HandlerInterceptorAdapter {
                 throw new BellaException.RateLimitException(msg);
             }
         }
-        return true;
     }
 }
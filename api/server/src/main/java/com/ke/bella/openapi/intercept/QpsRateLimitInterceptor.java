@@ -3,6 +3,7 @@ package com.ke.bella.openapi.intercept;
 import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.apikey.ApikeyInfo;
 import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.protocol.limiter.QpsCheckResult;
 import com.ke.bella.openapi.protocol.limiter.QpsLimiterManager;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,7 +41,9 @@ public class QpsRateLimitInterceptor extends HandlerInterceptorAdapter {
 
         // 执行 QPS 限流检查（Manager 内部处理默认值和开关逻辑）
         String akCode = apikey.getCode();
+        long start = System.nanoTime();
         QpsCheckResult result = qpsLimiterManager.checkLimit(akCode, apikey.getQpsLimit());
+        GatewayMetrics.record(GatewayMetrics.Stage.qps, request, System.nanoTime() - start);
 
         if (!result.isAllowed()) {
             // 添加 Retry-After 响应头，建议客户端 1 秒后重试
@@ -28,8 +28,12 @@ public class ChangeApikeyListener {
         if(event == null || CollectionUtils.isEmpty(event.getAkCodes())) {
             return;
         }
+        if(event.getAkShas() != null) {
+            event.getAkShas().forEach(apikeyService::clearApikeyCache);
+        }
         for (String akCode : event.getAkCodes()) {
             try {
+                apikeyService.clearApikeyCodeCache(akCode);
                 ApikeyInfo apikey = apikeyRepo.queryByCode(akCode);
                 if(apikey != null) {
                     apikeyService.clearApikeyCache(apikey.getAkSha());
@@ -66,6 +66,7 @@ public class TransferApikeyListener {
      */
     private void clearTransferredApikeyCaches(String akCode) {
         // 清除主API Key缓存
+        apikeyService.clearApikeyCodeCache(akCode);
         ApikeyInfo mainApikey = apikeyRepo.queryByCode(akCode);
         if(mainApikey != null) {
             apikeyService.clearApikeyCache(mainApikey.getAkSha());
@@ -80,6 +81,7 @@ public class TransferApikeyListener {
         if(CollectionUtils.isNotEmpty(subApikeys)) {
             for (ApikeyDB subApikey : subApikeys) {
                 apikeyService.clearApikeyCache(subApikey.getAkSha());
+                apikeyService.clearApikeyCodeCache(subApikey.getCode());
                 log.debug("已清除子API Key缓存: akCode={}, akSha={}", subApikey.getCode(), subApikey.getAkSha());
             }
             log.info("API Key转移完成，共清除 {} 个子API Key缓存", subApikeys.size());
@@ -0,0 +1,171 @@
+package com.ke.bella.openapi.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.ke.bella.openapi.EndpointProcessData;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 请求各阶段耗时埋点，按 stage/endpoint/channel/supplier 记录到micrometer全局registry，由actuator(prometheus)暴露。
+ * Timer按标签组合缓存，热路径上只有一次map查找和一次record；标签组合超过上限后归入other，避免基数失控。
+ * 直方图默认关闭，开启后只发布少量固定分桶（SLO_BUCKETS），不使用percentile histogram，避免每个标签组合产生几十个序列。
+ * 另按渠道累计输入token与命中提示词缓存的token，二者之比即缓存命中率。
+ */
+public class GatewayMetrics {
+    public static final String STAGE_TIMER = "bella.request.stage";
+    public static final String PROMPT_TOKENS = "bella.prompt.tokens";
+    private static final String NONE = "none";
+    private static final String OTHER = "other";
+    private static final int MAX_TIMERS = 5000;
+    private static final Duration[] SLO_BUCKETS = {
+            Duration.ofMillis(50), Duration.ofMillis(200), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofSeconds(3), Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofMinutes(2) };
+
+    public enum Stage {
+        auth,
+        quota,
+        qps,
+        route,
+        property,
+        // 请求开始到上游首包
+        ttfb,
+        // 上游首包到流结束
+        stream,
+        // 请求开始到写入日志队列
+        total,
+        log_queue_wait,
+        log_preprocess,
+        log_cost,
+        log_record,
+        log_metrics,
+        log_limiter,
+        log_cache,
+    }
+
+    private static final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = true;
+    private static volatile boolean histogram = false;
+
+    public static void configure(boolean enabled, boolean histogram) {
+        GatewayMetrics.enabled = enabled;
+        GatewayMetrics.histogram = histogram;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void record(Stage stage, EndpointProcessData processData, long nanos) {
+        if(!enabled || processData == null) {
+            return;
+        }
+        record(stage, processData.getEndpoint(), processData.getChannelCode(), processData.getSupplier(), nanos);
+    }
+
+    public static void record(Stage stage, HttpServletRequest request, long nanos) {
+        if(!enabled) {
+            return;
+        }
+        record(stage, endpoint(request), null, null, nanos);
+    }
+
+    public static void recordSince(Stage stage, EndpointProcessData processData, long startNanos) {
+        record(stage, processData, System.nanoTime() - startNanos);
+    }
+
+    public static void record(Stage stage, String endpoint, String channel, String supplier, long nanos) {
+        if(!enabled || nanos < 0) {
+            return;
+        }
+        timer(stage, nvl(endpoint), nvl(channel), nvl(supplier)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录日志指标中的input_token与cached_token
+     */
+    public static void recordPromptTokens(EndpointProcessData processData) {
+        Map<String, Object> metrics = processData.getMetrics();
+        if(!enabled || metrics == null || !(metrics.get("input_token") instanceof Number)) {
+            return;
+        }
+        String endpoint = nvl(processData.getEndpoint());
+        String channel = nvl(processData.getChannelCode());
+        String supplier = nvl(processData.getSupplier());
+        counter("input", endpoint, channel, supplier).increment(((Number) metrics.get("input_token")).doubleValue());
+        Object cached = metrics.get("cached_token");
+        if(cached instanceof Number && ((Number) cached).intValue() > 0) {
+            counter("cached", endpoint, channel, supplier).increment(((Number) cached).doubleValue());
+        }
+    }
+
+    private static Counter counter(String type, String endpoint, String channel, String supplier) {
+        String key = type + '|' + endpoint + '|' + channel + '|' + supplier;
+        Counter counter = counters.get(key);
+        if(counter != null) {
+            return counter;
+        }
+        if(counters.size() >= MAX_TIMERS) {
+            return counters.computeIfAbsent(type + "|other", k -> buildCounter(type, OTHER, OTHER, OTHER));
+        }
+        return counters.computeIfAbsent(key, k -> buildCounter(type, endpoint, channel, supplier));
+    }
+
+    private static Counter buildCounter(String type, String endpoint, String channel, String supplier) {
+        return Counter.builder(PROMPT_TOKENS)
+                .description("bella openapi输入token数，type=cached为命中上游提示词缓存的部分")
+                .tag("type", type)
+                .tag("endpoint", endpoint)
+                .tag("channel", channel)
+                .tag("supplier", supplier)
+                .register(Metrics.globalRegistry);
+    }
+
+    private static Timer timer(Stage stage, String endpoint, String channel, String supplier) {
+        String key = stage.name() + '|' + endpoint + '|' + channel + '|' + supplier;
+        Timer timer = timers.get(key);
+        if(timer != null) {
+            return timer;
+        }
+        if(timers.size() >= MAX_TIMERS) {
+            return timers.computeIfAbsent(stage.name() + "|other", k -> build(stage, OTHER, OTHER, OTHER));
+        }
+        return timers.computeIfAbsent(key, k -> build(stage, endpoint, channel, supplier));
+    }
+
+    private static Timer build(Stage stage, String endpoint, String channel, String supplier) {
+        Timer.Builder builder = Timer.builder(STAGE_TIMER)
+                .description("bella openapi请求各阶段耗时")
+                .tag("stage", stage.name())
+                .tag("endpoint", endpoint)
+                .tag("channel", channel)
+                .tag("supplier", supplier);
+        if(histogram) {
+            builder.serviceLevelObjectives(SLO_BUCKETS);
+        }
+        return builder.register(Metrics.globalRegistry);
+    }
+
+    /**
+     * 优先使用匹配到的路由模板，避免路径参数带来的标签膨胀
+     */
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    private static String nvl(String value) {
+        return value == null || value.isEmpty() ? NONE : value;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ke.bella.openapi.metrics;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ke.bella.openapi.TaskExecutor;
+import com.ke.bella.openapi.protocol.log.LogEvent;
+import com.ke.bella.openapi.utils.HttpUtils;
+import com.lmax.disruptor.RingBuffer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import okhttp3.ConnectionPool;
+
+/**
+ * 网关资源水位：上游连接池与dispatcher线程、日志ring buffer剩余容量、TaskExecutor线程池
+ */
+@Component
+public class GatewayMetricsBinder implements MeterBinder {
+    @Autowired
+    private RingBuffer<LogEvent> logRingBuffer;
+    @Value("${bella.openapi.metrics.stage.enabled:true}")
+    private boolean stageEnabled;
+    @Value("${bella.openapi.metrics.stage.histogram:false}")
+    private boolean stageHistogram;
+
+    @PostConstruct
+    public void init() {
+        GatewayMetrics.configure(stageEnabled, stageHistogram);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ConnectionPool pool = HttpUtils.getConnectionPool();
+        Gauge.builder("bella.http.pool.connections", pool, ConnectionPool::connectionCount)
+                .description("上游连接池连接数").register(registry);
+        Gauge.builder("bella.http.pool.idle", pool, ConnectionPool::idleConnectionCount)
+                .description("上游连接池空闲连接数").register(registry);
+        ThreadPoolExecutor dispatcher = HttpUtils.getExecutorService();
+        Gauge.builder("bella.http.dispatcher.active", dispatcher, ThreadPoolExecutor::getActiveCount)
+                .description("上游异步调用执行中的线程数").register(registry);
+        Gauge.builder("bella.http.dispatcher.pool", dispatcher, ThreadPoolExecutor::getPoolSize)
+                .description("上游异步调用线程池大小").register(registry);
+
+        Gauge.builder("bella.log.ringbuffer.remaining", logRingBuffer, RingBuffer::remainingCapacity)
+                .description("日志ring buffer剩余容量").register(registry);
+        Gauge.builder("bella.log.ringbuffer.size", logRingBuffer, RingBuffer::getBufferSize)
+                .description("日志ring buffer总容量").register(registry);
+
+        ThreadPoolExecutor executor = TaskExecutor.getExecutor();
+        Gauge.builder("bella.task.executor.pool", executor, ThreadPoolExecutor::getPoolSize)
+                .description("TaskExecutor线程池大小").register(registry);
+        Gauge.builder("bella.task.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("TaskExecutor执行中的线程数").register(registry);
+        Gauge.builder("bella.task.executor.queue", executor, e -> e.getQueue().size())
+                .description("TaskExecutor排队任务数").register(registry);
+    }
+}
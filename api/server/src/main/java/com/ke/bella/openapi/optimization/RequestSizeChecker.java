@@ -2,15 +2,18 @@ package com.ke.bella.openapi.optimization;
 
 import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.configuration.RequestOptimizationConfig;
-import com.ke.bella.openapi.utils.JacksonUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 
 /**
  * 请求大小检查器
+ * <p>
+ * 优先使用原始请求的Content-Length，只有无法从原始请求判断时（multipart、分块传输）
+ * 才序列化请求对象计数，且超过阈值立即中止。结果记录在EndpointContext上，同一请求不重复计算。
  */
 @Slf4j
 @Component
@@ -21,27 +24,27 @@ public class RequestSizeChecker {
 
     /**
      * 检查是否为大请求
-     * 
+     *
      * @return true 如果是大请求需要优化
      */
     public boolean isLargeRequest(Object request) {
         if(!config.isEnabled()) {
             return false;
         }
+        if(EndpointContext.isRequestSizeChecked(request)) {
+            return EndpointContext.isLargeRequest();
+        }
 
         try {
-            int requestSize = calculateRequestSize();
-            boolean isLarge = requestSize > config.getLargeRequestThreshold();
-
-            if(isLarge) {
-                requestSize = calculateRequestSize(request);
-                isLarge = requestSize > config.getLargeRequestThreshold();
-            }
+            int threshold = config.getLargeRequestThreshold();
+            int requestSize = estimateRequestSize(request, threshold);
+            boolean isLarge = requestSize > threshold;
+            EndpointContext.markRequestSizeChecked(request, requestSize);
 
             if(isLarge) {
                 EndpointContext.markLargeRequest();
                 log.debug("Large request detected: {} bytes (threshold: {} bytes)",
-                        requestSize, config.getLargeRequestThreshold());
+                        requestSize, threshold);
             }
 
             return isLarge;
@@ -52,23 +55,24 @@ public class RequestSizeChecker {
     }
 
     /**
-     * 计算请求大小
+     * 估计请求大小；超过阈值时返回值不一定是精确大小
      */
-    private int calculateRequestSize() {
-        HttpServletRequest request = EndpointContext.getRequestIgnoreNull();
-        if(request != null) {
-            return request.getContentLength();
+    private int estimateRequestSize(Object request, int threshold) throws IOException {
+        HttpServletRequest servletRequest = EndpointContext.getRequestIgnoreNull();
+        if(servletRequest == null || request == null) {
+            return 0;
         }
-        return 0;
+        int contentLength = servletRequest.getContentLength();
+        if(contentLength >= 0 && (contentLength <= threshold || isJson(servletRequest))) {
+            // 原始请求不超过阈值时，解析出的请求对象也不会超过；JSON请求体与请求对象的序列化大小相当
+            return contentLength;
+        }
+        // multipart（文件不在请求对象中）或分块传输：序列化计数，超过阈值即中止
+        return RequestSizeEstimator.serializedSize(request, threshold);
     }
 
-    /**
-     * 计算请求大小
-     */
-    private int calculateRequestSize(Object request) {
-        if(request != null) {
-            return JacksonUtils.toByte(request).length;
-        }
-        return 0;
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().contains("json");
     }
 }
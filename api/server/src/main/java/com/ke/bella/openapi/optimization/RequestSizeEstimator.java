@@ -0,0 +1,128 @@
+package com.ke.bella.openapi.optimization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 请求序列化大小估计：序列化直接写入计数用的丢弃流，超过上限立即中止，不生成完整的序列化结果
+ */
+public class RequestSizeEstimator {
+
+    /**
+     * 序列化后的字节数；超过limit时中止并返回limit + 1
+     */
+    public static int serializedSize(Object value, int limit) throws IOException {
+        if(value == null) {
+            return 0;
+        }
+        CountingSink sink = new CountingSink(limit);
+        try {
+            JacksonUtils.MAPPER.writeValue(sink, value);
+        } catch (IOException e) {
+            if(!isLimitExceeded(e)) {
+                throw e;
+            }
+        }
+        return (int) Math.min(sink.count, (long) limit + 1);
+    }
+
+    /**
+     * 序列化结果的前maxChars个字符，超出部分不再序列化；被截断时追加"...[TRUNCATED]"
+     */
+    public static String serializedPrefix(Object value, int maxChars) throws IOException {
+        PrefixWriter writer = new PrefixWriter(maxChars);
+        try {
+            JacksonUtils.MAPPER.writeValue(writer, value);
+        } catch (IOException e) {
+            if(!isLimitExceeded(e)) {
+                throw e;
+            }
+        }
+        return writer.truncated ? writer.prefix + "...[TRUNCATED]" : writer.prefix.toString();
+    }
+
+    // Jackson可能把写出异常包装为JsonMappingException
+    private static boolean isLimitExceeded(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if(t instanceof LimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class CountingSink extends OutputStream {
+        private final int limit;
+        private long count;
+
+        private CountingSink(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            add(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            add(len);
+        }
+
+        private void add(int len) throws IOException {
+            count += len;
+            if(count > limit) {
+                throw new LimitExceededException();
+            }
+        }
+    }
+
+    private static class PrefixWriter extends Writer {
+        private final int maxChars;
+        private final StringBuilder prefix;
+        private boolean truncated;
+
+        private PrefixWriter(int maxChars) {
+            this.maxChars = maxChars;
+            this.prefix = new StringBuilder(Math.min(maxChars, 8192));
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if(truncated) {
+                throw new LimitExceededException();
+            }
+            int remaining = maxChars - prefix.length();
+            prefix.append(cbuf, off, Math.min(len, remaining));
+            if(len > remaining) {
+                truncated = true;
+                throw new LimitExceededException();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 仅用于中止序列化，不记录堆栈
+     */
+    private static class LimitExceededException extends IOException {
+        private LimitExceededException() {
+            super("serialized size limit exceeded", null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
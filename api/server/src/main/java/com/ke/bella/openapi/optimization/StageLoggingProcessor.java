@@ -1,12 +1,12 @@
 package com.ke.bella.openapi.optimization;
 
+import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.EndpointProcessData;
 import com.ke.bella.openapi.RequestMetrics;
 import com.ke.bella.openapi.configuration.RequestOptimizationConfig;
 import com.ke.bella.openapi.protocol.completion.CompletionRequest;
 import com.ke.bella.openapi.protocol.embedding.EmbeddingRequest;
 import com.ke.bella.openapi.protocol.tts.TtsRequest;
-import com.ke.bella.openapi.utils.JacksonUtils;
 import com.ke.bella.openapi.utils.TokenCalculationUtils;
 import com.knuddels.jtokkit.api.EncodingType;
 import lombok.RequiredArgsConstructor;
@@ -104,7 +104,7 @@ public class StageLoggingProcessor {
             return;
         }
 
-        OptimizationTask task = new OptimizationTask(processData, request);
+        OptimizationTask task = new OptimizationTask(processData, request, EndpointContext.getRequestSize());
         try {
             asyncExecutor.execute(task);
         } catch (RejectedExecutionException e) {
@@ -119,16 +119,18 @@ public class StageLoggingProcessor {
     private class OptimizationTask implements Runnable {
         private final EndpointProcessData processData;
         private final Object request;
+        private final Integer requestSize;
 
-        public OptimizationTask(EndpointProcessData processData, Object request) {
+        public OptimizationTask(EndpointProcessData processData, Object request, Integer requestSize) {
             this.processData = processData;
             this.request = request;
+            this.requestSize = requestSize;
         }
 
         @Override
         public void run() {
             try {
-                preprocessRequest(processData, request);
+                preprocessRequest(processData, request, requestSize);
             } catch (Exception e) {
                 log.warn("Request preprocessing failed for endpoint: {}, requestId: {}",
                         processData.getEndpoint(), processData.getRequestId(), e);
@@ -146,7 +148,7 @@ public class StageLoggingProcessor {
     /**
      * 预处理请求数据
      */
-    private void preprocessRequest(EndpointProcessData processData, Object request) {
+    private void preprocessRequest(EndpointProcessData processData, Object request, Integer requestSize) {
         long startTime = System.currentTimeMillis();
 
         try {
@@ -158,6 +160,7 @@ public class StageLoggingProcessor {
 
             // 1. 提取请求指标
             RequestMetrics metrics = extractRequestMetrics(request, endpoint, processData);
+            metrics.setRequestSize(requestSize);
             processData.setRequestMetrics(metrics);
 
             // 2. 生成请求摘要
@@ -255,16 +258,8 @@ public class StageLoggingProcessor {
      */
     private String generateRequestSummary(Object request) {
         try {
-            String fullContent = JacksonUtils.serialize(request);
-            int maxLength = config.getRequestSummaryMaxLength();
-
-            if(fullContent.length() <= maxLength) {
-                return fullContent;
-            }
-
-            // 截取前部分并添加省略标记
-            return fullContent.substring(0, maxLength) + "...[TRUNCATED]";
-
+            // 只序列化摘要需要的前缀
+            return RequestSizeEstimator.serializedPrefix(request, config.getRequestSummaryMaxLength());
         } catch (Exception e) {
             log.warn("Failed to generate request summary", e);
             return "[SUMMARY_GENERATION_FAILED]";
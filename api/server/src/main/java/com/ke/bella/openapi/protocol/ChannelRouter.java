@@ -5,8 +5,12 @@ import com.ke.bella.openapi.apikey.ApikeyInfo;
 import com.ke.bella.openapi.common.EntityConstants;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
 import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.protocol.limiter.LimiterManager;
 import com.ke.bella.openapi.protocol.metrics.MetricsManager;
+import com.ke.bella.openapi.protocol.route.ChannelLoadStats;
+import com.ke.bella.openapi.protocol.route.ChannelSelector;
+import com.ke.bella.openapi.protocol.route.RouteAffinity;
 import com.ke.bella.openapi.service.ChannelService;
 import com.ke.bella.openapi.service.ModelService;
 import com.ke.bella.openapi.tables.pojos.ChannelDB;
@@ -17,11 +21,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,7 +34,6 @@ import static com.ke.bella.openapi.common.EntityConstants.LOWEST_SAFETY_LEVEL;
 
 @Component
 public class ChannelRouter {
-    private final Random random = new Random();
     @Autowired
     private ChannelService channelService;
     @Autowired
@@ -38,10 +42,20 @@ public class ChannelRouter {
     private MetricsManager metricsManager;
     @Autowired
     private LimiterManager limiterManager;
+    @Autowired
+    private ChannelLoadStats channelLoadStats;
+    @Value("${bella.openapi.route.policy:p2c}")
+    private String routePolicy;
     @Value("${bella.openapi.free.rpm:5}")
     private Integer freeRpm;
     @Value("${bella.openapi.free.concurrent:1}")
     private Integer freeConcurrent;
+    private ChannelSelector selector;
+
+    @PostConstruct
+    public void initSelector() {
+        selector = ChannelSelector.of(routePolicy, channelLoadStats);
+    }
 
     public ChannelDB route(String endpoint, String model, ApikeyInfo apikeyInfo, boolean isMock) {
         return route(endpoint, model, apikeyInfo, isMock, false);
@@ -53,6 +67,20 @@ public class ChannelRouter {
      * @param isDirectMode if true, skips availability checks (no Redis queries)
      */
     public ChannelDB route(String endpoint, String model, ApikeyInfo apikeyInfo, boolean isMock, boolean isDirectMode) {
+        long start = System.nanoTime();
+        ChannelDB channel = doRoute(endpoint, model, apikeyInfo, isMock, isDirectMode, true);
+        GatewayMetrics.record(GatewayMetrics.Stage.route, endpoint, channel.getChannelCode(), channel.getSupplier(), System.nanoTime() - start);
+        return channel;
+    }
+
+    /**
+     * 只查询路由结果，不占用在途数也不做可用性检查，用于价格查询等不由本次调用发出上游请求的场景
+     */
+    public ChannelDB lookup(String endpoint, String model, ApikeyInfo apikeyInfo, boolean isMock) {
+        return doRoute(endpoint, model, apikeyInfo, isMock, true, false);
+    }
+
+    private ChannelDB doRoute(String endpoint, String model, ApikeyInfo apikeyInfo, boolean isMock, boolean isDirectMode, boolean dispatch) {
         if(StringUtils.isBlank(endpoint) && StringUtils.isBlank(model)) {
             throw new BizParamCheckException("没有可用渠道");
         }
@@ -77,8 +105,15 @@ public class ChannelRouter {
             channels = filter(endpoint, channels, entityCode, apikeyInfo, isDirectMode);
         }
         channels = pickMaxPriority(channels);
-        ChannelDB channel = random(channels);
-        return isMock ? mockChannel(channel) : channel;
+        Long affinityKey = EndpointContext.getRouteAffinityKey();
+        ChannelDB channel = affinityKey != null ? RouteAffinity.select(channels, affinityKey, channelLoadStats) : selector.select(channels);
+        if(isMock) {
+            return mockChannel(channel);
+        }
+        if(dispatch) {
+            channelLoadStats.acquire(EndpointContext.getProcessData(), channel.getChannelCode());
+        }
+        return channel;
     }
 
     public ChannelDB route(String channelCode) {
@@ -140,6 +175,9 @@ public class ChannelRouter {
                             channel.getDataDestination().equals(EntityConstants.INNER) ||
                             !unavailableSet.contains(channel.getChannelCode()))
                     .collect(Collectors.toList());
+            // 达到自适应并发限额的渠道让给同级或次优先级的渠道，全部饱和时短暂排队
+            filtered = channelLoadStats.available(filtered, channel -> channel.getDataDestination().equals(EntityConstants.PROTECTED) ||
+                    channel.getDataDestination().equals(EntityConstants.INNER));
         }
         if(CollectionUtils.isEmpty(filtered)) {
             throw new BellaException.RateLimitException("渠道当前负载过高，请稍后重试");
@@ -210,14 +248,6 @@ public class ChannelRouter {
         }
     }
 
-    private ChannelDB random(List<ChannelDB> list) {
-        if(list.size() == 1) {
-            return list.get(0);
-        }
-        int rand = random.nextInt(list.size());
-        return list.get(rand);
-    }
-
     private ChannelDB mockChannel(ChannelDB origin) {
         ChannelDB channel = new ChannelDB();
         channel.setChannelCode("ch-mock");
@@ -231,6 +261,9 @@ public class ChannelRouter {
         return channel;
     }
 
+    /**
+     * sdk路由查询（/v1/route），请求由sdk发出，不占用本实例的在途数
+     */
     public ChannelDB route(String endpoint, String model, ApikeyInfo apikey, Integer queueMode) {
         if(StringUtils.isBlank(endpoint)) {
             throw new BizParamCheckException("endpoint不能为空");
@@ -18,7 +18,8 @@ public class TranscriptionsAsrLogHandler implements EndpointLogHandler {
         String model = processData.getModel();
         String endpoint = processData.getEndpoint();
         if(!model.isEmpty()) {
-            ChannelDB channel = router.route(endpoint, model, EndpointContext.getApikey(), processData.isMock());
+            // 只查价格，请求已由路由时占用在途数的渠道完成
+            ChannelDB channel = router.lookup(endpoint, model, EndpointContext.getApikey(), processData.isMock());
             processData.setPriceInfo(channel.getPriceInfo());
         }
         processData.setInnerLog(true);
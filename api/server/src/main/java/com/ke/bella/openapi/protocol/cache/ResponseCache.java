@@ -0,0 +1,316 @@
+package com.ke.bella.openapi.protocol.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.EndpointContext;
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.configuration.ResponseCacheConfig;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.protocol.completion.CompletionRequest;
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
+import com.ke.bella.openapi.utils.DateTimeUtils;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 网关响应缓存：相同请求（能力点、模型、规范化后的请求体）直接返回上次的成功响应，不再请求上游
+ * <p>
+ * 需在配置中开启，并由apikey配置或请求头X-BELLA-CACHE启用：on启用，off关闭，refresh跳过查询并用新响应覆盖缓存。
+ * 本地Caffeine为一级缓存，可选redis为二级缓存；写入在日志处理阶段进行，只缓存完整的成功响应。
+ * 命中的请求记录cacheHit标记，按hitCostRatio计费，不计入渠道指标和限流
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+    public static final String CACHE_HEADER = "X-BELLA-CACHE";
+    private static final String REDIS_KEY_FORMAT = "bella-openapi-response-cache:%s";
+    private static final String CHAT_COMPLETION_OBJECT = "chat.completion";
+    // 不影响响应内容的字段不参与缓存键
+    private static final Set<String> VOLATILE_FIELDS = ImmutableSet.of("stream", "stream_options", "user");
+    private static final ObjectMapper CANONICAL = JacksonUtils.MAPPER.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final ResponseCacheConfig config;
+    private final RedissonClient redisson;
+    private final Cache<String, Entry> local;
+
+    @Autowired
+    public ResponseCache(ResponseCacheConfig config, RedissonClient redisson) {
+        this.config = config;
+        this.redisson = redisson;
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(config.getLocalMaxBytes())
+                .weigher((String key, Entry entry) -> entry.getBody().length())
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.getExpireAt() - DateTimeUtils.getCurrentMills()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 只缓存temperature为0的对话请求；请求logprobs的不缓存：日志处理阶段会清除响应中的logprobs，缓存的响应无法还原
+     */
+    public OpenapiResponse lookup(String endpoint, String model, CompletionRequest request) {
+        if(request.getTemperature() == null || request.getTemperature() != 0) {
+            return null;
+        }
+        if(Boolean.TRUE.equals(request.getLogprobs()) || request.getTop_logprobs() != null) {
+            return null;
+        }
+        return lookup(endpoint, model, (Object) request);
+    }
+
+    /**
+     * 查询缓存：命中时把缓存的渠道信息写入processData用于计费，返回缓存的响应；
+     * 未命中且请求启用了缓存时记录缓存键，响应在日志处理阶段写入
+     */
+    public OpenapiResponse lookup(String endpoint, String model, Object request) {
+        EndpointProcessData processData = EndpointContext.getProcessData();
+        String mode = mode(endpoint, processData);
+        if(mode == null) {
+            return null;
+        }
+        String key = key(endpoint, model, config.isShareAcrossAccounts() ? null : processData.getAccountCode(), request);
+        if(key == null) {
+            return null;
+        }
+        if(!"refresh".equals(mode)) {
+            Entry entry = get(key);
+            OpenapiResponse response = entry == null ? null : entry.restore();
+            if(response != null) {
+                processData.setCacheHit(true);
+                processData.setChannelCode(entry.getChannelCode());
+                processData.setPriceInfo(entry.getPriceInfo());
+                processData.setSupplier(entry.getSupplier());
+                processData.setProtocol(entry.getProtocol());
+                processData.setPrivate(entry.isPrivateChannel());
+                return response;
+            }
+        }
+        processData.setResponseCacheKey(key);
+        return null;
+    }
+
+    /**
+     * 写入缓存，由日志处理器在请求结束后调用
+     */
+    public void store(EndpointProcessData processData) {
+        String key = processData.getResponseCacheKey();
+        if(key == null || processData.isCacheHit() || !cacheable(processData.getResponse())) {
+            return;
+        }
+        Long ttl = config.getTtlSeconds().get(processData.getEndpoint());
+        if(ttl == null || ttl <= 0) {
+            return;
+        }
+        String body = JacksonUtils.serialize(normalize(processData.getResponse()));
+        if(body.isEmpty() || body.length() > config.getMaxEntryBytes()) {
+            return;
+        }
+        Entry entry = new Entry(processData.getResponse().getClass().getName(), body, processData.getChannelCode(),
+                processData.getPriceInfo(), processData.getSupplier(), processData.getProtocol(), processData.isPrivate(),
+                DateTimeUtils.getCurrentMills() + TimeUnit.SECONDS.toMillis(ttl));
+        local.put(key, entry);
+        if(config.isRedisEnabled()) {
+            try {
+                RBucket<String> bucket = redisson.getBucket(String.format(REDIS_KEY_FORMAT, key), StringCodec.INSTANCE);
+                bucket.set(JacksonUtils.serialize(entry), ttl, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Failed to store response cache: key={}, error={}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 把缓存的对话响应拆成流式分片：每个choice一个分片，用量单独一个分片
+     */
+    public static List<StreamCompletionResponse> toStreamChunks(CompletionResponse response) {
+        long created = DateTimeUtils.getCurrentSeconds();
+        List<StreamCompletionResponse> chunks = new ArrayList<>();
+        for (CompletionResponse.Choice choice : response.getChoices()) {
+            StreamCompletionResponse.Choice delta = StreamCompletionResponse.Choice.builder()
+                    .index(choice.getIndex())
+                    .delta(choice.getMessage())
+                    .finish_reason(choice.getFinish_reason())
+                    .logprobs(choice.getLogprobs())
+                    .build();
+            chunks.add(chunk(response, created, Lists.newArrayList(delta), null));
+        }
+        if(response.getUsage() != null) {
+            chunks.add(chunk(response, created, Lists.newArrayList(), response.getUsage()));
+        }
+        return chunks;
+    }
+
+    private static StreamCompletionResponse chunk(CompletionResponse response, long created, List<StreamCompletionResponse.Choice> choices,
+            CompletionResponse.TokenUsage usage) {
+        return StreamCompletionResponse.builder()
+                .id(response.getId())
+                .object(StreamCompletionResponse.CHAT_COMPLETION_CHUNK_OBJECT)
+                .model(response.getModel())
+                .created(created)
+                .choices(choices)
+                .usage(usage)
+                .build();
+    }
+
+    private String mode(String endpoint, EndpointProcessData processData) {
+        if(!config.isEnabled() || processData.isMock()) {
+            return null;
+        }
+        Long ttl = config.getTtlSeconds().get(endpoint);
+        if(ttl == null || ttl <= 0) {
+            return null;
+        }
+        String mode = StringUtils.lowerCase(BellaContext.getHeader(CACHE_HEADER));
+        if("on".equals(mode) || "refresh".equals(mode)) {
+            return mode;
+        }
+        if("off".equals(mode)) {
+            return null;
+        }
+        Set<String> apikeys = config.getApikeys();
+        boolean optedIn = apikeys.contains(processData.getAkCode())
+                || (processData.getParentAkCode() != null && apikeys.contains(processData.getParentAkCode()));
+        return optedIn ? "on" : null;
+    }
+
+    private Entry get(String key) {
+        Entry entry = local.getIfPresent(key);
+        if(entry != null || !config.isRedisEnabled()) {
+            return entry;
+        }
+        try {
+            RBucket<String> bucket = redisson.getBucket(String.format(REDIS_KEY_FORMAT, key), StringCodec.INSTANCE);
+            entry = JacksonUtils.deserialize(bucket.get(), Entry.class);
+        } catch (Exception e) {
+            log.warn("Failed to read response cache: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+        if(entry != null) {
+            local.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 只缓存无错误、未触发安全检查的响应；对话响应要求每个choice都已正常结束且带有用量，客户端中途断开的流式响应不缓存
+     */
+    static boolean cacheable(OpenapiResponse response) {
+        if(response == null || response.getError() != null || response.getSensitives() != null || response.getRequestRiskData() != null) {
+            return false;
+        }
+        if(response instanceof CompletionResponse) {
+            CompletionResponse completion = (CompletionResponse) response;
+            List<CompletionResponse.Choice> choices = completion.getChoices();
+            return completion.getUsage() != null && CollectionUtils.isNotEmpty(choices)
+                    && choices.stream().allMatch(choice -> choice.getFinish_reason() != null);
+        }
+        return true;
+    }
+
+    /**
+     * 流式请求记录的对话响应object为chat.completion.chunk，按非流式响应存储，命中时非流式请求也能直接返回。
+     * 日志中的响应对象由多个处理器共享，不在原对象上修改
+     */
+    @SuppressWarnings("unchecked")
+    static Object normalize(OpenapiResponse response) {
+        if(!(response instanceof CompletionResponse) || CHAT_COMPLETION_OBJECT.equals(((CompletionResponse) response).getObject())) {
+            return response;
+        }
+        Map<String, Object> normalized = JacksonUtils.MAPPER.convertValue(response, Map.class);
+        normalized.put("object", CHAT_COMPLETION_OBJECT);
+        return normalized;
+    }
+
+    /**
+     * 缓存键：能力点、模型、账户与请求体的sha256；请求体转为键有序的map后序列化，字段顺序不影响结果
+     */
+    @SuppressWarnings("unchecked")
+    static String key(String endpoint, String model, String accountCode, Object request) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(endpoint, StandardCharsets.UTF_8).putChar('\n')
+                .putString(StringUtils.defaultString(model), StandardCharsets.UTF_8).putChar('\n')
+                .putString(StringUtils.defaultString(accountCode), StandardCharsets.UTF_8).putChar('\n');
+        try {
+            Map<String, Object> normalized = CANONICAL.convertValue(request, Map.class);
+            normalized.keySet().removeAll(VOLATILE_FIELDS);
+            CANONICAL.writeValue(Funnels.asOutputStream(hasher), normalized);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to build response cache key: {}", e.getMessage());
+            return null;
+        }
+        return hasher.hash().toString();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Entry {
+        private String type;
+        private String body;
+        private String channelCode;
+        private String priceInfo;
+        private String supplier;
+        private String protocol;
+        private boolean privateChannel;
+        private long expireAt;
+
+        OpenapiResponse restore() {
+            if(expireAt <= DateTimeUtils.getCurrentMills()) {
+                return null;
+            }
+            try {
+                Class<?> clazz = Class.forName(type);
+                if(!OpenapiResponse.class.isAssignableFrom(clazz)) {
+                    return null;
+                }
+                return (OpenapiResponse) JacksonUtils.deserialize(body, clazz);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+    }
+}
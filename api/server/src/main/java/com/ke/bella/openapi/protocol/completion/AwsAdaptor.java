@@ -13,6 +13,7 @@ import software.amazon.awssdk.services.bedrockruntime.model.ContentBlockStartEve
 import software.amazon.awssdk.services.bedrockruntime.model.ConverseRequest;
 import software.amazon.awssdk.services.bedrockruntime.model.ConverseResponse;
 import software.amazon.awssdk.services.bedrockruntime.model.ConverseStreamMetadataEvent;
+import software.amazon.awssdk.services.bedrockruntime.model.ConverseStreamOutput;
 import software.amazon.awssdk.services.bedrockruntime.model.ConverseStreamRequest;
 import software.amazon.awssdk.services.bedrockruntime.model.ConverseStreamResponseHandler;
 
@@ -60,14 +61,16 @@ public class AwsAdaptor implements CompletionAdaptor<AwsProperty> {
 
         BedrockRuntimeAsyncClient client = AwsClientManager.asyncClient(property.region, url, property.auth.getApiKey(), property.auth.getSecret());
         AwsSseCompletionCallBack awsCallBack = new AwsSseCompletionCallBack(callback);
+        AwsStreamSubscriber<ConverseStreamOutput> subscriber = new AwsStreamSubscriber<>(property.region,
+                event -> event.accept(awsCallBack), awsCallBack, awsCallBack);
         try {
             client.converseStream(awsRequest, ConverseStreamResponseHandler.builder()
-                    .subscriber(awsCallBack)
-                    .onError(awsCallBack)
-                    .onComplete(awsCallBack)
+                    .onEventStream(publisher -> publisher.subscribe(subscriber))
+                    .onError(subscriber.errorHandler())
                     .build());
         } catch (Exception bedrockException) {
             log.info("sse异常,{}", bedrockException.getMessage());
+            subscriber.onError(bedrockException);
         }
     }
 
@@ -1,5 +1,9 @@
 package com.ke.bella.openapi.protocol.completion;
 
+import com.ke.bella.openapi.TaskExecutor;
+import com.ke.bella.openapi.configuration.AwsClientConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.commons.lang3.StringUtils;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentials;
@@ -10,7 +14,10 @@ import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.http.Protocol;
 import software.amazon.awssdk.http.SdkHttpConfigurationOption;
 import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.Http2Configuration;
 import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.retries.StandardRetryStrategy;
 import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClient;
@@ -23,6 +30,7 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AwsClientManager {
 
@@ -32,6 +40,14 @@ public class AwsClientManager {
 
     private static final Map<String, AwsAuthorizationProvider> authCache = new ConcurrentHashMap<>();
 
+    private static final Map<String, SdkAsyncHttpClient> asyncHttpClients = new ConcurrentHashMap<>();
+
+    private static final Map<String, AtomicInteger> inflightStreams = new ConcurrentHashMap<>();
+
+    private static volatile SdkEventLoopGroup eventLoopGroup;
+
+    private static volatile AwsClientConfig config = new AwsClientConfig();
+
     public static BedrockRuntimeClient client(String region, String endpoint, String accessKeyId, String secretKey) {
         return httpCache.computeIfAbsent(region, k -> new ConcurrentHashMap<>())
                 .computeIfAbsent(accessKeyId, k -> BedrockRuntimeClient.builder()
@@ -57,17 +73,76 @@ public class AwsClientManager {
                         .endpointOverride(URI.create(endpoint))
                         .credentialsProvider(provide(accessKeyId, secretKey))
                         .region(Region.of(region))
-                        .httpClient(NettyNioAsyncHttpClient.builder()
-                                .buildWithDefaults(AttributeMap.builder()
-                                        .put(SdkHttpConfigurationOption.PROTOCOL, Protocol.HTTP1_1)
-                                        .put(SdkHttpConfigurationOption.READ_TIMEOUT, Duration.ofSeconds(120))
-                                        .build()))
+                        .httpClient(asyncHttpClient(region))
                         .overrideConfiguration(ClientOverrideConfiguration.builder()
                                 .retryStrategy(StandardRetryStrategy.builder().maxAttempts(1).build())
                                 .build())
                         .build());
     }
 
+    public static void configure(AwsClientConfig config) {
+        AwsClientManager.config = config;
+    }
+
+    public static int streamWindow() {
+        return Math.max(1, config.getStreamWindow());
+    }
+
+    /**
+     * region维度的在途流式请求数，首次使用时注册gauge
+     */
+    public static AtomicInteger inflightStreams(String region) {
+        return inflightStreams.computeIfAbsent(region, k -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("bella.bedrock.streams.inflight", counter, AtomicInteger::get)
+                    .description("Bedrock在途流式请求数")
+                    .tag("region", k)
+                    .register(Metrics.globalRegistry);
+            return counter;
+        });
+    }
+
+    /**
+     * 同一region共享连接池，SDK客户端只引用不持有，关闭BedrockRuntimeAsyncClient不会关闭共享的http客户端
+     */
+    private static SdkAsyncHttpClient asyncHttpClient(String region) {
+        return asyncHttpClients.computeIfAbsent(region, k -> {
+            NettyNioAsyncHttpClient.Builder builder = NettyNioAsyncHttpClient.builder()
+                    .eventLoopGroup(eventLoopGroup())
+                    .maxConcurrency(config.getMaxConcurrency())
+                    .maxPendingConnectionAcquires(config.getMaxPendingConnectionAcquires())
+                    .connectionAcquisitionTimeout(Duration.ofSeconds(config.getConnectionAcquisitionTimeoutSeconds()))
+                    .readTimeout(Duration.ofSeconds(config.getReadTimeoutSeconds()))
+                    .tcpKeepAlive(true);
+            if(config.isHttp2()) {
+                builder.protocol(Protocol.HTTP2)
+                        .http2Configuration(Http2Configuration.builder()
+                                .maxStreams(config.getHttp2MaxStreams())
+                                .initialWindowSize(config.getHttp2InitialWindowSize())
+                                .build());
+            } else {
+                builder.protocol(Protocol.HTTP1_1);
+            }
+            return builder.build();
+        });
+    }
+
+    private static SdkEventLoopGroup eventLoopGroup() {
+        if(eventLoopGroup == null) {
+            synchronized(AwsClientManager.class) {
+                if(eventLoopGroup == null) {
+                    SdkEventLoopGroup.Builder builder = SdkEventLoopGroup.builder()
+                            .threadFactory(new TaskExecutor.NamedThreadFactory("bedrock-nio-", true));
+                    if(config.getEventLoopThreads() > 0) {
+                        builder.numberOfThreads(config.getEventLoopThreads());
+                    }
+                    eventLoopGroup = builder.build();
+                }
+            }
+        }
+        return eventLoopGroup;
+    }
+
     private static AwsAuthorizationProvider provide(String accessKeyId, String secretKey) {
         return authCache.computeIfAbsent(accessKeyId, k -> new AwsAuthorizationProvider(accessKeyId, secretKey));
     }
@@ -0,0 +1,134 @@
+package com.ke.bella.openapi.protocol.completion;
+
+import com.ke.bella.openapi.TaskExecutor;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bedrock事件流订阅者：事件从SDK事件循环线程移交到TaskExecutor串行处理，按窗口向上游请求事件。
+ * 下游(SseEmitter)写得慢时窗口耗尽，不再request，netty停止读取，由TCP流控反压到上游，避免事件在内存中无限堆积。
+ * 完成与异常同样经串行队列投递，保证在所有事件处理完之后、且只回调一次。
+ * 构造时注册到当前线程的UpstreamCancellation，客户端断开时取消订阅并以异常结束回调，已处理的事件照常记录用量。
+ */
+@Slf4j
+public class AwsStreamSubscriber<E> implements Subscriber<E> {
+    private final Consumer<E> onEvent;
+    private final Runnable onComplete;
+    private final Consumer<Throwable> onError;
+    private final int window;
+    private final AtomicInteger inflight;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean terminated = new AtomicBoolean();
+    private volatile Subscription subscription;
+    private volatile boolean cancelled;
+
+    public AwsStreamSubscriber(String region, Consumer<E> onEvent, Runnable onComplete, Consumer<Throwable> onError) {
+        this.onEvent = onEvent;
+        this.onComplete = onComplete;
+        this.onError = onError;
+        this.window = AwsClientManager.streamWindow();
+        this.inflight = AwsClientManager.inflightStreams(region);
+        this.inflight.incrementAndGet();
+        UpstreamCancellation.register(this::cancel);
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        if(cancelled) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(window);
+    }
+
+    @Override
+    public void onNext(E event) {
+        execute(() -> {
+            if(terminated.get()) {
+                return;
+            }
+            try {
+                onEvent.accept(event);
+            } catch (Exception e) {
+                log.warn("bedrock stream event handle error: {}", e.getMessage(), e);
+                subscription.cancel();
+                terminate(() -> onError.accept(e));
+                return;
+            }
+            subscription.request(1);
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        execute(() -> terminate(() -> onError.accept(throwable)));
+    }
+
+    @Override
+    public void onComplete() {
+        execute(() -> terminate(onComplete));
+    }
+
+    /**
+     * 事件流建立前的异常（如鉴权、限流）不会经过订阅者，由response handler的onError转入这里
+     */
+    public Consumer<Throwable> errorHandler() {
+        return this::onError;
+    }
+
+    /**
+     * 调用方已同步处理失败时使用：只释放在途计数，不再回调
+     */
+    public void discard() {
+        terminate(() -> {
+        });
+    }
+
+    private void cancel() {
+        cancelled = true;
+        Subscription current = subscription;
+        if(current != null) {
+            current.cancel();
+        }
+        onError(new CancellationException("bedrock stream cancelled"));
+    }
+
+    private void terminate(Runnable action) {
+        if(terminated.compareAndSet(false, true)) {
+            inflight.decrementAndGet();
+            action.run();
+        }
+    }
+
+    private void execute(Runnable task) {
+        tasks.add(task);
+        if(wip.getAndIncrement() == 0) {
+            TaskExecutor.getExecutor().execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            Runnable task = tasks.poll();
+            if(task != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn(e.getMessage(), e);
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+}
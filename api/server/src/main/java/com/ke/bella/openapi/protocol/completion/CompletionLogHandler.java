@@ -72,7 +72,18 @@ public class CompletionLogHandler implements EndpointLogHandler {
             ttft = (int) (firstPackageTime - startMills);
         }
         int ttlt = (int) (endTime - startTime);
-        return ImmutableMap.of("ttft", ttft, "ttlt", ttlt, "input_token", inputToken, "output_token", outputToken);
+        return ImmutableMap.of("ttft", ttft, "ttlt", ttlt, "input_token", inputToken, "output_token", outputToken,
+                "cached_token", cachedTokens(usage));
+    }
+
+    /**
+     * 命中上游提示词缓存的输入token数：OpenAI格式在prompt_tokens_details中，Anthropic格式为cache_read_tokens
+     */
+    private static int cachedTokens(CompletionResponse.TokenUsage usage) {
+        if(usage.getPrompt_tokens_details() != null && usage.getPrompt_tokens_details().getCached_tokens() > 0) {
+            return usage.getPrompt_tokens_details().getCached_tokens();
+        }
+        return usage.getCache_read_tokens();
     }
 
     /**
@@ -49,7 +49,7 @@ public class CompletionMetricsResolver implements MetricsResolver {
 
     @Override
     public List<String> metricsName() {
-        return Lists.newArrayList("ttft", "ttlt", "input_token", "output_token");
+        return Lists.newArrayList("ttft", "ttlt", "input_token", "output_token", "cached_token");
     }
 
     @Override
@@ -10,12 +10,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -27,24 +23,20 @@ import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
 import com.ke.bella.openapi.mock.ContentGenerator;
 import com.ke.bella.openapi.mock.FunctionCallGenerator;
+import com.ke.bella.openapi.mock.MockLatency;
 import com.ke.bella.openapi.mock.MockNetworkIO;
 import com.ke.bella.openapi.mock.MockSseWriter;
 import com.ke.bella.openapi.protocol.Callbacks;
 import com.ke.bella.openapi.utils.DateTimeUtils;
 import com.ke.bella.openapi.utils.JacksonUtils;
 
-import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.Data;
 import org.springframework.util.Assert;
 
 @Component("mock")
 public class MockAdaptor implements CompletionAdaptorDelegator<CompletionProperty> {
 
-    ExecutorService executor = new ThreadPoolExecutor(500, 500,
-            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000),
-            new DefaultThreadFactory("mock-completion"));
-
-    MockNetworkIO mockNetworkIO = new MockNetworkIO(executor);
+    MockNetworkIO mockNetworkIO = new MockNetworkIO();
 
     @Override
     public String getDescription() {
@@ -58,8 +50,7 @@ public class MockAdaptor implements CompletionAdaptorDelegator<CompletionPropert
 
     @Override
     public CompletionResponse completion(CompletionRequest request, String url, CompletionProperty property) {
-        MockCompletionRequest mockCompletionRequest = new MockCompletionRequest((CompletionRequest) EndpointContext.getProcessData().getRequest(),
-                BellaContext.getHeaders(), property);
+        MockCompletionRequest mockCompletionRequest = new MockCompletionRequest(originRequest(request), BellaContext.getHeaders(), property);
         CompletionResponse response = new CompletionResponse();
         response.setCreated(DateTimeUtils.getCurrentSeconds());
         response.setModel("mock-model");
@@ -77,18 +68,17 @@ public class MockAdaptor implements CompletionAdaptorDelegator<CompletionPropert
             choice.setFinish_reason("tool_calls");
             message.setTool_calls(mockCompletionRequest.getToolCalls());
         }
-        return mockNetworkIO.httpRequest(response, mockCompletionRequest.getTtlt());
+        return mockNetworkIO.httpRequest(response, mockCompletionRequest.getLatency());
     }
 
     @Override
     public void streamCompletion(CompletionRequest request, String url, CompletionProperty property, Callbacks.StreamCompletionCallback callback) {
-        MockCompletionRequest mockCompletionRequest = new MockCompletionRequest((CompletionRequest) EndpointContext.getProcessData().getRequest(),
-                BellaContext.getHeaders(), property);
+        MockCompletionRequest mockCompletionRequest = new MockCompletionRequest(originRequest(request), BellaContext.getHeaders(), property);
         CompletionSseListener sseListener = new CompletionSseListener(callback, new Callbacks.DefaultSseConverter());
         List<StreamCompletionResponse> chunks = mockCompletionRequest.getChunks();
         CompletableFuture<?> future = new CompletableFuture<>();
         sseListener.setConnectionInitFuture(future);
-        mockNetworkIO.sseRequest(mockSseWriter(sseListener), chunks, mockCompletionRequest.getTtft(), mockCompletionRequest.getInterval());
+        mockNetworkIO.sseRequest(mockSseWriter(sseListener), chunks, mockCompletionRequest.getLatency());
         try {
             future.get();
         } catch (InterruptedException interruptedException) {
@@ -102,6 +92,14 @@ public class MockAdaptor implements CompletionAdaptorDelegator<CompletionPropert
         }
     }
 
+    /**
+     * 优先使用改写前的原始请求（function call模拟时需要原始tools），/v1/messages等转换而来的请求直接使用入参
+     */
+    private CompletionRequest originRequest(CompletionRequest request) {
+        Object origin = EndpointContext.getProcessData().getRequest();
+        return origin instanceof CompletionRequest ? (CompletionRequest) origin : request;
+    }
+
     private MockSseWriter mockSseWriter(CompletionSseListener sseListener) {
         return new MockSseWriter() {
             @Override
@@ -147,6 +145,7 @@ public class MockAdaptor implements CompletionAdaptorDelegator<CompletionPropert
         private Integer interval = 100;
         private CompletionProperty property;
         private String id = "chatcmpl-" + UUID.randomUUID();
+        private MockLatency latency;
 
         public MockCompletionRequest(CompletionRequest request, Map<String, String> requestInfo, CompletionProperty property) {
             Assert.notEmpty(request.getMessages(), "message is empty");
@@ -166,6 +165,7 @@ public class MockAdaptor implements CompletionAdaptorDelegator<CompletionPropert
             if(StringUtils.isNumeric(interval)) {
                 this.interval = Integer.parseInt(interval);
             }
+            this.latency = MockLatency.from(requestInfo, this.ttft, this.ttlt, this.interval);
             if(StringUtils.isNotBlank(reasoning)) {
                 this.reasoning = reasoning;
             } else {
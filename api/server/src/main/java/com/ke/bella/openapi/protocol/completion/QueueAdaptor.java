@@ -5,7 +5,6 @@ import com.ke.bella.openapi.common.EntityConstants;
 import com.ke.bella.openapi.protocol.Callbacks;
 import com.ke.bella.openapi.protocol.OpenapiResponse;
 import com.ke.bella.openapi.tables.pojos.ChannelDB;
-import com.ke.bella.openapi.utils.JacksonUtils;
 import com.ke.bella.queue.QueueClient;
 import com.theokanning.openai.queue.Put;
 import org.apache.commons.lang3.StringUtils;
@@ -32,12 +31,11 @@ public class QueueAdaptor<T extends CompletionProperty> implements CompletionAda
             @Override
             public <T> T request(Object req, Class<T> clazz, Callbacks.ChannelErrorCallback<T> errorCallback) {
                 Put put = Put.builder()
-                        .data(JacksonUtils.toMap(req))
                         .endpoint(processData.getEndpoint())
                         .timeout(processData.getMaxWaitSec())
                         .build();
 
-                T result = queueClient.blockingPut(put, processData.getApikey(), clazz, errorCallback);
+                T result = queueClient.blockingPut(put, req, processData.getApikey(), clazz, errorCallback);
                 if(result instanceof OpenapiResponse) {
                     updateChannelInfo(((OpenapiResponse) result).getChannelCode(), processData, channelLookup);
                 }
@@ -49,12 +47,11 @@ public class QueueAdaptor<T extends CompletionProperty> implements CompletionAda
     Callbacks.StreamDelegator streamDelegator() {
         return (req, listener) -> {
             Put put = Put.builder()
-                    .data(JacksonUtils.toMap(req))
                     .endpoint(processData.getEndpoint())
                     .timeout(processData.getMaxWaitSec())
                     .build();
 
-            queueClient.streamingPut(put, processData.getApikey(), listener);
+            queueClient.streamingPut(put, req, processData.getApikey(), listener);
         };
     }
 
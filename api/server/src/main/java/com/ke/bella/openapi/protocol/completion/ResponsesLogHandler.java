@@ -69,6 +69,9 @@ public class ResponsesLogHandler implements EndpointLogHandler {
             ttft = (int) (firstPackageTime - startMills);
         }
         int ttlt = (int) (endTime - startTime);
-        return ImmutableMap.of("ttft", ttft, "ttlt", ttlt, "input_token", inputToken, "output_token", outputToken);
+        int cachedToken = usage.getInput_tokens_details() != null && usage.getInput_tokens_details().getCached_tokens() != null
+                ? usage.getInput_tokens_details().getCached_tokens()
+                : 0;
+        return ImmutableMap.of("ttft", ttft, "ttlt", ttlt, "input_token", inputToken, "output_token", outputToken, "cached_token", cachedToken);
     }
 }
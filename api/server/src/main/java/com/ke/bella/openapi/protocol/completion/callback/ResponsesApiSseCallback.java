@@ -14,6 +14,7 @@ import com.ke.bella.openapi.protocol.completion.ResponsesApiStreamEvent;
 import com.ke.bella.openapi.protocol.log.EndpointLogger;
 import com.ke.bella.openapi.utils.DateTimeUtils;
 import com.ke.bella.openapi.utils.JacksonUtils;
+import com.ke.bella.openapi.utils.SseHelper;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -72,6 +73,11 @@ public class ResponsesApiSseCallback implements Callbacks.ResponsesApiSseCallbac
         if(completed) {
             return;
         }
+        if(SseHelper.isDisconnected(sse)) {
+            log.info("[{}]客户端已断开，上游请求结束: {}", processData.getRequestId(), exception.getMessage());
+            onComplete();
+            return;
+        }
         completed = true;
 
         log.error("Responses API SSE error: {}", exception.getMessage(), exception);
@@ -81,10 +87,7 @@ public class ResponsesApiSseCallback implements Callbacks.ResponsesApiSseCallbac
                 ResponsesApiResponse errorResponse = new ResponsesApiResponse();
                 errorResponse.setError(exception.convertToOpenapiError());
 
-                SseEmitter.SseEventBuilder errorEvent = SseEmitter.event()
-                        .name(" " + "response.error")
-                        .data(" " + JacksonUtils.serialize(errorResponse));
-                sse.send(errorEvent);
+                SseHelper.write(sse, " " + "response.error", " " + JacksonUtils.serialize(errorResponse));
                 sse.completeWithError(exception);
             } catch (IOException e) {
                 log.error("Failed to send error event", e);
@@ -139,13 +142,12 @@ public class ResponsesApiSseCallback implements Callbacks.ResponsesApiSseCallbac
         }
 
         try {
-            SseEmitter.SseEventBuilder event = SseEmitter.event();
-            if(StringUtils.isNotBlank(eventType)) {
-                event.name(" " + eventType);
-            }
-            event.data(" " + eventData);
-            sse.send(event);
+            SseHelper.write(sse, StringUtils.isNotBlank(eventType) ? " " + eventType : null, " " + eventData);
         } catch (IOException e) {
+            if(SseHelper.isDisconnected(sse)) {
+                // 上游已被取消，由onError/onComplete结束
+                return;
+            }
             log.error("Failed to send SSE event: {}", eventType, e);
             throw new RuntimeException("Failed to send SSE event", e);
         }
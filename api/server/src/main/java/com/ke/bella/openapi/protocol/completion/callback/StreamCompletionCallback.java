@@ -3,6 +3,7 @@ package com.ke.bella.openapi.protocol.completion.callback;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -12,8 +13,10 @@ import com.google.common.collect.Lists;
 import com.ke.bella.openapi.EndpointProcessData;
 import com.ke.bella.openapi.apikey.ApikeyInfo;
 import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.protocol.Callbacks;
 import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
 import com.ke.bella.openapi.protocol.completion.CompletionResponse;
 import com.ke.bella.openapi.protocol.completion.ResponseHelper;
 import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
@@ -38,6 +41,8 @@ public class StreamCompletionCallback implements Callbacks.StreamCompletionCallb
     protected final ISafetyCheckService<SafetyCheckRequest.Chat> safetyService;
     protected final ISafetyResultStorage safetyResultStorage;
     protected final CompletionResponse responseBuffer;
+    // 构造时线程上绑定的取消句柄，对冲请求落选时被取消
+    protected final UpstreamCancellation cancellation;
     protected final Map<Integer, CompletionResponse.Choice> choiceBuffer;
     protected boolean dirtyChoice;
     protected Long firstPackageTime;
@@ -54,12 +59,15 @@ public class StreamCompletionCallback implements Callbacks.StreamCompletionCallb
         this.logger = logger;
         this.safetyService = safetyService;
         this.safetyCheckIndex = 0;
+        this.cancellation = UpstreamCancellation.current();
         this.responseBuffer = new CompletionResponse();
         responseBuffer.setCreated(DateTimeUtils.getCurrentSeconds());
         this.choiceBuffer = new HashMap<>();
         if(safetyService instanceof ISafetyResultStorage) {
             this.safetyResultStorage = (ISafetyResultStorage) safetyService;
             this.requestRiskData = this.safetyResultStorage.getRequestRiskData();
+            // 风险数据同时记入日志中的响应，与非流式响应一致，带风险数据的响应不会被缓存
+            responseBuffer.setRequestRiskData(requestRiskData);
         } else {
             this.safetyResultStorage = null;
         }
@@ -106,6 +114,7 @@ public class StreamCompletionCallback implements Callbacks.StreamCompletionCallb
                 if(riskData == null) {
                     break;
                 }
+                responseBuffer.setSensitives(riskData);
                 StreamCompletionResponse response = new StreamCompletionResponse();
                 response.setSensitives(riskData);
                 response.setCreated(DateTimeUtils.getCurrentSeconds());
@@ -123,6 +132,19 @@ public class StreamCompletionCallback implements Callbacks.StreamCompletionCallb
 
     @Override
     public void finish(BellaException exception) {
+        if(SseHelper.isDisconnected(sse)) {
+            // 客户端断开导致上游被取消：按已生成的内容记录用量
+            log.info("[{}]客户端已断开，上游请求结束: {}", processData.getRequestId(), exception.getMessage());
+            finish();
+            return;
+        }
+        if(cancellation != null && cancellation.isCancelled()) {
+            // 对冲请求落选被取消：按已生成的内容记录用量，不记为渠道错误
+            log.info("[{}]对冲请求落选，上游请求已取消: {}", processData.getRequestId(), exception.getMessage());
+            processData.setCancelled(true);
+            finish();
+            return;
+        }
         OpenapiResponse.OpenapiError openapiError = exception.convertToOpenapiError();
         StreamCompletionResponse response = StreamCompletionResponse.builder()
                 .created(DateTimeUtils.getCurrentSeconds())
@@ -196,11 +218,20 @@ public class StreamCompletionCallback implements Callbacks.StreamCompletionCallb
         long created = response.getCreated() <= 0 ? DateTimeUtils.getCurrentSeconds() : response.getCreated();
         processData.setDuration(created - processData.getRequestTime());
         processData.setFirstPackageTime(firstPackageTime == null ? DateTimeUtils.getCurrentMills() : firstPackageTime);
+        recordStreamMetrics();
         response.setChoices(Lists.newArrayList(choiceBuffer.values()));
         processData.setResponse(response);
         logger.log(processData);
     }
 
+    private void recordStreamMetrics() {
+        if(firstPackageTime == null || processData.getRequestMillis() <= 0) {
+            return;
+        }
+        GatewayMetrics.record(GatewayMetrics.Stage.ttfb, processData, TimeUnit.MILLISECONDS.toNanos(firstPackageTime - processData.getRequestMillis()));
+        GatewayMetrics.record(GatewayMetrics.Stage.stream, processData, TimeUnit.MILLISECONDS.toNanos(DateTimeUtils.getCurrentMills() - firstPackageTime));
+    }
+
     private void safetyCheck(boolean done) {
         if(!dirtyChoice) {
             return;
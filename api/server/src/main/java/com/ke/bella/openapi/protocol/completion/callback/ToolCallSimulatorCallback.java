@@ -1,60 +1,57 @@
 package com.ke.bella.openapi.protocol.completion.callback;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.lang3.StringUtils;
 
 import com.ke.bella.openapi.EndpointProcessData;
-import com.ke.bella.openapi.TaskExecutor;
 import com.ke.bella.openapi.common.exception.BellaException;
 import com.ke.bella.openapi.protocol.Callbacks;
 import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
-import com.ke.bella.openapi.simulation.FunctionCallContentBuffer;
 import com.ke.bella.openapi.simulation.FunctionCallListener;
+import com.ke.bella.openapi.simulation.PythonFuncCallParser;
 import com.ke.bella.openapi.simulation.SimulationHepler;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * 在回调线程内增量解析模拟的function call，每个delta推送给解析器后立即发出已完整的tool call事件
+ */
 @Slf4j
 public class ToolCallSimulatorCallback extends Callbacks.StreamCompletionCallbackNode {
-    private final FunctionCallContentBuffer buffer;
     private final EndpointProcessData endpointProcessData;
+    private final PythonFuncCallParser parser;
+    private final StringBuilder content = new StringBuilder();
+    private final List<StreamCompletionResponse> lasts = new ArrayList<>();
+    private StreamCompletionResponse last;
     private boolean isOpen;
+    private boolean completed;
 
     public ToolCallSimulatorCallback(EndpointProcessData endpointProcessData) {
         this.endpointProcessData = endpointProcessData;
-        this.buffer = new FunctionCallContentBuffer();
+        this.parser = SimulationHepler.streamParser(new FunctionCallListener() {
+            @Override
+            public void onMessage(StreamCompletionResponse msg) {
+                msg.setId(last.getId());
+                msg.setModel(last.getModel());
+                msg.setCreated(System.currentTimeMillis());
+                next.callback(msg);
+            }
+
+            @Override
+            public void onFinish() {
+                lasts.forEach(e -> next.callback(e));
+                next.done();
+                next.finish();
+            }
+        });
     }
 
     @Override
     public void onOpen() {
-        try {
-            TaskExecutor.submit(() -> {
-                try {
-                    SimulationHepler.parse(buffer, new FunctionCallListener() {
-                        @Override
-                        public void onMessage(StreamCompletionResponse msg) {
-                            msg.setId(buffer.getLast().getId());
-                            msg.setModel(buffer.getLast().getModel());
-                            msg.setCreated(System.currentTimeMillis());
-                            next.callback(msg);
-                        }
-
-                        @Override
-                        public void onFinish() {
-                            buffer.getLasts().forEach(e -> next.callback(e));
-                            next.done();
-                            next.finish();
-                        }
-                    });
-                } catch (Throwable e) {
-                    next.done();
-                    next.finish();
-                    log.warn("faild to parse function call, buffer: {}", buffer.toString(), e);
-                }
-            });
-            isOpen = true;
-        } finally {
-            next.onOpen();
-        }
+        isOpen = true;
+        next.onOpen();
     }
 
     @Override
@@ -66,8 +63,21 @@ public class ToolCallSimulatorCallback extends Callbacks.StreamCompletionCallbac
         String reasoning = msg.reasoning();
         if(StringUtils.isNotEmpty(reasoning)) {
             next.callback(msg);
-        } else {
-            buffer.append(msg);
+            return;
+        }
+        last = msg;
+        if(msg.getChoices().isEmpty() || StringUtils.isNoneEmpty(msg.finishReason())) {
+            lasts.add(msg);
+        }
+        if(completed) {
+            return;
+        }
+        String delta = msg.content();
+        content.append(delta);
+        try {
+            parser.feed(delta);
+        } catch (Exception e) {
+            fail(e);
         }
     }
 
@@ -78,20 +88,39 @@ public class ToolCallSimulatorCallback extends Callbacks.StreamCompletionCallbac
 
     @Override
     public void done() {
-        buffer.finish();
+        complete();
     }
 
     @Override
     public void finish() {
-        buffer.finish();
+        complete();
     }
 
     @Override
     public void finish(BellaException exception) {
         if(isOpen) {
-            buffer.finish();
+            complete();
         } else {
             next.finish(exception);
         }
     }
+
+    private void complete() {
+        if(completed) {
+            return;
+        }
+        completed = true;
+        try {
+            parser.finish();
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Exception e) {
+        completed = true;
+        log.warn("faild to parse function call, buffer: {}", content, e);
+        next.done();
+        next.finish();
+    }
 }
@@ -1,8 +1,10 @@
 package com.ke.bella.openapi.protocol.document.parse;
 
+import com.ke.bella.openapi.TaskExecutor;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
 import com.ke.bella.openapi.common.exception.BellaException;
-import com.ke.bella.openapi.server.OpenAiServiceFactory;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
+import com.ke.bella.openapi.service.FileContentCache;
 import com.lark.oapi.Client;
 import com.lark.oapi.service.docx.v1.model.Block;
 import com.lark.oapi.service.docx.v1.model.Image;
@@ -17,11 +19,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static com.ke.bella.openapi.protocol.document.parse.LarkClientUtils.deleteFile;
@@ -33,11 +42,15 @@ import static com.ke.bella.openapi.protocol.document.parse.LarkClientUtils.uploa
 @Slf4j
 @Component("LarkDocumentParse")
 public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
+    private static final ExecutorService IMAGE_EXECUTOR = new ThreadPoolExecutor(16, 16, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(1024), new TaskExecutor.NamedThreadFactory("lark-image-", true),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
     @Autowired
     private LarkFileCleanupService cleanupService;
 
     @Autowired
-    private OpenAiServiceFactory openAiServiceFactory;
+    private FileContentCache fileContentCache;
 
     @Override
     public DocParseTaskInfo doParse(DocParseRequest request, String url, String channelCode, LarkProperty property) {
@@ -48,10 +61,8 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
             if(property.getSupportTypes() != null && Arrays.stream(property.getSupportTypes()).noneMatch(support -> support.equals(fileType))) {
                 throw new BizParamCheckException("File type must be any one of: " + String.join(",", property.getSupportTypes()));
             }
-            File tempFile = File.createTempFile("lark_", sourceFile.getName());
-            openAiServiceFactory.create().retrieveFileContentAndSave(sourceFile.getId(), tempFile.getPath());
             Client client = LarkClientProvider.client(property.getClientId(), property.getClientSecret());
-            String fileToken = uploadFile(client, sourceFile.getName(), property.getUploadDirToken(), tempFile);
+            String fileToken = transferFile(sourceFile, client, property);
             String ticket = importTask(client, fileToken, property.getCloudDirToken(), sourceFile.getName(), fileType);
 
             // 注册文件清理任务
@@ -65,12 +76,19 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
         }
     }
 
+    /**
+     * 飞书上传接口只接受带长度的File，直接上传文件缓存中的磁盘文件（内存层的内容先落盘），不再每次下载到临时文件
+     */
+    private String transferFile(SourceFile sourceFile, Client client, LarkProperty property) {
+        return fileContentCache.withFile(sourceFile.getId(), file -> uploadFile(client, sourceFile.getName(), property.getUploadDirToken(), file));
+    }
+
     @Override
     public DocParseResponse queryResult(String taskId, String url, LarkProperty property) {
         Client client = LarkClientProvider.client(property.getClientId(), property.getClientSecret());
         DocParseResponse response = queryTaskResult(client, taskId);
         if("success".equals(response.getStatus())) {
-            DocParseResult result = getDocParseResult(client, response.getToken());
+            DocParseResult result = getDocParseResult(client, response.getToken(), property);
             response.setResult(result);
         }
         response.setCallback(() -> deleteFile(client, response.getToken(), "docx"));
@@ -94,12 +112,12 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
         return LarkProperty.class;
     }
 
-    private static DocParseResult getDocParseResult(Client client, String token) {
-        List<Block> blocks = getBlocks(client, token, null);
+    private static DocParseResult getDocParseResult(Client client, String token, LarkProperty property) {
+        List<Block> blocks = getBlocks(client, token);
         blocks = blocks.stream()
                 .filter(block -> !emptyTitle(block))
                 .collect(Collectors.toList());
-        return convertTo(blocks, client);
+        return convertTo(blocks, client, property);
     }
 
     private static boolean emptyTitle(Block block) {
@@ -139,23 +157,30 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
         return StringUtils.isBlank(text);
     }
 
-    private static List<Block> getBlocks(Client client, String token, String pageToken) {
-        ListDocumentBlockReq req = ListDocumentBlockReq.newBuilder()
-                .documentId(token)
-                .pageSize(500)
-                .pageToken(pageToken)
-                .documentRevisionId(-1)
-                .build();
+    /**
+     * 逐页拉取文档的全部block，结果追加到同一个列表
+     */
+    private static List<Block> getBlocks(Client client, String token) {
+        List<Block> blocks = new ArrayList<>();
+        String pageToken = null;
         try {
-            ListDocumentBlockResp resp = client.docx().v1().documentBlock().list(req);
-            if(resp.getCode() != 0) {
-                throw new BellaException.ChannelException(502, resp.getMsg());
-            }
-            ListDocumentBlockRespBody body = resp.getData();
-            List<Block> blocks = new ArrayList<>(Arrays.asList(body.getItems()));
-            if(body.getHasMore()) {
-                blocks.addAll(getBlocks(client, token, body.getPageToken()));
-            }
+            do {
+                ListDocumentBlockReq req = ListDocumentBlockReq.newBuilder()
+                        .documentId(token)
+                        .pageSize(500)
+                        .pageToken(pageToken)
+                        .documentRevisionId(-1)
+                        .build();
+                ListDocumentBlockResp resp = client.docx().v1().documentBlock().list(req);
+                if(resp.getCode() != 0) {
+                    throw new BellaException.ChannelException(502, resp.getMsg());
+                }
+                ListDocumentBlockRespBody body = resp.getData();
+                if(body.getItems() != null) {
+                    blocks.addAll(Arrays.asList(body.getItems()));
+                }
+                pageToken = Boolean.TRUE.equals(body.getHasMore()) ? body.getPageToken() : null;
+            } while (StringUtils.isNotEmpty(pageToken));
             return blocks;
         } catch (Exception e) {
             throw BellaException.fromException(e);
@@ -165,15 +190,18 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
     /**
      * 将飞书Block列表转换为DocParseResult格式
      * 
-     * @param blocks 飞书返回的Block列表
-     * @param client LarkClient
+     * @param blocks   飞书返回的Block列表
+     * @param client   LarkClient
+     * @param property 渠道配置
      * 
      * @return 转换后的DocParseResult对象
      */
-    private static DocParseResult convertTo(List<Block> blocks, Client client) {
+    private static DocParseResult convertTo(List<Block> blocks, Client client, LarkProperty property) {
         if(blocks == null || blocks.isEmpty()) {
             return null;
         }
+        BlockIndex index = new BlockIndex(blocks);
+        index.fetchImages(client, property);
 
         // 找到根节点（parent_id为空的节点）
         Block rootBlock = blocks.stream()
@@ -189,12 +217,10 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
         result.setElement(null); // 根节点element为null
 
         // 获取所有属于根节点的直接子节点
-        List<Block> rootChildren = blocks.stream()
-                .filter(block -> rootBlock.getBlockId().equals(block.getParentId()))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        List<Block> rootChildren = index.childrenOf(rootBlock.getBlockId());
 
         // 按标题层级构建树形结构
-        result.setChildren(buildHierarchicalStructure(rootChildren, blocks, client));
+        result.setChildren(buildHierarchicalStructure(rootChildren, index));
 
         return result;
     }
@@ -202,13 +228,12 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
     /**
      * 按标题层级构建树形结构
      * 
-     * @param blocks    要处理的Block列表
-     * @param allBlocks 所有Block列表（用于查找子节点）
-     * @param client    LarkClient
+     * @param blocks 要处理的Block列表
+     * @param index  Block索引（用于查找子节点）
      * 
      * @return 构建好的DocParseResult列表
      */
-    private static List<DocParseResult> buildHierarchicalStructure(List<Block> blocks, List<Block> allBlocks, Client client) {
+    private static List<DocParseResult> buildHierarchicalStructure(List<Block> blocks, BlockIndex index) {
         List<DocParseResult> results = new ArrayList<>();
 
         for (int i = 0; i < blocks.size(); i++) {
@@ -219,7 +244,7 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
             DocParseResult current = new DocParseResult();
             current.setSummary("");
             current.setPath(Arrays.asList(results.size() + 1)); // 路径从1开始
-            current.setElement(createElement(currentBlock, allBlocks, client));
+            current.setElement(createElement(currentBlock, index));
 
             // 如果是标题，查找属于该标题的内容
             if(currentLevel > 0) {
@@ -239,7 +264,7 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
                 }
 
                 // 递归构建子结构
-                current.setChildren(buildHierarchicalStructure(childBlocks, allBlocks, client));
+                current.setChildren(buildHierarchicalStructure(childBlocks, index));
 
                 // 更新路径
                 updateChildrenPaths(current.getChildren(), current.getPath());
@@ -249,13 +274,12 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
             } else {
                 // 非标题节点，查找其直接子节点（基于parent_id）
                 // 排除表格相关的block类型，因为它们已经在表格的rows中处理
-                List<Block> directChildren = allBlocks.stream()
-                        .filter(block -> currentBlock.getBlockId().equals(block.getParentId()))
+                List<Block> directChildren = index.childrenOf(currentBlock.getBlockId()).stream()
                         .filter(block -> !isTableRelatedBlock(block)) // 排除表格相关block
-                        .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+                        .collect(Collectors.toList());
 
                 if(!directChildren.isEmpty()) {
-                    current.setChildren(buildHierarchicalStructure(directChildren, allBlocks, client));
+                    current.setChildren(buildHierarchicalStructure(directChildren, index));
                     updateChildrenPaths(current.getChildren(), current.getPath());
                 }
             }
@@ -377,13 +401,12 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
     /**
      * 根据Block创建Element对象
      * 
-     * @param block     飞书Block对象
-     * @param allBlocks 所有Block列表（用于查找表格子节点）
-     * @param client    LarkClient
+     * @param block 飞书Block对象
+     * @param index Block索引（用于查找表格子节点和预取的图片）
      * 
      * @return Element对象
      */
-    private static DocParseResult.Element createElement(Block block, List<Block> allBlocks, Client client) {
+    private static DocParseResult.Element createElement(Block block, BlockIndex index) {
         DocParseResult.Element element = new DocParseResult.Element();
 
         // 根据block_type设置类型和内容
@@ -481,13 +504,13 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
         case 31: // table
             element.setType("Table");
             if(block.getTable() != null) {
-                element.setRows(convertTableRows(block, allBlocks, client));
+                element.setRows(convertTableRows(block, index));
             }
             break;
         case 27: // image
             element.setType("Figure");
             if(block.getImage() != null) {
-                DocParseResult.Image image = convertImage(block.getImage(), client);
+                DocParseResult.Image image = convertImage(block.getImage(), index);
                 element.setImage(image);
             }
             break;
@@ -567,13 +590,12 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
     /**
      * 转换表格行数据
      * 
-     * @param block     表格Block
-     * @param allBlocks 所有Block列表
-     * @param client    LarkClient
+     * @param block 表格Block
+     * @param index Block索引
      * 
      * @return 行数据列表
      */
-    private static List<DocParseResult.Row> convertTableRows(Block block, List<Block> allBlocks, Client client) {
+    private static List<DocParseResult.Row> convertTableRows(Block block, BlockIndex index) {
         List<DocParseResult.Row> rows = new ArrayList<>();
 
         if(block.getTable() == null || block.getTable().getCells() == null ||
@@ -593,14 +615,6 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
 
             int[][] position = new int[rowSize][columnSize];
 
-            // 构建cellId到Block的映射
-            Map<String, Block> cellBlockMap = allBlocks.stream()
-                    .filter(b -> b.getTableCell() != null)
-                    .collect(Collectors.toMap(
-                            Block::getBlockId,
-                            java.util.function.Function.identity(),
-                            (existing, replacement) -> existing));
-
             // 按行构建表格
             for (int row = 0; row < rowSize; row++) {
                 DocParseResult.Row rowData = new DocParseResult.Row();
@@ -613,7 +627,7 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
                     int cellIndex = row * columnSize + col;
                     if(cellIndex < cellIds.length) {
                         String cellId = cellIds[cellIndex];
-                        Block cellBlock = cellBlockMap.get(cellId);
+                        Block cellBlock = index.cell(cellId);
 
                         DocParseResult.Cell cell = new DocParseResult.Cell();
 
@@ -648,10 +662,7 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
 
                             // 收集所有子块并检查是否包含复杂内容
                             for (String childId : cellBlock.getChildren()) {
-                                Block childBlock = allBlocks.stream()
-                                        .filter(b -> childId.equals(b.getBlockId()))
-                                        .findFirst()
-                                        .orElse(null);
+                                Block childBlock = index.get(childId);
 
                                 if(childBlock != null) {
                                     childBlocks.add(childBlock);
@@ -664,7 +675,7 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
 
                             if(hasComplexContent) {
                                 // 包含复杂内容，转换为节点结构
-                                List<DocParseResult> cellNodes = buildHierarchicalStructure(childBlocks, allBlocks, client);
+                                List<DocParseResult> cellNodes = buildHierarchicalStructure(childBlocks, index);
                                 cell.setNodes(cellNodes);
                                 cell.setText(""); // 复杂单元格不设置文本
                             } else {
@@ -722,16 +733,106 @@ public class LarkAdaptor implements DocParseAdaptor<LarkProperty> {
      * 转换图片信息
      * 
      * @param imageBlock 图片Block对象
-     * @param client     LarkClient
+     * @param index      Block索引（持有预取的图片）
      * 
      * @return Image对象
      */
-    private static DocParseResult.Image convertImage(Image imageBlock, Client client) {
+    private static DocParseResult.Image convertImage(Image imageBlock, BlockIndex index) {
         DocParseResult.Image image = new DocParseResult.Image();
         image.setType("image_base64");
-        image.setBase64(getImageUrl(imageBlock, client));
+        image.setBase64(index.image(imageBlock.getToken()));
 
         return image;
     }
 
+    /**
+     * 文档内block的索引：按blockId和parentId分组，父子关系解析为O(1)查找；图片在转换前并发下载
+     */
+    static class BlockIndex {
+        private final Map<String, Block> blocks = new HashMap<>();
+        private final Map<String, List<Block>> children = new HashMap<>();
+        private final Map<String, String> images = new HashMap<>();
+
+        BlockIndex(List<Block> all) {
+            for (Block block : all) {
+                blocks.putIfAbsent(block.getBlockId(), block);
+                if(StringUtils.isNotEmpty(block.getParentId())) {
+                    children.computeIfAbsent(block.getParentId(), k -> new ArrayList<>()).add(block);
+                }
+            }
+        }
+
+        Block get(String blockId) {
+            return blocks.get(blockId);
+        }
+
+        Block cell(String blockId) {
+            Block block = blocks.get(blockId);
+            return block != null && block.getTableCell() != null ? block : null;
+        }
+
+        List<Block> childrenOf(String blockId) {
+            return children.getOrDefault(blockId, Collections.emptyList());
+        }
+
+        String image(String token) {
+            return images.getOrDefault(token, "");
+        }
+
+        /**
+         * 在共享的有界线程池上并发下载全部图片，超过大小上限或超时的图片置空；
+         * CompletableFuture.cancel不会中断执行中的下载，超时时通过每张图片的取消句柄中断底层http请求
+         */
+        void fetchImages(Client client, LarkProperty property) {
+            Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+            Map<String, UpstreamCancellation> cancellations = new HashMap<>();
+            for (Block block : blocks.values()) {
+                if(block.getBlockType() != null && block.getBlockType() == 27 && block.getImage() != null
+                        && block.getImage().getToken() != null) {
+                    String token = block.getImage().getToken();
+                    futures.computeIfAbsent(token, k -> {
+                        UpstreamCancellation cancellation = new UpstreamCancellation();
+                        cancellations.put(k, cancellation);
+                        return CompletableFuture.supplyAsync(
+                                () -> fetchImage(block.getImage(), client, property.getMaxImageBytes(), cancellation), IMAGE_EXECUTOR);
+                    });
+                }
+            }
+            if(futures.isEmpty()) {
+                return;
+            }
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(property.getImageTimeoutSeconds());
+            for (Map.Entry<String, CompletableFuture<String>> entry : futures.entrySet()) {
+                try {
+                    long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                    images.put(entry.getKey(), entry.getValue().get(remaining, TimeUnit.MILLISECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    cancellations.get(entry.getKey()).cancel();
+                    entry.getValue().cancel(true);
+                    log.warn("下载飞书图片失败: {}, {}", entry.getKey(), e.toString());
+                }
+            }
+        }
+
+        /**
+         * 队列满时CallerRunsPolicy会在调用线程上执行，执行完恢复调用线程原有的取消句柄
+         */
+        private String fetchImage(Image image, Client client, long maxBytes, UpstreamCancellation cancellation) {
+            UpstreamCancellation previous = UpstreamCancellation.current();
+            UpstreamCancellation.bind(cancellation);
+            try {
+                return getImageUrl(image, client, maxBytes);
+            } finally {
+                if(previous != null) {
+                    UpstreamCancellation.bind(previous);
+                } else {
+                    UpstreamCancellation.unbind();
+                }
+            }
+        }
+    }
+
 }
@@ -2,7 +2,10 @@ package com.ke.bella.openapi.protocol.document.parse;
 
 import com.ke.bella.openapi.common.exception.BellaException;
 import com.lark.oapi.Client;
+import com.ke.bella.openapi.utils.HttpUtils;
 import com.lark.oapi.service.docx.v1.model.Image;
+import com.lark.oapi.service.drive.v1.model.BatchGetTmpDownloadUrlMediaReq;
+import com.lark.oapi.service.drive.v1.model.BatchGetTmpDownloadUrlMediaResp;
 import com.lark.oapi.service.drive.v1.model.CreateImportTaskReq;
 import com.lark.oapi.service.drive.v1.model.CreateImportTaskResp;
 import com.lark.oapi.service.drive.v1.model.DeleteFileReq;
@@ -13,15 +16,21 @@ import com.lark.oapi.service.drive.v1.model.GetImportTaskReq;
 import com.lark.oapi.service.drive.v1.model.GetImportTaskResp;
 import com.lark.oapi.service.drive.v1.model.ImportTask;
 import com.lark.oapi.service.drive.v1.model.ImportTaskMountPoint;
+import com.lark.oapi.service.drive.v1.model.TmpDownloadUrl;
 import com.lark.oapi.service.drive.v1.model.UploadAllFileReq;
 import com.lark.oapi.service.drive.v1.model.UploadAllFileReqBody;
 import com.lark.oapi.service.drive.v1.model.UploadAllFileResp;
 import com.theokanning.openai.service.FileUtil;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Base64;
 
 @Slf4j
@@ -138,6 +147,54 @@ public class LarkClientUtils {
      * @return 图片Base64String
      */
     public static String getImageUrl(Image imageBlock, Client client) {
+        return getImageUrl(imageBlock, client, Long.MAX_VALUE);
+    }
+
+    /**
+     * 获取图片，超过大小上限时返回空串。
+     * 飞书SDK的下载接口会把整张图片读入内存，有大小上限时改为取临时下载链接流式下载：先按Content-Length判断，
+     * 读取时累计字节数，超过上限立即中断；下载请求注册到当前线程绑定的UpstreamCancellation上，可从其他线程取消
+     * 
+     * @param imageBlock 图片Block对象
+     * @param client     LarkClient
+     * @param maxBytes   图片大小上限
+     * 
+     * @return 图片Base64String
+     */
+    public static String getImageUrl(Image imageBlock, Client client, long maxBytes) {
+        if(maxBytes <= 0 || maxBytes == Long.MAX_VALUE) {
+            return downloadImage(imageBlock, client);
+        }
+        try {
+            String url = tmpDownloadUrl(imageBlock.getToken(), client);
+            if(url == null) {
+                return "";
+            }
+            try (Response response = HttpUtils.httpRequest(new Request.Builder().url(url).get().build(), 10, 60)) {
+                ResponseBody body = response.body();
+                if(!response.isSuccessful() || body == null) {
+                    log.warn("failed to download image {}: {}", imageBlock.getToken(), response.code());
+                    return "";
+                }
+                if(body.contentLength() > maxBytes) {
+                    log.warn("image {} exceeds size limit: {} > {}", imageBlock.getToken(), body.contentLength(), maxBytes);
+                    return "";
+                }
+                byte[] bytes = readLimited(body.byteStream(), maxBytes);
+                if(bytes == null) {
+                    log.warn("image {} exceeds size limit: > {}", imageBlock.getToken(), maxBytes);
+                    return "";
+                }
+                MediaType mimeType = body.contentType() != null ? body.contentType() : FileUtil.getFileUploadMediaType(imageBlock.getToken());
+                return "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(bytes);
+            }
+        } catch (Exception e) {
+            log.warn(e.getMessage(), e);
+            return "";
+        }
+    }
+
+    private static String downloadImage(Image imageBlock, Client client) {
         DownloadMediaReq req = DownloadMediaReq.newBuilder()
                 .fileToken(imageBlock.getToken())
                 .build();
@@ -156,4 +213,35 @@ public class LarkClientUtils {
             return "";
         }
     }
+
+    private static String tmpDownloadUrl(String fileToken, Client client) throws Exception {
+        BatchGetTmpDownloadUrlMediaReq req = BatchGetTmpDownloadUrlMediaReq.newBuilder()
+                .fileTokens(new String[] { fileToken })
+                .build();
+        BatchGetTmpDownloadUrlMediaResp resp = client.drive().v1().media().batchGetTmpDownloadUrl(req);
+        if(resp.getCode() != 0) {
+            log.warn(resp.getMsg());
+            return null;
+        }
+        TmpDownloadUrl[] urls = resp.getData() == null ? null : resp.getData().getTmpDownloadUrls();
+        return urls == null || urls.length == 0 ? null : urls[0].getTmpDownloadUrl();
+    }
+
+    /**
+     * 读取全部内容，超过maxBytes时停止读取并返回null
+     */
+    static byte[] readLimited(InputStream in, long maxBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if(total > maxBytes) {
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
 }
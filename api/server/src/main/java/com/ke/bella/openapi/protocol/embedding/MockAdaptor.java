@@ -1,10 +1,24 @@
 package com.ke.bella.openapi.protocol.embedding;
 
-import com.ke.bella.openapi.common.exception.BizParamCheckException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.stereotype.Component;
 
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.mock.MockLatency;
+import com.ke.bella.openapi.mock.MockNetworkIO;
+
 @Component("mockEmbedding")
 public class MockAdaptor implements EmbeddingAdaptor<EmbeddingProperty> {
+    private static final int DEFAULT_DIMENSIONS = 1024;
+    private static final int DEFAULT_TTLT = 50;
+
+    MockNetworkIO mockNetworkIO = new MockNetworkIO();
+
     @Override
     public String getDescription() {
         return "mock协议";
@@ -12,11 +26,42 @@ public class MockAdaptor implements EmbeddingAdaptor<EmbeddingProperty> {
 
     @Override
     public Class<?> getPropertyClass() {
-        return EmbeddingAdaptor.class;
+        return EmbeddingProperty.class;
     }
 
     @Override
     public EmbeddingResponse embedding(EmbeddingRequest request, String url, EmbeddingProperty property) {
-        throw new BizParamCheckException("尚未支持embedding mock");
+        List<?> inputs = request.getInput() instanceof List ? (List<?>) request.getInput()
+                : Collections.singletonList(request.getInput());
+        int dimensions = request.getDimensions() != null && request.getDimensions() > 0 ? request.getDimensions() : DEFAULT_DIMENSIONS;
+        int ttlt = NumberUtils.toInt(BellaContext.getHeaders().get("X-BELLA-MOCK-TTLT"), DEFAULT_TTLT);
+        MockLatency latency = MockLatency.from(BellaContext.getHeaders(), 0, ttlt, 0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<EmbeddingResponse.EmbeddingData> data = new ArrayList<>(inputs.size());
+        int tokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            float[] vector = new float[dimensions];
+            for (int j = 0; j < dimensions; j++) {
+                vector[j] = random.nextFloat() * 2 - 1;
+            }
+            EmbeddingResponse.EmbeddingData embeddingData = new EmbeddingResponse.EmbeddingData();
+            embeddingData.setObject("embedding");
+            embeddingData.setEmbedding(vector);
+            embeddingData.setIndex(i);
+            data.add(embeddingData);
+            // 按4字符/token粗略估算用量
+            tokens += Math.max(1, String.valueOf(inputs.get(i)).length() / 4);
+        }
+        EmbeddingResponse.TokenUsage usage = new EmbeddingResponse.TokenUsage();
+        usage.setPrompt_tokens(tokens);
+        usage.setTotal_tokens(tokens);
+        EmbeddingResponse response = new EmbeddingResponse();
+        response.setObject("list");
+        response.setModel(request.getModel());
+        response.setData(data);
+        response.setUsage(usage);
+        clearLargeData(request);
+        return mockNetworkIO.httpRequest(response, latency);
     }
 }
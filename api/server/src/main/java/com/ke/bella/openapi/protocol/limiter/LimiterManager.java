@@ -9,6 +9,7 @@ import com.ke.bella.openapi.utils.DateTimeUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -24,8 +25,16 @@ public class LimiterManager {
     @Autowired
     private RedissonClient redisson;
 
-    private static final String RPM_KEY_FORMAT = "bella-openapi-limiter-rpm:%s:%s";
     private static final String RPM_COUNT_KEY_FORMAT = "bella-openapi-limiter-rpm-count:%s:%s";
+    private static final String RPM_SEGMENT_KEY_FORMAT = "bella-openapi-limiter-rpm-segment:%s:%s";
+    private static final int WINDOW_SECONDS = 60;
+    private static final int SEGMENT_SECONDS = 5;
+
+    /**
+     * 迁移期间旧版本实例仍写入旧的count key，读取时叠加旧计数；全量发布超过一分钟后可关闭
+     */
+    @Value("${bella.openapi.limiter.rpm.legacy-read:true}")
+    private boolean legacyRpmRead;
     private static final String CONCURRENT_KEY_FORMAT = "bella-openapi-limiter-concurrent:%s:%s";
 
     public void record(EndpointProcessData processData) {
@@ -41,32 +50,77 @@ public class LimiterManager {
         long currentTimestamp = DateTimeUtils.getCurrentSeconds();
         if(requestId != null && akCode != null) {
             // RPM记录
-            incrementRequestCountPerMinute(akCode, entityCode, requestId, currentTimestamp);
+            incrementRequestCountPerMinute(akCode, entityCode, currentTimestamp);
         }
         // 减少并发请求计数
         decrementConcurrentCount(akCode, entityCode);
     }
 
-    public void incrementRequestCountPerMinute(String akCode, String entityCode, String requestId, long currentTimestamp) {
-        String rpmKey = String.format(RPM_KEY_FORMAT, entityCode, akCode);
-        String countKey = String.format(RPM_COUNT_KEY_FORMAT, entityCode, akCode);
+    public void incrementRequestCountPerMinute(String akCode, String entityCode, long currentTimestamp) {
+        countPerMinute(String.format(RPM_SEGMENT_KEY_FORMAT, entityCode, akCode), 1, currentTimestamp);
+    }
+
+    public Long getRequestCountPerMinute(String akCode, String entityCode) {
+        long count = countPerMinute(String.format(RPM_SEGMENT_KEY_FORMAT, entityCode, akCode), 0, DateTimeUtils.getCurrentSeconds());
+        if(legacyRpmRead) {
+            String countKey = String.format(RPM_COUNT_KEY_FORMAT, entityCode, akCode);
+            Object legacy = redisson.getBucket(countKey).get();
+            count += legacy != null ? Long.parseLong(legacy.toString()) : 0L;
+        }
+        return count;
+    }
 
-        List<Object> keys = Lists.newArrayList(rpmKey, countKey);
+    /**
+     * 分段计数，cost为本次计数（请求数为1，按用量计数时为本次用量），为0时只查询；脚本只负责各段的增减和读取，窗口累加见windowTotal
+     */
+    @SuppressWarnings("unchecked")
+    private long countPerMinute(String key, long cost, long currentTimestamp) {
+        List<Object> keys = Lists.newArrayList(key);
         List<Object> params = new ArrayList<>();
+        params.add(WINDOW_SECONDS);
+        params.add(SEGMENT_SECONDS);
+        params.add(cost);
         params.add(currentTimestamp);
-        params.add(requestId);
-
         try {
-            executor.execute("/rpm", ScriptType.limiter, keys, params);
+            List<Object> result = (List<Object>) executor.execute("/segment_counter", ScriptType.limiter, keys, params);
+            if(result == null || ((Number) result.get(0)).intValue() != 1) {
+                log.warn("Failed to count per minute: key={}, result={}", key, result);
+                return 0L;
+            }
+            List<Long> segments = new ArrayList<>(result.size() - 1);
+            for (Object value : result.subList(1, result.size())) {
+                segments.add(((Number) value).longValue());
+            }
+            return windowTotal(segments, currentTimestamp, WINDOW_SECONDS, SEGMENT_SECONDS);
         } catch (IOException e) {
             log.warn(e.getMessage(), e);
+            return 0L;
         }
     }
 
-    public Long getRequestCountPerMinute(String akCode, String entityCode) {
-        String countKey = String.format(RPM_COUNT_KEY_FORMAT, entityCode, akCode);
-        Object count = redisson.getBucket(countKey).get();
-        return count != null ? Long.parseLong(count.toString()) : 0L;
+    /**
+     * 按时间权重累加窗口内的计数：当前段尚未结束，全部计入；更早的段按与窗口重叠的时长比例计入
+     *
+     * @param segments 从当前段开始依次往前各段的计数
+     */
+    static long windowTotal(List<Long> segments, long now, int window, int segmentSize) {
+        long currentSegment = now / segmentSize;
+        long windowStart = now - window;
+        double total = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            long count = segments.get(i);
+            if(i == 0) {
+                total += count;
+                continue;
+            }
+            long segmentStart = (currentSegment - i) * segmentSize;
+            long effectiveStart = Math.max(segmentStart, windowStart);
+            long effectiveEnd = Math.min(segmentStart + segmentSize, now);
+            if(effectiveEnd > effectiveStart) {
+                total += (double) count * (effectiveEnd - effectiveStart) / segmentSize;
+            }
+        }
+        return (long) Math.floor(total);
     }
 
     public void incrementConcurrentCount(String akCode, String entityCode) {
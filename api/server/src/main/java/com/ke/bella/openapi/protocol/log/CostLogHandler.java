@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 import java.util.stream.Collectors;
 
 public class CostLogHandler implements EventHandler<LogEvent> {
@@ -23,12 +24,19 @@ public class CostLogHandler implements EventHandler<LogEvent> {
     private static final Logger LOGGER = LoggerFactory.getLogger(CostLogHandler.class);
 
     public CostLogHandler(CostCounter costCounter, CostScripFetcher costScripFetcher) {
+        this(costCounter, costScripFetcher, () -> 1.0);
+    }
+
+    public CostLogHandler(CostCounter costCounter, CostScripFetcher costScripFetcher, DoubleSupplier cacheHitCostRatio) {
         this.costCounter = costCounter;
         this.costScripFetcher = costScripFetcher;
+        this.cacheHitCostRatio = cacheHitCostRatio;
     }
 
     private final CostCounter costCounter;
     private final CostScripFetcher costScripFetcher;
+    // 命中网关响应缓存的请求按原价的该比例计费
+    private final DoubleSupplier cacheHitCostRatio;
 
     @Override
     public void onEvent(LogEvent event, long sequence, boolean endOfBatch) throws Exception {
@@ -66,6 +74,11 @@ public class CostLogHandler implements EventHandler<LogEvent> {
                 }
             }
         }
+        if(log.isCacheHit() && cost != null) {
+            BigDecimal ratio = BigDecimal.valueOf(cacheHitCostRatio.getAsDouble());
+            costDetails = applyDiscount(costDetails, ratio);
+            cost = cost.multiply(ratio);
+        }
         boolean valid = cost != null && BigDecimal.ZERO.compareTo(cost) < 0;
         log.setCost(valid ? cost : BigDecimal.ZERO);
         log.setCostDetails(costDetails);
@@ -1,18 +1,26 @@
 package com.ke.bella.openapi.protocol.log;
 
 import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
+import com.ke.bella.openapi.utils.DateTimeUtils;
 import com.lmax.disruptor.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class EndpointLogger {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndpointLogger.class);
+    private static final int MAX_PUBLISH_BATCH = 256;
     @Autowired
     private RingBuffer<LogEvent> ringBuffer;
     @Autowired
@@ -28,22 +36,66 @@ public class EndpointLogger {
     }
 
     public void log(EndpointProcessData log) {
+        if(!preprocess(log)) {
+            return;
+        }
+        long sequence = ringBuffer.next();
+        fill(ringBuffer.get(sequence), log);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * 批量写入，按批申请ring buffer序号后一次发布
+     */
+    public void log(List<EndpointProcessData> logs) {
+        List<EndpointProcessData> accepted = new ArrayList<>(logs.size());
+        for (EndpointProcessData log : logs) {
+            // 单条日志预处理失败只跳过该条，不影响同批其他日志
+            try {
+                if(preprocess(log)) {
+                    accepted.add(log);
+                }
+            } catch (Exception e) {
+                LOGGER.warn("skip log failed in preprocess, requestId: {}, error: {}", log.getRequestId(), e.getMessage(), e);
+            }
+        }
+        for (int from = 0; from < accepted.size(); from += MAX_PUBLISH_BATCH) {
+            int n = Math.min(MAX_PUBLISH_BATCH, accepted.size() - from);
+            long hi = ringBuffer.next(n);
+            long lo = hi - (n - 1);
+            for (int i = 0; i < n; i++) {
+                fill(ringBuffer.get(lo + i), accepted.get(from + i));
+            }
+            ringBuffer.publish(lo, hi);
+        }
+    }
+
+    private boolean preprocess(EndpointProcessData log) {
         log.setApikey(null);
         if(log.isMock()) {
-            return;
+            return false;
         }
         EndpointLogHandler handler = handlerMap.get(log.getEndpoint());
         if(handler != null) {
+            long start = System.nanoTime();
             handler.process(log);
+            GatewayMetrics.recordSince(GatewayMetrics.Stage.log_preprocess, log, start);
         }
-        long sequence = ringBuffer.next();
-        LogEvent event = ringBuffer.get(sequence);
+        // 只统计本实例处理的请求；sdk与批量上报的日志、对冲落选被取消的请求不计入
+        if(log.isInnerLog() && !log.isCancelled() && log.getRequestMillis() > 0) {
+            GatewayMetrics.record(GatewayMetrics.Stage.total, log, TimeUnit.MILLISECONDS.toNanos(DateTimeUtils.getCurrentMills() - log.getRequestMillis()));
+        }
+        return true;
+    }
+
+    private void fill(LogEvent event, EndpointProcessData log) {
         event.setData(log);
         event.setRepositoryCode(logRepo);
+        event.setCostOnly(false);
+        event.setPublishNanos(System.nanoTime());
         if(log.isOverrideInnerLog() || log.isBatch()) {
             log.setInnerLog(true);
             event.setCostOnly(true);
         }
-        ringBuffer.publish(sequence);
     }
 }
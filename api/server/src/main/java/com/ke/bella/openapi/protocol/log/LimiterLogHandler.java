@@ -17,7 +17,8 @@ public class LimiterLogHandler implements EventHandler<LogEvent> {
     @Override
     public void onEvent(LogEvent event, long sequence, boolean endOfBatch) throws Exception {
         EndpointProcessData log = event.getData();
-        if(event.isCostOnly()) {
+        // 命中响应缓存的请求未占用并发计数
+        if(event.isCostOnly() || log.isCacheHit()) {
             return;
         }
         if(log.isInnerLog() && !log.isPrivate()) {
@@ -8,4 +8,5 @@ public class LogEvent {
     private EndpointProcessData data;
     private String repositoryCode;
     private boolean costOnly;
+    private long publishNanos;
 }
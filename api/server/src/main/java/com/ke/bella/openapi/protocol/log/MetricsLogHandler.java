@@ -1,7 +1,9 @@
 package com.ke.bella.openapi.protocol.log;
 
 import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.metrics.GatewayMetrics;
 import com.ke.bella.openapi.protocol.metrics.MetricsManager;
+import com.ke.bella.openapi.protocol.route.ChannelLoadStats;
 import com.lmax.disruptor.EventHandler;
 import lombok.extern.slf4j.Slf4j;
 
@@ -9,17 +11,26 @@ import lombok.extern.slf4j.Slf4j;
 public class MetricsLogHandler implements EventHandler<LogEvent> {
 
     private final MetricsManager metricsManager;
+    private final ChannelLoadStats channelLoadStats;
 
-    public MetricsLogHandler(MetricsManager metricsManager) {
+    public MetricsLogHandler(MetricsManager metricsManager, ChannelLoadStats channelLoadStats) {
         this.metricsManager = metricsManager;
+        this.channelLoadStats = channelLoadStats;
     }
 
     @Override
     public void onEvent(LogEvent event, long sequence, boolean endOfBatch) throws Exception {
         EndpointProcessData log = event.getData();
-        if(!log.isInnerLog() || event.isCostOnly()) {
+        // 命中响应缓存的请求未到达渠道，不计入渠道指标
+        if(!log.isInnerLog() || event.isCostOnly() || log.isCacheHit()) {
             return;
         }
+        channelLoadStats.complete(log);
+        // 对冲落选被取消的请求不是渠道错误，只释放在途数
+        if(log.isCancelled()) {
+            return;
+        }
+        GatewayMetrics.recordPromptTokens(log);
         metricsManager.record(log);
     }
 
@@ -0,0 +1,23 @@
+package com.ke.bella.openapi.protocol.log;
+
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
+import com.lmax.disruptor.EventHandler;
+
+public class ResponseCacheLogHandler implements EventHandler<LogEvent> {
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheLogHandler(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public void onEvent(LogEvent event, long sequence, boolean endOfBatch) throws Exception {
+        EndpointProcessData log = event.getData();
+        if(event.isCostOnly() || log.getResponseCacheKey() == null) {
+            return;
+        }
+        responseCache.store(log);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ke.bella.openapi.protocol.log;
+
+import com.ke.bella.openapi.metrics.GatewayMetrics;
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * 记录日志处理器耗时；作为消费链首个处理器时同时记录事件在ring buffer中的等待时间
+ */
+public class TimedLogHandler implements EventHandler<LogEvent> {
+    private final EventHandler<LogEvent> delegate;
+    private final GatewayMetrics.Stage stage;
+    private final boolean recordQueueWait;
+
+    public TimedLogHandler(EventHandler<LogEvent> delegate, GatewayMetrics.Stage stage, boolean recordQueueWait) {
+        this.delegate = delegate;
+        this.stage = stage;
+        this.recordQueueWait = recordQueueWait;
+    }
+
+    @Override
+    public void onEvent(LogEvent event, long sequence, boolean endOfBatch) throws Exception {
+        long start = System.nanoTime();
+        if(recordQueueWait && event.getPublishNanos() > 0) {
+            GatewayMetrics.record(GatewayMetrics.Stage.log_queue_wait, event.getData(), start - event.getPublishNanos());
+        }
+        try {
+            delegate.onEvent(event, sequence, endOfBatch);
+        } finally {
+            GatewayMetrics.recordSince(stage, event.getData(), start);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.ke.bella.openapi.common.exception.BellaException;
 import com.ke.bella.openapi.protocol.Callbacks;
 import com.ke.bella.openapi.protocol.completion.AwsClientManager;
 import com.ke.bella.openapi.protocol.completion.AwsMessageProperty;
+import com.ke.bella.openapi.protocol.completion.AwsStreamSubscriber;
 import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
 import com.ke.bella.openapi.utils.JacksonUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +20,7 @@ import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelResponse;
 import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelWithResponseStreamRequest;
 import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelWithResponseStreamResponseHandler;
 import software.amazon.awssdk.services.bedrockruntime.model.PayloadPart;
+import software.amazon.awssdk.services.bedrockruntime.model.ResponseStream;
 
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -96,14 +98,16 @@ public class AwsMessageAdaptor implements MessageAdaptor<AwsMessageProperty> {
         EndpointProcessData processData = EndpointContext.getProcessData();
         processData.setNativeSend(endpoint().equals(processData.getEndpoint()));
         AwsSseCompletionCallBack awsCallBack = new AwsSseCompletionCallBack(callback, processData.isNativeSend(), model);
+        AwsStreamSubscriber<ResponseStream> subscriber = new AwsStreamSubscriber<>(property.getRegion(),
+                event -> event.accept(awsCallBack), awsCallBack, awsCallBack);
         InvokeModelWithResponseStreamResponseHandler handler = InvokeModelWithResponseStreamResponseHandler.builder()
-                .subscriber(awsCallBack)
-                .onComplete(awsCallBack)
-                .onError(awsCallBack)
+                .onEventStream(publisher -> publisher.subscribe(subscriber))
+                .onError(subscriber.errorHandler())
                 .build();
         try {
             client.invokeModelWithResponseStream(streamRequest, handler);
         } catch (BedrockRuntimeException bedrockException) {
+            subscriber.discard();
             throw new BellaException.ChannelException(bedrockException.statusCode(), bedrockException.getMessage());
         }
     }
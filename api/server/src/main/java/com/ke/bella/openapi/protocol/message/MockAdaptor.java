@@ -0,0 +1,35 @@
+package com.ke.bella.openapi.protocol.message;
+
+import com.ke.bella.openapi.protocol.completion.CompletionAdaptor;
+import com.ke.bella.openapi.protocol.completion.CompletionProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component("mockMessage")
+public class MockAdaptor implements MessageDelegatorAdaptor<CompletionProperty> {
+    @Autowired
+    private com.ke.bella.openapi.protocol.completion.MockAdaptor delegator;
+
+    @Autowired
+    private AnthropicAdaptor anthropicAdaptor;
+
+    @Override
+    public CompletionAdaptor<CompletionProperty> delegator() {
+        return delegator;
+    }
+
+    @Override
+    public AnthropicAdaptor anthropicAdaptor() {
+        return anthropicAdaptor;
+    }
+
+    @Override
+    public boolean isNativeSupport() {
+        return false;
+    }
+
+    @Override
+    public String getDescription() {
+        return "mock协议";
+    }
+}
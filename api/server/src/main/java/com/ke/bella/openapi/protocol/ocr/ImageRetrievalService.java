@@ -1,41 +1,48 @@
 package com.ke.bella.openapi.protocol.ocr;
 
-import java.io.IOException;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.ke.bella.openapi.server.OpenAiServiceFactory;
-import com.theokanning.openai.service.OpenAiService;
+import com.ke.bella.openapi.service.FileContentCache;
 
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.ResponseBody;
 
 /**
  * 图片获取服务
- * 用于从文件ID获取图片数据的通用服务
+ * 用于从文件ID获取图片数据的通用服务，内容经FileContentCache缓存，重复请求同一文件不再重新下载
  */
 @Slf4j
 @Service
 public class ImageRetrievalService {
 
     @Autowired
-    private OpenAiServiceFactory openAiServiceFactory;
+    private FileContentCache fileContentCache;
 
     /**
      * 从文件ID获取图片数据
      *
      * @param fileId 文件ID
      * 
-     * @return 图片字节数据
+     * @return 图片字节数据（可能是缓存中的共享数组，调用方不能修改）
      * 
      * @throws IllegalStateException 当获取图片失败时抛出
      */
     public byte[] getImageFromFileId(String fileId) {
-        OpenAiService openAiService = openAiServiceFactory.create(10, 60);
-        try (ResponseBody responseBody = openAiService.retrieveFileContent(fileId)) {
-            return responseBody.bytes();
-        } catch (IOException e) {
+        try {
+            return fileContentCache.get(fileId).toBytes();
+        } catch (RuntimeException e) {
+            log.error("Failed to retrieve image from fileId: {}", fileId, e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 从文件ID获取图片的base64，作为JSON请求体字段序列化时直接从缓存流式编码，不生成base64字符串
+     */
+    public Object getImageBase64FromFileId(String fileId) {
+        try {
+            return fileContentCache.get(fileId).asBase64();
+        } catch (RuntimeException e) {
             log.error("Failed to retrieve image from fileId: {}", fileId, e);
             throw new IllegalStateException(e);
         }
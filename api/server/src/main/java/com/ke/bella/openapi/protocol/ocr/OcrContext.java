@@ -3,6 +3,8 @@ package com.ke.bella.openapi.protocol.ocr;
 import com.ke.bella.openapi.EndpointContext;
 import com.ke.bella.openapi.EndpointProcessData;
 import com.ke.bella.openapi.protocol.ChannelRouter;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
 import com.ke.bella.openapi.protocol.limiter.LimiterManager;
 import com.ke.bella.openapi.service.EndpointDataService;
 import com.ke.bella.openapi.tables.pojos.ChannelDB;
@@ -18,17 +20,26 @@ public class OcrContext {
     private final String url;
     private final String protocol;
     private final String channelInfo;
+    /**
+     * 命中响应缓存时的响应，此时不路由渠道
+     */
+    private final OpenapiResponse cached;
 
     public static OcrContext initialize(
             OcrRequest request,
             EndpointDataService endpointDataService,
             ChannelRouter router,
-            LimiterManager limiterManager) {
+            LimiterManager limiterManager,
+            ResponseCache responseCache) {
 
         String endpoint = EndpointContext.getRequest().getRequestURI();
         String model = request.getModel();
 
         endpointDataService.setEndpointData(endpoint, model, request.summary());
+        OpenapiResponse cached = responseCache.lookup(endpoint, model, request);
+        if(cached != null) {
+            return new OcrContext(null, endpoint, null, null, null, cached);
+        }
         EndpointProcessData processData = EndpointContext.getProcessData();
 
         ChannelDB channel = router.route(endpoint, model, EndpointContext.getApikey(), processData.isMock());
@@ -43,6 +54,7 @@ public class OcrContext {
                 endpoint,
                 processData.getForwardUrl(),
                 processData.getProtocol(),
-                channel.getChannelInfo());
+                channel.getChannelInfo(),
+                null);
     }
 }
@@ -8,13 +8,8 @@ import com.ke.bella.openapi.protocol.ocr.OcrRequest;
 import com.ke.bella.openapi.protocol.ocr.provider.ke.KeOcrHelper;
 import com.ke.bella.openapi.protocol.ocr.provider.ke.KeRequest;
 import com.ke.bella.openapi.protocol.ocr.provider.ke.KeResponse;
-import com.ke.bella.openapi.utils.HttpUtils;
-import com.ke.bella.openapi.utils.JacksonUtils;
 
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.MediaType;
-import okhttp3.Request;
-import okhttp3.RequestBody;
 
 @Slf4j
 @Component("keBankcard")
@@ -39,12 +34,7 @@ public class KeAdaptor implements BankcardAdaptor<KeOcrProperty> {
     @Override
     public OcrBankcardResponse bankcard(OcrRequest request, String url, KeOcrProperty property) {
         KeRequest keRequest = keOcrHelper.requestConvert(request);
-        Request httpRequest = new Request.Builder()
-                .url(url)
-                .post(RequestBody.create(MediaType.parse("application/json"), JacksonUtils.toByte(keRequest)))
-                .build();
-        clearLargeData(request, keRequest);
-        KeResponse keResponse = HttpUtils.httpRequest(httpRequest, KeResponse.class);
+        KeResponse keResponse = keOcrHelper.execute(url, keRequest, () -> clearLargeData(request, keRequest));
         return responseConvert(keResponse, keRequest);
     }
 
@@ -13,13 +13,8 @@ import com.ke.bella.openapi.protocol.ocr.OcrRequest;
 import com.ke.bella.openapi.protocol.ocr.provider.ke.KeOcrHelper;
 import com.ke.bella.openapi.protocol.ocr.provider.ke.KeRequest;
 import com.ke.bella.openapi.protocol.ocr.provider.ke.KeResponse;
-import com.ke.bella.openapi.utils.HttpUtils;
-import com.ke.bella.openapi.utils.JacksonUtils;
 
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.MediaType;
-import okhttp3.Request;
-import okhttp3.RequestBody;
 
 /**
  * KE OCR通用文字识别适配器
@@ -44,12 +39,7 @@ public class KeAdaptor implements GeneralAdaptor<KeOcrProperty> {
     @Override
     public OcrGeneralResponse general(OcrRequest request, String url, KeOcrProperty property) {
         KeRequest keRequest = keOcrHelper.requestConvert(request);
-        Request httpRequest = new Request.Builder()
-                .url(url)
-                .post(RequestBody.create(MediaType.parse("application/json"), JacksonUtils.toByte(keRequest)))
-                .build();
-        clearLargeData(request, keRequest);
-        KeResponse keResponse = HttpUtils.httpRequest(httpRequest, KeResponse.class);
+        KeResponse keResponse = keOcrHelper.execute(url, keRequest, () -> clearLargeData(request, keRequest));
         return responseConvert(keResponse, keRequest);
     }
 
@@ -1,6 +1,5 @@
 package com.ke.bella.openapi.protocol.ocr.general;
 
-import java.util.Base64;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +10,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ke.bella.openapi.protocol.ocr.BaiduOcrProperty;
 import com.ke.bella.openapi.protocol.ocr.ImageRetrievalService;
 import com.ke.bella.openapi.protocol.ocr.OcrRequest;
+import com.ke.bella.openapi.utils.ByteBufferRequestBody;
 import com.ke.bella.openapi.utils.HttpUtils;
 
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.MediaType;
 import okhttp3.Request;
-import okhttp3.RequestBody;
 
 /**
  * 百度智能云千帆 PaddleOCR-VL 适配器
@@ -46,17 +45,25 @@ public class PaddleOCRAdaptor implements GeneralAdaptor<BaiduOcrProperty> {
         // 1. 构建 PaddleOCR 请求
         PaddleOCRRequest paddleRequest = buildPaddleRequest(request);
 
-        // 2. 构建 HTTP 请求（JSON 格式）
-        Request httpRequest = authorizationRequestBuilder(property.getAuth())
-                .url(url)
-                .post(buildJsonBody(paddleRequest))
-                .build();
-
-        // 3. 清理大数据
-        clearLargeData(request, paddleRequest);
-
-        // 4. 发送请求
-        PaddleOCRResponse paddleResponse = HttpUtils.httpRequest(httpRequest, PaddleOCRResponse.class);
+        // 2. 构建 HTTP 请求（JSON 格式，序列化到池化 DirectBuffer）
+        ByteBufferRequestBody requestBody = buildJsonBody(paddleRequest);
+        PaddleOCRResponse paddleResponse;
+        try {
+            Request httpRequest = authorizationRequestBuilder(property.getAuth())
+                    .url(url)
+                    .post(requestBody)
+                    .build();
+
+            // 3. 清理大数据
+            clearLargeData(request, paddleRequest);
+
+            // 4. 发送请求
+            paddleResponse = HttpUtils.httpRequest(httpRequest, PaddleOCRResponse.class);
+        } finally {
+            if(!requestBody.isReleased()) {
+                requestBody.release();
+            }
+        }
 
         // 5. 转换响应
         return responseConvert(paddleResponse);
@@ -71,9 +78,8 @@ public class PaddleOCRAdaptor implements GeneralAdaptor<BaiduOcrProperty> {
 
         // 处理文件输入
         if (StringUtils.hasText(request.getFileId())) {
-            // 方式1: file_id → 转为 Base64，覆盖到 extraBody 中的 file 字段
-            byte[] imageData = imageRetrievalService.getImageFromFileId(request.getFileId());
-            String base64Data = Base64.getEncoder().encodeToString(imageData);
+            // 方式1: file_id → 转为 Base64，覆盖到 extraBody 中的 file 字段（序列化时从文件缓存流式编码）
+            Object base64Data = imageRetrievalService.getImageBase64FromFileId(request.getFileId());
 
             // 创建新的 Map 避免修改原始 extraBody
             Map<String, Object> params = extraBody != null ? new java.util.HashMap<>(extraBody) : new java.util.HashMap<>();
@@ -98,10 +104,9 @@ public class PaddleOCRAdaptor implements GeneralAdaptor<BaiduOcrProperty> {
     /**
      * 构建 JSON 请求体
      */
-    private RequestBody buildJsonBody(PaddleOCRRequest request) {
+    private ByteBufferRequestBody buildJsonBody(PaddleOCRRequest request) {
         try {
-            byte[] jsonBytes = objectMapper.writeValueAsBytes(request);
-            return RequestBody.create(MediaType.parse("application/json; charset=utf-8"), jsonBytes);
+            return ByteBufferRequestBody.fromObject(MediaType.parse("application/json; charset=utf-8"), request, objectMapper);
         } catch (Exception e) {
             log.error("序列化 PaddleOCRRequest 为 JSON 失败", e);
             throw new RuntimeException("构建请求体失败", e);
@@ -1,7 +1,5 @@
 package com.ke.bella.openapi.protocol.ocr.provider.ke;
 
-import java.util.Base64;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -11,6 +9,11 @@ import com.ke.bella.openapi.protocol.OpenapiResponse;
 import com.ke.bella.openapi.protocol.ocr.ImageRetrievalService;
 import com.ke.bella.openapi.protocol.ocr.OcrRequest;
 import com.ke.bella.openapi.protocol.ocr.util.ImageConverter;
+import com.ke.bella.openapi.utils.ByteBufferRequestBody;
+import com.ke.bella.openapi.utils.HttpUtils;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
 
 @Service
 public class KeOcrHelper {
@@ -25,14 +28,12 @@ public class KeOcrHelper {
         if(StringUtils.hasText(request.getImageUrl())) {
             builder.imageUrl(request.getImageUrl());
         } else {
-            String base64Data;
             if(StringUtils.hasText(request.getImageBase64())) {
-                base64Data = ImageConverter.cleanBase64DataHeader(request.getImageBase64());
+                builder.imageBase64(ImageConverter.cleanBase64DataHeader(request.getImageBase64()));
             } else {
-                byte[] imageData = imageRetrievalService.getImageFromFileId(request.getFileId());
-                base64Data = Base64.getEncoder().encodeToString(imageData);
+                // 序列化请求体时从文件缓存流式编码base64
+                builder.imageBase64(imageRetrievalService.getImageBase64FromFileId(request.getFileId()));
             }
-            builder.imageBase64(base64Data);
         }
         String requestId = BellaContext.getRequestId();
         return KeRequest.builder()
@@ -41,6 +42,25 @@ public class KeOcrHelper {
                 .build();
     }
 
+    /**
+     * 发送请求：请求体序列化到池化DirectBuffer，序列化后执行clearLargeData，请求结束后释放缓冲区
+     */
+    public KeResponse execute(String url, KeRequest keRequest, Runnable clearLargeData) {
+        ByteBufferRequestBody requestBody = ByteBufferRequestBody.fromObject(MediaType.parse("application/json"), keRequest);
+        try {
+            Request httpRequest = new Request.Builder()
+                    .url(url)
+                    .post(requestBody)
+                    .build();
+            clearLargeData.run();
+            return HttpUtils.httpRequest(httpRequest, KeResponse.class);
+        } finally {
+            if(!requestBody.isReleased()) {
+                requestBody.release();
+            }
+        }
+    }
+
     public boolean hasError(KeResponse keResponse) {
         return keResponse.getCode() != SUCCESS_CODE;
     }
@@ -44,7 +44,10 @@ public class KeRequest implements IMemoryClearable, ITransfer {
     @AllArgsConstructor
     public static class RequestData {
         private String imageUrl;
-        private String imageBase64;
+        /**
+         * base64字符串，或file id内容的流式base64序列化句柄（见ImageRetrievalService#getImageBase64FromFileId）
+         */
+        private Object imageBase64;
         @Builder.Default
         private List<String> keyNameList = null;
     }
@@ -0,0 +1,67 @@
+package com.ke.bella.openapi.protocol.route;
+
+import com.ke.bella.openapi.configuration.AdaptiveLimitConfig;
+
+/**
+ * 单个渠道的自适应并发限额(AIMD)
+ * <p>
+ * 上游返回429/5xx，或延迟超过基线的latencyTolerance倍时，限额乘以backoffRatio；
+ * 请求成功且限额已被用到一半以上时，限额加1。基线为延迟的慢速EWMA，持续的延迟变化最终会被基线吸收；
+ * 首包时间（流式）与总耗时（非流式）量级不同，各自维护基线，只与同类样本比较
+ */
+public class AdaptiveConcurrencyLimit {
+    static final double BASELINE_ALPHA = 0.02;
+
+    private final AdaptiveLimitConfig config;
+    private volatile double limit;
+    private double firstPackageBaseline;
+    private double totalBaseline;
+
+    public AdaptiveConcurrencyLimit(AdaptiveLimitConfig config) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+    }
+
+    /**
+     * 总耗时样本
+     */
+    public void onSample(long latencyMillis, boolean dropped, int inflight) {
+        onSample(latencyMillis, false, dropped, inflight);
+    }
+
+    /**
+     * @param latencyMillis  小于等于0表示没有延迟样本
+     * @param firstPackage   样本为首包时间（流式请求），否则为总耗时
+     * @param dropped        上游限流或失败
+     * @param inflight       本次请求完成前的在途请求数
+     */
+    public synchronized void onSample(long latencyMillis, boolean firstPackage, boolean dropped, int inflight) {
+        boolean inflated = false;
+        if(!dropped && latencyMillis > 0) {
+            double baseline = firstPackage ? firstPackageBaseline : totalBaseline;
+            inflated = baseline > 0 && latencyMillis > baseline * config.getLatencyTolerance();
+            baseline = baseline <= 0 ? latencyMillis : baseline + BASELINE_ALPHA * (latencyMillis - baseline);
+            if(firstPackage) {
+                firstPackageBaseline = baseline;
+            } else {
+                totalBaseline = baseline;
+            }
+        }
+        if(dropped || inflated) {
+            limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+        } else if(inflight * 2 >= limit) {
+            limit = Math.min(config.getMaxLimit(), limit + 1);
+        }
+    }
+
+    /**
+     * 与其他实例的限额取平均，使各实例学到的限额相互靠拢
+     */
+    public synchronized void blend(double clusterLimit) {
+        limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), (limit + clusterLimit) / 2));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+}
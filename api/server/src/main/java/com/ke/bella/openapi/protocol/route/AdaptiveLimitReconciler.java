@@ -0,0 +1,77 @@
+package com.ke.bella.openapi.protocol.route;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ke.bella.openapi.configuration.AdaptiveLimitConfig;
+import com.ke.bella.openapi.server.BellaServerContextHolder;
+import com.ke.bella.openapi.utils.DateTimeUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 自适应限额的跨实例对齐：定期把本实例近期活跃渠道的限额写入redis，并与其他实例的限额取平均。
+ * 限额的调整只在本地进行，redis不在请求路径上
+ */
+@Slf4j
+@Component
+public class AdaptiveLimitReconciler {
+    private static final String KEY_FORMAT = "bella-openapi-channel-adaptive-limit:%s";
+
+    @Autowired
+    private ChannelLoadStats channelLoadStats;
+    @Autowired
+    private AdaptiveLimitConfig config;
+    @Autowired
+    private RedissonClient redisson;
+    @Value("${bella.openapi.route.adaptive-limit.reconcile-millis:10000}")
+    private long reconcileMillis;
+
+    @Scheduled(fixedDelayString = "${bella.openapi.route.adaptive-limit.reconcile-millis:10000}")
+    public void reconcile() {
+        if(!config.isEnabled()) {
+            return;
+        }
+        String instance = BellaServerContextHolder.getIp() + ":" + BellaServerContextHolder.getPort();
+        long now = DateTimeUtils.getCurrentMills();
+        // 其他实例超过3个周期未上报的限额视为失效
+        long expireMillis = reconcileMillis * 3;
+        channelLoadStats.loads().forEach((channelCode, load) -> {
+            if(now - load.getLastCompleteMillis() > reconcileMillis * 2) {
+                return;
+            }
+            try {
+                RMap<String, String> limits = redisson.getMap(String.format(KEY_FORMAT, channelCode));
+                AdaptiveConcurrencyLimit limit = load.getLimit();
+                limits.fastPut(instance, limit.getLimit() + ":" + now);
+                limits.expire(expireMillis, TimeUnit.MILLISECONDS);
+                double sum = 0;
+                int count = 0;
+                for (Map.Entry<String, String> entry : limits.readAllMap().entrySet()) {
+                    if(instance.equals(entry.getKey())) {
+                        continue;
+                    }
+                    String[] value = entry.getValue().split(":");
+                    if(value.length != 2 || now - Long.parseLong(value[1]) > expireMillis) {
+                        limits.fastRemove(entry.getKey());
+                        continue;
+                    }
+                    sum += Double.parseDouble(value[0]);
+                    count++;
+                }
+                if(count > 0) {
+                    limit.blend(sum / count);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to reconcile adaptive limit: channel={}, error={}", channelCode, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,268 @@
+package com.ke.bella.openapi.protocol.route;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.configuration.AdaptiveLimitConfig;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+import com.ke.bella.openapi.utils.DateTimeUtils;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import lombok.Getter;
+
+/**
+ * 本实例内各渠道的负载统计：EWMA延迟与在途请求数，只在内存中维护，不访问redis
+ * <p>
+ * 路由选中渠道时在途数+1并在processData上记下租约，请求日志经MetricsLogHandler处理时按租约在途数-1并记录延迟样本，
+ * 没有租约的日志（sdk上报、只查询路由的请求）只记录延迟样本；
+ * 延迟优先取首包时间(ttft)，没有首包时间时取总耗时。5xx与429按惩罚延迟计入，其他4xx和对冲落选被取消的请求只释放在途数。
+ * 同时为每个渠道维护自适应并发限额，在途数达到限额的渠道视为饱和
+ */
+@Component
+public class ChannelLoadStats {
+    static final double ALPHA = 0.3;
+    static final long FAILURE_PENALTY_MILLIS = 1000;
+    // 超过该时长没有任何请求完成时，认为在途计数已失真（日志丢失等），重新计数
+    private static final long STALE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<String, Load> loads = new ConcurrentHashMap<>();
+    private final AdaptiveLimitConfig config;
+    private final Object released = new Object();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public ChannelLoadStats() {
+        this(new AdaptiveLimitConfig());
+    }
+
+    @Autowired
+    public ChannelLoadStats(AdaptiveLimitConfig config) {
+        this.config = config;
+    }
+
+    public Load load(String channelCode) {
+        return loads.computeIfAbsent(channelCode, k -> new Load(config));
+    }
+
+    Map<String, Load> loads() {
+        return loads;
+    }
+
+    /**
+     * 在途数已达到自适应限额
+     */
+    public boolean isSaturated(String channelCode) {
+        if(!config.isEnabled()) {
+            return false;
+        }
+        Load load = load(channelCode);
+        return load.getInflight() >= load.limit.getLimit();
+    }
+
+    /**
+     * 未饱和的候选渠道；全部饱和时等待在途请求释放，最多等待queueMillis，仍全部饱和则返回空列表
+     *
+     * @param exempt 不受限额约束的渠道
+     */
+    public List<ChannelDB> available(List<ChannelDB> candidates, Predicate<ChannelDB> exempt) {
+        List<ChannelDB> available = filterSaturated(candidates, exempt);
+        long deadline = DateTimeUtils.getCurrentMills() + config.getQueueMillis();
+        long remaining;
+        while (available.isEmpty() && (remaining = deadline - DateTimeUtils.getCurrentMills()) > 0) {
+            waiters.incrementAndGet();
+            try {
+                synchronized (released) {
+                    released.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                waiters.decrementAndGet();
+            }
+            available = filterSaturated(candidates, exempt);
+        }
+        return available;
+    }
+
+    private List<ChannelDB> filterSaturated(List<ChannelDB> candidates, Predicate<ChannelDB> exempt) {
+        if(!config.isEnabled()) {
+            return candidates;
+        }
+        return candidates.stream()
+                .filter(channel -> exempt.test(channel) || !isSaturated(channel.getChannelCode()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 占用在途数并把租约记在请求的processData上；同一请求重新路由（多模型依次重试）时先释放上一次的租约
+     */
+    public void acquire(EndpointProcessData processData, String channelCode) {
+        String previous = processData.getInflightChannelCode();
+        if(previous != null) {
+            release(previous);
+        }
+        acquire(channelCode);
+        processData.setInflightChannelCode(channelCode);
+    }
+
+    public void acquire(String channelCode) {
+        Load load = load(channelCode);
+        if(load.inflight.get() > 0 && DateTimeUtils.getCurrentMills() - load.lastCompleteMillis > STALE_MILLIS) {
+            load.inflight.set(0);
+            load.lastCompleteMillis = DateTimeUtils.getCurrentMills();
+        }
+        load.inflight.incrementAndGet();
+    }
+
+    public void complete(EndpointProcessData log) {
+        String channelCode = log.getChannelCode();
+        if(StringUtils.isEmpty(channelCode) || log.isMock()) {
+            return;
+        }
+        boolean leased = channelCode.equals(log.getInflightChannelCode());
+        if(log.isCancelled()) {
+            if(leased) {
+                release(channelCode);
+            }
+            return;
+        }
+        OpenapiResponse response = log.getResponse();
+        int httpCode = (response == null || response.getError() == null) ? 200 : response.getError().getHttpCode();
+        if(httpCode >= 400 && httpCode < 500 && httpCode != 429) {
+            if(leased) {
+                release(channelCode);
+            }
+            return;
+        }
+        record(channelCode, latencyMillis(log), isFirstPackage(log), httpCode >= 500 || httpCode == 429, leased);
+    }
+
+    /**
+     * 请求完成：释放在途数并记录延迟样本
+     *
+     * @param latencyMillis 小于等于0表示没有有效样本
+     */
+    public void complete(String channelCode, long latencyMillis, boolean failed) {
+        record(channelCode, latencyMillis, false, failed, true);
+    }
+
+    private void record(String channelCode, long latencyMillis, boolean firstPackage, boolean failed, boolean release) {
+        Load load = load(channelCode);
+        int inflight = load.getInflight();
+        if(release) {
+            release(channelCode);
+        }
+        load.limit.onSample(latencyMillis, firstPackage, failed, inflight);
+        if(failed) {
+            latencyMillis = Math.max(latencyMillis, Math.max(FAILURE_PENALTY_MILLIS, (long) (load.latency * 2)));
+        }
+        if(latencyMillis > 0) {
+            load.sample(latencyMillis);
+        }
+    }
+
+    private Load release(String channelCode) {
+        Load load = load(channelCode);
+        load.lastCompleteMillis = DateTimeUtils.getCurrentMills();
+        load.inflight.updateAndGet(v -> v > 0 ? v - 1 : 0);
+        if(waiters.get() > 0) {
+            synchronized (released) {
+                released.notifyAll();
+            }
+        }
+        return load;
+    }
+
+    /**
+     * 渠道的选择配置，channelInfo未变化时复用上次的解析结果
+     */
+    public RouteProperty property(ChannelDB channel) {
+        Load load = load(channel.getChannelCode());
+        String channelInfo = channel.getChannelInfo();
+        RouteProperty property = load.property;
+        if(property != null && StringUtils.equals(channelInfo, load.channelInfo)) {
+            return property;
+        }
+        property = StringUtils.isBlank(channelInfo) ? null : JacksonUtils.deserialize(channelInfo, RouteProperty.class);
+        if(property == null) {
+            property = RouteProperty.DEFAULT;
+        }
+        load.channelInfo = channelInfo;
+        load.property = property;
+        return property;
+    }
+
+    private static long latencyMillis(EndpointProcessData log) {
+        long ttft = metric(log.getMetrics(), "ttft");
+        if(ttft > 0) {
+            return ttft;
+        }
+        long ttlt = metric(log.getMetrics(), "ttlt");
+        if(ttlt > 0) {
+            return ttlt;
+        }
+        if(log.getRequestMillis() <= 0) {
+            return 0;
+        }
+        if(log.getFirstPackageTime() > log.getRequestMillis()) {
+            return log.getFirstPackageTime() - log.getRequestMillis();
+        }
+        return DateTimeUtils.getCurrentMills() - log.getRequestMillis();
+    }
+
+    /**
+     * latencyMillis取到的是否为首包时间，自适应限额按首包时间与总耗时分别维护基线
+     */
+    private static boolean isFirstPackage(EndpointProcessData log) {
+        if(metric(log.getMetrics(), "ttft") > 0) {
+            return true;
+        }
+        if(metric(log.getMetrics(), "ttlt") > 0) {
+            return false;
+        }
+        return log.getRequestMillis() > 0 && log.getFirstPackageTime() > log.getRequestMillis();
+    }
+
+    private static long metric(Map<String, Object> metrics, String key) {
+        Object value = metrics == null ? null : metrics.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public static class Load {
+        private final AtomicInteger inflight = new AtomicInteger();
+        @Getter
+        private final AdaptiveConcurrencyLimit limit;
+        /**
+         * 毫秒，0表示尚无样本
+         */
+        @Getter
+        private volatile double latency;
+        @Getter
+        private volatile long lastCompleteMillis = DateTimeUtils.getCurrentMills();
+        private volatile String channelInfo;
+        private volatile RouteProperty property;
+
+        private Load(AdaptiveLimitConfig config) {
+            this.limit = new AdaptiveConcurrencyLimit(config);
+        }
+
+        public int getInflight() {
+            return inflight.get();
+        }
+
+        private synchronized void sample(long latencyMillis) {
+            latency = latency <= 0 ? latencyMillis : latency + ALPHA * (latencyMillis - latency);
+        }
+    }
+}
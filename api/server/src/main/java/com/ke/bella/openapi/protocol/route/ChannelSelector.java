@@ -0,0 +1,26 @@
+package com.ke.bella.openapi.protocol.route;
+
+import java.util.List;
+
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * 渠道选择策略：在优先级筛选后的同级渠道中选出一个
+ */
+public interface ChannelSelector {
+
+    /**
+     * @param candidates 非空候选渠道
+     */
+    ChannelDB select(List<ChannelDB> candidates);
+
+    /**
+     * 按名称创建策略：random 随机；p2c 随机取两个，选负载评分较低者。未知名称按p2c处理
+     */
+    static ChannelSelector of(String policy, ChannelLoadStats stats) {
+        if("random".equalsIgnoreCase(policy)) {
+            return new RandomChannelSelector();
+        }
+        return new P2CChannelSelector(stats);
+    }
+}
@@ -0,0 +1,63 @@
+package com.ke.bella.openapi.protocol.route;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * power-of-two-choices：随机取两个不同的候选渠道，选负载评分较低者
+ * <p>
+ * 评分 = EWMA延迟 × (在途请求数 + 1) / routeWeight，在途请求达到routeMaxConcurrency的渠道评分为无穷大。
+ * 尚无延迟样本的渠道沿用另一个候选的延迟，只按在途请求数比较，避免新渠道一上线就被集中打满
+ */
+public class P2CChannelSelector implements ChannelSelector {
+
+    private final ChannelLoadStats stats;
+
+    public P2CChannelSelector(ChannelLoadStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public ChannelDB select(List<ChannelDB> candidates) {
+        int size = candidates.size();
+        if(size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if(j >= i) {
+            j++;
+        }
+        ChannelDB a = candidates.get(i);
+        ChannelDB b = candidates.get(j);
+        ChannelLoadStats.Load loadA = stats.load(a.getChannelCode());
+        ChannelLoadStats.Load loadB = stats.load(b.getChannelCode());
+        double latencyA = loadA.getLatency();
+        double latencyB = loadB.getLatency();
+        if(latencyA <= 0) {
+            latencyA = latencyB > 0 ? latencyB : 1;
+        }
+        if(latencyB <= 0) {
+            latencyB = latencyA;
+        }
+        double scoreA = score(a, loadA, latencyA);
+        double scoreB = score(b, loadB, latencyB);
+        if(scoreA == scoreB) {
+            return random.nextBoolean() ? a : b;
+        }
+        return scoreA < scoreB ? a : b;
+    }
+
+    private double score(ChannelDB channel, ChannelLoadStats.Load load, double latency) {
+        RouteProperty property = stats.property(channel);
+        int inflight = load.getInflight();
+        if(property.getRouteMaxConcurrency() != null && property.getRouteMaxConcurrency() > 0
+                && inflight >= property.getRouteMaxConcurrency()) {
+            return Double.MAX_VALUE;
+        }
+        return latency * (inflight + 1) / property.weight();
+    }
+}
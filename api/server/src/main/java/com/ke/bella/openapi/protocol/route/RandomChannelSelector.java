@@ -0,0 +1,20 @@
+package com.ke.bella.openapi.protocol.route;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * 均匀随机选择
+ */
+public class RandomChannelSelector implements ChannelSelector {
+
+    @Override
+    public ChannelDB select(List<ChannelDB> candidates) {
+        if(candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
+}
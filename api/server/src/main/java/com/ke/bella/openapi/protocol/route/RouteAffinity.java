@@ -0,0 +1,125 @@
+package com.ke.bella.openapi.protocol.route;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.EndpointContext;
+import com.ke.bella.openapi.protocol.completion.CompletionRequest;
+import com.ke.bella.openapi.protocol.completion.Message;
+import com.ke.bella.openapi.protocol.message.MessageRequest;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 提示词缓存亲和路由：相同前缀的请求固定到同一渠道，提高上游prompt cache命中率
+ * <p>
+ * 亲和键优先取请求头X-BELLA-AFFINITY-KEY（会话或用户标识），否则取tools、system消息与前prefixMessages条非system消息的哈希。
+ * 渠道按加权rendezvous哈希选择：候选渠道不可用或达到并发限额被过滤掉时，只有落在该渠道上的键会迁移
+ */
+@Slf4j
+@Component
+public class RouteAffinity {
+    public static final String AFFINITY_KEY_HEADER = "X-BELLA-AFFINITY-KEY";
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    @Value("${bella.openapi.route.affinity.enabled:false}")
+    private boolean enabled;
+    @Value("${bella.openapi.route.affinity.prefix-messages:2}")
+    private int prefixMessages = 2;
+
+    public void bind(CompletionRequest request) {
+        if(!enabled) {
+            return;
+        }
+        List<Object> prefix = new ArrayList<>();
+        if(CollectionUtils.isNotEmpty(request.getTools())) {
+            prefix.add(request.getTools());
+        }
+        if(request.getMessages() != null) {
+            int count = 0;
+            for (Message message : request.getMessages()) {
+                boolean system = "system".equals(message.getRole()) || "developer".equals(message.getRole());
+                if(!system && count++ >= prefixMessages) {
+                    break;
+                }
+                prefix.add(message);
+            }
+        }
+        EndpointContext.setRouteAffinityKey(key(prefix));
+    }
+
+    public void bind(MessageRequest request) {
+        if(!enabled) {
+            return;
+        }
+        List<Object> prefix = new ArrayList<>();
+        if(CollectionUtils.isNotEmpty(request.getTools())) {
+            prefix.add(request.getTools());
+        }
+        if(request.getSystem() != null) {
+            prefix.add(request.getSystem());
+        }
+        if(request.getMessages() != null) {
+            prefix.addAll(request.getMessages().subList(0, Math.min(prefixMessages, request.getMessages().size())));
+        }
+        EndpointContext.setRouteAffinityKey(key(prefix));
+    }
+
+    private static Long key(List<Object> prefix) {
+        String explicit = BellaContext.getHeader(AFFINITY_KEY_HEADER);
+        if(StringUtils.isNotBlank(explicit)) {
+            return HASH.hashString(explicit, StandardCharsets.UTF_8).asLong();
+        }
+        return prefixKey(prefix);
+    }
+
+    /**
+     * 前缀序列化后直接写入哈希，不生成中间字符串；前缀为空时返回null
+     */
+    static Long prefixKey(List<Object> prefix) {
+        if(prefix.isEmpty()) {
+            return null;
+        }
+        Hasher hasher = HASH.newHasher();
+        try {
+            JacksonUtils.MAPPER.writeValue(Funnels.asOutputStream(hasher), prefix);
+        } catch (IOException e) {
+            log.warn("Failed to hash affinity prefix: {}", e.getMessage());
+            return null;
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * 加权rendezvous哈希：每个渠道的得分为 -routeWeight / ln(u)，u为亲和键与渠道编码哈希映射到(0,1)的值，取得分最高者
+     */
+    public static ChannelDB select(List<ChannelDB> candidates, long key, ChannelLoadStats stats) {
+        ChannelDB best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (ChannelDB channel : candidates) {
+            long hash = HASH.newHasher().putLong(key).putString(channel.getChannelCode(), StandardCharsets.UTF_8).hash().asLong();
+            // 取高53位映射到(0,1)开区间
+            double u = ((hash >>> 11) + 0.5) / (1L << 53);
+            double score = -stats.property(channel).weight() / Math.log(u);
+            if(score > bestScore) {
+                bestScore = score;
+                best = channel;
+            }
+        }
+        return best;
+    }
+}
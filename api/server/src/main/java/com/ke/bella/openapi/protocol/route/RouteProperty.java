@@ -0,0 +1,24 @@
+package com.ke.bella.openapi.protocol.route;
+
+import lombok.Data;
+
+/**
+ * 渠道属性(channelInfo)中与负载选择相关的配置，各协议通用
+ */
+@Data
+public class RouteProperty {
+    static final RouteProperty DEFAULT = new RouteProperty();
+
+    /**
+     * 相对容量权重，默认1；权重越大，同等负载下越优先
+     */
+    Double routeWeight;
+    /**
+     * 本实例对该渠道的在途请求上限，达到后只在别无选择时才会选中；不配置则不限
+     */
+    Integer routeMaxConcurrency;
+
+    double weight() {
+        return routeWeight == null || routeWeight <= 0 ? 1 : routeWeight;
+    }
+}
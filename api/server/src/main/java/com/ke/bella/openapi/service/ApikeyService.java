@@ -54,6 +54,7 @@ import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -112,6 +113,7 @@ public class ApikeyService {
     @Autowired
     private AkPermissionChecker akPermissionChecker;
     private static final String apikeyCacheKey = "apikey:sha:";
+    private static final String apikeyCodeCacheKey = "apikey:code:";
 
     @PostConstruct
     public void postConstruct() {
@@ -125,6 +127,18 @@ public class ApikeyService {
                 .penetrationProtectTimeout(Duration.ofSeconds(10))
                 .build();
         cacheManager.getOrCreateCache(quickConfig);
+        // 按code查询（子AK鉴权时查父AK、X-BELLA-USER-AK代理）走两级缓存，变更时由ChangeApikeyListener失效
+        QuickConfig codeQuickConfig = QuickConfig.newBuilder(apikeyCodeCacheKey)
+                .cacheNullValue(true)
+                .cacheType(CacheType.BOTH)
+                .syncLocal(true)
+                .expire(Duration.ofMinutes(5))
+                .localExpire(Duration.ofSeconds(30))
+                .localLimit(1000)
+                .penetrationProtect(true)
+                .penetrationProtectTimeout(Duration.ofSeconds(10))
+                .build();
+        cacheManager.getOrCreateCache(codeQuickConfig);
     }
 
     @Transactional
@@ -262,6 +276,7 @@ public class ApikeyService {
             Assert.isTrue(op.getSafetyLevel() <= apikey.getSafetyLevel(), "安全等级超出ak的最高等级");
         }
         apikeyRepo.update(op, op.getCode());
+        publishChange(op.getCode());
         if(CollectionUtils.isNotEmpty(op.getPaths())) {
             boolean match = op.getPaths().stream()
                     .allMatch(url -> apikey.getRolePath().getIncluded().stream().anyMatch(pattern -> MatchUtils.matchUrl(pattern, url))
@@ -276,6 +291,7 @@ public class ApikeyService {
     public String reset(ApikeyOps.CodeOp op) {
         apikeyRepo.checkExist(op.getCode(), true);
         checkPermission(op.getCode(), AkOperation.RESET);
+        String oldSha = apikeyRepo.queryByUniqueKey(op.getCode()).getAkSha();
         String ak = UUID.randomUUID().toString();
         String sha = EncryptUtils.sha256(ak);
         String display = EncryptUtils.desensitize(ak);
@@ -283,17 +299,20 @@ public class ApikeyService {
         db.setAkSha(sha);
         db.setAkDisplay(display);
         apikeyRepo.update(db, op.getCode());
+        eventPublisher.publishEvent(new ApiKeyChangeEvent(Collections.singletonList(op.getCode()), Collections.singletonList(oldSha)));
         return ak;
     }
 
     @Transactional
     public void rename(ApikeyOps.NameOp op) {
         apikeyRepo.update(op, op.getCode());
+        publishChange(op.getCode());
     }
 
     @Transactional
     public void bindService(ApikeyOps.ServiceOp op) {
         apikeyRepo.update(op, op.getCode());
+        publishChange(op.getCode());
     }
 
     @Transactional
@@ -311,6 +330,7 @@ public class ApikeyService {
             op.setRoleCode(roleDB.getRoleCode());
         }
         apikeyRepo.update(op, op.getCode());
+        publishChange(op.getCode());
     }
 
     @Transactional
@@ -322,6 +342,7 @@ public class ApikeyService {
         db.setCertifyCode(op.getCertifyCode());
         db.setSafetyLevel(level);
         apikeyRepo.update(db, op.getCode());
+        publishChange(op.getCode());
     }
 
     @Transactional
@@ -329,6 +350,7 @@ public class ApikeyService {
         apikeyRepo.checkExist(op.getCode(), true);
         checkPermission(op.getCode(), AkOperation.UPDATE_QUOTA);
         apikeyRepo.update(op, op.getCode());
+        publishChange(op.getCode());
     }
 
     @Transactional
@@ -336,6 +358,7 @@ public class ApikeyService {
         apikeyRepo.checkExist(op.getCode(), true);
         checkPermission(op.getCode(), AkOperation.UPDATE_QPS);
         apikeyRepo.update(op, op.getCode());
+        publishChange(op.getCode());
     }
 
     @Transactional
@@ -344,6 +367,7 @@ public class ApikeyService {
         checkPermission(op.getCode(), AkOperation.CHANGE_STATUS);
         String status = active ? ACTIVE : INACTIVE;
         apikeyRepo.updateStatus(op.getCode(), status);
+        publishChange(op.getCode());
     }
 
     public ApikeyInfo verifyAuth(String auth) {
@@ -391,6 +415,9 @@ public class ApikeyService {
     }
 
     public ApikeyInfo queryByCode(String code, boolean onlyActive) {
+        if(useCache && onlyActive) {
+            return applicationContext.getBean(ApikeyService.class).queryByCodeWithCache(code);
+        }
         ApikeyInfo apikeyInfo = apikeyRepo.queryByCode(code);
         if(apikeyInfo == null || (onlyActive && apikeyInfo.getStatus().equals(INACTIVE))) {
             return null;
@@ -543,6 +570,11 @@ public class ApikeyService {
         ApikeyService self = applicationContext.getBean(ApikeyService.class);
         self.clearApikeyCache(existing.getAkSha());
         children.forEach(child -> self.clearApikeyCache(child.getAkSha()));
+        affectedCodes.forEach(self::clearApikeyCodeCache);
+    }
+
+    private void publishChange(String code) {
+        eventPublisher.publishEvent(new ApiKeyChangeEvent(Collections.singletonList(code)));
     }
 
     private void checkPermission(String code, AkOperation operation) {
@@ -666,6 +698,15 @@ public class ApikeyService {
         return apikeyInfo;
     }
 
+    @Cached(name = apikeyCodeCacheKey, key = "#code")
+    public ApikeyInfo queryByCodeWithCache(String code) {
+        ApikeyInfo apikeyInfo = apikeyRepo.queryByCode(code);
+        if(apikeyInfo == null || (apikeyInfo.getStatus().equals(INACTIVE))) {
+            return null;
+        }
+        return apikeyInfo;
+    }
+
     /**
      * 转移API Key所有者
      * 注意：缓存清理操作在事务外执行，避免影响事务
@@ -812,6 +853,14 @@ public class ApikeyService {
         // 方法体为空，注解会处理缓存更新
     }
 
+    /**
+     * 清除按code查询的API Key缓存
+     */
+    @CacheInvalidate(name = apikeyCodeCacheKey, key = "#code")
+    public void clearApikeyCodeCache(String code) {
+        // 方法体为空，注解会处理缓存更新
+    }
+
     /**
      * 查找并验证目标用户
      *
@@ -25,6 +25,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -61,7 +62,11 @@ public class ChannelService {
     private ModelService modelService;
     @Autowired
     private CacheManager cacheManager;
+    @Autowired
+    private RedissonClient redisson;
     private static final String channelCacheKey = "channels:active:";
+    private static final String channelIndexKey = "channel:index:";
+    private static final String routeVersionKey = "bella-openapi-route-version";
 
     @PostConstruct
     public void postConstruct() {
@@ -74,6 +79,18 @@ public class ChannelService {
                 .penetrationProtectTimeout(Duration.ofSeconds(10))
                 .build();
         cacheManager.getOrCreateCache(quickConfig);
+        // 按channelCode的渠道索引，供队列回包等热路径反查渠道；渠道变更时失效，并通过广播失效其他实例的本地缓存
+        QuickConfig indexConfig = QuickConfig.newBuilder(channelIndexKey)
+                .cacheNullValue(true)
+                .cacheType(CacheType.BOTH)
+                .syncLocal(true)
+                .expire(Duration.ofSeconds(60))
+                .localExpire(Duration.ofSeconds(60))
+                .localLimit(2000)
+                .penetrationProtect(true)
+                .penetrationProtectTimeout(Duration.ofSeconds(10))
+                .build();
+        cacheManager.getOrCreateCache(indexConfig);
     }
 
     @Transactional
@@ -102,6 +119,7 @@ public class ChannelService {
 
         // todo: 根据协议检查channelInfo
         ChannelDB channelDB = channelRepo.insert(op);
+        cacheManager.getCache(channelIndexKey).remove(channelDB.getChannelCode());
         updateCache(channelDB.getEntityType(), channelDB.getEntityCode());
         return channelDB;
     }
@@ -149,6 +167,14 @@ public class ChannelService {
         return channelRepo.queryByUniqueKey(channelCode);
     }
 
+    /**
+     * 从渠道索引查询，未命中时回源DB，不存在的渠道同样缓存空值
+     */
+    public ChannelDB getFromIndex(String channelCode) {
+        Cache<String, ChannelDB> index = cacheManager.getCache(channelIndexKey);
+        return index.computeIfAbsent(channelCode, channelRepo::queryByUniqueKey, true);
+    }
+
     public ChannelDB getActiveByChannelCode(String channelCode) {
         ChannelDB db = getOne(channelCode);
         return db == null || db.getStatus().equals(INACTIVE) ? null : db;
@@ -194,6 +220,7 @@ public class ChannelService {
     }
 
     private void updateCache(String channelCode) {
+        cacheManager.getCache(channelIndexKey).remove(channelCode);
         ChannelDB db = channelRepo.queryByUniqueKey(channelCode);
         updateCache(db.getEntityType(), db.getEntityCode());
     }
@@ -206,6 +233,14 @@ public class ChannelService {
                 .build());
         Cache<String, List<ChannelDB>> cache = cacheManager.getCache(channelCacheKey);
         cache.put(entityType + ":" + entityCode, channels);
+        redisson.getAtomicLong(routeVersionKey).incrementAndGet();
+    }
+
+    /**
+     * 路由版本号，渠道变更或渠道被标记为不可用（metrics脚本）时递增，sdk侧路由缓存轮询该值，变化时失效本地缓存
+     */
+    public long getRouteVersion() {
+        return redisson.getAtomicLong(routeVersionKey).get();
     }
 
     public List<ChannelDB> listByCondition(Condition.ChannelCondition condition) {
@@ -0,0 +1,376 @@
+package com.ke.bella.openapi.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.server.OpenAiServiceFactory;
+import com.ke.bella.openapi.utils.EncryptUtils;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ResponseBody;
+
+/**
+ * 文件服务内容的本地缓存：file id映射到内容的sha256，内容按hash存放（相同内容只存一份）。
+ * 小文件放内存层（按总字节数限制，淘汰时落盘），大文件和内存淘汰的内容放磁盘层（按总字节数淘汰并删除文件）。
+ * <p>
+ * 同一file id并发请求只下载一次；下载时边读边算hash，超过内存单项上限后直接写盘，不在堆上缓存整份内容。
+ * <p>
+ * file id的索引按调用方apikey隔离，每个apikey首次访问都经文件服务鉴权；索引在index-ttl-seconds后过期，
+ * 文件被删除或权限变更后最多在此期间内仍返回缓存内容。缓存文件放在进程独占的子目录，不影响同机其他实例。
+ */
+@Slf4j
+@Component
+public class FileContentCache {
+
+    @Autowired
+    private OpenAiServiceFactory openAiServiceFactory;
+
+    @Value("${bella.openapi.file-cache.memory-bytes:67108864}")
+    private long memoryBytes;
+    @Value("${bella.openapi.file-cache.memory-item-bytes:4194304}")
+    private int memoryItemBytes;
+    @Value("${bella.openapi.file-cache.disk-bytes:1073741824}")
+    private long diskBytes;
+    @Value("${bella.openapi.file-cache.max-files:10000}")
+    private long maxFiles;
+    @Value("${bella.openapi.file-cache.index-ttl-seconds:300}")
+    private long indexTtlSeconds;
+    @Value("${bella.openapi.file-cache.dir:}")
+    private String dir;
+
+    private File directory;
+    private Cache<String, String> index;
+    private final ConcurrentMap<String, CompletableFuture<String>> loading = new ConcurrentHashMap<>();
+    private Cache<String, byte[]> memory;
+    private Cache<String, File> disk;
+
+    @PostConstruct
+    public void init() throws IOException {
+        File root = dir == null || dir.isEmpty() ? new File(System.getProperty("java.io.tmpdir"), "bella-file-cache") : new File(dir);
+        Files.createDirectories(root.toPath());
+        // 索引不持久化，每个进程使用独立的子目录，退出时删除，不清理同一目录下其他实例的文件
+        directory = Files.createTempDirectory(root.toPath(), "cache-").toFile();
+        index = Caffeine.newBuilder()
+                .maximumSize(maxFiles)
+                .expireAfterWrite(indexTtlSeconds, TimeUnit.SECONDS)
+                .build();
+        disk = Caffeine.newBuilder()
+                .maximumWeight(diskBytes)
+                .weigher((String hash, File file) -> (int) Math.min(Integer.MAX_VALUE, file.length()))
+                .executor(Runnable::run)
+                .removalListener((String hash, File file, RemovalCause cause) -> {
+                    if(file != null && cause != RemovalCause.REPLACED && !file.delete()) {
+                        log.warn("删除缓存文件失败: {}", file);
+                    }
+                })
+                .build();
+        memory = Caffeine.newBuilder()
+                .maximumWeight(memoryBytes)
+                .weigher((String hash, byte[] bytes) -> bytes.length)
+                .executor(Runnable::run)
+                .removalListener((String hash, byte[] bytes, RemovalCause cause) -> {
+                    if(bytes != null && cause.wasEvicted()) {
+                        spill(hash, bytes);
+                    }
+                })
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        memory.invalidateAll();
+        disk.invalidateAll();
+        File[] files = directory.listFiles();
+        if(files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * 获取文件内容，未缓存时用调用线程的apikey从文件服务下载
+     */
+    public Content get(String fileId) {
+        String key = StringUtils.defaultString(BellaContext.getAkCode()) + ":" + fileId;
+        Content content = lookup(resolve(key, fileId));
+        if(content == null) {
+            // 内容已从两层中淘汰，重新下载
+            index.invalidate(key);
+            content = lookup(resolve(key, fileId));
+        }
+        if(content == null) {
+            throw new IllegalStateException("file content unavailable: " + fileId);
+        }
+        return content;
+    }
+
+    /**
+     * 以磁盘文件形式使用内容，用于只接受File的上传接口；内存中的内容会先落盘。
+     * 回调拿到的是缓存文件的硬链接（不支持时为副本），上传期间缓存淘汰删除原文件不影响读取，回调结束后删除
+     */
+    public <T> T withFile(String fileId, Function<File, T> action) {
+        Path pinned = directory.toPath().resolve("pin-" + UUID.randomUUID() + ".tmp");
+        try {
+            try {
+                pin(get(fileId), pinned);
+            } catch (NoSuchFileException e) {
+                // 取到文件后、建立链接前被淘汰，重新获取一次
+                pin(get(fileId), pinned);
+            }
+            return action.apply(pinned.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("pin file content failed: " + fileId, e);
+        } finally {
+            try {
+                Files.deleteIfExists(pinned);
+            } catch (IOException e) {
+                log.warn("删除缓存文件失败: {}", pinned, e);
+            }
+        }
+    }
+
+    private void pin(Content content, Path pinned) throws IOException {
+        Path source = (content.file != null ? content.file : spill(content.hash, content.bytes)).toPath();
+        try {
+            Files.createLink(pinned, source);
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // 文件系统不支持硬链接时复制一份
+            Files.copy(source, pinned, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * key（apikey + file id）对应的内容hash；同一key只有一个线程下载，其余线程等待其结果（下载不在缓存的compute锁内进行）
+     */
+    private String resolve(String key, String fileId) {
+        String hash = index.getIfPresent(key);
+        if(hash != null) {
+            return hash;
+        }
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> other = loading.putIfAbsent(key, mine);
+        if(other != null) {
+            try {
+                return other.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            hash = fetch(fileId);
+            index.put(key, hash);
+            mine.complete(hash);
+            return hash;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key);
+        }
+    }
+
+    private Content lookup(String hash) {
+        byte[] bytes = memory.getIfPresent(hash);
+        if(bytes != null) {
+            return new Content(hash, bytes, null);
+        }
+        File file = disk.getIfPresent(hash);
+        if(file == null || !file.exists()) {
+            return null;
+        }
+        if(file.length() <= memoryItemBytes) {
+            // 磁盘命中的小文件提升回内存层
+            try {
+                bytes = Files.readAllBytes(file.toPath());
+                memory.put(hash, bytes);
+                return new Content(hash, bytes, null);
+            } catch (IOException e) {
+                log.warn("读取缓存文件失败: {}", file, e);
+            }
+        }
+        return new Content(hash, null, file);
+    }
+
+    private String fetch(String fileId) {
+        MessageDigest digest = sha256();
+        File temp = null;
+        try (ResponseBody body = openAiServiceFactory.create(10, 120).retrieveFileContent(fileId);
+                InputStream in = body.byteStream()) {
+            long length = body.contentLength();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(length > 0 && length <= memoryItemBytes ? (int) length : 8192);
+            OutputStream out = buffer;
+            byte[] chunk = new byte[8192];
+            long size = 0;
+            int n;
+            try {
+                while ((n = in.read(chunk)) != -1) {
+                    digest.update(chunk, 0, n);
+                    size += n;
+                    if(temp == null && size > memoryItemBytes) {
+                        // 超过内存单项上限，已读部分写入临时文件后继续流式写盘
+                        temp = File.createTempFile("fetch-", ".tmp", directory);
+                        out = Files.newOutputStream(temp.toPath());
+                        buffer.writeTo(out);
+                        buffer = null;
+                    }
+                    out.write(chunk, 0, n);
+                }
+            } finally {
+                if(out != buffer) {
+                    out.close();
+                }
+            }
+            String hash = EncryptUtils.toHex(digest.digest());
+            if(temp == null) {
+                if(memory.getIfPresent(hash) == null) {
+                    memory.put(hash, buffer.toByteArray());
+                }
+            } else {
+                File target = new File(directory, hash);
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                temp = null;
+                disk.put(hash, target);
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("fetch file content failed: " + fileId, e);
+        } finally {
+            if(temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private File spill(String hash, byte[] bytes) {
+        File existing = disk.getIfPresent(hash);
+        if(existing != null && existing.exists()) {
+            return existing;
+        }
+        File target = new File(directory, hash);
+        try {
+            Path temp = Files.createTempFile(directory.toPath(), "fetch-", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            disk.put(hash, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("spill file content failed: " + hash, e);
+        }
+        return target;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存内容：内存层为共享的byte[]（只读），磁盘层为缓存文件
+     */
+    public static class Content {
+        private final String hash;
+        private final byte[] bytes;
+        private final File file;
+
+        Content(String hash, byte[] bytes, File file) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.file = file;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public long size() {
+            return bytes != null ? bytes.length : file.length();
+        }
+
+        public InputStream openStream() throws IOException {
+            if(bytes != null) {
+                return new ByteArrayInputStream(bytes);
+            }
+            try {
+                return Files.newInputStream(file.toPath());
+            } catch (NoSuchFileException e) {
+                throw new FileNotFoundException(file.getPath());
+            }
+        }
+
+        /**
+         * 内存层直接返回共享数组，调用方不能修改
+         */
+        public byte[] toBytes() {
+            if(bytes != null) {
+                return bytes;
+            }
+            try {
+                return Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 作为JSON字符串字段序列化时，直接从缓存流式写出base64，不生成base64字符串
+         */
+        public JsonSerializable asBase64() {
+            return new JsonSerializable.Base() {
+                @Override
+                public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+                    try (InputStream in = openStream()) {
+                        gen.writeBinary(in, (int) size());
+                    }
+                }
+
+                @Override
+                public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+                    serialize(gen, serializers);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.ke.bella.openapi.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ke.bella.openapi.TaskExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 直接写servlet输出流的SSE发送器：事件用共享ObjectMapper序列化进可复用的缓冲区，按时间/大小合并刷写，
+ * 不经过SseEventBuilder和HttpMessageConverter链路。帧格式与SseEmitter一致（event:xxx\ndata:xxx\n\n）。
+ * <p>
+ * 仍继承SseEmitter：控制器照常返回它以开启异步请求，超时/完成由Spring处理。异步请求开启前写入的数据先缓冲，开启后再刷出。
+ * 写出失败视为客户端断开，触发onDisconnect回调。
+ */
+@Slf4j
+public class SseFrameWriter extends SseEmitter {
+    private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_EVENT_NAMES = 256;
+    private static final long ASYNC_START_WAIT_MS = 60 * 1000;
+    private static final Map<String, byte[]> EVENT_NAMES = new ConcurrentHashMap<>();
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final long flushIntervalMs;
+    private final int flushBytes;
+    private final Buffer buffer = new Buffer(4096);
+    private final List<Runnable> disconnectListeners = new CopyOnWriteArrayList<>();
+
+    private final long createdAt = System.currentTimeMillis();
+
+    private boolean started;
+    private boolean flushed;
+    private boolean flushScheduled;
+    private boolean completed;
+    private Throwable completeError;
+    private boolean terminated;
+    // 异步请求已结束（完成/超时/出错），response不可再写
+    private volatile boolean closed;
+    private volatile boolean disconnected;
+
+    public SseFrameWriter(long timeout, HttpServletRequest request, HttpServletResponse response, long flushIntervalMs, int flushBytes) {
+        super(timeout);
+        this.request = request;
+        this.response = response;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushBytes = flushBytes;
+        response.setContentType("text/event-stream;charset=UTF-8");
+        super.onCompletion(this::closed);
+        super.onTimeout(this::closed);
+        super.onError(this::disconnect);
+    }
+
+    @Override
+    public void onCompletion(Runnable callback) {
+        super.onCompletion(() -> {
+            closed();
+            callback.run();
+        });
+    }
+
+    @Override
+    public void onTimeout(Runnable callback) {
+        super.onTimeout(() -> {
+            closed();
+            callback.run();
+        });
+    }
+
+    @Override
+    public void onError(Consumer<Throwable> callback) {
+        super.onError(e -> {
+            disconnect(e);
+            callback.accept(e);
+        });
+    }
+
+    public synchronized void write(String event, Object data) throws IOException {
+        if(disconnected || completed || closed) {
+            return;
+        }
+        if(event != null) {
+            buffer.write(EVENT);
+            buffer.write(eventName(event));
+            buffer.write('\n');
+        }
+        buffer.write(DATA);
+        if(data instanceof String) {
+            buffer.write(((String) data).getBytes(StandardCharsets.UTF_8));
+        } else {
+            JacksonUtils.MAPPER.writeValue(buffer, data);
+        }
+        buffer.write('\n');
+        buffer.write('\n');
+        afterAppend();
+    }
+
+    /**
+     * 兼容直接使用SseEventBuilder的调用方：按构建好的片段顺序写入同一缓冲区，保证与write写出的事件顺序一致
+     */
+    @Override
+    public synchronized void send(SseEventBuilder builder) throws IOException {
+        if(disconnected || completed || closed) {
+            return;
+        }
+        for (DataWithMediaType part : builder.build()) {
+            Object data = part.getData();
+            if(data instanceof String) {
+                buffer.write(((String) data).getBytes(StandardCharsets.UTF_8));
+            } else {
+                JacksonUtils.MAPPER.writeValue(buffer, data);
+            }
+        }
+        afterAppend();
+    }
+
+    private void afterAppend() throws IOException {
+        if(!flushed || flushIntervalMs <= 0 || buffer.size() >= flushBytes) {
+            flush();
+            if(disconnected) {
+                throw new IOException("sse client disconnected");
+            }
+        } else {
+            scheduleFlush(flushIntervalMs);
+        }
+    }
+
+    /**
+     * 客户端断开（写出失败）时回调，用于提前取消上游请求
+     */
+    public void onDisconnect(Runnable listener) {
+        disconnectListeners.add(listener);
+        if(disconnected) {
+            listener.run();
+        }
+    }
+
+    public boolean isDisconnected() {
+        return disconnected;
+    }
+
+    @Override
+    public synchronized void complete() {
+        if(completed) {
+            return;
+        }
+        completed = true;
+        finish();
+    }
+
+    @Override
+    public synchronized void completeWithError(Throwable ex) {
+        if(completed) {
+            return;
+        }
+        completed = true;
+        completeError = ex;
+        finish();
+    }
+
+    private void finish() {
+        if(terminated) {
+            return;
+        }
+        if(!closed && !asyncStarted()) {
+            // 控制器尚未返回，等异步请求开启后再刷出剩余数据并结束
+            scheduleFlush(5);
+            return;
+        }
+        terminated = true;
+        flush();
+        if(completeError != null) {
+            super.completeWithError(completeError);
+        } else {
+            super.complete();
+        }
+    }
+
+    private void flush() {
+        if(buffer.size() == 0 || disconnected) {
+            return;
+        }
+        if(closed) {
+            buffer.reset();
+            return;
+        }
+        if(!asyncStarted()) {
+            scheduleFlush(5);
+            return;
+        }
+        try {
+            OutputStream out = response.getOutputStream();
+            buffer.writeTo(out);
+            out.flush();
+            flushed = true;
+        } catch (IOException | IllegalStateException e) {
+            disconnect(e);
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if(flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        TaskExecutor.getExecutor().schedule(this::scheduledFlush, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void scheduledFlush() {
+        flushScheduled = false;
+        if(!started && !closed && System.currentTimeMillis() - createdAt > ASYNC_START_WAIT_MS) {
+            // 控制器异常退出，异步请求不会开启
+            closed();
+        }
+        if(completed) {
+            finish();
+        } else {
+            flush();
+        }
+    }
+
+    /**
+     * 异步请求开启前（控制器返回前）不能从其他线程写response，开启后不再查询request，避免访问已回收的request
+     */
+    private boolean asyncStarted() {
+        if(!started) {
+            try {
+                started = request.isAsyncStarted();
+            } catch (IllegalStateException e) {
+                closed();
+            }
+        }
+        return started;
+    }
+
+    private void closed() {
+        closed = true;
+    }
+
+    private void disconnect(Throwable e) {
+        if(disconnected) {
+            return;
+        }
+        disconnected = true;
+        log.info("sse客户端断开: {}", e.toString());
+        for (Runnable listener : disconnectListeners) {
+            try {
+                listener.run();
+            } catch (Exception ex) {
+                log.warn(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private static byte[] eventName(String event) {
+        byte[] bytes = EVENT_NAMES.get(event);
+        if(bytes != null) {
+            return bytes;
+        }
+        bytes = event.getBytes(StandardCharsets.UTF_8);
+        if(EVENT_NAMES.size() < MAX_EVENT_NAMES) {
+            EVENT_NAMES.putIfAbsent(event, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * reset后保留底层数组，整个流复用同一块缓冲
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        @Override
+        public void write(byte[] b) {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -2,15 +2,27 @@ package com.ke.bella.openapi.utils;
 
 import java.io.IOException;
 
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
 
+import com.ke.bella.openapi.configuration.SseWriterConfig;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
+
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class SseHelper {
+    private static volatile SseWriterConfig config = new SseWriterConfig();
+
+    public static void configure(SseWriterConfig config) {
+        SseHelper.config = config;
+    }
+
     public static SseEmitter createSse(long timeout, String reqId) {
-        SseEmitter sse = new SseEmitter(timeout);
+        SseEmitter sse = newEmitter(timeout);
 
         sse.onCompletion(() -> log.info("[{}] 结束连接...................", reqId));
         sse.onTimeout(() -> log.info("[{}]连接超时...................", reqId));
@@ -20,6 +32,32 @@ public class SseHelper {
         return sse;
     }
 
+    /**
+     * 在请求线程上调用：能拿到当前servlet请求时使用直写的SseFrameWriter，否则回退到SseEmitter。
+     * 使用SseFrameWriter时，客户端断开会取消当前线程之后发起的上游请求（句柄随EndpointContext.clearAll解绑）
+     */
+    private static SseEmitter newEmitter(long timeout) {
+        SseWriterConfig current = config;
+        if(current.isDirectWrite()) {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if(attributes instanceof ServletRequestAttributes && ((ServletRequestAttributes) attributes).getResponse() != null) {
+                ServletRequestAttributes servlet = (ServletRequestAttributes) attributes;
+                SseFrameWriter writer = new SseFrameWriter(timeout, servlet.getRequest(), servlet.getResponse(),
+                        current.getFlushIntervalMs(), current.getFlushBytes());
+                writer.onDisconnect(UpstreamCancellation.currentOrBind()::cancel);
+                return writer;
+            }
+        }
+        return new SseEmitter(timeout);
+    }
+
+    /**
+     * 客户端是否已断开；此时上游已被取消，回调应按正常结束记录已产生的用量，而不是作为渠道错误
+     */
+    public static boolean isDisconnected(SseEmitter sse) {
+        return sse instanceof SseFrameWriter && ((SseFrameWriter) sse).isDisconnected();
+    }
+
     public static void send(SseEmitter sse, SseEventBuilder event) {
         try {
             sse.send(event);
@@ -29,11 +67,30 @@ public class SseHelper {
     }
 
     public static void sendEvent(SseEmitter sse, String event, Object data) {
-        send(sse, SseEmitter.event().name(event).data(data));
+        try {
+            write(sse, event, data);
+        } catch (IOException e) {
+            log.warn(e.getMessage(), e);
+        }
     }
 
     public static void sendEvent(SseEmitter sse, Object data) {
-        send(sse, SseEmitter.event().data(data));
+        sendEvent(sse, null, data);
+    }
+
+    /**
+     * 发送单个事件，event为空时不写event行；写出失败时抛出IOException
+     */
+    public static void write(SseEmitter sse, String event, Object data) throws IOException {
+        if(sse instanceof SseFrameWriter) {
+            ((SseFrameWriter) sse).write(event, data);
+            return;
+        }
+        SseEventBuilder builder = SseEmitter.event();
+        if(event != null) {
+            builder.name(event);
+        }
+        sse.send(builder.data(data));
     }
 
 }
@@ -33,6 +33,10 @@ public class CapacityCalculator {
     private volatile double cachedCapacity = -1.0;
     private volatile long cacheTimestamp = 0;
     private volatile long maxFinishRpm = 0;
+    private volatile long remainingCacheMs = 0;
+    private volatile double cachedRemaining = -1.0;
+    private volatile long remainingTimestamp = 0;
+    private volatile long takenSinceRefresh = 0;
     private static final long CACHE_DURATION_MS = 5 * 60 * 1000;
     private static final String RPM_429_HISTORY_METRIC = "rpm_429_history";
 
@@ -53,12 +57,50 @@ public class CapacityCalculator {
         this.limiterManager = limiterManager;
     }
 
+    public CapacityCalculator withRemainingCacheMs(long remainingCacheMs) {
+        this.remainingCacheMs = remainingCacheMs;
+        return this;
+    }
+
+    /**
+     * 剩余容量比例，读数在remainingCacheMs内复用，期间通过onTaken扣减已拉取的任务数，避免每轮拉取都执行两次redis调用
+     */
     public double getRemainingCapacity() {
         double capacity = getCapacity();
         if(capacity == 0) {
             return 1.0;
         }
+        long now = System.currentTimeMillis();
+        if(cachedRemaining < 0 || now - remainingTimestamp >= remainingCacheMs) {
+            cachedRemaining = computeRemainingCapacity(capacity);
+            remainingTimestamp = now;
+            takenSinceRefresh = 0;
+        }
+        return Math.max(0.0, cachedRemaining - takenSinceRefresh / capacity);
+    }
+
+    /**
+     * 剩余容量高于阈值的部分折算成的请求数，即本轮最多还能拉取的任务数；容量未知时不做限制
+     */
+    public int getAvailableRequests(double threshold) {
+        double remaining = getRemainingCapacity();
+        if(remaining <= threshold) {
+            return 0;
+        }
+        double capacity = getCapacity();
+        if(capacity == 0) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.max(1, Math.floor((remaining - threshold) * capacity));
+    }
+
+    public void onTaken(int size) {
+        if(size > 0) {
+            takenSinceRefresh += size;
+        }
+    }
 
+    private double computeRemainingCapacity(double capacity) {
         long currentRequests = limiterManager.getCurrentRequests(channel.getEntityCode());
         long requestCapacity = currentRequests + getCompletedRpm();
         double remainingCapacity = 1.0 - (requestCapacity / capacity);
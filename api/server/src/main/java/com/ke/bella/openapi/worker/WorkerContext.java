@@ -14,7 +14,10 @@ import com.theokanning.openai.service.OpenAiService;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 
 import com.ke.bella.openapi.utils.JacksonUtils;
 
@@ -22,6 +25,7 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Builder
@@ -54,11 +58,15 @@ public class WorkerContext {
         int channelMaxConcurrency = MapUtils.getInteger(channelInfoMap, "maxWorkerConcurrency", 0);
         int maxConcurrency = channelMaxConcurrency > 0 ? channelMaxConcurrency : workerManager.getMaxConcurrency();
         Semaphore semaphore = new Semaphore(maxConcurrency);
+        Wakeup wakeup = new Wakeup();
         com.ke.bella.queue.worker.TaskExecutor parallelExecutor = new com.ke.bella.queue.worker.TaskExecutor() {
             @Override
             public void submit(com.ke.bella.queue.TaskWrapper task) {
                 semaphore.acquireUninterruptibly();
-                TaskExecutor.submit(() -> taskProcessor.executeTask(task, semaphore::release));
+                TaskExecutor.submit(() -> taskProcessor.executeTask(task, () -> {
+                    semaphore.release();
+                    wakeup.signal();
+                }));
             }
 
             @Override
@@ -67,8 +75,9 @@ public class WorkerContext {
             }
         };
         Worker worker = new Worker(parallelExecutor, openAiService);
-        CapacityCalculator capacityCalculator = new CapacityCalculator(channel, redissonClient, luaScriptExecutor, limiterManager);
-        backoffTask = new BackoffTask(worker, capacityCalculator, channel, redissonClient, workerManager);
+        CapacityCalculator capacityCalculator = new CapacityCalculator(channel, redissonClient, luaScriptExecutor, limiterManager)
+                .withRemainingCacheMs(workerManager.getCapacityCacheMs());
+        backoffTask = new BackoffTask(worker, capacityCalculator, channel, redissonClient, workerManager, wakeup);
         TaskExecutor.submit(backoffTask);
     }
 
@@ -90,6 +99,25 @@ public class WorkerContext {
         return channel.getChannelCode();
     }
 
+    /**
+     * 唤醒信号：并发槽位释放或收到队列入队通知时唤醒空闲中的拉取循环，多次signal合并为一次唤醒
+     */
+    static class Wakeup {
+        private final Semaphore permits = new Semaphore(0);
+
+        void signal() {
+            if(permits.availablePermits() == 0) {
+                permits.release();
+            }
+        }
+
+        void await(long timeoutMs) throws InterruptedException {
+            if(permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                permits.drainPermits();
+            }
+        }
+    }
+
     @Slf4j
     public static class BackoffTask implements Runnable {
         private final Worker worker;
@@ -99,87 +127,134 @@ public class WorkerContext {
         private final ChannelDB channel;
         private final BackoffState backoff = new BackoffState();
         private final WorkerManager workerManager;
+        private final Wakeup wakeup;
+        private final Take take;
+
+        private RTopic notifyTopic;
+        private int notifyListenerId = -1;
+        // 订阅成功不代表队列服务会发布通知，收到过通知后才放宽最大退避
+        private volatile boolean notifyReceived = false;
 
         private volatile boolean stopped = false;
 
         public BackoffTask(Worker worker, CapacityCalculator capacityCalculator, ChannelDB channel, RedissonClient redissonClient,
-                WorkerManager workerManager) {
+                WorkerManager workerManager, Wakeup wakeup) {
             this.worker = worker;
             this.capacityCalculator = capacityCalculator;
             this.channel = channel;
             this.redissonClient = redissonClient;
             this.workerManager = workerManager;
+            this.wakeup = wakeup;
+            String level0Queue = String.format(QUEUE_NAME_LEVEL0_TEMPLATE, channel.getQueueName());
+            String level1Queue = String.format(QUEUE_NAME_LEVEL1_TEMPLATE, channel.getQueueName());
+            this.take = Take.builder()
+                    .queues(Arrays.asList(level0Queue, level1Queue))
+                    .size(1)
+                    .strategy("active_passive")
+                    .minAgeSeconds(workerManager.getMinAgeSeconds())
+                    .build();
         }
 
         /**
-         * Worker主循环，实现自适应退避策略： 1. 有任务且容量充足时：使用最小间隔(5ms)进行快速轮询，最大化吞吐量 2. 无任务但容量充足时：采用指数退避策略，从1秒开始按2倍递增至最大5秒，减少CPU消耗 3. 容量不足时：固定等待5秒，避免无效轮询和频繁容量检查 4.
-         * 异常情况时：同样采用指数退避，防止错误传播和资源浪费
+         * Worker主循环，实现自适应退避策略： 1. 有任务且容量充足时：使用最小间隔(5ms)进行快速拉取，每次按空闲槽位与剩余容量批量拉取 2. 无任务但容量充足时：采用指数退避，
+         * 收到过入队通知后最长等待notifyMaxWaitMs，期间收到通知立即唤醒 3. 容量不足时：等待5秒 4. 并发槽位已满时：等待槽位释放后立即唤醒 5. 异常情况时：同样采用指数退避
          */
         @Override
         public void run() {
-            while (!stopped && !Thread.currentThread().isInterrupted()) {
-                try {
-                    ProcessResult result = processTask();
-
-                    long waitTime;
-                    if(result.hasCapacity) {
-                        if(result.hasWork) {
-                            backoff.onTaskFound();
-                            waitTime = backoff.getMinInterval();
+            subscribe();
+            try {
+                while (!stopped && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        ProcessResult result = processTask();
+
+                        long waitTime;
+                        if(result.hasCapacity) {
+                            if(result.hasWork) {
+                                backoff.onTaskFound();
+                                waitTime = backoff.getMinInterval();
+                            } else {
+                                if(notifyReceived) {
+                                    backoff.setMaxBackoff(Math.max(BackoffState.DEFAULT_MAX_BACKOFF, workerManager.getNotifyMaxWaitMs()));
+                                }
+                                backoff.onTaskNotFound();
+                                waitTime = backoff.getNextInterval();
+                            }
                         } else {
-                            backoff.onTaskNotFound();
-                            waitTime = backoff.getNextInterval();
+                            waitTime = 5 * 1000;
                         }
-                    } else {
-                        waitTime = 5 * 1000;
-                    }
 
-                    Thread.sleep(waitTime);
+                        wakeup.await(waitTime);
 
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    log.error("Worker error for channel: {}", channel.getChannelCode(), e);
-                    backoff.onTaskNotFound();
-                    try {
-                        Thread.sleep(backoff.getNextInterval());
-                    } catch (InterruptedException ie) {
+                    } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                         break;
+                    } catch (Exception e) {
+                        log.error("Worker error for channel: {}", channel.getChannelCode(), e);
+                        backoff.onTaskNotFound();
+                        try {
+                            Thread.sleep(backoff.getNextInterval());
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
                     }
                 }
+            } finally {
+                unsubscribe();
             }
         }
 
         private ProcessResult processTask() {
-            double capacity = capacityCalculator.getRemainingCapacity();
-            boolean hasCapacity = capacity > workerManager.getRemainingCapacityThreshold();
-
-            if(!hasCapacity) {
-                return new ProcessResult(false, false);
+            int freeSlots = worker.remainingCapacity();
+            if(freeSlots <= 0) {
+                // 槽位释放时会signal，这里按有容量无任务处理，由wakeup提前唤醒
+                return new ProcessResult(true, false);
             }
-            String level0Queue = String.format(QUEUE_NAME_LEVEL0_TEMPLATE, channel.getQueueName());
-            String level1Queue = String.format(QUEUE_NAME_LEVEL1_TEMPLATE, channel.getQueueName());
-            Take take = Take.builder()
-                    .queues(Arrays.asList(level0Queue, level1Queue))
-                    .size(1)
-                    .strategy("active_passive")
-                    .minAgeSeconds(workerManager.getMinAgeSeconds())
-                    .build();
-
-            if(worker.remainingCapacity() == 0) {
-                log.warn("Thread pool full for channel: {}, waiting 5s", channel.getChannelCode());
+            int available = capacityCalculator.getAvailableRequests(workerManager.getRemainingCapacityThreshold());
+            if(available <= 0) {
                 return new ProcessResult(false, false);
             }
+
+            int size = Math.min(freeSlots, Math.min(available, Math.max(1, workerManager.getMaxTakeSize())));
+            take.setSize(size);
             int takedSize = worker.takeAndRun(take);
+            capacityCalculator.onTaken(takedSize);
             boolean hasWork = takedSize > 0;
 
-            return new ProcessResult(hasCapacity, hasWork);
+            return new ProcessResult(true, hasWork);
+        }
+
+        private void subscribe() {
+            String prefix = workerManager.getNotifyTopicPrefix();
+            if(StringUtils.isBlank(prefix)) {
+                return;
+            }
+            try {
+                notifyTopic = redissonClient.getTopic(prefix + channel.getQueueName(), StringCodec.INSTANCE);
+                notifyListenerId = notifyTopic.addListener(String.class, (topic, msg) -> {
+                    notifyReceived = true;
+                    wakeup.signal();
+                });
+            } catch (Exception e) {
+                log.warn("Failed to subscribe queue notify for channel: {}, fallback to polling", channel.getChannelCode(), e);
+                notifyTopic = null;
+            }
+        }
+
+        private void unsubscribe() {
+            if(notifyTopic == null || notifyListenerId < 0) {
+                return;
+            }
+            try {
+                notifyTopic.removeListener(notifyListenerId);
+            } catch (Exception e) {
+                log.warn("Failed to unsubscribe queue notify for channel: {}", channel.getChannelCode(), e);
+            }
         }
 
         public void stop() {
             stopped = true;
+            wakeup.signal();
         }
 
         public boolean isStopped() {
@@ -197,13 +272,15 @@ public class WorkerContext {
         }
 
         /**
-         * 指数退避状态管理器，实现动态间隔调整策略： - 成功时：立即重置为起始间隔，保持高响应性 - 失败时：按指数增长间隔，最大化系统稳定性 - 边界控制：最小5ms保证响应性，最大5秒防止长时间阻塞
+         * 指数退避状态管理器，实现动态间隔调整策略： - 成功时：立即重置为起始间隔，保持高响应性 - 失败时：按指数增长间隔，最大化系统稳定性 - 边界控制：最小5ms保证响应性，
+         * 最大5秒防止长时间阻塞(收到过入队通知后放宽到notifyMaxWaitMs)
          */
-        private class BackoffState {
+        private static class BackoffState {
+            static final long DEFAULT_MAX_BACKOFF = 5000; // 默认最大退避间隔5秒
             private final long MIN_INTERVAL = 5; // 最小间隔5ms
             private final long BACKOFF_START = 1000; // 退避起始间隔1秒
-            private final long MAX_BACKOFF = 5000; // 最大退避间隔5秒
             private final double BACKOFF_FACTOR = 2.0; // 退避倍数因子
+            private long MAX_BACKOFF = DEFAULT_MAX_BACKOFF;
 
             private long backoffInterval = BACKOFF_START;
             private long lastFailure = 0;
@@ -216,6 +293,10 @@ public class WorkerContext {
                 return backoffInterval;
             }
 
+            void setMaxBackoff(long maxBackoff) {
+                MAX_BACKOFF = maxBackoff;
+            }
+
             void onTaskFound() {
                 backoffInterval = BACKOFF_START;
                 lastFailure = 0;
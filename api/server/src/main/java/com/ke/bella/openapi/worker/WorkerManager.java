@@ -22,6 +22,7 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -63,13 +64,33 @@ public class WorkerManager {
     @Getter
     private int maxConcurrency;
 
+    @Value("${bella.openapi.as-worker.max-take-size:20}")
+    @Getter
+    private int maxTakeSize;
+
+    @Value("${bella.openapi.as-worker.capacity-cache-ms:1000}")
+    @Getter
+    private long capacityCacheMs;
+
+    /**
+     * 队列服务入队后向 ${prefix}${queueName} 发布通知，worker空闲时据此唤醒；默认为空，仅靠退避轮询，
+     * 确认队列服务已发布通知后再配置（如bella-queue-notify:）
+     */
+    @Value("${bella.openapi.as-worker.notify-topic-prefix:}")
+    @Getter
+    private String notifyTopicPrefix;
+
+    @Value("${bella.openapi.as-worker.notify-max-wait-ms:30000}")
+    @Getter
+    private long notifyMaxWaitMs;
+
     private OpenAiService openAiService;
 
     private final Map<String, WorkerContext> runningWorkers = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
-        openAiService = openAiServiceFactory.create(openapiProperties.getServiceAk());
+        openAiService = openAiServiceFactory.create(openapiProperties.getServiceAk(), Collections.emptyMap());
         TaskExecutor.scheduleAtFixedRate(() -> {
             try {
                 refreshWorkers();
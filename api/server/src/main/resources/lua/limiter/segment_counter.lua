@@ -0,0 +1,57 @@
+-- 分段滑动窗口计数器（AK级别RPM统计）
+-- 与channel_rpm.lua相同的分段方案：窗口切成固定数量的段存入Hash，每个key内存固定，不随请求量增长
+-- 只计数不限流，cost=0时只查询；脚本只做各段的增减和读取，按时间权重累加由LimiterManager.windowTotal完成
+
+-- 输入参数
+local key = KEYS[1]                    -- Redis Hash key，如 "bella-openapi-limiter-rpm-segment:gpt-4o:ak-xxx"
+local window = tonumber(ARGV[1])       -- 窗口大小（秒），如 60
+local segment_size = tonumber(ARGV[2]) -- 每段大小（秒），如 5
+local cost = tonumber(ARGV[3])         -- 本次计数，请求数为1
+local now = tonumber(ARGV[4])          -- 当前时间戳（秒）
+
+-- 错误处理
+local function handle_error(err)
+    return {-1, "Error: " .. tostring(err)}
+end
+
+-- 主逻辑
+local success, result = pcall(function()
+    -- 1. 计算当前段及窗口覆盖的段
+    local current_segment = math.floor(now / segment_size)
+    local num_segments = math.ceil(window / segment_size)
+
+    -- 2. 记录本次计数
+    if cost > 0 then
+        redis.call('HINCRBY', key, current_segment, cost)
+        redis.call('EXPIRE', key, window * 2)
+    end
+
+    -- 3. 清理窗口外的段（Hash内最多num_segments+1个field）
+    local min_segment = current_segment - num_segments
+    local all_fields = redis.call('HKEYS', key)
+    for _, field in ipairs(all_fields) do
+        if tonumber(field) < min_segment then
+            redis.call('HDEL', key, field)
+        end
+    end
+
+    -- 4. 一次HMGET读取从当前段开始往前的各段
+    local fields = {}
+    for i = 0, num_segments do
+        fields[i + 1] = tostring(current_segment - i)
+    end
+    local values = redis.call('HMGET', key, unpack(fields))
+
+    -- 返回：[状态(1成功), 当前段计数, 前一段计数, ...]，不存在的段为0
+    local counts = {1}
+    for i, v in ipairs(values) do
+        counts[i + 1] = tonumber(v) or 0
+    end
+    return counts
+end)
+
+if not success then
+    return handle_error(result)
+end
+
+return result
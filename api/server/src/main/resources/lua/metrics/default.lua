@@ -19,6 +19,9 @@ local EXPIRY_TIME = 60
 -- 不可用时长的过期时间（600秒）
 local UNAVAILABLE_EXPIRY_TIME = 600
 
+-- 路由版本号，与ChannelService中的key一致
+local ROUTE_VERSION_KEY = "bella-openapi-route-version"
+
 local last_timestamp
 
 -- 错误处理函数
@@ -158,6 +161,10 @@ local function update_channel_status()
         end
     end
     if status ~= "available" and channel_unavailable_expire_time > 0 then
+        -- 渠道新进入不可用状态时递增路由版本号，sdk侧路由缓存随之失效
+        if redis.call("EXISTS", mark_key) == 0 then
+            redis.call("INCR", ROUTE_VERSION_KEY)
+        end
         -- 标记为不可用，并记录不可用时间
         redis.call("SET", mark_key, "true", "EX", channel_unavailable_expire_time)
         redis.call("INCRBY", unavailable_time_key, channel_unavailable_expire_time)
@@ -112,4 +112,25 @@ public class CostLogHandlerTest {
         Assertions.assertEquals(result.doubleValue(), processData.getCost().doubleValue());
         Assertions.assertEquals(result.doubleValue(), 0);
     }
+
+    @Test
+    public void test5() throws Exception {
+        final AtomicDouble result = new AtomicDouble(0);
+        CostCounter.CostRecorder recorder = (apikey, month, cost) -> result.getAndAdd(cost.doubleValue());
+        CostCounter costCounter = new CostCounter(recorder);
+        CostLogHandler.CostScripFetcher fetcher = endpoint -> "price.price * usage";
+        CostLogHandler costLogHandler = new CostLogHandler(costCounter, fetcher, () -> 0.5);
+        EndpointProcessData processData = new EndpointProcessData();
+        processData.setEndpoint("xxxx");
+        processData.setAkCode(UUID.randomUUID().toString());
+        processData.setUsage(100);
+        processData.setPriceInfo("{\"price\": 10.000}");
+        processData.setCacheHit(true);
+        LogEvent logEvent = new LogEvent();
+        logEvent.setData(processData);
+        costLogHandler.onEvent(logEvent, 1 ,true);
+        costCounter.flush();
+        Assertions.assertEquals(result.doubleValue(), processData.getCost().doubleValue());
+        Assertions.assertEquals(result.doubleValue(), 500);
+    }
 }
@@ -0,0 +1,139 @@
+package com.ke.bella.openapi.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 异步批量日志上报：按条数攒批、关闭时补发、失败落盘与恢复后补发、重试和补发时批次id不变
+ */
+public class LogShipperTest {
+
+    @Test
+    public void offer_shipsInBatchesAndFlushesRemainderOnClose() throws Exception {
+        RecordingClient client = new RecordingClient();
+        LogShipper shipper = new LogShipper(client, LogShipper.Config.builder()
+                .batchSize(3)
+                .flushIntervalMillis(60_000)
+                .build());
+        for (int i = 0; i < 7; i++) {
+            assertTrue(shipper.offer(log(i)));
+        }
+        shipper.close();
+
+        assertEquals(7, shipper.getShipped());
+        assertEquals(0, shipper.getPending());
+        List<String> ids = new ArrayList<>();
+        for (List<EndpointProcessData> batch : client.batches) {
+            assertTrue(batch.size() <= 3, "batch size " + batch.size());
+            batch.forEach(log -> ids.add(log.getRequestId()));
+        }
+        assertEquals(7, ids.size());
+        assertFalse(shipper.offer(log(8)));
+        assertEquals(1, shipper.getDropped());
+    }
+
+    @Test
+    public void flush_spillsOnFailureAndResendsAfterRecovery() throws Exception {
+        File dir = Files.createTempDirectory("log-shipper-test").toFile();
+        RecordingClient client = new RecordingClient();
+        client.failures.set(1);
+        LogShipper.Config config = LogShipper.Config.builder()
+                .batchSize(10)
+                .flushIntervalMillis(60_000)
+                .maxRetries(0)
+                .spillDir(dir)
+                .build();
+
+        LogShipper failing = new LogShipper(client, config);
+        failing.offer(log(1));
+        failing.offer(log(2));
+        failing.close();
+        assertEquals(2, failing.getSpilled());
+        assertEquals(1, dir.listFiles().length);
+
+        LogShipper recovered = new LogShipper(client, config);
+        recovered.offer(log(3));
+        recovered.close();
+        assertEquals(1, recovered.getShipped());
+        // 上报成功后补发落盘的批次并删除文件
+        assertEquals(0, dir.listFiles().length);
+        assertEquals(2, client.batches.size());
+        // 落盘批次补发时沿用首次上报的批次id
+        assertEquals(3, client.batchIds.size());
+        assertNotNull(client.batchIds.get(0));
+        assertTrue(client.batchIds.subList(1, 3).contains(client.batchIds.get(0)));
+        dir.delete();
+    }
+
+    @Test
+    public void flush_retriesWithSameBatchId() throws Exception {
+        RecordingClient client = new RecordingClient();
+        client.failures.set(2);
+        LogShipper shipper = new LogShipper(client, LogShipper.Config.builder()
+                .batchSize(10)
+                .flushIntervalMillis(60_000)
+                .maxRetries(2)
+                .retryBackoffMillis(1)
+                .build());
+        shipper.offer(log(1));
+        shipper.close();
+
+        assertEquals(1, shipper.getShipped());
+        assertEquals(3, client.batchIds.size());
+        assertNotNull(client.batchIds.get(0));
+        assertEquals(1, client.batchIds.stream().distinct().count());
+    }
+
+    private static EndpointProcessData log(int i) {
+        EndpointProcessData processData = new EndpointProcessData();
+        processData.setRequestId("req-" + i);
+        processData.setEndpoint("/v1/chat/completions");
+        processData.setAkSha("sha");
+        processData.setBellaTraceId("trace-" + i);
+        return processData;
+    }
+
+    private static class RecordingClient extends OpenapiClient {
+        final List<List<EndpointProcessData>> batches = Collections.synchronizedList(new ArrayList<>());
+        final List<String> batchIds = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger failures = new AtomicInteger();
+
+        RecordingClient() {
+            super("http://localhost", "ak");
+        }
+
+        @Override
+        Integer postLogBatch(byte[] gzipBody, String batchId) {
+            batchIds.add(batchId);
+            if(failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("upstream unavailable");
+            }
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipBody))) {
+                List<EndpointProcessData> batch = JacksonUtils.MAPPER.readValue(in, new TypeReference<List<EndpointProcessData>>() {
+                });
+                batches.add(batch);
+                return batch.size();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
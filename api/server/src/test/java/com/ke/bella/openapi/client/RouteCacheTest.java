@@ -0,0 +1,145 @@
+package com.ke.bella.openapi.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.metadata.Channel;
+import com.ke.bella.openapi.protocol.route.RouteResult;
+
+/**
+ * sdk路由缓存：软过期后后台刷新、刷新失败返回旧值、版本号变化整体失效
+ */
+public class RouteCacheTest {
+    private static final String ENDPOINT = "/v1/chat/completions";
+
+    private RouteCache cache;
+
+    @AfterEach
+    public void tearDown() {
+        if(cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void route_returnsStaleValueWhileRefreshingAhead() throws Exception {
+        FakeClient client = new FakeClient();
+        cache = new RouteCache(client, RouteCache.Config.builder()
+                .refreshIntervalMillis(50)
+                .expireMillis(60_000)
+                .versionCheckIntervalMillis(0)
+                .build());
+
+        assertEquals("ch-1", route());
+        assertEquals(1, client.routeRequests.get());
+
+        client.channelCode = "ch-2";
+        Thread.sleep(80);
+        // 软过期后首次访问触发后台刷新，本次仍返回旧值
+        assertEquals("ch-1", route());
+        awaitRoute("ch-2");
+    }
+
+    @Test
+    public void route_keepsStaleValueWhenRefreshFailsUntilExpire() throws Exception {
+        FakeClient client = new FakeClient();
+        cache = new RouteCache(client, RouteCache.Config.builder()
+                .refreshIntervalMillis(50)
+                .expireMillis(400)
+                .versionCheckIntervalMillis(0)
+                .build());
+
+        assertEquals("ch-1", route());
+        client.failing.set(true);
+        Thread.sleep(80);
+        assertEquals("ch-1", route());
+        await(() -> client.routeRequests.get() >= 2);
+        assertEquals("ch-1", route());
+
+        // 超过expire后不再返回旧值，网关的错误透传给调用方
+        Thread.sleep(400);
+        assertThrows(BellaException.class, this::route);
+    }
+
+    @Test
+    public void route_invalidatedWhenVersionChanges() throws Exception {
+        FakeClient client = new FakeClient();
+        cache = new RouteCache(client, RouteCache.Config.builder()
+                .refreshIntervalMillis(60_000)
+                .expireMillis(60_000)
+                .versionCheckIntervalMillis(20)
+                .build());
+
+        assertEquals("ch-1", route());
+        assertEquals("queue-ch-1", cache.getChannelByQueue("queue").getChannelCode());
+        await(() -> client.versionRequests.get() >= 2);
+        client.channelCode = "ch-2";
+        assertEquals("ch-1", route());
+
+        // 渠道变更或渠道被标记为不可用时服务端递增版本号
+        client.version.incrementAndGet();
+        awaitRoute("ch-2");
+        assertEquals("queue-ch-2", cache.getChannelByQueue("queue").getChannelCode());
+    }
+
+    private String route() {
+        return cache.route(ENDPOINT, "gpt-4o", 0, "ak").getChannelCode();
+    }
+
+    private void awaitRoute(String channelCode) throws InterruptedException {
+        await(() -> channelCode.equals(route()));
+    }
+
+    private static void await(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.get()) {
+            if(System.currentTimeMillis() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static class FakeClient extends OpenapiClient {
+        final AtomicInteger routeRequests = new AtomicInteger();
+        final AtomicInteger versionRequests = new AtomicInteger();
+        final AtomicLong version = new AtomicLong(1);
+        final AtomicBoolean failing = new AtomicBoolean();
+        volatile String channelCode = "ch-1";
+
+        FakeClient() {
+            super("http://localhost", "ak");
+        }
+
+        @Override
+        RouteResult requestRoute(String endpoint, String model, Integer queueMode, String userApikey) {
+            routeRequests.incrementAndGet();
+            if(failing.get()) {
+                throw new BellaException.ChannelException(502, "gateway unavailable");
+            }
+            return RouteResult.builder().channelCode(channelCode).build();
+        }
+
+        @Override
+        Channel requestChannelByQueue(String queueName) {
+            Channel channel = new Channel();
+            channel.setChannelCode("queue-" + channelCode);
+            return channel;
+        }
+
+        @Override
+        Long requestRouteVersion() {
+            versionRequests.incrementAndGet();
+            return version.get();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ke.bella.openapi.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * ID生成：与原String.format实现逐字节一致、序号回绕、多线程唯一性
+ */
+public class IDGeneratorTest {
+
+    @BeforeAll
+    public static void setUp() {
+        IDGenerator.setInstanceId(7L);
+    }
+
+    @Test
+    public void generate_matchesLegacyFormat() {
+        IDGenerator generator = new IDGenerator("video-");
+        for (String spaceCode : new String[] { "space-a", "", null, "polygenelubricants" }) {
+            String before = new SimpleDateFormat(IDGenerator.DATE_PATTERN).format(new Date());
+            String id = generator.generateWithSpaceCodeHash(spaceCode);
+            String after = new SimpleDateFormat(IDGenerator.DATE_PATTERN).format(new Date());
+            int serial = ((AtomicInteger) ReflectionTestUtils.getField(generator, "serialCounter")).get();
+
+            String date = id.substring("video-".length(), "video-".length() + 12);
+            assertTrue(date.equals(before) || date.equals(after), id);
+            assertEquals(legacy("video-", date, "0007", serial, 6, spaceCode), id);
+        }
+        // "polygenelubricants".hashCode() == Integer.MIN_VALUE，Math.abs后仍为负数
+        assertTrue(generator.generateWithSpaceCodeHash("polygenelubricants").endsWith("--2147483648"));
+    }
+
+    @Test
+    public void generate_serialWrapsAround() {
+        IDGenerator generator = new IDGenerator("t-", 6);
+        AtomicInteger counter = (AtomicInteger) ReflectionTestUtils.getField(generator, "serialCounter");
+        counter.set((int) 1e7 - 2);
+
+        assertEquals("999999", serial(generator.generateWithSpaceCodeHash("s"), "t-"));
+        assertEquals("000001", serial(generator.generateWithSpaceCodeHash("s"), "t-"));
+        assertEquals("000002", serial(generator.generateWithSpaceCodeHash("s"), "t-"));
+    }
+
+    @Test
+    public void generate_uniqueAcrossThreads() throws Exception {
+        IDGenerator generator = new IDGenerator("job-", 7);
+        int threads = 16;
+        int perThread = 20000;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.generateWithSpaceCodeHash("space"));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    private static String serial(String id, String prefix) {
+        int start = prefix.length() + 12 + 4;
+        return id.substring(start, start + 6);
+    }
+
+    private static String legacy(String prefix, String now, String instanceId, int val, int serialLength, String spaceCode) {
+        String serialFormat = "%0" + serialLength + "d";
+        int serialMask = Integer.parseInt("1" + String.format(serialFormat, 0));
+        String serial = String.format(serialFormat, val % serialMask);
+        String spaceCodeHash = String.valueOf(Math.abs(IDGenerator.hashCode(spaceCode)));
+        return String.format("%s%s%s%s-%s", prefix, now, instanceId, serial, spaceCodeHash);
+    }
+}
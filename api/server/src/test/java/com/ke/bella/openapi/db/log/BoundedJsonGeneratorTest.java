@@ -0,0 +1,97 @@
+package com.ke.bella.openapi.db.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 限长日志序列化：输出为合法JSON、超长字段被裁剪并记录路径、未超限时与完整序列化一致
+ */
+public class BoundedJsonGeneratorTest {
+
+    @Test
+    public void serialize_smallLogUnchanged() throws Exception {
+        EndpointProcessData log = new EndpointProcessData();
+        log.setRequestId("req-1");
+        log.setRequest(Collections.singletonMap("model", "gpt-4o"));
+
+        String bounded = BoundedJsonGenerator.serialize(JacksonUtils.MAPPER, log, 64 * 1024, 1024);
+
+        assertEquals(JacksonUtils.serialize(log), bounded);
+    }
+
+    @Test
+    public void serialize_underBudgetLogIsByteIdentical() throws Exception {
+        List<Object> messages = new ArrayList<>();
+        messages.add(Collections.singletonMap("content", "data:image/png;base64," + repeat('A', 2000)));
+        messages.add(Collections.singletonMap("content", repeat('x', 20_000)));
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("messages", messages);
+        request.put("audio", new byte[3000]);
+        EndpointProcessData log = new EndpointProcessData();
+        log.setRequestId("req-3");
+        log.setRequest(request);
+
+        // 长提示词、base64与二进制字段都在预算内，不做任何裁剪
+        String bounded = BoundedJsonGenerator.serialize(JacksonUtils.MAPPER, log, 64 * 1024, 16384);
+
+        assertEquals(JacksonUtils.MAPPER.writeValueAsString(log), bounded);
+        assertFalse(bounded.contains(BoundedJsonGenerator.TRUNCATED_FIELDS));
+    }
+
+    @Test
+    public void serialize_elidesOversizedFields() throws Exception {
+        List<Object> messages = new ArrayList<>();
+        messages.add(Collections.singletonMap("content", "data:image/png;base64," + repeat('A', 200_000)));
+        messages.add(Collections.singletonMap("content", repeat('x', 5000)));
+        for (int i = 0; i < 1000; i++) {
+            messages.add(Collections.singletonMap("content", "message " + i));
+        }
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("messages", messages);
+        request.put("audio", new byte[100_000]);
+        EndpointProcessData log = new EndpointProcessData();
+        log.setRequestId("req-2");
+        log.setRequest(request);
+        log.setCost(BigDecimal.ONE);
+
+        String bounded = BoundedJsonGenerator.serialize(JacksonUtils.MAPPER, log, 4096, 1024);
+        JsonNode json = JacksonUtils.MAPPER.readTree(bounded);
+
+        assertTrue(bounded.length() < 4096 + 2048, "length " + bounded.length());
+        JsonNode content = json.path("request").path("messages");
+        assertEquals("[ELIDED: image/png base64, 200022 chars]", content.get(0).path("content").asText());
+        assertTrue(content.get(1).path("content").asText().endsWith("...[TRUNCATED: 5000 chars]"));
+        assertTrue(content.get(content.size() - 1).asText().startsWith("[REMOVED: "));
+        assertEquals("[ELIDED: binary 100000 bytes]", json.path("request").path("audio").asText());
+        // 预算之外的标量字段仍保留
+        assertEquals("req-2", json.path("requestId").asText());
+        assertEquals(1, json.path("cost").asInt());
+
+        String fields = json.path(BoundedJsonGenerator.TRUNCATED_FIELDS).toString();
+        assertTrue(fields.contains("request.messages[0].content: base64 200022 chars"), fields);
+        assertTrue(fields.contains("request.messages[1].content: 5000 chars truncated"), fields);
+        assertTrue(fields.contains("request.audio: binary 100000 bytes"), fields);
+        assertFalse(bounded.contains("AAAAAAAAAA"));
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
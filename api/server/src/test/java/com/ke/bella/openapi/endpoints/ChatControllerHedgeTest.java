@@ -0,0 +1,225 @@
+package com.ke.bella.openapi.endpoints;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.EndpointContext;
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.TaskExecutor;
+import com.ke.bella.openapi.apikey.ApikeyInfo;
+import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.protocol.AdaptorManager;
+import com.ke.bella.openapi.protocol.ChannelRouter;
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
+import com.ke.bella.openapi.protocol.cache.ResponseCache;
+import com.ke.bella.openapi.protocol.completion.CompletionAdaptor;
+import com.ke.bella.openapi.protocol.completion.CompletionProperty;
+import com.ke.bella.openapi.protocol.completion.CompletionRequest;
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+import com.ke.bella.openapi.protocol.limiter.LimiterManager;
+import com.ke.bella.openapi.protocol.log.EndpointLogger;
+import com.ke.bella.openapi.protocol.route.RouteAffinity;
+import com.ke.bella.openapi.service.EndpointDataService;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * 多模型对冲请求：落选请求取消并记录日志、失败后切换下一个模型、全部失败返回最后一个错误、对冲线程清理线程变量
+ * <p>
+ * 各模型的上游请求通过CompletionAdaptor.completion模拟：返回响应即请求成功，抛出异常即请求失败
+ */
+@ExtendWith(MockitoExtension.class)
+public class ChatControllerHedgeTest {
+    private static final String ENDPOINT = "/v1/chat/completions";
+
+    @Mock
+    private EndpointLogger logger;
+    @Mock
+    private EndpointDataService endpointDataService;
+    @Mock
+    private ChannelRouter router;
+    @Mock
+    private AdaptorManager adaptorManager;
+    @Mock
+    private LimiterManager limiterManager;
+    @Mock
+    private RouteAffinity routeAffinity;
+    // 未打桩，查询结果总是未命中
+    @Mock
+    private ResponseCache responseCache;
+    @InjectMocks
+    private ChatController controller;
+    @SuppressWarnings("unchecked")
+    private final CompletionAdaptor<CompletionProperty> adaptor = mock(CompletionAdaptor.class);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(controller, "maxModelsPerRequest", 3);
+        ReflectionTestUtils.setField(controller, "hedgeEnabled", true);
+        ReflectionTestUtils.setField(controller, "hedgeDelayMillis", 50L);
+        ApikeyInfo apikey = new ApikeyInfo();
+        apikey.setCode("ak-1");
+        BellaContext.setApikey(apikey);
+        ChannelDB channel = new ChannelDB();
+        channel.setChannelCode("ch-1");
+        channel.setChannelInfo("{}");
+        when(router.route(anyString(), anyString(), any(ApikeyInfo.class), anyBoolean(), anyBoolean())).thenReturn(channel);
+        doReturn(adaptor).when(adaptorManager).getProtocolAdaptor(anyString(), isNull(), eq(CompletionAdaptor.class));
+        doReturn(CompletionProperty.class).when(adaptor).getPropertyClass();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        EndpointContext.clearAll();
+    }
+
+    @Test
+    public void hedge_cancelsAndLogsLoser() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(adaptor.completion(model("model-a"), any(), any())).thenAnswer(invocation -> {
+            // 模拟上游连接：被取消前一直不返回，取消后连接中断报错
+            UpstreamCancellation.register(cancelled::countDown);
+            assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+            throw new BellaException.ChannelException(502, "Canceled");
+        });
+        when(adaptor.completion(model("model-b"), any(), any())).thenReturn(response("model-b"));
+
+        Object result = controller.completion(request("model-a,model-b"), new MockHttpServletResponse());
+
+        assertEquals("model-b", ((CompletionResponse) result).getId());
+        // 胜出的非流式请求由EndpointResponseAdvice记录日志
+        assertEquals("model-b", EndpointContext.getProcessData().getModel());
+        // 落选请求取消后的报错不记为渠道错误
+        verify(logger, timeout(2000)).log(argThat((EndpointProcessData processData) -> "model-a".equals(processData.getModel())
+                && processData.isCancelled() && processData.getResponse().getError().getHttpCode() == 499));
+        verify(logger, never()).log(argThat((EndpointProcessData processData) -> "model-b".equals(processData.getModel())));
+    }
+
+    @Test
+    public void hedge_failureLaunchesNextModel() throws Exception {
+        // 对冲延迟足够长，第二个请求只会因第一个失败而启动
+        ReflectionTestUtils.setField(controller, "hedgeDelayMillis", 60_000L);
+        when(adaptor.completion(model("model-a"), any(), any())).thenThrow(new BellaException.ChannelException(500, "model-a down"));
+        when(adaptor.completion(model("model-b"), any(), any())).thenReturn(response("model-b"));
+
+        Object result = controller.completion(request("model-a,model-b,model-c"), new MockHttpServletResponse());
+
+        assertEquals("model-b", ((CompletionResponse) result).getId());
+        verify(logger).log(argThat((EndpointProcessData processData) -> "model-a".equals(processData.getModel())
+                && !processData.isCancelled() && processData.getResponse().getError().getHttpCode() == 500));
+        verify(router, never()).route(anyString(), eq("model-c"), any(ApikeyInfo.class), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void hedge_allFailedThrowsLastError() throws Exception {
+        ReflectionTestUtils.setField(controller, "hedgeDelayMillis", 60_000L);
+        when(adaptor.completion(model("model-a"), any(), any())).thenThrow(new BellaException.ChannelException(500, "model-a down"));
+        when(adaptor.completion(model("model-b"), any(), any())).thenThrow(new BellaException.ChannelException(429, "model-b limited"));
+
+        BellaException.ChannelException e = assertThrows(BellaException.ChannelException.class,
+                () -> controller.completion(request("model-a,model-b"), new MockHttpServletResponse()));
+
+        assertEquals(429, e.getHttpCode());
+        // 最后失败的请求由EndpointResponseAdvice记录日志，其余失败请求在此记录
+        assertEquals("model-b", EndpointContext.getProcessData().getModel());
+        verify(logger).log(argThat((EndpointProcessData processData) -> "model-a".equals(processData.getModel())));
+        verify(logger, never()).log(argThat((EndpointProcessData processData) -> "model-b".equals(processData.getModel())));
+    }
+
+    @Test
+    public void hedge_clearsThreadLocalsOnHedgeThreads() throws Exception {
+        ScheduledThreadPoolExecutor original = (ScheduledThreadPoolExecutor) ReflectionTestUtils.getField(TaskExecutor.class, "executor");
+        ScheduledThreadPoolExecutor single = new ScheduledThreadPoolExecutor(1);
+        ReflectionTestUtils.setField(TaskExecutor.class, "executor", single);
+        try {
+            List<String> seen = new ArrayList<>();
+            AtomicReference<EndpointProcessData> attemptData = new AtomicReference<>();
+            when(adaptor.completion(model("model-a"), any(), any())).thenAnswer(invocation -> {
+                seen.add(BellaContext.getApikey().getCode());
+                EndpointContext.setRouteAffinityKey(1L);
+                throw new BellaException.ChannelException(500, "model-a down");
+            });
+            when(adaptor.completion(model("model-b"), any(), any())).thenAnswer(invocation -> {
+                seen.add(BellaContext.getApikey().getCode());
+                attemptData.set(EndpointContext.getProcessData());
+                return response("model-b");
+            });
+
+            controller.completion(request("model-a,model-b"), new MockHttpServletResponse());
+
+            // 对冲线程继承请求线程的上下文
+            assertEquals(2, seen.size());
+            assertEquals("ak-1", seen.get(0));
+            assertEquals("ak-1", seen.get(1));
+            assertSame(attemptData.get(), EndpointContext.getProcessData());
+
+            // 同一线程上的后续任务看不到对冲请求留下的线程变量
+            List<Object> leftovers = new ArrayList<>();
+            TaskExecutor.submit(() -> {
+                leftovers.add(BellaContext.getApikeyIgnoreNull());
+                leftovers.add(EndpointContext.getRouteAffinityKey());
+                leftovers.add(BellaContext.getHeaders().isEmpty());
+                leftovers.add(EndpointContext.getProcessData());
+            }).get(5, TimeUnit.SECONDS);
+            assertNull(leftovers.get(0));
+            assertNull(leftovers.get(1));
+            assertEquals(true, leftovers.get(2));
+            assertNotSame(attemptData.get(), leftovers.get(3));
+        } finally {
+            ReflectionTestUtils.setField(TaskExecutor.class, "executor", original);
+            single.shutdownNow();
+        }
+    }
+
+    private static MockHttpServletRequest request(String model) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", ENDPOINT);
+        request.setContent(("{\"model\":\"" + model + "\",\"messages\":[{\"role\":\"user\",\"content\":\"hi\"}]}")
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static CompletionRequest model(String model) {
+        return argThat((CompletionRequest request) -> request != null && model.equals(request.getModel()));
+    }
+
+    private static CompletionResponse response(String id) {
+        CompletionResponse response = new CompletionResponse();
+        response.setId(id);
+        return response;
+    }
+}
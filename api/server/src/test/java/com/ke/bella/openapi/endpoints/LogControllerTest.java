@@ -0,0 +1,130 @@
+package com.ke.bella.openapi.endpoints;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.apikey.ApikeyInfo;
+import com.ke.bella.openapi.client.LogShipper;
+import com.ke.bella.openapi.common.exception.BizParamCheckException;
+import com.ke.bella.openapi.protocol.log.EndpointLogger;
+import com.ke.bella.openapi.service.ApikeyService;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 批量日志接口：gzip解压、无效条目跳过、解压大小限制、按批次id去重
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogControllerTest {
+
+    @Mock
+    private EndpointLogger logger;
+    @Mock
+    private ApikeyService apikeyService;
+    @Mock
+    private RedissonClient redisson;
+    @Mock
+    private RBucket<Object> bucket;
+    @InjectMocks
+    private LogController controller;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void batchRecord_acceptsGzipAndSkipsInvalidLogs() throws Exception {
+        ApikeyInfo apikey = new ApikeyInfo();
+        apikey.setCode("ak-1");
+        when(apikeyService.queryBySha(anyString(), eq(true))).thenAnswer(invocation -> "sha-1".equals(invocation.getArgument(0)) ? apikey : null);
+        List<EndpointProcessData> logs = Arrays.asList(log("sha-1", "trace-1"), log("sha-1", "trace-2"),
+                log("sha-unknown", "trace-3"), log("sha-1", null));
+
+        Integer accepted = controller.batchRecord(gzipRequest(JacksonUtils.toByte(logs)));
+
+        assertEquals(2, accepted);
+        ArgumentCaptor<List<EndpointProcessData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(logger).log(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals("ak-1", captor.getValue().get(0).getAkCode());
+    }
+
+    @Test
+    public void batchRecord_skipsDuplicatedBatch() throws Exception {
+        ApikeyInfo apikey = new ApikeyInfo();
+        apikey.setCode("ak-1");
+        when(apikeyService.queryBySha("sha-1", true)).thenReturn(apikey);
+        when(redisson.getBucket(eq("bella-openapi-log-batch:batch-1"), any(Codec.class))).thenReturn(bucket);
+        // 首次请求已写入但响应丢失，sdk以相同批次id重试
+        when(bucket.trySet(eq("1"), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true, false);
+        byte[] body = JacksonUtils.toByte(Arrays.asList(log("sha-1", "trace-1")));
+
+        MockHttpServletRequest first = gzipRequest(body);
+        first.addHeader(LogShipper.BATCH_ID_HEADER, "batch-1");
+        MockHttpServletRequest retry = gzipRequest(body);
+        retry.addHeader(LogShipper.BATCH_ID_HEADER, "batch-1");
+
+        assertEquals(1, controller.batchRecord(first));
+        assertEquals(1, controller.batchRecord(retry));
+        verify(logger, times(1)).log(anyList());
+    }
+
+    @Test
+    public void batchRecord_rejectsOversizedBody() throws Exception {
+        ReflectionTestUtils.setField(controller, "batchMaxBytes", 1024L);
+        // 全是空格的请求体压缩后很小，解压后超过限制
+        byte[] body = new byte[64 * 1024];
+        Arrays.fill(body, (byte) ' ');
+        MockHttpServletRequest request = gzipRequest(body);
+        assertTrue(request.getContentAsByteArray().length < 1024);
+
+        assertThrows(BizParamCheckException.class, () -> controller.batchRecord(request));
+        verify(logger, never()).log(anyList());
+    }
+
+    private static EndpointProcessData log(String akSha, String traceId) {
+        EndpointProcessData processData = new EndpointProcessData();
+        processData.setEndpoint("/v1/chat/completions");
+        processData.setAkSha(akSha);
+        processData.setBellaTraceId(traceId);
+        return processData;
+    }
+
+    private static MockHttpServletRequest gzipRequest(byte[] json) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            gzip.write(json);
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/log/batch");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(bos.toByteArray());
+        return request;
+    }
+}
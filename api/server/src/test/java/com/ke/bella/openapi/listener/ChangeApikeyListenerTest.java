@@ -0,0 +1,59 @@
+package com.ke.bella.openapi.listener;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ke.bella.openapi.apikey.ApikeyInfo;
+import com.ke.bella.openapi.db.repo.ApikeyRepo;
+import com.ke.bella.openapi.event.ApiKeyChangeEvent;
+import com.ke.bella.openapi.service.ApikeyService;
+
+/**
+ * ak变更提交后清理code和sha缓存，重置ak时按变更前的sha清理旧缓存
+ */
+@ExtendWith(MockitoExtension.class)
+public class ChangeApikeyListenerTest {
+
+    @Mock
+    private ApikeyRepo apikeyRepo;
+    @Mock
+    private ApikeyService apikeyService;
+    @InjectMocks
+    private ChangeApikeyListener listener;
+
+    @Test
+    public void handleApiKeyChange_evictsCodeAndShaOnUpdate() {
+        when(apikeyRepo.queryByCode("ak-1")).thenReturn(apikey("sha-1"));
+
+        listener.handleApiKeyChange(new ApiKeyChangeEvent(Collections.singletonList("ak-1")));
+
+        verify(apikeyService).clearApikeyCodeCache("ak-1");
+        verify(apikeyService).clearApikeyCache("sha-1");
+    }
+
+    @Test
+    public void handleApiKeyChange_evictsPreUpdateShaOnReset() {
+        // 提交后查询到的是重置后的新sha
+        when(apikeyRepo.queryByCode("ak-1")).thenReturn(apikey("sha-new"));
+
+        listener.handleApiKeyChange(new ApiKeyChangeEvent(Collections.singletonList("ak-1"), Collections.singletonList("sha-old")));
+
+        verify(apikeyService).clearApikeyCodeCache("ak-1");
+        verify(apikeyService).clearApikeyCache("sha-old");
+        verify(apikeyService).clearApikeyCache("sha-new");
+    }
+
+    private static ApikeyInfo apikey(String sha) {
+        ApikeyInfo info = new ApikeyInfo();
+        info.setAkSha(sha);
+        return info;
+    }
+}
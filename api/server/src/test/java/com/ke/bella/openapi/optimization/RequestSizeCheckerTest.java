@@ -0,0 +1,93 @@
+package com.ke.bella.openapi.optimization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.ke.bella.openapi.EndpointContext;
+import com.ke.bella.openapi.configuration.RequestOptimizationConfig;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 请求大小估计：计数中止、Content-Length快速路径、结果缓存
+ */
+public class RequestSizeCheckerTest {
+
+    private static final int THRESHOLD = 1024;
+
+    @AfterEach
+    public void tearDown() {
+        EndpointContext.clearAll();
+    }
+
+    @Test
+    public void serializedSize_exactBelowLimitAndAbortsAbove() throws Exception {
+        Map<String, Object> small = Collections.singletonMap("input", "hello");
+        assertEquals(JacksonUtils.toByte(small).length, RequestSizeEstimator.serializedSize(small, THRESHOLD));
+
+        Map<String, Object> large = Collections.singletonMap("input", text(1_000_000));
+        assertEquals(THRESHOLD + 1, RequestSizeEstimator.serializedSize(large, THRESHOLD));
+    }
+
+    @Test
+    public void serializedPrefix_matchesTruncatedSerialization() throws Exception {
+        Map<String, Object> request = Collections.singletonMap("input", text(10_000));
+        String full = JacksonUtils.serialize(request);
+
+        assertEquals(full.substring(0, 100) + "...[TRUNCATED]", RequestSizeEstimator.serializedPrefix(request, 100));
+        assertEquals(full, RequestSizeEstimator.serializedPrefix(request, full.length()));
+    }
+
+    @Test
+    public void isLargeRequest_usesContentLengthForJson() {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.setContentType("application/json");
+        servletRequest.setContent(new byte[THRESHOLD * 2]);
+        EndpointContext.setRequest(servletRequest);
+
+        // 请求对象本身很小，JSON请求以Content-Length为准，不再序列化
+        Object request = Collections.singletonMap("input", "hello");
+        assertTrue(checker().isLargeRequest(request));
+        assertEquals(THRESHOLD * 2, EndpointContext.getRequestSize());
+    }
+
+    @Test
+    public void isLargeRequest_measuresMultipartAndCaches() {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.setContentType("multipart/form-data; boundary=x");
+        servletRequest.setContent(new byte[THRESHOLD * 100]);
+        EndpointContext.setRequest(servletRequest);
+
+        // 文件不在请求对象中：按请求对象序列化大小判断
+        Object request = Collections.singletonMap("model", "whisper-1");
+        RequestSizeChecker checker = checker();
+        assertFalse(checker.isLargeRequest(request));
+        assertTrue(EndpointContext.isRequestSizeChecked(request));
+        assertEquals(JacksonUtils.toByte(request).length, EndpointContext.getRequestSize());
+
+        Object large = Collections.singletonMap("prompt", Arrays.asList(text(THRESHOLD), text(THRESHOLD)));
+        assertTrue(checker.isLargeRequest(large));
+        assertTrue(checker.isLargeRequest(large));
+        assertEquals(THRESHOLD + 1, EndpointContext.getRequestSize());
+    }
+
+    private static RequestSizeChecker checker() {
+        RequestOptimizationConfig config = new RequestOptimizationConfig();
+        config.setLargeRequestThreshold(THRESHOLD);
+        return new RequestSizeChecker(config);
+    }
+
+    private static String text(int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'a');
+        return new String(chars);
+    }
+}
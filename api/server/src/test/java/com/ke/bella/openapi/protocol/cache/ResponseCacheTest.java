@@ -0,0 +1,196 @@
+package com.ke.bella.openapi.protocol.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.EndpointContext;
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.configuration.ResponseCacheConfig;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.protocol.completion.CompletionRequest;
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+import com.ke.bella.openapi.protocol.completion.Message;
+import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * 网关响应缓存：缓存键规范化、启用条件、写入与命中、流式回放分片
+ */
+public class ResponseCacheTest {
+    private static final String ENDPOINT = "/v1/chat/completions";
+
+    @AfterEach
+    public void tearDown() {
+        EndpointContext.clearAll();
+    }
+
+    @Test
+    public void key_ignoresFieldOrderAndVolatileFields() {
+        String key = ResponseCache.key(ENDPOINT, "gpt-4o", "acc", JacksonUtils.deserialize(
+                "{\"model\":\"gpt-4o\",\"temperature\":0,\"messages\":[{\"role\":\"user\",\"content\":\"hi\"}]}", CompletionRequest.class));
+        String reordered = ResponseCache.key(ENDPOINT, "gpt-4o", "acc", JacksonUtils.deserialize(
+                "{\"messages\":[{\"content\":\"hi\",\"role\":\"user\"}],\"stream\":true,\"user\":\"u1\",\"temperature\":0.0,\"model\":\"gpt-4o\"}",
+                CompletionRequest.class));
+        assertEquals(key, reordered);
+
+        assertNotEquals(key, ResponseCache.key(ENDPOINT, "gpt-4o-mini", "acc", request(0f, "hi")));
+        assertNotEquals(key, ResponseCache.key(ENDPOINT, "gpt-4o", "other", request(0f, "hi")));
+        assertNotEquals(key, ResponseCache.key(ENDPOINT, "gpt-4o", "acc", request(0f, "hello")));
+    }
+
+    @Test
+    public void lookup_hitAfterStore() {
+        ResponseCache cache = new ResponseCache(config(), null);
+        BellaContext.getHeaders().put(ResponseCache.CACHE_HEADER, "on");
+
+        assertNull(cache.lookup(ENDPOINT, "gpt-4o", request(0f, "hi")));
+        EndpointProcessData miss = EndpointContext.getProcessData();
+        assertNotNull(miss.getResponseCacheKey());
+        miss.setEndpoint(ENDPOINT);
+        miss.setChannelCode("ch-1");
+        miss.setPriceInfo("{\"input\": 1}");
+        miss.setResponse(response("stop"));
+        cache.store(miss);
+
+        EndpointContext.setProcessData(null);
+        OpenapiResponse cached = cache.lookup(ENDPOINT, "gpt-4o", request(0f, "hi"));
+        assertTrue(cached instanceof CompletionResponse);
+        assertEquals("你好", ((CompletionResponse) cached).getChoices().get(0).getMessage().getContent());
+        EndpointProcessData hit = EndpointContext.getProcessData();
+        assertTrue(hit.isCacheHit());
+        assertEquals("ch-1", hit.getChannelCode());
+        assertEquals("{\"input\": 1}", hit.getPriceInfo());
+        assertNull(hit.getResponseCacheKey());
+
+        // refresh跳过查询，重新请求上游并覆盖缓存
+        EndpointContext.setProcessData(null);
+        BellaContext.getHeaders().put(ResponseCache.CACHE_HEADER, "refresh");
+        assertNull(cache.lookup(ENDPOINT, "gpt-4o", request(0f, "hi")));
+        assertNotNull(EndpointContext.getProcessData().getResponseCacheKey());
+    }
+
+    @Test
+    public void lookup_requiresOptInAndDeterministicRequest() {
+        ResponseCacheConfig config = config();
+        ResponseCache cache = new ResponseCache(config, null);
+        EndpointProcessData processData = EndpointContext.getProcessData();
+        processData.setAkCode("ak-1");
+
+        // 未通过apikey或请求头启用
+        assertNull(cache.lookup(ENDPOINT, "gpt-4o", request(0f, "hi")));
+        assertNull(processData.getResponseCacheKey());
+
+        config.getApikeys().add("ak-1");
+        cache.lookup(ENDPOINT, "gpt-4o", request(0.7f, "hi"));
+        assertNull(processData.getResponseCacheKey());
+
+        BellaContext.getHeaders().put(ResponseCache.CACHE_HEADER, "off");
+        cache.lookup(ENDPOINT, "gpt-4o", request(0f, "hi"));
+        assertNull(processData.getResponseCacheKey());
+
+        BellaContext.getHeaders().remove(ResponseCache.CACHE_HEADER);
+        cache.lookup("/v1/audio/speech", "tts", request(0f, "hi"));
+        assertNull(processData.getResponseCacheKey());
+
+        CompletionRequest logprobs = request(0f, "hi");
+        logprobs.setLogprobs(true);
+        cache.lookup(ENDPOINT, "gpt-4o", logprobs);
+        assertNull(processData.getResponseCacheKey());
+
+        CompletionRequest topLogprobs = request(0f, "hi");
+        topLogprobs.setTop_logprobs(3);
+        cache.lookup(ENDPOINT, "gpt-4o", topLogprobs);
+        assertNull(processData.getResponseCacheKey());
+
+        cache.lookup(ENDPOINT, "gpt-4o", request(0f, "hi"));
+        assertNotNull(processData.getResponseCacheKey());
+    }
+
+    @Test
+    public void store_skipsIncompleteResponses() {
+        assertFalse(ResponseCache.cacheable(response(null)));
+        CompletionResponse risky = response("stop");
+        risky.setSensitives("risk");
+        assertFalse(ResponseCache.cacheable(risky));
+        CompletionResponse flagged = response("stop");
+        flagged.setRequestRiskData("risk");
+        assertFalse(ResponseCache.cacheable(flagged));
+        assertFalse(ResponseCache.cacheable(OpenapiResponse.errorResponse(new OpenapiResponse.OpenapiError())));
+        CompletionResponse noUsage = response("stop");
+        noUsage.setUsage(null);
+        assertFalse(ResponseCache.cacheable(noUsage));
+        assertTrue(ResponseCache.cacheable(response("stop")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void normalize_storesStreamResponseAsCompletion() {
+        CompletionResponse streamed = response("stop");
+        streamed.setObject(StreamCompletionResponse.CHAT_COMPLETION_CHUNK_OBJECT);
+        Map<String, Object> normalized = (Map<String, Object>) ResponseCache.normalize(streamed);
+        assertEquals("chat.completion", normalized.get("object"));
+        assertEquals("chatcmpl-1", normalized.get("id"));
+        // 不修改日志中共享的响应对象
+        assertEquals(StreamCompletionResponse.CHAT_COMPLETION_CHUNK_OBJECT, streamed.getObject());
+
+        CompletionResponse restored = JacksonUtils.deserialize(JacksonUtils.serialize(normalized), CompletionResponse.class);
+        assertEquals("你好", restored.getChoices().get(0).getMessage().getContent());
+        assertEquals(5, restored.getUsage().getTotal_tokens());
+    }
+
+    @Test
+    public void toStreamChunks_replaysChoicesThenUsage() {
+        CompletionResponse response = response("stop");
+        response.setUsage(CompletionResponse.TokenUsage.builder().prompt_tokens(3).completion_tokens(2).total_tokens(5).build());
+        List<StreamCompletionResponse> chunks = ResponseCache.toStreamChunks(response);
+        assertEquals(2, chunks.size());
+        assertEquals("你好", chunks.get(0).content());
+        assertEquals("stop", chunks.get(0).getChoices().get(0).getFinish_reason());
+        assertEquals(StreamCompletionResponse.CHAT_COMPLETION_CHUNK_OBJECT, chunks.get(0).getObject());
+        assertTrue(chunks.get(1).getChoices().isEmpty());
+        assertEquals(5, chunks.get(1).getUsage().getTotal_tokens());
+    }
+
+    private static ResponseCacheConfig config() {
+        ResponseCacheConfig config = new ResponseCacheConfig();
+        config.setEnabled(true);
+        config.getTtlSeconds().put(ENDPOINT, 60L);
+        return config;
+    }
+
+    private static CompletionRequest request(float temperature, String content) {
+        List<Message> messages = new ArrayList<>();
+        messages.add(Message.builder().role("user").content(content).build());
+        CompletionRequest request = new CompletionRequest();
+        request.setModel("gpt-4o");
+        request.setTemperature(temperature);
+        request.setMessages(messages);
+        return request;
+    }
+
+    private static CompletionResponse response(String finishReason) {
+        CompletionResponse.Choice choice = new CompletionResponse.Choice();
+        choice.setFinish_reason(finishReason);
+        choice.setMessage(Message.builder().role("assistant").content("你好").build());
+        List<CompletionResponse.Choice> choices = new ArrayList<>();
+        choices.add(choice);
+        CompletionResponse response = new CompletionResponse();
+        response.setId("chatcmpl-1");
+        response.setModel("gpt-4o");
+        response.setChoices(choices);
+        response.setUsage(CompletionResponse.TokenUsage.builder().prompt_tokens(3).completion_tokens(2).total_tokens(5).build());
+        return response;
+    }
+}
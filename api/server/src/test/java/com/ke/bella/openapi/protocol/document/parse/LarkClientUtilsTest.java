@@ -0,0 +1,47 @@
+package com.ke.bella.openapi.protocol.document.parse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 飞书图片流式下载：超过大小上限时提前中断读取
+ */
+public class LarkClientUtilsTest {
+
+    @Test
+    public void readLimited_returnsContentWithinLimit() throws Exception {
+        byte[] image = new byte[10_000];
+        image[9_999] = 1;
+
+        assertArrayEquals(image, LarkClientUtils.readLimited(new ByteArrayInputStream(image), image.length));
+    }
+
+    @Test
+    public void readLimited_stopsReadingOnceOverLimit() throws Exception {
+        AtomicLong consumed = new AtomicLong();
+        // 没有Content-Length、不会结束的响应
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                consumed.incrementAndGet();
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                consumed.addAndGet(len);
+                return len;
+            }
+        };
+
+        assertNull(LarkClientUtils.readLimited(endless, 64 * 1024));
+        assertTrue(consumed.get() <= 64 * 1024 + 8192);
+    }
+}
@@ -0,0 +1,159 @@
+package com.ke.bella.openapi.protocol.limiter;
+
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.script.LuaScriptExecutor;
+import com.ke.bella.openapi.script.ScriptType;
+import com.ke.bella.openapi.utils.DateTimeUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LimiterManager RPM分段计数测试，mock的脚本按segment_counter.lua的方式存取各段，窗口累加走LimiterManager
+ */
+@ExtendWith(MockitoExtension.class)
+class LimiterManagerRpmTest {
+
+    @Mock
+    private LuaScriptExecutor executor;
+
+    @Mock
+    private RedissonClient redisson;
+
+    @Mock
+    private RBucket<Object> legacyBucket;
+
+    @InjectMocks
+    private LimiterManager limiterManager;
+
+    private static final String TEST_AK_CODE = "test-ak-123";
+    private static final String TEST_ENTITY_CODE = "gpt-4";
+
+    // 模拟Redis中各key的分段Hash
+    private final Map<String, Map<Long, Long>> segments = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        segments.clear();
+        ReflectionTestUtils.setField(limiterManager, "legacyRpmRead", true);
+        lenient().when(executor.execute(eq("/segment_counter"), eq(ScriptType.limiter), anyList(), anyList()))
+                .thenAnswer(invocation -> {
+                    List<Object> keys = invocation.getArgument(2);
+                    List<Object> params = invocation.getArgument(3);
+                    int window = ((Number) params.get(0)).intValue();
+                    int segmentSize = ((Number) params.get(1)).intValue();
+                    long cost = ((Number) params.get(2)).longValue();
+                    long now = ((Number) params.get(3)).longValue();
+                    long current = now / segmentSize;
+                    int num = (int) Math.ceil((double) window / segmentSize);
+                    Map<Long, Long> hash = segments.computeIfAbsent((String) keys.get(0), k -> new HashMap<>());
+                    if(cost > 0) {
+                        hash.merge(current, cost, Long::sum);
+                    }
+                    hash.keySet().removeIf(segment -> segment < current - num);
+                    List<Object> result = new ArrayList<>();
+                    result.add(1L);
+                    for (int i = 0; i <= num; i++) {
+                        result.add(hash.getOrDefault(current - i, 0L));
+                    }
+                    return result;
+                });
+        lenient().when(redisson.getBucket(anyString())).thenReturn((RBucket) legacyBucket);
+    }
+
+    @Test
+    void testRpmUsesSegmentCounter() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            limiterManager.incrementRequestCountPerMinute(TEST_AK_CODE, TEST_ENTITY_CODE, 1000L);
+        }
+
+        assertEquals(3L, countAt(1000L));
+        // 每个请求只做一次固定key的计数，不再按requestId写入成员
+        verify(executor, times(4)).execute(eq("/segment_counter"), eq(ScriptType.limiter),
+                eq(Arrays.asList("bella-openapi-limiter-rpm-segment:gpt-4:test-ak-123")), anyList());
+    }
+
+    @Test
+    void testRpmWindowRollsOver() {
+        for (int i = 0; i < 10; i++) {
+            limiterManager.incrementRequestCountPerMinute(TEST_AK_CODE, TEST_ENTITY_CODE, 1000L);
+        }
+
+        assertEquals(10L, countAt(1030L));
+        // 窗口起点1002，段[1000,1005)只有3秒在窗口内
+        assertEquals(6L, countAt(1062L));
+        // 段[1000,1005)已移出窗口
+        assertEquals(0L, countAt(1065L));
+    }
+
+    @Test
+    void testWindowTotalWeightsOldestSegment() {
+        // now=1002，当前段[1000,1005)全部计入；窗口起点942，最早的段[940,945)计入3/5
+        List<Long> counts = new ArrayList<>(Arrays.asList(7L, 5L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 10L));
+        assertEquals(7L + 5L + 6L, LimiterManager.windowTotal(counts, 1002L, 60, 5));
+        assertEquals(0L, LimiterManager.windowTotal(new ArrayList<>(), 1002L, 60, 5));
+    }
+
+    @Test
+    void testRecordCountsRequestsOnly() throws IOException {
+        EndpointProcessData processData = new EndpointProcessData();
+        processData.setChannelCode("ch-1");
+        processData.setModel(TEST_ENTITY_CODE);
+        processData.setAkCode(TEST_AK_CODE);
+        processData.setRequestId("req-1");
+        try (MockedStatic<DateTimeUtils> time = mockStatic(DateTimeUtils.class)) {
+            time.when(DateTimeUtils::getCurrentSeconds).thenReturn(1000L);
+            limiterManager.record(processData);
+            limiterManager.record(processData);
+        }
+
+        assertEquals(2L, countAt(1000L));
+        assertEquals(1, segments.size());
+    }
+
+    @Test
+    void testRpmDualReadAddsLegacyCount() {
+        when(legacyBucket.get()).thenReturn("4");
+        limiterManager.incrementRequestCountPerMinute(TEST_AK_CODE, TEST_ENTITY_CODE, 1000L);
+
+        assertEquals(5L, countAt(1000L));
+
+        ReflectionTestUtils.setField(limiterManager, "legacyRpmRead", false);
+        assertEquals(1L, countAt(1000L));
+    }
+
+    @Test
+    void testScriptFailureReturnsZero() throws IOException {
+        ReflectionTestUtils.setField(limiterManager, "legacyRpmRead", false);
+        when(executor.execute(eq("/segment_counter"), eq(ScriptType.limiter), anyList(), anyList()))
+                .thenThrow(new IOException("redis down"));
+
+        assertEquals(0L, limiterManager.getRequestCountPerMinute(TEST_AK_CODE, TEST_ENTITY_CODE));
+    }
+
+    private long countAt(long timestamp) {
+        try (MockedStatic<DateTimeUtils> time = mockStatic(DateTimeUtils.class)) {
+            time.when(DateTimeUtils::getCurrentSeconds).thenReturn(timestamp);
+            return limiterManager.getRequestCountPerMinute(TEST_AK_CODE, TEST_ENTITY_CODE);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ke.bella.openapi.protocol.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ke.bella.openapi.configuration.AdaptiveLimitConfig;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * 自适应并发限额：AIMD调整、饱和渠道让出，以及上游降级期间的故障注入仿真
+ */
+public class AdaptiveConcurrencyLimitTest {
+
+    @Test
+    public void onSample_backsOffOnDropAndLatencyInflation() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(config(true));
+        // 限额未被充分使用时不增长
+        limit.onSample(100, false, 2);
+        assertEquals(10, limit.getLimit());
+
+        limit.onSample(100, false, 5);
+        assertEquals(11, limit.getLimit());
+
+        limit.onSample(0, true, 5);
+        assertEquals(9, limit.getLimit());
+
+        // 延迟超过基线2倍
+        limit.onSample(300, false, 9);
+        assertEquals(8, limit.getLimit());
+
+        limit.blend(20);
+        assertEquals(14, limit.getLimit());
+    }
+
+    @Test
+    public void onSample_keepsSeparateBaselinesForFirstPackageAndTotal() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(config(true));
+        limit.onSample(100, true, false, 5);
+        assertEquals(11, limit.getLimit());
+
+        // 非流式总耗时远大于流式首包时间，不视为延迟膨胀
+        limit.onSample(2000, false, false, 6);
+        assertEquals(12, limit.getLimit());
+        limit.onSample(150, true, false, 6);
+        assertEquals(13, limit.getLimit());
+
+        // 同类样本超过各自基线2倍时退让
+        limit.onSample(5000, false, false, 7);
+        assertEquals(11, limit.getLimit());
+    }
+
+    @Test
+    public void available_skipsSaturatedChannels() {
+        ChannelLoadStats stats = new ChannelLoadStats(config(true));
+        ChannelDB a = channel("ch-a");
+        ChannelDB b = channel("ch-b");
+        for (int i = 0; i < 10; i++) {
+            stats.acquire("ch-a");
+        }
+        assertTrue(stats.isSaturated("ch-a"));
+        assertEquals(Arrays.asList(b), stats.available(Arrays.asList(a, b), channel -> false));
+        assertEquals(Arrays.asList(a, b), stats.available(Arrays.asList(a, b), channel -> channel == a));
+
+        for (int i = 0; i < 10; i++) {
+            stats.acquire("ch-b");
+        }
+        assertTrue(stats.available(Arrays.asList(a, b), channel -> false).isEmpty());
+
+        stats.complete("ch-b", 100, false);
+        assertEquals(Arrays.asList(b), stats.available(Arrays.asList(a, b), channel -> false));
+
+        // 关闭后不再跳过
+        ChannelLoadStats disabled = new ChannelLoadStats(config(false));
+        for (int i = 0; i < 10; i++) {
+            disabled.acquire("ch-a");
+        }
+        assertFalse(disabled.isSaturated("ch-a"));
+    }
+
+    /**
+     * ch-a在第10~40秒降级：上游只接受5个并发，超出的请求20ms后返回429，接受的请求延迟升至3倍。
+     * 按随机策略分配以单独考察限额的作用：启用自适应限额后，发往降级渠道并被429拒绝的请求显著减少
+     */
+    @Test
+    public void brownout_lessWastedUpstreamTraffic() {
+        Brownout withoutLimit = Brownout.run(config(false));
+        Brownout withLimit = Brownout.run(config(true));
+
+        assertTrue(withLimit.wasted * 2 < withoutLimit.wasted,
+                "wasted with limit " + withLimit.wasted + ", without " + withoutLimit.wasted);
+        assertTrue(withLimit.served > withoutLimit.served * 0.95,
+                "served with limit " + withLimit.served + ", without " + withoutLimit.served);
+    }
+
+    private static AdaptiveLimitConfig config(boolean enabled) {
+        AdaptiveLimitConfig config = new AdaptiveLimitConfig();
+        config.setEnabled(enabled);
+        config.setInitialLimit(10);
+        config.setQueueMillis(0);
+        return config;
+    }
+
+    private static ChannelDB channel(String code) {
+        ChannelDB channel = new ChannelDB();
+        channel.setChannelCode(code);
+        channel.setChannelInfo("{}");
+        return channel;
+    }
+
+    /**
+     * 虚拟时钟的离散事件仿真，两个渠道平均延迟100ms，泊松到达200rps
+     */
+    private static class Brownout {
+        static final double RPS = 200;
+        static final double DURATION_MILLIS = 60_000;
+        static final double BROWNOUT_START = 10_000;
+        static final double BROWNOUT_END = 40_000;
+        static final int BROWNOUT_CAPACITY = 5;
+
+        int wasted;
+        int served;
+
+        static Brownout run(AdaptiveLimitConfig config) {
+            Brownout result = new Brownout();
+            Random random = new Random(7);
+            ChannelLoadStats stats = new ChannelLoadStats(config);
+            RandomChannelSelector selector = new RandomChannelSelector();
+            List<ChannelDB> candidates = Arrays.asList(channel("ch-a"), channel("ch-b"));
+            // {完成时间, 渠道下标, 开始时间, 是否429}
+            PriorityQueue<double[]> completions = new PriorityQueue<>((x, y) -> Double.compare(x[0], y[0]));
+            int[] upstreamInflight = new int[2];
+            double now = 0;
+            while (now < DURATION_MILLIS) {
+                double[] next = completions.peek();
+                double arrival = now - Math.log(1 - random.nextDouble()) * 1000 / RPS;
+                while (next != null && next[0] <= arrival) {
+                    completions.poll();
+                    int index = (int) next[1];
+                    boolean rejected = next[3] > 0;
+                    if(!rejected) {
+                        upstreamInflight[index]--;
+                        result.served++;
+                    }
+                    stats.complete(candidates.get(index).getChannelCode(), Math.round(next[0] - next[2]), rejected);
+                    next = completions.peek();
+                }
+                now = arrival;
+                List<ChannelDB> available = stats.available(candidates, channel -> false);
+                if(available.isEmpty()) {
+                    continue;
+                }
+                ChannelDB chosen = selector.select(available);
+                int index = candidates.indexOf(chosen);
+                stats.acquire(chosen.getChannelCode());
+                double latency = 100 * Math.exp(0.3 * random.nextGaussian() - 0.045);
+                boolean brownout = index == 0 && now >= BROWNOUT_START && now < BROWNOUT_END;
+                if(brownout && upstreamInflight[index] >= BROWNOUT_CAPACITY) {
+                    result.wasted++;
+                    completions.add(new double[] { now + 20, index, now, 1 });
+                    continue;
+                }
+                upstreamInflight[index]++;
+                completions.add(new double[] { now + (brownout ? latency * 3 : latency), index, now, 0 });
+            }
+            return result;
+        }
+    }
+}
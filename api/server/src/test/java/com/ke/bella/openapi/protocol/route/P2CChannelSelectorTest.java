@@ -0,0 +1,168 @@
+package com.ke.bella.openapi.protocol.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.protocol.OpenapiResponse;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+import com.ke.bella.openapi.utils.DateTimeUtils;
+
+/**
+ * 负载统计与p2c选择：EWMA延迟、在途计数、失败惩罚、权重与并发上限
+ */
+public class P2CChannelSelectorTest {
+
+    @Test
+    public void complete_updatesEwmaAndInflight() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        stats.acquire("ch-1");
+        stats.acquire("ch-1");
+        assertEquals(2, stats.load("ch-1").getInflight());
+
+        stats.complete("ch-1", 100, false);
+        stats.complete("ch-1", 200, false);
+        assertEquals(0, stats.load("ch-1").getInflight());
+        assertEquals(100 + ChannelLoadStats.ALPHA * 100, stats.load("ch-1").getLatency(), 1e-9);
+
+        // 多余的完成不会使在途数为负
+        stats.complete("ch-1", 0, false);
+        assertEquals(0, stats.load("ch-1").getInflight());
+    }
+
+    @Test
+    public void complete_readsLogMetricsAndPenalizesFailures() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("ttft", 300);
+        metrics.put("ttlt", 5000);
+        EndpointProcessData log = new EndpointProcessData();
+        log.setChannelCode("ch-1");
+        log.setMetrics(metrics);
+        stats.complete(log);
+        assertEquals(300, stats.load("ch-1").getLatency(), 1e-9);
+
+        // 参数错误不计入延迟
+        log.setMetrics(new HashMap<>());
+        log.setResponse(error(400));
+        stats.complete(log);
+        assertEquals(300, stats.load("ch-1").getLatency(), 1e-9);
+
+        // 快速失败的5xx按惩罚延迟计入
+        log.setResponse(error(502));
+        stats.complete(log);
+        assertTrue(stats.load("ch-1").getLatency() > 300);
+    }
+    @Test
+    public void complete_releasesOnlyLeasedRequests() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        EndpointProcessData log = new EndpointProcessData();
+        log.setChannelCode("ch-1");
+        stats.acquire(log, "ch-1");
+        stats.acquire("ch-1");
+        assertEquals(2, stats.load("ch-1").getInflight());
+
+        // 没有租约的日志（sdk上报等）不释放在途数
+        EndpointProcessData reported = new EndpointProcessData();
+        reported.setChannelCode("ch-1");
+        stats.complete(reported);
+        assertEquals(2, stats.load("ch-1").getInflight());
+
+        stats.complete(log);
+        assertEquals(1, stats.load("ch-1").getInflight());
+
+        // 同一请求重新路由时释放上一次的租约
+        EndpointProcessData retried = new EndpointProcessData();
+        stats.acquire(retried, "ch-1");
+        stats.acquire(retried, "ch-2");
+        assertEquals(1, stats.load("ch-1").getInflight());
+        assertEquals(1, stats.load("ch-2").getInflight());
+        assertEquals("ch-2", retried.getInflightChannelCode());
+    }
+
+    @Test
+    public void complete_cancelledRequestOnlyReleases() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        stats.complete("ch-1", 100, false);
+        EndpointProcessData log = new EndpointProcessData();
+        log.setChannelCode("ch-1");
+        log.setRequestMillis(DateTimeUtils.getCurrentMills() - 5000);
+        log.setResponse(error(502));
+        log.setCancelled(true);
+        stats.acquire(log, "ch-1");
+        int limit = stats.load("ch-1").getLimit().getLimit();
+
+        // 对冲落选被取消的请求不计入延迟和失败样本
+        stats.complete(log);
+        assertEquals(0, stats.load("ch-1").getInflight());
+        assertEquals(100, stats.load("ch-1").getLatency(), 0.001);
+        assertEquals(limit, stats.load("ch-1").getLimit().getLimit());
+    }
+
+    @Test
+    public void select_prefersLowLatencyAndRespectsLimits() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        ChannelDB fast = channel("ch-fast", "{}");
+        ChannelDB slow = channel("ch-slow", "{}");
+        stats.complete("ch-fast", 100, false);
+        stats.complete("ch-slow", 300, false);
+        List<ChannelDB> candidates = Arrays.asList(fast, slow);
+        P2CChannelSelector selector = new P2CChannelSelector(stats);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(fast, selector.select(candidates));
+        }
+
+        // 在途请求多时转向慢渠道：100 × (3 + 1) > 300 × 1
+        for (int i = 0; i < 3; i++) {
+            stats.acquire("ch-fast");
+        }
+        assertEquals(slow, selector.select(candidates));
+
+        // 权重抵消延迟差异
+        ChannelDB weighted = channel("ch-slow", "{\"routeWeight\": 10}");
+        assertEquals(weighted, selector.select(Arrays.asList(fast, weighted)));
+
+        // 达到并发上限
+        ChannelDB capped = channel("ch-fast", "{\"routeMaxConcurrency\": 3}");
+        stats.complete("ch-fast", 1, false);
+        stats.complete("ch-fast", 1, false);
+        stats.complete("ch-fast", 1, false);
+        stats.acquire("ch-fast");
+        stats.acquire("ch-fast");
+        stats.acquire("ch-fast");
+        assertEquals(slow, selector.select(Arrays.asList(capped, slow)));
+    }
+
+    @Test
+    public void select_coldChannelComparedByInflight() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        ChannelDB warm = channel("ch-warm", "{}");
+        ChannelDB cold = channel("ch-cold", "{}");
+        stats.complete("ch-warm", 1000, false);
+        P2CChannelSelector selector = new P2CChannelSelector(stats);
+
+        stats.acquire("ch-cold");
+        stats.acquire("ch-cold");
+        assertEquals(warm, selector.select(Arrays.asList(warm, cold)));
+    }
+
+    private static ChannelDB channel(String code, String channelInfo) {
+        ChannelDB channel = new ChannelDB();
+        channel.setChannelCode(code);
+        channel.setChannelInfo(channelInfo);
+        return channel;
+    }
+
+    private static OpenapiResponse error(int httpCode) {
+        OpenapiResponse response = new OpenapiResponse();
+        response.setError(new OpenapiResponse.OpenapiError("error", "error", httpCode));
+        return response;
+    }
+}
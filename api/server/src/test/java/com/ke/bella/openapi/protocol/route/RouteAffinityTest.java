@@ -0,0 +1,127 @@
+package com.ke.bella.openapi.protocol.route;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.EndpointContext;
+import com.ke.bella.openapi.protocol.completion.CompletionRequest;
+import com.ke.bella.openapi.protocol.completion.Message;
+import com.ke.bella.openapi.tables.pojos.ChannelDB;
+
+/**
+ * 提示词缓存亲和路由：前缀哈希稳定、显式键优先、rendezvous选择的粘性与均衡
+ */
+public class RouteAffinityTest {
+
+    @AfterEach
+    public void tearDown() {
+        EndpointContext.clearAll();
+        BellaContext.clearAll();
+    }
+
+    @Test
+    public void bind_keyStableAcrossLaterTurns() {
+        RouteAffinity affinity = affinity();
+        affinity.bind(request("你是翻译助手", "hello", "你好", "world"));
+        Long key = EndpointContext.getRouteAffinityKey();
+
+        affinity.bind(request("你是翻译助手", "hello", "你好", "world", "世界", "bye"));
+        assertEquals(key, EndpointContext.getRouteAffinityKey());
+
+        affinity.bind(request("你是写作助手", "hello", "你好", "world"));
+        assertNotEquals(key, EndpointContext.getRouteAffinityKey());
+
+        // 显式指定的亲和键优先
+        BellaContext.getHeaders().put(RouteAffinity.AFFINITY_KEY_HEADER, "session-1");
+        affinity.bind(request("你是翻译助手", "hello"));
+        Long session = EndpointContext.getRouteAffinityKey();
+        affinity.bind(request("你是写作助手", "bye"));
+        assertEquals(session, EndpointContext.getRouteAffinityKey());
+    }
+
+    @Test
+    public void bind_disabledLeavesKeyUnset() {
+        RouteAffinity affinity = new RouteAffinity();
+        affinity.bind(request("你是翻译助手", "hello"));
+        assertEquals(null, EndpointContext.getRouteAffinityKey());
+    }
+
+    @Test
+    public void select_stickyUntilChannelRemoved() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        List<ChannelDB> channels = channels(5);
+        int moved = 0;
+        int[] counts = new int[channels.size()];
+        for (long key = 0; key < 10_000; key++) {
+            ChannelDB chosen = RouteAffinity.select(channels, key, stats);
+            assertEquals(chosen, RouteAffinity.select(channels, key, stats));
+            counts[channels.indexOf(chosen)]++;
+
+            List<ChannelDB> remaining = new ArrayList<>(channels);
+            remaining.remove(channels.get(0));
+            ChannelDB next = RouteAffinity.select(remaining, key, stats);
+            if(chosen != channels.get(0)) {
+                // 其他渠道下线不影响未落在其上的键
+                assertEquals(chosen, next);
+            } else {
+                moved++;
+            }
+        }
+        assertEquals(counts[0], moved);
+        for (int count : counts) {
+            assertTrue(count > 1600 && count < 2400, Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    public void select_respectsRouteWeight() {
+        ChannelLoadStats stats = new ChannelLoadStats();
+        List<ChannelDB> channels = channels(2);
+        channels.get(0).setChannelInfo("{\"routeWeight\": 3}");
+        int heavy = 0;
+        for (long key = 0; key < 10_000; key++) {
+            if(RouteAffinity.select(channels, key, stats) == channels.get(0)) {
+                heavy++;
+            }
+        }
+        assertTrue(heavy > 7000 && heavy < 8000, "heavy " + heavy);
+    }
+
+    private static RouteAffinity affinity() {
+        RouteAffinity affinity = new RouteAffinity();
+        ReflectionTestUtils.setField(affinity, "enabled", true);
+        return affinity;
+    }
+
+    private static CompletionRequest request(String system, String... turns) {
+        List<Message> messages = new ArrayList<>();
+        messages.add(Message.builder().role("system").content(system).build());
+        for (int i = 0; i < turns.length; i++) {
+            messages.add(Message.builder().role(i % 2 == 0 ? "user" : "assistant").content(turns[i]).build());
+        }
+        CompletionRequest request = new CompletionRequest();
+        request.setMessages(messages);
+        return request;
+    }
+
+    private static List<ChannelDB> channels(int count) {
+        List<ChannelDB> channels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChannelDB channel = new ChannelDB();
+            channel.setChannelCode("ch-" + i);
+            channel.setChannelInfo("{}");
+            channels.add(channel);
+        }
+        return channels;
+    }
+}
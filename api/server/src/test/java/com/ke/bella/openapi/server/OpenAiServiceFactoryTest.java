@@ -0,0 +1,83 @@
+package com.ke.bella.openapi.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+import com.theokanning.openai.service.OpenAiService;
+
+import okhttp3.ResponseBody;
+
+/**
+ * OpenAiServiceFactory实例缓存与连接复用：本地桩文件服务
+ */
+public class OpenAiServiceFactoryTest {
+
+    private static final byte[] CONTENT = "file-content".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final Set<String> clients = ConcurrentHashMap.newKeySet();
+    private OpenAiServiceFactory factory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clients.add(exchange.getRemoteAddress().toString());
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(CONTENT);
+            }
+        });
+        server.start();
+        OpenapiProperties properties = new OpenapiProperties();
+        properties.setHost("http://127.0.0.1:" + server.getAddress().getPort());
+        factory = new OpenAiServiceFactory(properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void create_reusesServiceAndConnection() throws Exception {
+        int requests = 50;
+        for (int i = 0; i < requests; i++) {
+            OpenAiService service = factory.create(10, 60);
+            try (ResponseBody body = service.retrieveFileContent("file-" + i)) {
+                assertArrayEquals(CONTENT, body.bytes());
+            }
+        }
+
+        OpenAiServiceFactory.Stats stats = factory.stats();
+        assertEquals(1, stats.getServices());
+        assertEquals(1, stats.getMisses());
+        assertEquals(requests - 1, stats.getHits());
+        // 顺序请求全部复用同一条keep-alive连接
+        assertEquals(1, clients.size());
+    }
+
+    @Test
+    public void create_keyedByApikeyAndTimeouts() {
+        assertSame(factory.create("ak-1", 10, 60), factory.create("ak-1", 10, 60));
+        assertNotSame(factory.create("ak-1", 10, 60), factory.create("ak-2", 10, 60));
+        assertNotSame(factory.create("ak-1", 10, 60), factory.create("ak-1", 10, 120));
+        assertNotSame(factory.create(10, 60), factory.create("ak-1", 10, 60));
+        // 固定context的实例不读取调用线程的BellaContext，不与缓存实例共用
+        assertNotSame(factory.create("ak-1", Collections.emptyMap(), 10, 60), factory.create("ak-1", 10, 60));
+    }
+}
@@ -0,0 +1,58 @@
+package com.ke.bella.openapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.ke.bella.openapi.apikey.ApikeyOps;
+import com.ke.bella.openapi.db.repo.ApikeyRepo;
+import com.ke.bella.openapi.event.ApiKeyChangeEvent;
+import com.ke.bella.openapi.tables.pojos.ApikeyDB;
+
+/**
+ * 重置ak：变更事件携带写入前的sha，提交后按旧sha清理缓存
+ */
+@ExtendWith(MockitoExtension.class)
+public class ApikeyServiceResetTest {
+
+    @Mock
+    private ApikeyRepo apikeyRepo;
+    @Mock
+    private AkPermissionChecker akPermissionChecker;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @InjectMocks
+    private ApikeyService apikeyService;
+
+    @Test
+    public void reset_publishesPreUpdateSha() {
+        ApikeyDB existing = new ApikeyDB();
+        existing.setCode("ak-1");
+        existing.setAkSha("sha-old");
+        when(apikeyRepo.queryByUniqueKey("ak-1")).thenReturn(existing);
+        ApikeyOps.CodeOp op = new ApikeyOps.CodeOp();
+        op.setCode("ak-1");
+
+        apikeyService.reset(op);
+
+        InOrder order = inOrder(apikeyRepo, eventPublisher);
+        order.verify(apikeyRepo).update(any(ApikeyDB.class), eq("ak-1"));
+        ArgumentCaptor<ApiKeyChangeEvent> captor = ArgumentCaptor.forClass(ApiKeyChangeEvent.class);
+        order.verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(Collections.singletonList("ak-1"), captor.getValue().getAkCodes());
+        assertEquals(Collections.singletonList("sha-old"), captor.getValue().getAkShas());
+    }
+}
@@ -0,0 +1,191 @@
+package com.ke.bella.openapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.apikey.ApikeyInfo;
+import com.ke.bella.openapi.server.OpenAiServiceFactory;
+import com.ke.bella.openapi.utils.EncryptUtils;
+import com.ke.bella.openapi.utils.JacksonUtils;
+import com.theokanning.openai.service.OpenAiService;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/**
+ * 文件内容缓存：按file id只下载一次、按hash去重、大文件落盘与base64流式序列化
+ */
+public class FileContentCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final Map<String, byte[]> files = new HashMap<>();
+    private OpenAiService service;
+    private FileContentCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        service = mock(OpenAiService.class);
+        when(service.retrieveFileContent(anyString())).thenAnswer(invocation -> ResponseBody.create(
+                MediaType.parse("application/octet-stream"), files.get(invocation.<String>getArgument(0))));
+        OpenAiServiceFactory factory = mock(OpenAiServiceFactory.class);
+        when(factory.create(anyInt(), anyInt())).thenReturn(service);
+
+        cache = new FileContentCache();
+        ReflectionTestUtils.setField(cache, "openAiServiceFactory", factory);
+        ReflectionTestUtils.setField(cache, "memoryBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(cache, "memoryItemBytes", 64 * 1024);
+        ReflectionTestUtils.setField(cache, "diskBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(cache, "maxFiles", 100L);
+        ReflectionTestUtils.setField(cache, "indexTtlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "dir", dir.toString());
+        cache.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.destroy();
+        BellaContext.clearAll();
+    }
+
+    @Test
+    public void get_fetchesOncePerFileId() {
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+        files.put("file-1", content);
+
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(content, cache.get("file-1").toBytes());
+        }
+
+        verify(service, times(1)).retrieveFileContent("file-1");
+    }
+
+    @Test
+    public void get_sameContentSharesHash() {
+        byte[] content = "same".getBytes(StandardCharsets.UTF_8);
+        files.put("file-1", content);
+        files.put("file-2", content);
+
+        FileContentCache.Content first = cache.get("file-1");
+        FileContentCache.Content second = cache.get("file-2");
+
+        assertEquals(EncryptUtils.sha256("same"), first.getHash());
+        assertEquals(first.getHash(), second.getHash());
+        assertTrue(first.toBytes() == second.toBytes());
+    }
+
+    @Test
+    public void get_largeContentSpillsToDiskAndStreamsBase64() throws Exception {
+        byte[] content = new byte[200 * 1024];
+        new Random(42).nextBytes(content);
+        files.put("file-large", content);
+
+        FileContentCache.Content cached = cache.get("file-large");
+        File directory = (File) ReflectionTestUtils.getField(cache, "directory");
+
+        assertEquals(content.length, cached.size());
+        assertTrue(new File(directory, cached.getHash()).exists());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("file", cached.asBase64());
+        JsonNode json = JacksonUtils.MAPPER.readTree(JacksonUtils.toByte(body));
+        assertEquals(Base64.getEncoder().encodeToString(content), json.get("file").asText());
+    }
+
+    @Test
+    public void get_isolatesFileIdByApikey() {
+        byte[] content = "private".getBytes(StandardCharsets.UTF_8);
+        files.put("file-1", content);
+
+        BellaContext.setApikey(apikey("ak-1"));
+        cache.get("file-1");
+        cache.get("file-1");
+        // 其他apikey访问同一file id需重新经文件服务鉴权
+        BellaContext.setApikey(apikey("ak-2"));
+        assertArrayEquals(content, cache.get("file-1").toBytes());
+
+        verify(service, times(2)).retrieveFileContent("file-1");
+    }
+
+    @Test
+    public void withFile_survivesEvictionDuringUse() throws Exception {
+        byte[] content = new byte[200 * 1024];
+        new Random(7).nextBytes(content);
+        files.put("file-large", content);
+        File directory = (File) ReflectionTestUtils.getField(cache, "directory");
+        File cached = new File(directory, cache.get("file-large").getHash());
+
+        File pinned = cache.withFile("file-large", file -> {
+            // 上传期间缓存文件被淘汰删除
+            assertTrue(cached.delete());
+            try {
+                assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return file;
+        });
+
+        assertFalse(pinned.exists());
+        // 原文件已删除，重新下载
+        assertArrayEquals(content, cache.get("file-large").toBytes());
+        verify(service, times(2)).retrieveFileContent("file-large");
+    }
+
+    @Test
+    public void init_usesPerProcessDirectory() throws Exception {
+        byte[] content = new byte[200 * 1024];
+        new Random(9).nextBytes(content);
+        files.put("file-large", content);
+        File directory = (File) ReflectionTestUtils.getField(cache, "directory");
+        File cached = new File(directory, cache.get("file-large").getHash());
+
+        FileContentCache other = new FileContentCache();
+        ReflectionTestUtils.setField(other, "memoryBytes", 1024L);
+        ReflectionTestUtils.setField(other, "diskBytes", 1024L);
+        ReflectionTestUtils.setField(other, "maxFiles", 10L);
+        ReflectionTestUtils.setField(other, "indexTtlSeconds", 60L);
+        ReflectionTestUtils.setField(other, "dir", dir.toString());
+        other.init();
+        other.destroy();
+
+        // 同一目录下其他实例的启动与退出不影响本实例的缓存文件
+        assertTrue(cached.exists());
+        assertNotEquals(directory, ReflectionTestUtils.getField(other, "directory"));
+    }
+
+    private static ApikeyInfo apikey(String code) {
+        ApikeyInfo apikey = new ApikeyInfo();
+        apikey.setCode(code);
+        return apikey;
+    }
+}
@@ -0,0 +1,189 @@
+package com.ke.bella.openapi.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.ke.bella.openapi.EndpointProcessData;
+import com.ke.bella.openapi.common.exception.BellaException;
+import com.ke.bella.openapi.protocol.Callbacks;
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+import com.ke.bella.openapi.protocol.completion.Message;
+import com.ke.bella.openapi.protocol.completion.StreamCompletionResponse;
+import com.ke.bella.openapi.protocol.completion.callback.ToolCallSimulatorCallback;
+
+/**
+ * 增量function call解析测试，长tool call流的解析基准见benchmarks模块ToolCallParseBenchmark
+ */
+class PythonFuncCallParserTest {
+
+    private static final String TOOL_CALLS = "```python\n"
+            + "get_weather(city=\"北京\", days=3, opts={'units': ['c', 'f'], \"detail\": {\"hourly\": True, \"alerts\": None}})\n"
+            + "search(query='it\\'s \\\"quoted\\\"', limit=-10, ratio=0.25)\n"
+            + "```";
+
+    @Test
+    void testParseToolCalls() throws Exception {
+        CompletionResponse.Choice choice = SimulationHepler.parse("", TOOL_CALLS);
+
+        List<Message.ToolCall> calls = choice.getMessage().getTool_calls();
+        assertEquals(2, calls.size());
+        assertEquals("get_weather", calls.get(0).getFunction().getName());
+        assertEquals("{\"city\":\"北京\",\"days\":3,\"opts\":{\"units\":[\"c\",\"f\"],\"detail\":{\"hourly\":true,\"alerts\":null}}}",
+                calls.get(0).getFunction().getArguments());
+        assertEquals("search", calls.get(1).getFunction().getName());
+        assertEquals("{\"query\":\"it's \\\"quoted\\\"\",\"limit\":-10,\"ratio\":0.25}", calls.get(1).getFunction().getArguments());
+    }
+
+    @Test
+    void testStreamingResultIndependentOfChunking() {
+        Map<Integer, String> whole = streamArguments(TOOL_CALLS, TOOL_CALLS.length());
+        for (int chunk = 1; chunk <= 8; chunk++) {
+            assertEquals(whole, streamArguments(TOOL_CALLS, chunk), "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    void testDirectlyResponseStreamsContentPerDelta() {
+        String text = "```python\ndirectly_response(type=\"chat\", content=\"你好\\n世界\")\n```";
+        List<String> contents = new ArrayList<>();
+        PythonFuncCallParser parser = SimulationHepler.streamParser(new FunctionCallListener() {
+            @Override
+            public void onMessage(StreamCompletionResponse msg) {
+                contents.add(msg.content());
+            }
+        });
+        for (int i = 0; i < text.length(); i += 4) {
+            parser.feed(text.substring(i, Math.min(text.length(), i + 4)));
+        }
+        parser.finish();
+
+        assertTrue(contents.size() > 1);
+        assertEquals("你好\n世界", String.join("", contents));
+    }
+
+    @Test
+    void testCallbackEmitsToolCallsInline() {
+        EndpointProcessData processData = new EndpointProcessData();
+        processData.setFunctionCallSimulate(true);
+        RecordingCallback recorder = new RecordingCallback();
+        ToolCallSimulatorCallback callback = new ToolCallSimulatorCallback(processData);
+        callback.addLast(recorder);
+
+        callback.onOpen();
+        for (int i = 0; i < TOOL_CALLS.length(); i += 3) {
+            callback.callback(delta(TOOL_CALLS.substring(i, Math.min(TOOL_CALLS.length(), i + 3))));
+        }
+        // 首个函数调用在流结束前已发出
+        assertTrue(recorder.toolCallMessages > 0);
+        assertFalse(recorder.done);
+
+        callback.done();
+        callback.finish();
+        assertTrue(recorder.done);
+        assertEquals(1, recorder.finished);
+    }
+
+    @Test
+    void testCallbackFinishesOnParseError() {
+        EndpointProcessData processData = new EndpointProcessData();
+        processData.setFunctionCallSimulate(true);
+        RecordingCallback recorder = new RecordingCallback();
+        ToolCallSimulatorCallback callback = new ToolCallSimulatorCallback(processData);
+        callback.addLast(recorder);
+
+        callback.onOpen();
+        callback.callback(delta("not a code block"));
+        callback.callback(delta("more"));
+        callback.done();
+        callback.finish();
+
+        assertTrue(recorder.done);
+        assertEquals(1, recorder.finished);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testDeprecatedReaderParseDelegatesToIncrementalParser() throws Exception {
+        FunctionCallContentBuffer buffer = new FunctionCallContentBuffer();
+        buffer.append(delta(TOOL_CALLS.substring(0, 20)));
+        buffer.append(delta(TOOL_CALLS.substring(20)));
+        buffer.finish();
+
+        List<Map<String, Object>> calls = new PythonFuncCallParser(buffer, new PythonFuncCallListener(null)).parse();
+
+        assertEquals(2, calls.size());
+        assertEquals("get_weather", calls.get(0).get("function"));
+        assertEquals("北京", calls.get(0).get("city"));
+        assertEquals(3, calls.get(0).get("days"));
+        assertEquals("search", calls.get(1).get("function"));
+        assertEquals(-10, calls.get(1).get("limit"));
+    }
+
+    private static Map<Integer, String> streamArguments(String text, int chunk) {
+        Map<Integer, String> arguments = new TreeMap<>();
+        PythonFuncCallParser parser = SimulationHepler.streamParser(new FunctionCallListener() {
+            @Override
+            public void onMessage(StreamCompletionResponse msg) {
+                Message.ToolCall call = msg.toolCalls().get(0);
+                arguments.merge(call.getIndex(), String.valueOf(call.getFunction().getArguments()), String::concat);
+            }
+        });
+        for (int i = 0; i < text.length(); i += chunk) {
+            parser.feed(text.substring(i, Math.min(text.length(), i + chunk)));
+        }
+        parser.finish();
+        return arguments;
+    }
+
+    private static StreamCompletionResponse delta(String content) {
+        return StreamCompletionResponse.builder()
+                .id("chatcmpl-test")
+                .model("test-model")
+                .choices(StreamCompletionResponse.assistantMessageChoice(content))
+                .build();
+    }
+
+    private static class RecordingCallback implements Callbacks.StreamCompletionCallback {
+        int toolCallMessages;
+        boolean done;
+        int finished;
+
+        @Override
+        public void onOpen() {
+        }
+
+        @Override
+        public void callback(StreamCompletionResponse msg) {
+            if(msg.toolCalls() != null) {
+                toolCallMessages++;
+            }
+        }
+
+        @Override
+        public void done() {
+            done = true;
+        }
+
+        @Override
+        public void finish() {
+            finished++;
+        }
+
+        @Override
+        public void finish(BellaException exception) {
+            finished++;
+        }
+
+        @Override
+        public void send(Object data) {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ke.bella.openapi.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.ke.bella.openapi.protocol.completion.CompletionResponse;
+
+/**
+ * 计费脚本执行：并发正确性与快速路径一致性
+ */
+public class GroovyExecutorTest {
+
+    private static final String LINEAR = "price.input * usage.prompt_tokens / 1000 + price.output * usage.completion_tokens / 1000";
+    // 包含局部变量，只能走Groovy
+    private static final String GROOVY = "def input = usage.prompt_tokens * price.input\n"
+            + "def output = usage.completion_tokens * price.output\n"
+            + "return (input + output) / 1000";
+
+    @Test
+    public void executeScript_concurrentCallsKeepTheirOwnBinding() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 1; i <= 500; i++) {
+                        int prompt = seed * 1000 + i;
+                        double expected = (prompt * 2.0 + i * 3.0) / 1000;
+                        Object result = GroovyExecutor.executeScript(GROOVY, params(2, 3, prompt, i));
+                        assertEquals(expected, Double.parseDouble(result.toString()), 1e-9);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void executeScript_formulaMatchesGroovy() {
+        CompletionResponse.TokenUsage usage = new CompletionResponse.TokenUsage();
+        usage.setPrompt_tokens(1532);
+        usage.setCompletion_tokens(187);
+        Map<String, Object> price = new HashMap<>();
+        price.put("input", 0.8);
+        price.put("output", 2);
+        price.put("cached", new BigDecimal("0.35"));
+        Map<String, Object> params = new HashMap<>();
+        params.put("price", price);
+        params.put("usage", usage);
+
+        // 整数相除为BigDecimal、除不尽时按Groovy的精度舍入，字面量小数为BigDecimal，含double属性时按double计算
+        String[] formulas = { LINEAR, "price.output * usage.prompt_tokens / 1000 + price.cached * usage.completion_tokens / 7",
+                "usage.prompt_tokens / 3 * 0.15", "(usage.prompt_tokens + usage.completion_tokens) / 1000000 * 2.5", "2147483647 + 1" };
+        for (String formula : formulas) {
+            Object fast = GroovyExecutor.executeScript(formula, params);
+            Object groovy = GroovyExecutor.executeScript("def cost = " + formula + "\nreturn cost", params);
+            assertEquals(groovy.getClass(), fast.getClass(), formula);
+            assertEquals(groovy, fast, formula);
+        }
+    }
+
+    @Test
+    public void executeScript_missingPropertyFallsBackToGroovy() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("price", new HashMap<>());
+        params.put("usage", new HashMap<>());
+
+        // 与原Groovy行为一致：null参与运算抛出异常
+        assertThrows(NullPointerException.class, () -> GroovyExecutor.executeScript(LINEAR, params));
+    }
+
+    private static Map<String, Object> params(double input, double output, int prompt, int completion) {
+        Map<String, Object> price = new HashMap<>();
+        price.put("input", input);
+        price.put("output", output);
+        Map<String, Object> usage = new HashMap<>();
+        usage.put("prompt_tokens", prompt);
+        usage.put("completion_tokens", completion);
+        Map<String, Object> params = new HashMap<>();
+        params.put("price", price);
+        params.put("usage", usage);
+        return params;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ke.bella.openapi.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ke.bella.openapi.protocol.UpstreamCancellation;
+
+/**
+ * SseFrameWriter帧格式与断开检测测试
+ */
+public class SseFrameWriterTest {
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    public void setUp() {
+        request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        request.setAsyncStarted(true);
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void write_dataAndEventFrames() throws Exception {
+        SseFrameWriter writer = new SseFrameWriter(1000, request, response, 0, 8192);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", "message_start");
+        data.put("index", 1);
+
+        writer.write("message_start", data);
+        writer.write(null, "[DONE]");
+
+        assertEquals("event:message_start\ndata:{\"type\":\"message_start\",\"index\":1}\n\ndata:[DONE]\n\n",
+                response.getContentAsString());
+        assertTrue(response.getContentType().startsWith("text/event-stream"));
+    }
+
+    @Test
+    public void send_builderMatchesSseEmitterFormat() throws Exception {
+        SseFrameWriter writer = new SseFrameWriter(1000, request, response, 0, 8192);
+
+        writer.send(SseEmitter.event().name(" response.created").data(" {}"));
+
+        assertEquals("event: response.created\ndata: {}\n\n", response.getContentAsString());
+    }
+
+    @Test
+    public void write_coalescesUntilFlushBytes() throws Exception {
+        SseFrameWriter writer = new SseFrameWriter(1000, request, response, 60000, 32);
+
+        writer.write(null, "first");
+        writer.write(null, "a");
+        assertEquals("data:first\n\n", response.getContentAsString());
+
+        writer.write(null, "0123456789012345678901234567890123456789");
+        assertEquals("data:first\n\ndata:a\n\ndata:0123456789012345678901234567890123456789\n\n", response.getContentAsString());
+    }
+
+    @Test
+    public void write_bufferedUntilAsyncStarted() throws Exception {
+        request.setAsyncStarted(false);
+        SseFrameWriter writer = new SseFrameWriter(1000, request, response, 0, 8192);
+
+        writer.write(null, "early");
+        assertEquals("", response.getContentAsString());
+
+        request.setAsyncStarted(true);
+        writer.write(null, "late");
+        assertEquals("data:early\n\ndata:late\n\n", response.getContentAsString());
+    }
+
+    @Test
+    public void write_outputFailureTriggersDisconnect() throws Exception {
+        HttpServletResponse broken = mock(HttpServletResponse.class);
+        when(broken.getOutputStream()).thenThrow(new IOException("Broken pipe"));
+        SseFrameWriter writer = new SseFrameWriter(1000, request, broken, 0, 8192);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        writer.onDisconnect(() -> cancelled.set(true));
+
+        assertThrows(IOException.class, () -> writer.write(null, "data"));
+        assertTrue(cancelled.get());
+        assertTrue(writer.isDisconnected());
+
+        // 断开后的写入直接丢弃
+        writer.write(null, "more");
+    }
+
+    @Test
+    public void createSse_disconnectCancelsUpstream() throws Exception {
+        HttpServletResponse broken = mock(HttpServletResponse.class);
+        when(broken.getOutputStream()).thenThrow(new IOException("Broken pipe"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, broken));
+        try {
+            SseEmitter sse = SseHelper.createSse(1000, "req-1");
+            AtomicBoolean cancelled = new AtomicBoolean();
+            UpstreamCancellation.register(() -> cancelled.set(true));
+
+            SseHelper.sendEvent(sse, "data");
+
+            assertTrue(SseHelper.isDisconnected(sse));
+            assertTrue(cancelled.get());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            UpstreamCancellation.unbind();
+        }
+    }
+}
@@ -1,59 +1,69 @@
 package com.ke.bella.openapi.server;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.ke.bella.openapi.BellaContext;
 import com.ke.bella.openapi.request.BellaInterceptor;
 import com.ke.bella.openapi.utils.HttpUtils;
 import com.theokanning.openai.client.OpenAiApi;
 import com.theokanning.openai.service.OpenAiService;
-import okhttp3.Interceptor;
+import lombok.Value;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.Response;
-import org.apache.commons.collections4.MapUtils;
 import retrofit2.Retrofit;
 
-import java.io.IOException;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
- * OpenAiService工厂，每次调用都创建新的实例并使用当前BellaContext
+ * OpenAiService工厂：按(apikey, 超时)缓存实例，所有实例共享HttpUtils的连接池和一个dispatcher，
+ * 对文件服务的连接可复用，不再每次调用新建OkHttpClient/ObjectMapper/Retrofit。
+ * <p>
+ * 缓存的实例在每次发起请求时从调用线程读取BellaContext（而不是创建时快照），因此同一实例可跨请求复用；
+ * 启动时创建并长期持有的服务实例应使用固定context的create，避免把当时调用线程的请求头和ucid转发出去。
+ * 实例的executor为共享线程池，调用方不要调用shutdownExecutor。
  */
 public class OpenAiServiceFactory {
 
+    private static final long MAX_SERVICES = 256;
+
     private final OpenapiProperties openapiProperties;
+    private final ObjectMapper mapper = OpenAiService.defaultObjectMapper();
+    private final OkHttpClient baseClient;
+    private final Cache<Key, OpenAiService> services = Caffeine.newBuilder()
+            .maximumSize(MAX_SERVICES)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
 
     public OpenAiServiceFactory(OpenapiProperties openapiProperties) {
         this.openapiProperties = openapiProperties;
+        Dispatcher dispatcher = new Dispatcher(HttpUtils.getExecutorService());
+        dispatcher.setMaxRequests(2000);
+        dispatcher.setMaxRequestsPerHost(500);
+        this.baseClient = new OkHttpClient.Builder()
+                .connectionPool(HttpUtils.getConnectionPool())
+                .dispatcher(dispatcher)
+                .build();
     }
 
     /**
-     * 创建一个使用当前BellaContext的OpenAiService实例
-     * 每次调用都会获取当前线程的BellaContext并创建新的OpenAiService
+     * 获取使用调用线程BellaContext的OpenAiService实例
      */
     public OpenAiService create() {
         return create(10, 120);
     }
 
     /**
-     * 创建一个使用当前BellaContext的OpenAiService实例（带自定义超时）
+     * 获取使用调用线程BellaContext的OpenAiService实例（带自定义超时）
      */
     public OpenAiService create(int connectTimeoutSeconds, int readTimeoutSeconds) {
-        ObjectMapper mapper = OpenAiService.defaultObjectMapper();
-
-        // 创建带有自定义超时的client
-        OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(new BellaInterceptor(openapiProperties.getHost(), BellaContext.snapshot()))
-                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
-                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
-                .build();
-
-        Retrofit retrofit = OpenAiService.defaultRetrofit(client, mapper, openapiProperties.getHost() + "/v1/");
-        OpenAiApi openAiApi = retrofit.create(OpenAiApi.class);
-        ExecutorService executorService = client.dispatcher().executorService();
-
-        return new OpenAiService(openAiApi, executorService);
+        return create(null, connectTimeoutSeconds, readTimeoutSeconds);
     }
 
     public OpenAiService create(String apikey) {
@@ -61,28 +71,69 @@ public class OpenAiServiceFactory {
     }
 
     /**
-     * 创建一个使用当前BellaContext的OpenAiService实例（带自定义超时）, 使用d
+     * 获取使用指定apikey鉴权的OpenAiService实例（带自定义超时），其余请求头取自调用线程的BellaContext
      */
     public OpenAiService create(String apikey, int connectTimeoutSeconds, int readTimeoutSeconds) {
-        ObjectMapper mapper = OpenAiService.defaultObjectMapper();
-
-        // 创建带有自定义超时的client
-        OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(new BellaInterceptor(openapiProperties.getHost(), BellaContext.snapshot()))
-                .addInterceptor(chain -> {
-                    Request originalRequest = chain.request();
-                    Request.Builder bellaRequest = originalRequest.newBuilder();
-                    bellaRequest.header("Authorization", "Bearer " + apikey);
-                    return chain.proceed(bellaRequest.build());
-                })
-                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
-                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
-                .build();
+        return services.get(new Key(apikey, connectTimeoutSeconds, readTimeoutSeconds), key -> build(key, BellaContext::snapshot));
+    }
 
-        Retrofit retrofit = OpenAiService.defaultRetrofit(client, mapper, openapiProperties.getHost() + "/v1/");
+    public OpenAiService create(String apikey, Map<String, Object> context) {
+        return create(apikey, context, 10, 120);
+    }
+
+    /**
+     * 创建使用固定context的OpenAiService实例，不读取调用线程的BellaContext；传入空map时只按apikey鉴权，不转发任何请求上下文。
+     * 实例不进缓存，由调用方持有（仍共享连接池）
+     */
+    public OpenAiService create(String apikey, Map<String, Object> context, int connectTimeoutSeconds, int readTimeoutSeconds) {
+        return build(new Key(apikey, connectTimeoutSeconds, readTimeoutSeconds), () -> context);
+    }
+
+    public Stats stats() {
+        CacheStats cacheStats = services.stats();
+        ConnectionPool pool = baseClient.connectionPool();
+        return new Stats(services.estimatedSize(), cacheStats.hitCount(), cacheStats.missCount(), cacheStats.evictionCount(),
+                pool.connectionCount(), pool.idleConnectionCount(), baseClient.dispatcher().runningCallsCount());
+    }
+
+    private OpenAiService build(Key key, Supplier<Map<String, Object>> context) {
+        String host = openapiProperties.getHost();
+        OkHttpClient.Builder builder = baseClient.newBuilder()
+                .addInterceptor(chain -> new BellaInterceptor(host, context.get()).intercept(chain))
+                .connectTimeout(key.connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(key.readTimeoutSeconds, TimeUnit.SECONDS);
+        if(key.apikey != null) {
+            builder.addInterceptor(chain -> {
+                Request.Builder bellaRequest = chain.request().newBuilder();
+                bellaRequest.header("Authorization", "Bearer " + key.apikey);
+                return chain.proceed(bellaRequest.build());
+            });
+        }
+        OkHttpClient client = builder.build();
+
+        Retrofit retrofit = OpenAiService.defaultRetrofit(client, mapper, host + "/v1/");
         OpenAiApi openAiApi = retrofit.create(OpenAiApi.class);
-        ExecutorService executorService = client.dispatcher().executorService();
+        return new OpenAiService(openAiApi, client.dispatcher().executorService());
+    }
+
+    @Value
+    private static class Key {
+        String apikey;
+        int connectTimeoutSeconds;
+        int readTimeoutSeconds;
+    }
 
-        return new OpenAiService(openAiApi, executorService);
+    /**
+     * 实例缓存命中情况与共享连接池水位，用于确认连接复用
+     */
+    @Value
+    public static class Stats {
+        long services;
+        long hits;
+        long misses;
+        long evictions;
+        int connections;
+        int idleConnections;
+        int runningCalls;
     }
 }
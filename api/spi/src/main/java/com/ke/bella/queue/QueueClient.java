@@ -1,5 +1,7 @@
 package com.ke.bella.queue;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
 import com.ke.bella.openapi.protocol.BellaEventSourceListener;
 import com.ke.bella.openapi.protocol.Callbacks;
 import com.ke.bella.openapi.utils.HttpUtils;
@@ -20,6 +22,8 @@ public class QueueClient {
 
     private static final int DEFAULT_TIMEOUT_SECONDS = 600;
 
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
     public static QueueClient getInstance(String url) {
         if(INSTANCE == null) {
             synchronized(QueueClient.class) {
@@ -45,18 +49,57 @@ public class QueueClient {
         return HttpUtils.httpRequest(request, clazz, errorCallback);
     }
 
+    /**
+     * data直接作为原始请求对象写入put报文，不经过Map中转
+     */
+    public <T> T blockingPut(Put put, Object data, String ak, Class<T> clazz, Callbacks.ChannelErrorCallback<T> errorCallback) {
+        put.setResponseMode("blocking");
+        String putUrl = url + "/v1/queue/put";
+        Request request = buildRequest(putUrl, ak, envelope(put, data));
+        return HttpUtils.httpRequest(request, clazz, errorCallback);
+    }
+
     public void streamingPut(Put put, String ak, BellaEventSourceListener listener) {
         put.setResponseMode("streaming");
         String putUrl = url + "/v1/queue/put";
         Request request = buildRequest(putUrl, ak, JacksonUtils.serialize(put));
-        int timeout = (put.getTimeout() != null && put.getTimeout() > 0)
+        HttpUtils.streamRequest(request, listener, timeout(put), timeout(put));
+    }
+
+    /**
+     * data直接作为原始请求对象写入put报文，不经过Map中转
+     */
+    public void streamingPut(Put put, Object data, String ak, BellaEventSourceListener listener) {
+        put.setResponseMode("streaming");
+        String putUrl = url + "/v1/queue/put";
+        Request request = buildRequest(putUrl, ak, envelope(put, data));
+        HttpUtils.streamRequest(request, listener, timeout(put), timeout(put));
+    }
+
+    private static int timeout(Put put) {
+        return (put.getTimeout() != null && put.getTimeout() > 0)
                 ? put.getTimeout()
                 : DEFAULT_TIMEOUT_SECONDS;
-        HttpUtils.streamRequest(request, listener, timeout, timeout);
+    }
+
+    /**
+     * put的其余字段转为树节点(字段很少)，data以POJO节点挂载，序列化时一次写出，省去请求体toMap再序列化的两次转换
+     */
+    private static byte[] envelope(Put put, Object data) {
+        ObjectNode node = JacksonUtils.MAPPER.valueToTree(put);
+        node.set("data", new POJONode(data));
+        return JacksonUtils.toByte(node);
     }
 
     public Request buildRequest(String url, String apikey, String json) {
-        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json);
+        return buildRequest(url, apikey, RequestBody.create(JSON, json));
+    }
+
+    public Request buildRequest(String url, String apikey, byte[] json) {
+        return buildRequest(url, apikey, RequestBody.create(JSON, json));
+    }
+
+    private Request buildRequest(String url, String apikey, RequestBody requestBody) {
         Request.Builder builder = new Request.Builder()
                 .url(url)
                 .post(requestBody);